@@ -2,7 +2,10 @@ package com.safevision.alertservice.service;
 
 import java.math.BigDecimal;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 
@@ -15,6 +18,9 @@ import lombok.extern.slf4j.Slf4j;
  * <p>
  * Design Principles:
  * 1. Asynchronous: Uses CompletableFuture to avoid blocking the main alert processing thread.
+ *    Lookups run on the application task executor rather than the common ForkJoinPool, whose
+ *    few threads would all end up parked on Nominatim; with spring.threads.virtual.enabled that
+ *    executor starts one virtual thread per lookup.
  * 2. Graceful Degradation: Returns null if the external API fails, ensuring the system stays up.
  * </p>
  */
@@ -23,8 +29,11 @@ import lombok.extern.slf4j.Slf4j;
 public class GeocodingService {
 
     private final RestClient restClient;
+    private final Executor executor;
 
-    public GeocodingService(RestClient.Builder builder) {
+    public GeocodingService(RestClient.Builder builder,
+                            @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor) {
+        this.executor = executor;
         // Initializes RestClient with the OSM base URL and mandatory User-Agent
         this.restClient = builder
             .baseUrl("https://nominatim.openstreetmap.org")
@@ -74,6 +83,6 @@ public class GeocodingService {
                 log.warn("🌍 Geocoding failed for [{}, {}]: {}", lat, lon, e.getMessage());
             }
             return null;
-        });
+        }, executor);
     }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.safevision.common.concurrency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Shared support for the virtual-thread mode of the SafeVision services.
+ * <p>
+ * The mode itself is Spring Boot's {@code spring.threads.virtual.enabled}: Tomcat requests, RabbitMQ
+ * listener containers and the {@code applicationTaskExecutor} then run on virtual threads. On top of
+ * it, every service depending on this module gets a {@link VirtualThreadPinningMonitor}.
+ * </p>
+ */
+@AutoConfiguration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@EnableConfigurationProperties(VirtualThreadPinningProperties.class)
+public class VirtualThreadAutoConfiguration {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "safevision.virtual-threads.pinning", name = "enabled", matchIfMissing = true)
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(VirtualThreadPinningProperties properties,
+                                                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        return new VirtualThreadPinningMonitor(properties.threshold(), meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+}
@@ -0,0 +1,99 @@
+package com.safevision.common.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier while blocking.
+ * <p>
+ * A virtual thread that blocks inside a {@code synchronized} block or a native frame cannot unmount,
+ * so it holds one of the few carrier threads for the whole wait, and enough of them stall every
+ * other virtual thread of the service. The JVM reports each such period longer than the threshold as
+ * a {@code jdk.VirtualThreadPinned} JFR event; this monitor streams those events in-process:
+ * <ul>
+ * <li>every event counts in {@code jvm.threads.virtual.pinned} (timer: count, total and max duration);</li>
+ * <li>the first event of each distinct call site is logged with its stack, so the offending lock can
+ *     be found (and replaced by a {@code ReentrantLock}) without flooding the log.</li>
+ * </ul>
+ * The recording only enables this event, so its overhead is negligible while nothing pins.
+ * </p>
+ */
+@Slf4j
+public class VirtualThreadPinningMonitor implements AutoCloseable {
+
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 12;
+
+    private final Duration threshold;
+    private final Timer pinnedTimer;
+    private final Counter callSitesCounter;
+    private final Set<String> reportedCallSites = ConcurrentHashMap.newKeySet();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(Duration threshold, MeterRegistry meterRegistry) {
+        this.threshold = threshold;
+        this.pinnedTimer = Timer.builder("jvm.threads.virtual.pinned")
+            .description("Periods a virtual thread blocked while pinned to its carrier thread")
+            .register(meterRegistry);
+        this.callSitesCounter = Counter.builder("jvm.threads.virtual.pinned.call.sites")
+            .description("Distinct call sites seen pinning a virtual thread")
+            .register(meterRegistry);
+    }
+
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Watching for pinned virtual threads (threshold {} ms)", threshold.toMillis());
+    }
+
+    void onPinned(RecordedEvent event) {
+        pinnedTimer.record(event.getDuration());
+
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace != null ? stackTrace.getFrames() : List.of();
+        // The top frames are the JDK parking the thread; the call site is the first frame of our code or a library.
+        int top = 0;
+        while (top < frames.size() - 1 && isJdkFrame(frames.get(top))) {
+            top++;
+        }
+        String callSite = frames.isEmpty() ? "unknown" : describe(frames.get(top));
+        if (!reportedCallSites.add(callSite)) return;
+
+        callSitesCounter.increment();
+        StringBuilder stack = new StringBuilder();
+        for (int i = top; i < Math.min(frames.size(), top + LOGGED_FRAMES); i++) {
+            stack.append("\n\tat ").append(describe(frames.get(i)));
+        }
+        log.warn("📌 Virtual thread pinned to its carrier for {} ms at {} (further occurrences there are only counted){}",
+            event.getDuration().toMillis(), callSite, stack);
+    }
+
+    @Override
+    public void close() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private static boolean isJdkFrame(RecordedFrame frame) {
+        String type = frame.getMethod().getType().getName();
+        return type.startsWith("java.") || type.startsWith("jdk.") || type.startsWith("sun.");
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
@@ -0,0 +1,19 @@
+package com.safevision.common.concurrency;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Type-safe configuration properties for the detection of pinned virtual threads.
+ * Maps properties starting with "safevision.virtual-threads.pinning" from application.yml.
+ *
+ * @param enabled   Whether pinning is watched at all (only when {@code spring.threads.virtual.enabled} is on).
+ * @param threshold Shortest pinned period reported. Shorter ones are too cheap to matter.
+ */
+@ConfigurationProperties(prefix = "safevision.virtual-threads.pinning")
+public record VirtualThreadPinningProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("20ms") Duration threshold
+) {}
@@ -0,0 +1,35 @@
+package com.safevision.recognitionservice.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of {@code benchmarks.jar}: the regular JMH command line, with the GC profiler always on.
+ * <p>
+ * Every benchmark reports throughput and sampled latency (p50 to p99.99); the GC profiler adds
+ * {@code gc.alloc.rate.norm}, the bytes allocated per operation. Examples:
+ * <pre>
+ * java -jar target/benchmarks.jar                                  # everything
+ * java -jar target/benchmarks.jar ThreatAnalysis -p tracks=1       # one class, one workload
+ * java -jar target/benchmarks.jar -rf json -rff results.json       # machine-readable, to compare runs
+ * </pre>
+ * </p>
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
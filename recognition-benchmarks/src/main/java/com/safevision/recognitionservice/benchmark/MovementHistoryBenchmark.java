@@ -0,0 +1,96 @@
+package com.safevision.recognitionservice.benchmark;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.service.MovementHistoryService;
+import com.safevision.recognitionservice.state.MappedTrackStateStore;
+import com.safevision.recognitionservice.state.TrackHistoryView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MovementHistoryService#recordEvent} and {@link MovementHistoryService#getHistory}.
+ * <p>
+ * {@code tracks=1} keeps one hot record in cache; {@code tracks=50000} cycles through records spread
+ * over the store, the way a busy scene does. The {@code contended} variants run {@value TrackingFixtures#MAX_THREADS}
+ * threads on the same store, each on its own tracks, as the track workers do.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovementHistoryBenchmark {
+
+    @Param({"1", "50000"})
+    int tracks;
+
+    MappedTrackStateStore store;
+    MovementHistoryService historyService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = MappedTrackStateStore.inMemory(TrackingFixtures.storeCapacity(tracks));
+        historyService = new MovementHistoryService(store);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        store.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Frames {
+        RawTrackingEvent[] frames;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(MovementHistoryBenchmark benchmark) {
+            frames = TrackingFixtures.framesForThread(benchmark.tracks, false);
+            // Every track already has a record: measure appends, not first-sight inserts.
+            for (RawTrackingEvent frame : frames) {
+                benchmark.historyService.recordEvent(frame);
+            }
+        }
+
+        RawTrackingEvent next() {
+            RawTrackingEvent frame = frames[next];
+            next = next + 1 == frames.length ? 0 : next + 1;
+            return frame;
+        }
+    }
+
+    @Benchmark
+    public void recordEvent(Frames frames) {
+        historyService.recordEvent(frames.next());
+    }
+
+    @Benchmark
+    public int recordAndRead(Frames frames) {
+        RawTrackingEvent frame = frames.next();
+        historyService.recordEvent(frame);
+        TrackHistoryView history = historyService.getHistory(frame.detectionId());
+        return history.depthAt(0) - history.depthAt(history.size() - 1);
+    }
+
+    @Benchmark
+    @Threads(TrackingFixtures.MAX_THREADS)
+    public void recordEventContended(Frames frames) {
+        historyService.recordEvent(frames.next());
+    }
+}
@@ -0,0 +1,88 @@
+package com.safevision.recognitionservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safevision.recognitionservice.codec.RawTrackingBinaryCodec;
+import com.safevision.recognitionservice.codec.RawTrackingJsonMessageConverter;
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of an incoming AMQP message into a {@link RawTrackingEvent}, on the payload sent by the
+ * Vision Agent: the Jackson converter (the original path), the streaming JSON converter the listeners
+ * use, and the compact binary codec. {@code jacksonObjectMapper} isolates the cost of Jackson itself
+ * from the converter around it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RawTrackingDecodeBenchmark {
+
+    ObjectMapper objectMapper;
+    MessageConverter jacksonConverter;
+    MessageConverter streamingConverter;
+    Message jsonMessage;
+    byte[] jsonBody;
+    byte[] binaryBody;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper();
+        jacksonConverter = new Jackson2JsonMessageConverter();
+        streamingConverter = new RawTrackingJsonMessageConverter(jacksonConverter);
+
+        jsonBody = TrackingFixtures.AGENT_PAYLOAD.getBytes(StandardCharsets.UTF_8);
+        var properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setInferredArgumentType(RawTrackingEvent.class);
+        jsonMessage = new Message(jsonBody, properties);
+        binaryBody = RawTrackingBinaryCodec.encode(objectMapper.readValue(jsonBody, RawTrackingEvent.class));
+    }
+
+    @Benchmark
+    public RawTrackingEvent jacksonObjectMapper() throws IOException {
+        return objectMapper.readValue(jsonBody, RawTrackingEvent.class);
+    }
+
+    @Benchmark
+    public Object jacksonConverter() {
+        return jacksonConverter.fromMessage(jsonMessage);
+    }
+
+    @Benchmark
+    public Object streamingConverter() {
+        return streamingConverter.fromMessage(jsonMessage);
+    }
+
+    @Benchmark
+    @Threads(TrackingFixtures.MAX_THREADS)
+    public Object streamingConverterContended() {
+        return streamingConverter.fromMessage(jsonMessage);
+    }
+
+    @Benchmark
+    public RawTrackingEvent binaryCodec() {
+        return RawTrackingBinaryCodec.decode(binaryBody);
+    }
+}
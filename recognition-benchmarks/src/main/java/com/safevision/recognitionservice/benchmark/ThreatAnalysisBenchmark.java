@@ -0,0 +1,150 @@
+package com.safevision.recognitionservice.benchmark;
+
+import com.safevision.recognitionservice.config.AlertPublisherProperties;
+import com.safevision.recognitionservice.config.AlertSuppressionProperties;
+import com.safevision.recognitionservice.config.CrowdDensityProperties;
+import com.safevision.recognitionservice.config.EvidenceCacheProperties;
+import com.safevision.recognitionservice.config.ThreatPatternProperties;
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.pattern.PatternSignal;
+import com.safevision.recognitionservice.pattern.SequencePattern;
+import com.safevision.recognitionservice.producer.AlertProducer;
+import com.safevision.recognitionservice.rule.ApproachingThreatRule;
+import com.safevision.recognitionservice.rule.CrowdDensityRule;
+import com.safevision.recognitionservice.rule.PersistentStareRule;
+import com.safevision.recognitionservice.rule.SequencePatternRule;
+import com.safevision.recognitionservice.rule.ThreatRuleEngine;
+import com.safevision.recognitionservice.rule.WeaponThreatRule;
+import com.safevision.recognitionservice.service.AlertSuppressionService;
+import com.safevision.recognitionservice.service.CrowdDensityService;
+import com.safevision.recognitionservice.service.EvidenceCacheService;
+import com.safevision.recognitionservice.service.MovementHistoryService;
+import com.safevision.recognitionservice.service.PatternMatcherService;
+import com.safevision.recognitionservice.service.StareCounterService;
+import com.safevision.recognitionservice.service.ThreatAnalysisService;
+import com.safevision.recognitionservice.state.MappedTrackStateStore;
+import com.safevision.recognitionservice.state.SymbolTable;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ThreatAnalysisService#analyze}: every recorder and rule of the service, wired as in production.
+ * <p>
+ * {@code frames=ROUTINE} is the common case, a subject in view that triggers nothing.
+ * {@code frames=STARING} keeps every subject facing the camera, so the stare rule fires and the
+ * suppression path runs too. The alert producer is never started: alerts queue up in memory and
+ * nothing leaves the process. The camera density sweep is not scheduled, as it runs off the analysis path.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThreatAnalysisBenchmark {
+
+    public enum FrameKind { ROUTINE, STARING }
+
+    /** The sequences shipped in application.yml. */
+    private static final ThreatPatternProperties PATTERNS = new ThreatPatternProperties(List.of(
+        new SequencePattern("stare-then-approach", "OBSERVACAO_SEGUIDA_DE_APROXIMACAO",
+            "Pessoa observou a câmera e em seguida se aproximou rapidamente.",
+            List.of(PatternSignal.STARING, PatternSignal.APPROACHING), Duration.ofSeconds(5)),
+        new SequencePattern("weapon-then-hidden", "ARMA_OCULTADA",
+            "Arma foi vista e em seguida escondida (ausente em dois frames).",
+            List.of(PatternSignal.WEAPON_VISIBLE, PatternSignal.WEAPON_HIDDEN, PatternSignal.WEAPON_HIDDEN), Duration.ofSeconds(10))
+    ));
+
+    @Param({"1", "50000"})
+    int tracks;
+
+    @Param({"ROUTINE", "STARING"})
+    FrameKind frames;
+
+    MappedTrackStateStore store;
+    ScheduledExecutorService maintenanceScheduler;
+    ThreatAnalysisService threatAnalysisService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var meterRegistry = new SimpleMeterRegistry();
+        store = MappedTrackStateStore.inMemory(TrackingFixtures.storeCapacity(tracks));
+        var historyService = new MovementHistoryService(store);
+        var stareCounter = new StareCounterService(store);
+        var patternMatcher = new PatternMatcherService(PATTERNS, historyService, stareCounter, meterRegistry);
+        maintenanceScheduler = Executors.newSingleThreadScheduledExecutor();
+        var crowdDensity = new CrowdDensityService(new CrowdDensityProperties(Duration.ofSeconds(60), 6, 10, 25), maintenanceScheduler);
+        var evidenceCache = new EvidenceCacheService(
+            new EvidenceCacheProperties(tracks, DataSize.ofMegabytes(64), Duration.ofDays(30)), meterRegistry);
+
+        var ruleEngine = new ThreatRuleEngine(
+            List.of(new WeaponThreatRule(), new PersistentStareRule(stareCounter), new ApproachingThreatRule(historyService),
+                new SequencePatternRule(patternMatcher), new CrowdDensityRule(crowdDensity)),
+            List.of(historyService, stareCounter, patternMatcher, crowdDensity, evidenceCache),
+            meterRegistry
+        );
+        var alertProducer = new AlertProducer(new RabbitTemplate(), "safevision.alerts",
+            new AlertPublisherProperties(10_000, 50, Duration.ofMillis(10), 1_000, Duration.ofSeconds(5), 5, Duration.ofSeconds(1)),
+            meterRegistry);
+        var suppressionProperties = new AlertSuppressionProperties(Duration.ofSeconds(30), true);
+        threatAnalysisService = new ThreatAnalysisService(alertProducer, ruleEngine, evidenceCache,
+            new AlertSuppressionService(suppressionProperties, meterRegistry), suppressionProperties,
+            new SymbolTable(), meterRegistry);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        maintenanceScheduler.shutdownNow();
+        store.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Frames {
+        RawTrackingEvent[] frames;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreatAnalysisBenchmark benchmark) {
+            frames = TrackingFixtures.framesForThread(benchmark.tracks, benchmark.frames == FrameKind.STARING);
+        }
+
+        RawTrackingEvent next() {
+            RawTrackingEvent frame = frames[next];
+            next = next + 1 == frames.length ? 0 : next + 1;
+            return frame;
+        }
+    }
+
+    @Benchmark
+    public void analyze(Frames frames) {
+        threatAnalysisService.analyze(frames.next());
+    }
+
+    @Benchmark
+    @Threads(TrackingFixtures.MAX_THREADS)
+    public void analyzeContended(Frames frames) {
+        threatAnalysisService.analyze(frames.next());
+    }
+}
@@ -0,0 +1,53 @@
+package com.safevision.recognitionservice.benchmark;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Frames used by the benchmarks, built before measurement so that fixtures never show up in the
+ * allocation figures.
+ */
+final class TrackingFixtures {
+
+    /** Upper bound of {@code @Threads} used by the benchmarks; sizes the track stores. */
+    static final int MAX_THREADS = 4;
+
+    static final String AGENT_PAYLOAD = """
+        {"detectionId": "det-1", "timestamp": 1700000000123, "isFacingCamera": true, "depthPosition": 57, \
+        "gazeDirection": "LEFT", "cameraId": "VISION-AGENT", "userId": "user-42", "hasWeapon": false, \
+        "weaponType": null, "weaponLocation": null, "snapshotUrl": "http://minio/snap.jpg", \
+        "latitude": -27.5969, "longitude": -48.5495}""";
+
+    private static final long T0 = 1_700_000_000_000L;
+    private static final BigDecimal LATITUDE = new BigDecimal("-27.5969");
+    private static final BigDecimal LONGITUDE = new BigDecimal("-48.5495");
+
+    private static final AtomicInteger THREAD_IDS = new AtomicInteger();
+
+    private TrackingFixtures() {
+    }
+
+    /**
+     * One frame per track, with detection IDs owned by the calling benchmark thread only.
+     * The pipeline never lets two threads write the same track, so neither do the benchmarks.
+     */
+    static RawTrackingEvent[] framesForThread(int tracks, boolean facingCamera) {
+        int thread = THREAD_IDS.getAndIncrement();
+        RawTrackingEvent[] frames = new RawTrackingEvent[tracks];
+        for (int i = 0; i < tracks; i++) {
+            frames[i] = new RawTrackingEvent("t" + thread + "-det-" + i, T0 + i, "cam-" + (i % 16), "user-1",
+                facingCamera, facingCamera ? "CENTER" : null, 50, false, null, null, "http://minio/snap.jpg",
+                LATITUDE, LONGITUDE);
+        }
+        return frames;
+    }
+
+    /**
+     * Slots for every track of every benchmark thread, within the store's load factor.
+     */
+    static int storeCapacity(int tracks) {
+        return Math.max(1_024, 2 * MAX_THREADS * tracks);
+    }
+}
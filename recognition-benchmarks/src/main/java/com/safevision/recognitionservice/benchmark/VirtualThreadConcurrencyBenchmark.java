@@ -0,0 +1,106 @@
+package com.safevision.recognitionservice.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How many blocking calls one pod keeps in flight, depending on the threads that run them.
+ * <p>
+ * Each task stands for what an alert costs the Alert Service: {@value #IO_MILLIS} ms parked on the
+ * network (Nominatim, Twilio, Telegram, SMTP, Auth Service) and almost no CPU. The score is tasks
+ * completed per second, so it reads as the concurrency a pod sustains divided by the call latency.
+ * </p>
+ * <ul>
+ *     <li>{@code PLATFORM_POOL}: 200 platform threads, Tomcat's default request pool.</li>
+ *     <li>{@code COMMON_POOL}: the common ForkJoinPool, where {@code CompletableFuture.supplyAsync}
+ *     ran the geocoding lookups; one thread per core, minus one.</li>
+ *     <li>{@code VIRTUAL}: one virtual thread per task, as with {@code spring.threads.virtual.enabled}.</li>
+ *     <li>{@code VIRTUAL_PINNED}: the same, but blocking inside {@code synchronized}, which pins the
+ *     virtual thread to its carrier; what {@code jvm.threads.virtual.pinned} is there to catch.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VirtualThreadConcurrencyBenchmark {
+
+    public enum ExecutorKind { PLATFORM_POOL, COMMON_POOL, VIRTUAL, VIRTUAL_PINNED }
+
+    /** Blocking calls started per invocation, more than any pool here has threads. */
+    static final int TASKS = 2_000;
+
+    /** Latency of one simulated remote call. */
+    static final long IO_MILLIS = 20;
+
+    @Param({"PLATFORM_POOL", "COMMON_POOL", "VIRTUAL", "VIRTUAL_PINNED"})
+    ExecutorKind executor;
+
+    ExecutorService executorService;
+    Runnable task;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executorService = switch (executor) {
+            case PLATFORM_POOL -> Executors.newFixedThreadPool(200);
+            case COMMON_POOL -> null;
+            case VIRTUAL, VIRTUAL_PINNED -> Executors.newVirtualThreadPerTaskExecutor();
+        };
+        task = executor == ExecutorKind.VIRTUAL_PINNED
+            ? VirtualThreadConcurrencyBenchmark::blockWhileHoldingMonitor
+            : VirtualThreadConcurrencyBenchmark::block;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public void blockingCalls() {
+        var executorToUse = executorService != null ? executorService : ForkJoinPool.commonPool();
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[TASKS];
+        for (int i = 0; i < TASKS; i++) {
+            calls[i] = CompletableFuture.runAsync(task, executorToUse);
+        }
+        CompletableFuture.allOf(calls).join();
+    }
+
+    private static void block() {
+        try {
+            Thread.sleep(IO_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void blockWhileHoldingMonitor() {
+        // Each thread locks itself: no contention, only the pinning, and a monitor the JIT cannot elide.
+        synchronized (Thread.currentThread()) {
+            block();
+        }
+    }
+}
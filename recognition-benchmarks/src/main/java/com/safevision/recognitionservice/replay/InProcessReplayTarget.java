@@ -0,0 +1,241 @@
+package com.safevision.recognitionservice.replay;
+
+import com.safevision.recognitionservice.config.AlertPublisherProperties;
+import com.safevision.recognitionservice.config.AlertSuppressionProperties;
+import com.safevision.recognitionservice.config.CrowdDensityProperties;
+import com.safevision.recognitionservice.config.EventJournalProperties;
+import com.safevision.recognitionservice.config.EvidenceCacheProperties;
+import com.safevision.recognitionservice.config.EventTimeProperties;
+import com.safevision.recognitionservice.config.ThreatPatternProperties;
+import com.safevision.recognitionservice.config.TrackStateProperties;
+import com.safevision.recognitionservice.dto.AlertEventDTO;
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.facade.TrackingWorkflowFacade;
+import com.safevision.recognitionservice.pattern.PatternSignal;
+import com.safevision.recognitionservice.pattern.SequencePattern;
+import com.safevision.recognitionservice.pipeline.TrackPartitionedExecutor;
+import com.safevision.recognitionservice.producer.AlertProducer;
+import com.safevision.recognitionservice.rule.ApproachingThreatRule;
+import com.safevision.recognitionservice.rule.CrowdDensityRule;
+import com.safevision.recognitionservice.rule.PersistentStareRule;
+import com.safevision.recognitionservice.rule.SequencePatternRule;
+import com.safevision.recognitionservice.rule.ThreatRuleEngine;
+import com.safevision.recognitionservice.rule.WeaponThreatRule;
+import com.safevision.recognitionservice.service.AlertSuppressionService;
+import com.safevision.recognitionservice.service.CrowdDensityService;
+import com.safevision.recognitionservice.service.EventJournalService;
+import com.safevision.recognitionservice.service.EventTimeOrderingService;
+import com.safevision.recognitionservice.service.EvidenceCacheService;
+import com.safevision.recognitionservice.service.MovementHistoryService;
+import com.safevision.recognitionservice.service.PatternMatcherService;
+import com.safevision.recognitionservice.service.StareCounterService;
+import com.safevision.recognitionservice.service.ThreatAnalysisService;
+import com.safevision.recognitionservice.service.TrackEvictionService;
+import com.safevision.recognitionservice.state.MappedTrackStateStore;
+import com.safevision.recognitionservice.state.SymbolTable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replays straight into {@link TrackingWorkflowFacade#processEvent}, with the pipeline wired as in
+ * production (track workers, event-time reordering, idle eviction, the weapon, stare, approaching,
+ * sequence pattern and crowd rules with their recorders, and the suppression) but without Spring,
+ * the broker or load shedding. Alerts are counted instead of published.
+ * <p>
+ * Latency is measured from the moment a frame was due to the moment its analysis finished, so it
+ * includes the time spent behind other frames and in the reorder buffer.
+ * </p>
+ */
+final class InProcessReplayTarget implements ReplayTarget {
+
+    /** How long the pipeline may go without analyzing anything before the replay stops waiting. */
+    private static final long STALL_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    /** The sequences shipped in application.yml. */
+    private static final ThreatPatternProperties PATTERNS = new ThreatPatternProperties(List.of(
+        new SequencePattern("stare-then-approach", "OBSERVACAO_SEGUIDA_DE_APROXIMACAO",
+            "Pessoa observou a câmera e em seguida se aproximou rapidamente.",
+            List.of(PatternSignal.STARING, PatternSignal.APPROACHING), Duration.ofSeconds(5)),
+        new SequencePattern("weapon-then-hidden", "ARMA_OCULTADA",
+            "Arma foi vista e em seguida escondida (ausente em dois frames).",
+            List.of(PatternSignal.WEAPON_VISIBLE, PatternSignal.WEAPON_HIDDEN, PatternSignal.WEAPON_HIDDEN), Duration.ofSeconds(10))
+    ));
+
+    private final SimpleMeterRegistry pipelineRegistry = new SimpleMeterRegistry();
+    private final ScheduledExecutorService scheduler;
+    private final TrackPartitionedExecutor trackExecutor;
+    private final MappedTrackStateStore store;
+    private final TrackingWorkflowFacade facade;
+
+    /**
+     * When each frame in flight was due. Keyed by value: two frames equal in every field are the
+     * same frame delivered twice, and share an entry.
+     */
+    private final Map<RawTrackingEvent, Long> dueTimes = new ConcurrentHashMap<>();
+    private final ThreadLocal<Long> currentDue = new ThreadLocal<>();
+    private final Map<String, LongAdder> alertsByType = new ConcurrentHashMap<>();
+    private final LongAdder analyzed = new LongAdder();
+    private long sent;
+    private final Timer frameLatency;
+    private final Timer alertLatency;
+
+    InProcessReplayTarget(int workers, int tracks, MeterRegistry reportRegistry) {
+        this.frameLatency = ReplayTool.latencyTimer("replay.frame.latency", reportRegistry);
+        this.alertLatency = ReplayTool.latencyTimer("replay.alert.latency", reportRegistry);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replay-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.trackExecutor = new TrackPartitionedExecutor(workers, 10_000);
+        this.store = MappedTrackStateStore.inMemory(tracks);
+
+        var historyService = new MovementHistoryService(store);
+        var stareCounter = new StareCounterService(store);
+        var patternMatcher = new PatternMatcherService(PATTERNS, historyService, stareCounter, pipelineRegistry);
+        var densityProperties = new CrowdDensityProperties(Duration.ofSeconds(60), 6, 10, 25);
+        var crowdDensity = new CrowdDensityService(densityProperties, scheduler);
+        var evidenceCache = new EvidenceCacheService(
+            new EvidenceCacheProperties(tracks, DataSize.ofMegabytes(64), Duration.ofDays(30)), pipelineRegistry);
+        var ruleEngine = new ThreatRuleEngine(
+            List.of(new WeaponThreatRule(), new PersistentStareRule(stareCounter), new ApproachingThreatRule(historyService),
+                new SequencePatternRule(patternMatcher), new CrowdDensityRule(crowdDensity)),
+            List.of(historyService, stareCounter, patternMatcher, crowdDensity, evidenceCache),
+            pipelineRegistry
+        );
+        var trackSymbols = new SymbolTable();
+        var suppressionProperties = new AlertSuppressionProperties(Duration.ofSeconds(30), true);
+        var suppression = new AlertSuppressionService(suppressionProperties, pipelineRegistry);
+        var threatAnalysis = new TimedThreatAnalysisService(new CountingAlertProducer(), ruleEngine, evidenceCache,
+            suppression, suppressionProperties, trackSymbols);
+
+        var ordering = new EventTimeOrderingService(new EventTimeProperties(Duration.ofMillis(500), 64),
+            trackExecutor, scheduler, trackSymbols, pipelineRegistry);
+        var stateProperties = new TrackStateProperties(Duration.ofSeconds(30), Duration.ofSeconds(1));
+        var eviction = new TrackEvictionService(stateProperties,
+            List.of(store, patternMatcher, suppression, ordering), trackSymbols, trackExecutor, scheduler, pipelineRegistry);
+        // The replay measures analysis only: nothing is journaled.
+        var journal = new EventJournalService(new EventJournalProperties(false, "", DataSize.ofMegabytes(64),
+            Duration.ofHours(1), Duration.ofDays(30), DataSize.ofGigabytes(10), Duration.ofMillis(10), 1, 256),
+            scheduler, pipelineRegistry);
+        this.facade = new TrackingWorkflowFacade(threatAnalysis, eviction, ordering, journal);
+
+        // What the container does on startup, for the parts that matter to the replay.
+        ordering.start(threatAnalysis::analyze);
+        long sweepMillis = stateProperties.sweepInterval().toMillis();
+        scheduler.scheduleAtFixedRate(eviction::sweep, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+        long densitySweepMillis = densityProperties.window().toMillis() / densityProperties.buckets();
+        scheduler.scheduleWithFixedDelay(crowdDensity::sweep, densitySweepMillis, densitySweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void send(RawTrackingEvent event, long dueNanos) {
+        dueTimes.putIfAbsent(event, dueNanos);
+        sent++;
+        trackExecutor.execute(event.detectionId(), () -> facade.processEvent(event));
+    }
+
+    @Override
+    public void awaitCompletion() throws InterruptedException {
+        long lastProgress = System.nanoTime();
+        long last = -1;
+        // Frames dropped as late never reach the analysis.
+        while (analyzed.sum() + count("recognition.events.late") < sent
+            && System.nanoTime() - lastProgress < STALL_TIMEOUT_NANOS) {
+            long current = analyzed.sum();
+            if (current != last) {
+                last = current;
+                lastProgress = System.nanoTime();
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    @Override
+    public void report(PrintStream out) {
+        out.printf("Analyzed          %,d frames (%,d reordered, %,d dropped as late)%n", analyzed.sum(),
+            count("recognition.events.reordered"), count("recognition.events.late"));
+        out.printf("Frame latency     %s%n", ReplayTool.describe(frameLatency));
+
+        long alerts = alertsByType.values().stream().mapToLong(LongAdder::sum).sum();
+        out.printf("Alerts            %,d (%,d suppressed as repeats)%n", alerts, count("recognition.alerts.suppressed"));
+        new TreeMap<>(alertsByType).forEach((type, counter) -> out.printf("  %-22s %,d%n", type, counter.sum()));
+        if (alerts > 0) {
+            out.printf("Alert latency     %s%n", ReplayTool.describe(alertLatency));
+        }
+    }
+
+    @Override
+    public void close() {
+        trackExecutor.shutdown();
+        scheduler.shutdownNow();
+        store.close();
+    }
+
+    private long count(String counterName) {
+        return (long) pipelineRegistry.find(counterName).counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    /**
+     * Records when each frame finishes its analysis, relative to when it was due.
+     */
+    private final class TimedThreatAnalysisService extends ThreatAnalysisService {
+
+        TimedThreatAnalysisService(AlertProducer alertProducer, ThreatRuleEngine ruleEngine, EvidenceCacheService evidenceCache,
+                                   AlertSuppressionService suppression, AlertSuppressionProperties suppressionProperties,
+                                   SymbolTable trackSymbols) {
+            super(alertProducer, ruleEngine, evidenceCache, suppression, suppressionProperties, trackSymbols, pipelineRegistry);
+        }
+
+        @Override
+        public void analyze(RawTrackingEvent event) {
+            Long due = dueTimes.remove(event);
+            currentDue.set(due);
+            try {
+                super.analyze(event);
+            } finally {
+                currentDue.remove();
+                if (due != null) {
+                    frameLatency.record(System.nanoTime() - due, TimeUnit.NANOSECONDS);
+                }
+                analyzed.increment();
+            }
+        }
+    }
+
+    /**
+     * Counts alerts by type on the worker that raised them; nothing is queued or published.
+     */
+    private final class CountingAlertProducer extends AlertProducer {
+
+        CountingAlertProducer() {
+            super(new RabbitTemplate(), "safevision.alerts",
+                new AlertPublisherProperties(1, 1, Duration.ofMillis(10), 1, Duration.ofSeconds(5), 1, Duration.ofSeconds(1)),
+                pipelineRegistry);
+        }
+
+        @Override
+        public void sendAlert(AlertEventDTO finalAlert) {
+            alertsByType.computeIfAbsent(finalAlert.alertType(), type -> new LongAdder()).increment();
+            Long due = currentDue.get();
+            if (due != null) {
+                alertLatency.record(System.nanoTime() - due, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.safevision.recognitionservice.replay;
+
+import com.safevision.recognitionservice.codec.RawTrackingBinaryMessageConverter;
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes the frames to the raw tracking queue of a running broker, in the binary wire format,
+ * for a recognition service (or several) to consume as if they came from the edge agents.
+ * <p>
+ * Processing is observed on the service side, through its {@code /actuator/prometheus} metrics.
+ * When an alerts queue is given, the alerts it receives during the replay are counted too; the
+ * replay then competes with the Alert Service for them, so stop it or point the replay at a
+ * broker of its own.
+ * </p>
+ */
+final class RabbitReplayTarget implements ReplayTarget {
+
+    /** How long the alerts queue may stay empty before the replay stops waiting for more. */
+    private static final long ALERTS_QUIET_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    private final CachingConnectionFactory connectionFactory;
+    private final RabbitTemplate rabbitTemplate;
+    private final String queue;
+    private final String alertsQueue;
+    private final LongAdder published = new LongAdder();
+    private final LongAdder alerts = new LongAdder();
+    private final Thread alertCounter;
+    private volatile long lastAlertMillis;
+
+    RabbitReplayTarget(URI rabbitUri, String queue, String alertsQueue) {
+        this.connectionFactory = new CachingConnectionFactory(rabbitUri);
+        this.rabbitTemplate = new RabbitTemplate(connectionFactory);
+        rabbitTemplate.setMessageConverter(new RawTrackingBinaryMessageConverter());
+        this.queue = queue;
+        this.alertsQueue = alertsQueue;
+
+        if (alertsQueue != null) {
+            alertCounter = new Thread(this::countAlerts, "replay-alerts");
+            alertCounter.setDaemon(true);
+            alertCounter.start();
+        } else {
+            alertCounter = null;
+        }
+    }
+
+    @Override
+    public void send(RawTrackingEvent event, long dueNanos) {
+        rabbitTemplate.convertAndSend("", queue, event);
+        published.increment();
+    }
+
+    @Override
+    public void awaitCompletion() throws InterruptedException {
+        if (alertCounter == null) return;
+        // Alerts of the last frames still have to go through the service.
+        lastAlertMillis = System.currentTimeMillis();
+        while (System.currentTimeMillis() - lastAlertMillis < ALERTS_QUIET_MILLIS) {
+            Thread.sleep(100);
+        }
+    }
+
+    @Override
+    public void report(PrintStream out) {
+        out.printf("Published         %,d frames to queue %s%n", published.sum(), queue);
+        if (alertCounter != null) {
+            out.printf("Alerts            %,d received on queue %s%n", alerts.sum(), alertsQueue);
+        }
+        out.println("Processing        see recognition.* metrics on the service's /actuator/prometheus");
+    }
+
+    @Override
+    public void close() {
+        if (alertCounter != null) {
+            alertCounter.interrupt();
+        }
+        connectionFactory.destroy();
+    }
+
+    private void countAlerts() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                if (rabbitTemplate.receive(alertsQueue, 100) != null) {
+                    alerts.increment();
+                    lastAlertMillis = System.currentTimeMillis();
+                }
+            } catch (Exception e) {
+                if (Thread.currentThread().isInterrupted()) return;
+                System.err.println("Could not read alerts queue " + alertsQueue + ": " + e.getMessage());
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.safevision.recognitionservice.replay;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+
+import java.io.PrintStream;
+
+/**
+ * Where {@link ReplayTool} delivers the frames of a capture.
+ */
+interface ReplayTarget extends AutoCloseable {
+
+    /**
+     * Delivers one frame. Called from the replay thread only, in capture order.
+     *
+     * @param event    The frame, with its timestamp already shifted to the replay.
+     * @param dueNanos {@link System#nanoTime()} at which the frame was due according to the replay speed.
+     */
+    void send(RawTrackingEvent event, long dueNanos);
+
+    /**
+     * Blocks until the target has handled everything sent to it, or stopped making progress.
+     */
+    void awaitCompletion() throws InterruptedException;
+
+    /**
+     * Prints what the target observed on top of the replay rate: alerts, processing latency.
+     */
+    void report(PrintStream out);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,203 @@
+package com.safevision.recognitionservice.codec;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fixed-layout binary encoding of {@link RawTrackingEvent} (schema version 1).
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * offset size  field
+ *  0     2     magic 'S' 'V'
+ *  2     1     schema version (1)
+ *  3     1     flags: bit0 isFacingCamera, bit1 hasWeapon, bit2 latitude present, bit3 longitude present
+ *  4     8     timestamp (int64, as sent by the agent)
+ * 12     4     depthPosition (int32)
+ * 16     8     latitude  (int64, degrees * 10^7; 0 when absent)
+ * 24     8     longitude (int64, degrees * 10^7; 0 when absent)
+ * 32     ...   detectionId, cameraId, userId, gazeDirection, weaponType, weaponLocation, snapshotUrl:
+ *              each a uint16 byte length followed by UTF-8 bytes; length 0xFFFF encodes null
+ * </pre>
+ * Coordinates are fixed-point with 7 decimal places (about 1 cm), which replaces the two
+ * {@code BigDecimal} parses of the JSON path with two integer reads.
+ * </p>
+ * <p>
+ * The layout is shared with the Vision Agent ({@code vision-agent/wire_format.py}); any change
+ * must bump {@link #VERSION} and keep the conformance vectors of both sides in sync.
+ * </p>
+ */
+public final class RawTrackingBinaryCodec {
+
+    /** AMQP {@code content_type} that selects this encoding. */
+    public static final String CONTENT_TYPE = "application/vnd.safevision.raw-tracking.v1";
+
+    public static final byte VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int COORDINATE_SCALE = 7;
+    static final int NULL_LENGTH = 0xFFFF;
+    static final int MAX_STRING_BYTES = 0xFFFE;
+
+    private static final byte MAGIC_0 = 'S';
+    private static final byte MAGIC_1 = 'V';
+    private static final int FLAG_FACING = 1;
+    private static final int FLAG_WEAPON = 1 << 1;
+    private static final int FLAG_LATITUDE = 1 << 2;
+    private static final int FLAG_LONGITUDE = 1 << 3;
+
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private RawTrackingBinaryCodec() {
+    }
+
+    /**
+     * Encodes an event.
+     *
+     * @throws IllegalArgumentException if a string field exceeds {@value #MAX_STRING_BYTES} UTF-8 bytes
+     *                                  or a coordinate does not fit the fixed-point range.
+     */
+    public static byte[] encode(RawTrackingEvent event) {
+        byte[][] strings = {
+            utf8(event.detectionId()), utf8(event.cameraId()), utf8(event.userId()), utf8(event.gazeDirection()),
+            utf8(event.weaponType()), utf8(event.weaponLocation()), utf8(event.snapshotUrl())
+        };
+
+        int size = HEADER_SIZE;
+        for (byte[] string : strings) {
+            size += 2 + (string != null ? string.length : 0);
+        }
+
+        byte[] out = new byte[size];
+        int flags = (event.isFacingCamera() ? FLAG_FACING : 0)
+            | (event.hasWeapon() ? FLAG_WEAPON : 0)
+            | (event.latitude() != null ? FLAG_LATITUDE : 0)
+            | (event.longitude() != null ? FLAG_LONGITUDE : 0);
+
+        out[0] = MAGIC_0;
+        out[1] = MAGIC_1;
+        out[2] = VERSION;
+        out[3] = (byte) flags;
+        LONG.set(out, 4, event.timestamp());
+        INT.set(out, 12, event.depthPosition());
+        LONG.set(out, 16, toFixedPoint(event.latitude()));
+        LONG.set(out, 24, toFixedPoint(event.longitude()));
+
+        int offset = HEADER_SIZE;
+        for (byte[] string : strings) {
+            offset = writeString(out, offset, string);
+        }
+        return out;
+    }
+
+    /**
+     * Decodes an event straight from the message body.
+     *
+     * @throws IllegalArgumentException if the body is not a well-formed version 1 message, or
+     *                                  if it decodes to an invalid event (e.g. no detection ID).
+     */
+    public static RawTrackingEvent decode(byte[] in) {
+        return decode(in, null);
+    }
+
+    /**
+     * Decodes an event, interning its identifier fields (every string but the snapshot URL) through
+     * the dictionary, so the {@code cameraId}, {@code userId} and {@code detectionId} repeated on every
+     * frame are neither decoded nor allocated again.
+     *
+     * @param dictionary Not thread-safe: one per decoding thread. {@code null} decodes every string.
+     */
+    public static RawTrackingEvent decode(byte[] in, StringDictionary dictionary) {
+        if (in.length < HEADER_SIZE) throw new IllegalArgumentException("Truncated header: " + in.length + " bytes");
+        if (in[0] != MAGIC_0 || in[1] != MAGIC_1) throw new IllegalArgumentException("Not a raw tracking message (bad magic)");
+        if (in[2] != VERSION) throw new IllegalArgumentException("Unsupported schema version " + in[2]);
+
+        int flags = in[3];
+        long timestamp = (long) LONG.get(in, 4);
+        int depthPosition = (int) INT.get(in, 12);
+        BigDecimal latitude = (flags & FLAG_LATITUDE) != 0 ? BigDecimal.valueOf((long) LONG.get(in, 16), COORDINATE_SCALE) : null;
+        BigDecimal longitude = (flags & FLAG_LONGITUDE) != 0 ? BigDecimal.valueOf((long) LONG.get(in, 24), COORDINATE_SCALE) : null;
+
+        StringReader strings = new StringReader(in, HEADER_SIZE, dictionary);
+        String detectionId = strings.next(true);
+        String cameraId = strings.next(true);
+        String userId = strings.next(true);
+        String gazeDirection = strings.next(true);
+        String weaponType = strings.next(true);
+        String weaponLocation = strings.next(true);
+        String snapshotUrl = strings.next(false);
+        if (strings.offset != in.length) {
+            throw new IllegalArgumentException("Trailing bytes after the last field: " + (in.length - strings.offset));
+        }
+
+        return new RawTrackingEvent(
+            detectionId, timestamp, cameraId, userId,
+            (flags & FLAG_FACING) != 0, gazeDirection, depthPosition,
+            (flags & FLAG_WEAPON) != 0, weaponType, weaponLocation, snapshotUrl,
+            latitude, longitude
+        );
+    }
+
+    private static byte[] utf8(String value) {
+        if (value == null) return null;
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("String field too long for the wire format: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static int writeString(byte[] out, int offset, byte[] string) {
+        int length = string != null ? string.length : NULL_LENGTH;
+        out[offset] = (byte) (length >>> 8);
+        out[offset + 1] = (byte) length;
+        if (string == null) return offset + 2;
+
+        System.arraycopy(string, 0, out, offset + 2, string.length);
+        return offset + 2 + string.length;
+    }
+
+    private static long toFixedPoint(BigDecimal coordinate) {
+        if (coordinate == null) return 0;
+        try {
+            return coordinate.setScale(COORDINATE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Coordinate out of range: " + coordinate, e);
+        }
+    }
+
+    /**
+     * Sequential reader over the length-prefixed strings that follow the header.
+     */
+    private static final class StringReader {
+        private final byte[] in;
+        private final StringDictionary dictionary;
+        private int offset;
+
+        StringReader(byte[] in, int offset, StringDictionary dictionary) {
+            this.in = in;
+            this.offset = offset;
+            this.dictionary = dictionary;
+        }
+
+        String next(boolean intern) {
+            if (offset + 2 > in.length) throw new IllegalArgumentException("Truncated string length at offset " + offset);
+            int length = ((in[offset] & 0xFF) << 8) | (in[offset + 1] & 0xFF);
+            offset += 2;
+            if (length == NULL_LENGTH) return null;
+
+            if (offset + length > in.length) throw new IllegalArgumentException("Truncated string at offset " + offset);
+            String value = intern && dictionary != null
+                ? dictionary.intern(in, offset, length)
+                : new String(in, offset, length, StandardCharsets.UTF_8);
+            offset += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.safevision.recognitionservice.codec;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+/**
+ * AMQP converter for messages published with {@link RawTrackingBinaryCodec#CONTENT_TYPE}.
+ * <p>
+ * Decodes the body straight into a {@link RawTrackingEvent}, with no intermediate JSON tree.
+ * Each consumer thread interns the identifier fields through its {@link StringDictionary#forCurrentThread()
+ * string dictionary}, the one its JSON decoder uses too.
+ * A malformed body raises {@link MessageConversionException}, which the listener container
+ * treats as fatal: the message is rejected instead of being redelivered forever.
+ * </p>
+ */
+public class RawTrackingBinaryMessageConverter extends AbstractMessageConverter {
+
+    @Override
+    protected Message createMessage(Object object, MessageProperties messageProperties) {
+        if (!(object instanceof RawTrackingEvent event)) {
+            throw new MessageConversionException("Binary wire format only supports RawTrackingEvent, got " + object.getClass().getName());
+        }
+
+        try {
+            byte[] body = RawTrackingBinaryCodec.encode(event);
+            messageProperties.setContentType(RawTrackingBinaryCodec.CONTENT_TYPE);
+            messageProperties.setContentLength(body.length);
+            return new Message(body, messageProperties);
+        } catch (IllegalArgumentException e) {
+            throw new MessageConversionException("Could not encode raw tracking event: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        try {
+            return RawTrackingBinaryCodec.decode(message.getBody(), StringDictionary.forCurrentThread());
+        } catch (IllegalArgumentException e) {
+            throw new MessageConversionException("Malformed binary raw tracking message: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.safevision.recognitionservice.codec;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * File format of a captured raw tracking stream, shared by the capture in the service and the replay tool.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * header  4  magic "SVCP"
+ *         1  format version (1)
+ * record  8  reception time at the service, epoch milliseconds
+ *         4  length of the encoded event
+ *         n  the event in the binary wire format ({@link RawTrackingBinaryCodec}, schema version 1)
+ * </pre>
+ * Records follow each other until the end of the file. A record cut short by a crash is ignored.
+ * </p>
+ */
+public final class RawTrackingCaptureFile {
+
+    private static final int MAGIC = 0x53564350; // "SVCP"
+    private static final byte VERSION = 1;
+
+    private RawTrackingCaptureFile() {
+    }
+
+    /**
+     * Appends captured frames to a new file. Not thread-safe.
+     */
+    public static final class Writer implements AutoCloseable {
+
+        private final DataOutputStream out;
+
+        public Writer(Path path) throws IOException {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+        }
+
+        /**
+         * @throws IllegalArgumentException if the event cannot be represented in the binary wire format.
+         */
+        public void write(long receivedAtMillis, RawTrackingEvent event) throws IOException {
+            byte[] body = RawTrackingBinaryCodec.encode(event);
+            out.writeLong(receivedAtMillis);
+            out.writeInt(body.length);
+            out.write(body);
+        }
+
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads a capture file from the start, one frame at a time.
+     */
+    public static final class Reader implements AutoCloseable {
+
+        private final DataInputStream in;
+        private long receivedAtMillis;
+        private RawTrackingEvent event;
+
+        public Reader(Path path) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+            if (in.readInt() != MAGIC) throw new IOException(path + " is not a raw tracking capture");
+            byte version = in.readByte();
+            if (version != VERSION) throw new IOException("Unsupported capture format version " + version);
+        }
+
+        /**
+         * Moves to the next frame.
+         *
+         * @return {@code false} at the end of the file.
+         */
+        public boolean next() throws IOException {
+            try {
+                long receivedAt = in.readLong();
+                byte[] body = new byte[in.readInt()];
+                in.readFully(body);
+                receivedAtMillis = receivedAt;
+                event = RawTrackingBinaryCodec.decode(body);
+                return true;
+            } catch (EOFException e) {
+                return false;
+            }
+        }
+
+        /** Reception time of the current frame at the service that captured it. */
+        public long receivedAtMillis() {
+            return receivedAtMillis;
+        }
+
+        public RawTrackingEvent event() {
+            return event;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
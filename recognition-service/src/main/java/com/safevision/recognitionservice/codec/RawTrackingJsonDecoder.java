@@ -0,0 +1,436 @@
+package com.safevision.recognitionservice.codec;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Hand-written streaming decoder for the JSON payload of {@link RawTrackingEvent}.
+ * <p>
+ * It reads the message body in place, with no token objects or intermediate tree:
+ * <ul>
+ * <li>Keys are matched against the known field names byte by byte.</li>
+ * <li>Identifier fields are interned through a bounded {@link StringDictionary}, so repeated
+ *     {@code cameraId}/{@code userId}/{@code detectionId} values cost no allocation.</li>
+ * <li>Coordinates are parsed into a primitive unscaled value and scale. A {@link BigDecimal} is only
+ *     created when the coordinate differs from the previous one (a fixed camera reports the same position).</li>
+ * </ul>
+ * The only unavoidable allocations are the event itself and the strings seen for the first time
+ * (typically the snapshot URL).
+ * </p>
+ * <p>
+ * It accepts a strict subset of what Jackson accepts (plain literals of the expected type, unescaped keys).
+ * Anything else throws {@link IllegalArgumentException}, and the caller falls back to Jackson, so the
+ * decoded event is always the one Jackson would have produced.
+ * </p>
+ * <p>
+ * Not thread-safe: use one instance per consumer thread.
+ * </p>
+ */
+public final class RawTrackingJsonDecoder {
+
+    private static final byte[][] FIELD_NAMES = {
+        ascii("detectionId"), ascii("timestamp"), ascii("cameraId"), ascii("userId"),
+        ascii("isFacingCamera"), ascii("gazeDirection"), ascii("depthPosition"), ascii("hasWeapon"),
+        ascii("weaponType"), ascii("weaponLocation"), ascii("snapshotUrl"), ascii("latitude"), ascii("longitude")
+    };
+    private static final int DETECTION_ID = 0, TIMESTAMP = 1, CAMERA_ID = 2, USER_ID = 3, IS_FACING_CAMERA = 4,
+        GAZE_DIRECTION = 5, DEPTH_POSITION = 6, HAS_WEAPON = 7, WEAPON_TYPE = 8, WEAPON_LOCATION = 9,
+        SNAPSHOT_URL = 10, LATITUDE = 11, LONGITUDE = 12, UNKNOWN = -1;
+
+    /** Longest decimal mantissa that always fits in a long. */
+    private static final int MAX_LONG_DIGITS = 18;
+    private static final int MAX_NESTING = 64;
+
+    private final StringDictionary dictionary;
+    private final CoordinateCache latitudeCache = new CoordinateCache();
+    private final CoordinateCache longitudeCache = new CoordinateCache();
+
+    private byte[] in;
+    private int pos;
+    private int end;
+
+    /** Scratch results of the last {@link #readDecimal()} call. */
+    private long decimalUnscaled;
+    private int decimalScale;
+
+    public RawTrackingJsonDecoder(StringDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    public RawTrackingJsonDecoder() {
+        this(new StringDictionary(4096, 128));
+    }
+
+    /**
+     * Decodes one JSON object.
+     *
+     * @throws IllegalArgumentException if the payload is outside the supported subset or the event is invalid.
+     */
+    public RawTrackingEvent decode(byte[] body) {
+        return decode(body, 0, body.length);
+    }
+
+    public RawTrackingEvent decode(byte[] body, int offset, int length) {
+        this.in = body;
+        this.pos = offset;
+        this.end = offset + length;
+        try {
+            return readEvent();
+        } finally {
+            this.in = null;
+        }
+    }
+
+    public StringDictionary dictionary() {
+        return dictionary;
+    }
+
+    private RawTrackingEvent readEvent() {
+        String detectionId = null, cameraId = null, userId = null, gazeDirection = null;
+        String weaponType = null, weaponLocation = null, snapshotUrl = null;
+        long timestamp = 0;
+        int depthPosition = 0;
+        boolean isFacingCamera = false, hasWeapon = false;
+        BigDecimal latitude = null, longitude = null;
+
+        skipWhitespace();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+        } else {
+            while (true) {
+                int field = readKey();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+
+                switch (field) {
+                    case DETECTION_ID -> detectionId = readString(true);
+                    case TIMESTAMP -> timestamp = readLong();
+                    case CAMERA_ID -> cameraId = readString(true);
+                    case USER_ID -> userId = readString(true);
+                    case IS_FACING_CAMERA -> isFacingCamera = readBoolean();
+                    case GAZE_DIRECTION -> gazeDirection = readString(true);
+                    case DEPTH_POSITION -> depthPosition = readInt();
+                    case HAS_WEAPON -> hasWeapon = readBoolean();
+                    case WEAPON_TYPE -> weaponType = readString(true);
+                    case WEAPON_LOCATION -> weaponLocation = readString(true);
+                    case SNAPSHOT_URL -> snapshotUrl = readString(false);
+                    case LATITUDE -> latitude = readCoordinate(latitudeCache);
+                    case LONGITUDE -> longitude = readCoordinate(longitudeCache);
+                    default -> skipValue(0);
+                }
+
+                skipWhitespace();
+                byte c = next();
+                if (c == '}') break;
+                if (c != ',') throw error("Expected ',' or '}'");
+                skipWhitespace();
+            }
+        }
+
+        skipWhitespace();
+        if (pos != end) throw error("Trailing content after the event");
+
+        return new RawTrackingEvent(
+            detectionId, timestamp, cameraId, userId, isFacingCamera, gazeDirection, depthPosition,
+            hasWeapon, weaponType, weaponLocation, snapshotUrl, latitude, longitude
+        );
+    }
+
+    private int readKey() {
+        expect('"');
+        int start = pos;
+        while (true) {
+            byte c = next();
+            if (c == '"') break;
+            if (c == '\\') throw error("Escaped keys are not supported");
+        }
+        int length = pos - 1 - start;
+
+        for (int field = 0; field < FIELD_NAMES.length; field++) {
+            byte[] name = FIELD_NAMES[field];
+            if (name.length == length && regionEquals(name, start)) return field;
+        }
+        return UNKNOWN;
+    }
+
+    private String readString(boolean intern) {
+        if (peek() == 'n') {
+            expectLiteral("null");
+            return null;
+        }
+        expect('"');
+
+        int start = pos;
+        while (true) {
+            byte c = next();
+            if (c == '"') break;
+            if (c == '\\') return readEscapedString(start);
+            if ((c & 0xFF) < 0x20) throw error("Control character in string");
+        }
+
+        int length = pos - 1 - start;
+        return intern
+            ? dictionary.intern(in, start, length)
+            : new String(in, start, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Slow path for strings with escape sequences (never produced by the Vision Agent for its fields).
+     */
+    private String readEscapedString(int start) {
+        pos = start;
+        StringBuilder value = new StringBuilder();
+        int runStart = pos;
+        while (true) {
+            byte c = next();
+            if (c == '"') {
+                value.append(new String(in, runStart, pos - 1 - runStart, StandardCharsets.UTF_8));
+                return value.toString();
+            }
+            if ((c & 0xFF) < 0x20) throw error("Control character in string");
+            if (c != '\\') continue;
+
+            value.append(new String(in, runStart, pos - 1 - runStart, StandardCharsets.UTF_8));
+            byte escaped = next();
+            switch (escaped) {
+                case '"' -> value.append('"');
+                case '\\' -> value.append('\\');
+                case '/' -> value.append('/');
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'n' -> value.append('\n');
+                case 'r' -> value.append('\r');
+                case 't' -> value.append('\t');
+                case 'u' -> value.append(readHexChar());
+                default -> throw error("Invalid escape sequence");
+            }
+            runStart = pos;
+        }
+    }
+
+    private char readHexChar() {
+        if (pos + 4 > end) throw error("Truncated unicode escape");
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(in[pos++], 16);
+            if (digit < 0) throw error("Invalid unicode escape");
+            value = (value << 4) | digit;
+        }
+        return (char) value;
+    }
+
+    private long readLong() {
+        if (peek() == 'n') {
+            expectLiteral("null");
+            return 0;
+        }
+
+        boolean negative = peek() == '-';
+        if (negative) pos++;
+
+        int start = pos;
+        long value = 0;
+        while (pos < end && isDigit(in[pos])) {
+            value = value * 10 + (in[pos++] - '0');
+        }
+        int digits = pos - start;
+        if (digits == 0 || digits > MAX_LONG_DIGITS) throw error("Unsupported integer");
+        if (digits > 1 && in[start] == '0') throw error("Leading zeros are not valid JSON");
+        if (pos < end && isNumberContinuation(in[pos])) throw error("Fractional value for an integer field");
+        return negative ? -value : value;
+    }
+
+    private int readInt() {
+        long value = readLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) throw error("Integer out of range");
+        return (int) value;
+    }
+
+    private boolean readBoolean() {
+        return switch (peek()) {
+            case 't' -> { expectLiteral("true"); yield true; }
+            case 'f' -> { expectLiteral("false"); yield false; }
+            case 'n' -> { expectLiteral("null"); yield false; }
+            default -> throw error("Expected a boolean");
+        };
+    }
+
+    private BigDecimal readCoordinate(CoordinateCache cache) {
+        if (peek() == 'n') {
+            expectLiteral("null");
+            return null;
+        }
+
+        readDecimal();
+        if (cache.value == null || cache.unscaled != decimalUnscaled || cache.scale != decimalScale) {
+            cache.value = BigDecimal.valueOf(decimalUnscaled, decimalScale);
+            cache.unscaled = decimalUnscaled;
+            cache.scale = decimalScale;
+        }
+        return cache.value;
+    }
+
+    /**
+     * Parses a JSON number into {@link #decimalUnscaled} and {@link #decimalScale}, exactly as
+     * {@code new BigDecimal(text)} would, without creating the text.
+     */
+    private void readDecimal() {
+        boolean negative = peek() == '-';
+        if (negative) pos++;
+
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+
+        int intStart = pos;
+        while (pos < end && isDigit(in[pos])) {
+            unscaled = unscaled * 10 + (in[pos++] - '0');
+            if (unscaled != 0 || digits > 0) digits++;
+        }
+        if (pos == intStart) throw error("Expected a number");
+        if (pos - intStart > 1 && in[intStart] == '0') throw error("Leading zeros are not valid JSON");
+
+        if (pos < end && in[pos] == '.') {
+            pos++;
+            int fractionStart = pos;
+            while (pos < end && isDigit(in[pos])) {
+                unscaled = unscaled * 10 + (in[pos++] - '0');
+                if (unscaled != 0 || digits > 0) digits++;
+                scale++;
+            }
+            if (pos == fractionStart) throw error("Expected fraction digits");
+        }
+
+        if (pos < end && (in[pos] == 'e' || in[pos] == 'E')) {
+            pos++;
+            boolean negativeExponent = false;
+            if (pos < end && (in[pos] == '+' || in[pos] == '-')) {
+                negativeExponent = in[pos++] == '-';
+            }
+            int exponentStart = pos;
+            int exponent = 0;
+            while (pos < end && isDigit(in[pos])) {
+                exponent = exponent * 10 + (in[pos++] - '0');
+                if (exponent > 999) throw error("Exponent out of range");
+            }
+            if (pos == exponentStart) throw error("Expected exponent digits");
+            scale += negativeExponent ? exponent : -exponent;
+        }
+
+        if (digits > MAX_LONG_DIGITS) throw error("Too many significant digits");
+        decimalUnscaled = negative ? -unscaled : unscaled;
+        decimalScale = scale;
+    }
+
+    private void skipValue(int depth) {
+        if (depth > MAX_NESTING) throw error("Nesting too deep");
+
+        switch (peek()) {
+            case '"' -> readString(false);
+            case 't' -> expectLiteral("true");
+            case 'f' -> expectLiteral("false");
+            case 'n' -> expectLiteral("null");
+            case '{' -> skipContainer('}', true, depth);
+            case '[' -> skipContainer(']', false, depth);
+            default -> readDecimalOrBig();
+        }
+    }
+
+    private void skipContainer(char close, boolean object, int depth) {
+        pos++;
+        skipWhitespace();
+        if (peek() == close) {
+            pos++;
+            return;
+        }
+        while (true) {
+            if (object) {
+                readString(false);
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+            }
+            skipValue(depth + 1);
+            skipWhitespace();
+            byte c = next();
+            if (c == close) return;
+            if (c != ',') throw error("Expected ',' or '" + close + "'");
+            skipWhitespace();
+        }
+    }
+
+    private void readDecimalOrBig() {
+        // Unknown numeric fields only need to be skipped, whatever their precision.
+        if (peek() == '-') pos++;
+        int start = pos;
+        while (pos < end && (isDigit(in[pos]) || isNumberContinuation(in[pos]) || in[pos] == '+' || in[pos] == '-')) {
+            pos++;
+        }
+        if (pos == start) throw error("Unexpected character");
+    }
+
+    private void skipWhitespace() {
+        while (pos < end) {
+            byte c = in[pos];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return;
+            pos++;
+        }
+    }
+
+    private void expect(char expected) {
+        if (next() != expected) throw error("Expected '" + expected + "'");
+    }
+
+    private void expectLiteral(String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            if (next() != literal.charAt(i)) throw error("Expected " + literal);
+        }
+    }
+
+    private byte peek() {
+        if (pos >= end) throw error("Unexpected end of input");
+        return in[pos];
+    }
+
+    private byte next() {
+        if (pos >= end) throw error("Unexpected end of input");
+        return in[pos++];
+    }
+
+    private boolean regionEquals(byte[] name, int start) {
+        for (int i = 0; i < name.length; i++) {
+            if (in[start + i] != name[i]) return false;
+        }
+        return true;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at offset " + pos);
+    }
+
+    private static boolean isDigit(byte c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isNumberContinuation(byte c) {
+        return c == '.' || c == 'e' || c == 'E';
+    }
+
+    private static byte[] ascii(String name) {
+        return name.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Last coordinate decoded for one field, reused while the camera does not move.
+     */
+    private static final class CoordinateCache {
+        long unscaled;
+        int scale;
+        BigDecimal value;
+    }
+}
@@ -0,0 +1,41 @@
+package com.safevision.recognitionservice.codec;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+/**
+ * AMQP converter for JSON raw tracking messages, backed by the streaming {@link RawTrackingJsonDecoder}.
+ * <p>
+ * Each consumer thread gets its own decoder, over the thread's {@link StringDictionary#forCurrentThread()
+ * string dictionary}, so decoding needs no synchronization. Payloads outside the decoder's strict subset are handed to the Jackson
+ * {@code fallback}, which also handles every outgoing conversion.
+ * </p>
+ */
+@Slf4j
+public class RawTrackingJsonMessageConverter extends AbstractMessageConverter {
+
+    private final MessageConverter fallback;
+    private final ThreadLocal<RawTrackingJsonDecoder> decoders = ThreadLocal.withInitial(() -> new RawTrackingJsonDecoder(StringDictionary.forCurrentThread()));
+
+    public RawTrackingJsonMessageConverter(MessageConverter fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    protected Message createMessage(Object object, MessageProperties messageProperties) {
+        return fallback.toMessage(object, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        try {
+            return decoders.get().decode(message.getBody());
+        } catch (IllegalArgumentException e) {
+            log.debug("Streaming decoder declined the payload ({}), falling back to Jackson", e.getMessage());
+            return fallback.fromMessage(message);
+        }
+    }
+}
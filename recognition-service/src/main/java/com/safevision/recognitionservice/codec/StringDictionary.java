@@ -0,0 +1,100 @@
+package com.safevision.recognitionservice.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Bounded, direct-mapped dictionary that turns repeated UTF-8 byte sequences into the same {@link String}.
+ * <p>
+ * Identifiers such as {@code cameraId}, {@code userId} or a live {@code detectionId} repeat on every
+ * frame. Looking them up by their raw bytes returns the cached instance without decoding or allocating.
+ * Each hash slot holds one entry and a colliding newcomer simply replaces it, so the memory use is fixed
+ * and a burst of unique values (e.g. snapshot URLs, which should not be interned) can only cost misses.
+ * </p>
+ * <p>
+ * Not thread-safe: each consumer thread owns one, from {@link #forCurrentThread()}, shared by the JSON
+ * and binary decoders running on it, so an ID is cached once whatever format it arrived in.
+ * </p>
+ */
+public final class StringDictionary {
+
+    private static final int THREAD_SLOTS = 4096;
+    private static final int THREAD_MAX_ENTRY_BYTES = 128;
+    private static final ThreadLocal<StringDictionary> PER_THREAD =
+        ThreadLocal.withInitial(() -> new StringDictionary(THREAD_SLOTS, THREAD_MAX_ENTRY_BYTES));
+
+    private final byte[][] keys;
+    private final String[] values;
+    private final int[] hashes;
+    private final int mask;
+    private final int maxEntryBytes;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * @param slots         Number of entries, rounded up to a power of two.
+     * @param maxEntryBytes Longer values are decoded but never cached.
+     */
+    public StringDictionary(int slots, int maxEntryBytes) {
+        if (slots <= 0) throw new IllegalArgumentException("Slots must be positive");
+        int size = Integer.highestOneBit(slots - 1) << 1;
+        if (size <= 0) size = 1;
+
+        this.keys = new byte[size][];
+        this.values = new String[size];
+        this.hashes = new int[size];
+        this.mask = size - 1;
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    /**
+     * The dictionary of the calling thread.
+     */
+    public static StringDictionary forCurrentThread() {
+        return PER_THREAD.get();
+    }
+
+    /**
+     * Returns the string encoded by {@code bytes[offset, offset + length)}, reusing the cached instance if present.
+     */
+    public String intern(byte[] bytes, int offset, int length) {
+        if (length > maxEntryBytes) {
+            misses++;
+            return new String(bytes, offset, length, StandardCharsets.UTF_8);
+        }
+
+        int hash = hash(bytes, offset, length);
+        int slot = hash & mask;
+        byte[] key = keys[slot];
+        if (key != null && hashes[slot] == hash
+                && Arrays.equals(key, 0, key.length, bytes, offset, offset + length)) {
+            hits++;
+            return values[slot];
+        }
+
+        misses++;
+        String value = new String(bytes, offset, length, StandardCharsets.UTF_8);
+        keys[slot] = Arrays.copyOfRange(bytes, offset, offset + length);
+        values[slot] = value;
+        hashes[slot] = hash;
+        return value;
+    }
+
+    public long hits() {
+        return hits;
+    }
+
+    public long misses() {
+        return misses;
+    }
+
+    private static int hash(byte[] bytes, int offset, int length) {
+        // FNV-1a, then spread so that similar IDs do not cluster in the low bits.
+        int h = 0x811C9DC5;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = (h ^ bytes[i]) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,38 @@
+package com.safevision.recognitionservice.codec;
+
+import io.micrometer.core.instrument.Timer;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decorator that times every incoming conversion of another converter. Outgoing conversions are
+ * passed through untouched.
+ */
+public class TimedMessageConverter implements MessageConverter {
+
+    private final MessageConverter delegate;
+    private final Timer decodeTimer;
+
+    public TimedMessageConverter(MessageConverter delegate, Timer decodeTimer) {
+        this.delegate = delegate;
+        this.decodeTimer = decodeTimer;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        return delegate.toMessage(object, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        long start = System.nanoTime();
+        try {
+            return delegate.fromMessage(message);
+        } finally {
+            decodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.safevision.recognitionservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Type-safe configuration properties for load shedding in front of the tracking pipeline.
+ * Maps properties starting with "safevision.recognition.admission" from application.yml.
+ *
+ * @param enabled         Whether frames are classified and shed under overload at all.
+ * @param policy          What happens to routine frames (no weapon, not facing the camera) under overload.
+ * @param maxLag          Capture-to-consumption delay above which the service is overloaded. Zero ignores lag.
+ * @param maxQueueDepth   Messages waiting in the raw tracking queue above which the service is overloaded. Zero ignores it.
+ * @param maxBacklogRatio Fraction of the track worker queues in use above which the service is overloaded.
+ * @param recoveryRatio   Overload ends once every signal is below this fraction of its limit (hysteresis).
+ * @param thinInterval    With {@link SheddingPolicy#THIN}, minimum event time between two routine frames kept for a track.
+ * @param checkInterval   How often lag, queue depth and backlog are sampled.
+ */
+@ConfigurationProperties(prefix = "safevision.recognition.admission")
+public record AdmissionControlProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("THIN") SheddingPolicy policy,
+    @DefaultValue("2s") Duration maxLag,
+    @DefaultValue("10000") int maxQueueDepth,
+    @DefaultValue("0.75") double maxBacklogRatio,
+    @DefaultValue("0.5") double recoveryRatio,
+    @DefaultValue("1s") Duration thinInterval,
+    @DefaultValue("1s") Duration checkInterval
+) {
+
+    /**
+     * How routine frames are shed while the service is overloaded.
+     */
+    public enum SheddingPolicy {
+        /** Routine frames are still processed; only the weapon fast track applies. */
+        NONE,
+        /** Routine frames are kept at a reduced rate per track, enough for the movement rules. */
+        THIN,
+        /** Routine frames are dropped. */
+        DROP
+    }
+}
@@ -0,0 +1,29 @@
+package com.safevision.recognitionservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Type-safe configuration properties for the asynchronous alert publisher.
+ * Maps properties starting with "safevision.recognition.alerts.publisher" from application.yml.
+ *
+ * @param queueCapacity  Alerts waiting to be published. When full, new alerts are dropped (and counted).
+ * @param batchSize      Maximum alerts published together on one channel.
+ * @param publishWindow  How long the publisher keeps collecting alerts after the first one of a batch.
+ * @param maxInFlight    Published alerts still waiting for a broker confirm. The publisher pauses when reached.
+ * @param confirmTimeout Time after which an unconfirmed alert is considered lost and republished.
+ * @param maxAttempts    Publish attempts per alert (first one included) before it is given up.
+ * @param retryBackoff   Pause after a publish attempt failed on the client side (e.g. broker unreachable).
+ */
+@ConfigurationProperties(prefix = "safevision.recognition.alerts.publisher")
+public record AlertPublisherProperties(
+    @DefaultValue("10000") int queueCapacity,
+    @DefaultValue("50") int batchSize,
+    @DefaultValue("10ms") Duration publishWindow,
+    @DefaultValue("1000") int maxInFlight,
+    @DefaultValue("5s") Duration confirmTimeout,
+    @DefaultValue("5") int maxAttempts,
+    @DefaultValue("1s") Duration retryBackoff
+) {}
@@ -0,0 +1,20 @@
+package com.safevision.recognitionservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Type-safe configuration properties for alert deduplication.
+ * Maps properties starting with "safevision.recognition.alerts" from application.yml.
+ *
+ * @param suppressionWindow Minimum time between two alerts of the same type for the same track.
+ *                          A zero window disables suppression.
+ * @param coalesce          Whether rules firing on the same frame are merged into a single alert.
+ */
+@ConfigurationProperties(prefix = "safevision.recognition.alerts")
+public record AlertSuppressionProperties(
+    @DefaultValue("30s") Duration suppressionWindow,
+    @DefaultValue("true") boolean coalesce
+) {}
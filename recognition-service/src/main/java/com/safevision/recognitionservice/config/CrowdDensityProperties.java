@@ -0,0 +1,25 @@
+package com.safevision.recognitionservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Type-safe configuration properties for the per-camera crowd density.
+ * Maps properties starting with "safevision.recognition.density" from application.yml.
+ *
+ * @param window         Sliding window over which distinct subjects are counted, per camera.
+ * @param buckets        Buckets the window is cut into; it slides one bucket at a time.
+ * @param precision      HyperLogLog precision: {@code 2^precision} bytes per bucket, standard error
+ *                       {@code 1.04 / sqrt(2^precision)} (3.3% at 10).
+ * @param crowdThreshold Distinct subjects in the window from which a camera raises a crowd alert.
+ *                       It raises again only after the density fell below 80% of the threshold.
+ */
+@ConfigurationProperties(prefix = "safevision.recognition.density")
+public record CrowdDensityProperties(
+    @DefaultValue("60s") Duration window,
+    @DefaultValue("6") int buckets,
+    @DefaultValue("10") int precision,
+    @DefaultValue("25") int crowdThreshold
+) {}
@@ -0,0 +1,34 @@
+package com.safevision.recognitionservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Type-safe configuration properties for the journal of analyzed frames.
+ * Maps properties starting with "safevision.recognition.journal" from application.yml.
+ *
+ * @param enabled         Whether every analyzed frame is appended to the journal in {@code path}.
+ * @param path            Directory of the segment files. Segments left by a previous run are kept.
+ * @param segmentSize     Size of a segment file. A single frame larger than this is not journaled.
+ * @param segmentDuration Age after which a segment is closed even if not full, so retention can delete it.
+ * @param retention       How long frames are kept; whole segments are deleted once their newest frame is older.
+ * @param maxSize         Disk space of the journal beyond which the oldest segments are deleted early.
+ * @param commitInterval  Longest a journaled frame waits before being forced to disk along with its batch.
+ * @param queueCapacity   Frames waiting to be journaled. When full, frames are left out of the journal (and counted).
+ * @param indexInterval   Frames of a camera per entry of the segment time index: smaller reads less, indexes more.
+ */
+@ConfigurationProperties(prefix = "safevision.recognition.journal")
+public record EventJournalProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("./journal") String path,
+    @DefaultValue("64MB") DataSize segmentSize,
+    @DefaultValue("1h") Duration segmentDuration,
+    @DefaultValue("30d") Duration retention,
+    @DefaultValue("10GB") DataSize maxSize,
+    @DefaultValue("10ms") Duration commitInterval,
+    @DefaultValue("65536") int queueCapacity,
+    @DefaultValue("256") int indexInterval
+) {}
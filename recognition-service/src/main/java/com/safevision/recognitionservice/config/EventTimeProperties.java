@@ -0,0 +1,20 @@
+package com.safevision.recognitionservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Type-safe configuration properties for event-time processing.
+ * Maps properties starting with "safevision.recognition.event-time" from application.yml.
+ *
+ * @param maxOutOfOrderness How far behind the newest frame of a track a frame may arrive and still be
+ *                          put back in order. Frames are held for this long before analysis. Zero disables reordering.
+ * @param maxBufferedFrames Upper bound of frames held per track; beyond it the oldest frame is released early.
+ */
+@ConfigurationProperties(prefix = "safevision.recognition.event-time")
+public record EventTimeProperties(
+    @DefaultValue("500ms") Duration maxOutOfOrderness,
+    @DefaultValue("64") int maxBufferedFrames
+) {}
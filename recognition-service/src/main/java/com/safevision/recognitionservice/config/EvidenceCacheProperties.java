@@ -0,0 +1,23 @@
+package com.safevision.recognitionservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Type-safe configuration properties for the evidence snapshot cache.
+ * Maps properties starting with "safevision.recognition.evidence" from application.yml.
+ *
+ * @param maxEntries       Tracks with a cached snapshot URL; the least recently used go first.
+ * @param maxWeight        Approximate memory the cached URLs may take.
+ * @param expireAfterWrite How long a snapshot URL stays usable. Matches the snapshot retention of
+ *                         ADR-021: past it, the URL points to a deleted object.
+ */
+@ConfigurationProperties(prefix = "safevision.recognition.evidence")
+public record EvidenceCacheProperties(
+    @DefaultValue("100000") int maxEntries,
+    @DefaultValue("32MB") DataSize maxWeight,
+    @DefaultValue("30d") Duration expireAfterWrite
+) {}
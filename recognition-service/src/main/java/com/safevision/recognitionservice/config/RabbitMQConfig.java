@@ -1,28 +1,46 @@
 package com.safevision.recognitionservice.config;
 
+import com.safevision.recognitionservice.codec.RawTrackingBinaryCodec;
+import com.safevision.recognitionservice.codec.RawTrackingBinaryMessageConverter;
+import com.safevision.recognitionservice.codec.RawTrackingJsonMessageConverter;
+import com.safevision.recognitionservice.codec.TimedMessageConverter;
+import com.safevision.recognitionservice.pipeline.PipelineTimers;
+import com.safevision.recognitionservice.service.TrackRoutingService;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /**
  * Infrastructure configuration for RabbitMQ.
- * Responsible for declaring queues and configuring the JSON message converter.
+ * Responsible for declaring queues and configuring the message converters:
+ * JSON for everything, plus the compact binary format on the raw tracking listeners.
  */
 @Slf4j
 @Configuration
 @RequiredArgsConstructor
-@EnableConfigurationProperties(RabbitQueueProperties.class) // Activates the Record
+@EnableConfigurationProperties({
+    RabbitQueueProperties.class,
+    RawTrackingBatchProperties.class,
+    AlertPublisherProperties.class,
+    TrackRoutingProperties.class
+}) // Activates the Records
 public class RabbitMQConfig {
 
     private final RabbitQueueProperties queueProperties;
+    private final RawTrackingBatchProperties batchProperties;
 
     /**
      * Exposes the raw tracking queue name as a String Bean.
@@ -51,6 +69,19 @@ public class RabbitMQConfig {
         return new Queue(queueProperties.rawTracking(), true);
     }
 
+    /**
+     * Declares the queue this instance receives forwarded frames on, when track routing is enabled.
+     * It expires once its instance is gone for good, instead of piling up frames nobody owns.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "safevision.recognition.routing", name = "enabled", havingValue = "true")
+    public Queue instanceTrackingQueue(TrackRoutingService trackRouting, TrackRoutingProperties routingProperties) {
+        log.info("Configuring Instance Input Queue: {}", trackRouting.instanceQueueName());
+        return QueueBuilder.durable(trackRouting.instanceQueueName())
+            .expires((int) routingProperties.instanceQueueExpiry().toMillis())
+            .build();
+    }
+
     /**
      * Declares the Alerts Queue (Output).
      */
@@ -68,22 +99,85 @@ public class RabbitMQConfig {
         return new Jackson2JsonMessageConverter();
     }
 
+    /**
+     * Converter of the raw tracking listeners, selected per message by its AMQP {@code content_type}:
+     * {@link RawTrackingBinaryCodec#CONTENT_TYPE} is decoded by the binary codec, anything else
+     * (including agents that send no content type) is JSON, read by the streaming decoder with
+     * Jackson as fallback. Both formats are accepted while the agents migrate. Decoding is timed
+     * as the {@code decode} stage of the pipeline.
+     * <p>
+     * Deliberately not a bean: Spring Boot only wires a {@link MessageConverter} into the
+     * {@code RabbitTemplate} when exactly one exists, and alerts must keep going out as JSON.
+     * </p>
+     */
+    private MessageConverter rawTrackingMessageConverter(MessageConverter jsonMessageConverter, MeterRegistry meterRegistry) {
+        ContentTypeDelegatingMessageConverter converter =
+            new ContentTypeDelegatingMessageConverter(new RawTrackingJsonMessageConverter(jsonMessageConverter));
+        converter.addDelegate(RawTrackingBinaryCodec.CONTENT_TYPE, new RawTrackingBinaryMessageConverter());
+        return new TimedMessageConverter(converter, PipelineTimers.stage("decode", meterRegistry));
+    }
+
     /**
      * 🔥 CRITICAL FIX: Configures the Listener Container Factory to enable Observability.
      * This forces Spring AMQP to extract the X-B3-TraceId injected by Python.
+     * <p>
+     * Acknowledgements are manual: the listeners settle each frame through the
+     * {@code DeliveryAckService} once its track worker processed it, in batches.
+     * </p>
      */
     @Bean
     public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(
             SimpleRabbitListenerContainerFactoryConfigurer configurer,
-            ConnectionFactory connectionFactory) {
+            ConnectionFactory connectionFactory,
+            MessageConverter jsonMessageConverter,
+            MeterRegistry meterRegistry) {
         
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         // Applies default Spring Boot settings (like the JSON converter)
         configurer.configure(factory, connectionFactory);
+        factory.setMessageConverter(rawTrackingMessageConverter(jsonMessageConverter, meterRegistry));
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
         
         // Turns on Micrometer Tracing to intercept the Zipkin IDs from RabbitMQ headers
         factory.setObservationEnabled(true); 
         
         return factory;
     }
-}
\ No newline at end of file
+
+    /**
+     * Listener Container Factory for batch consumption of the raw tracking queue.
+     * <p>
+     * The consumer accumulates up to {@code size} messages (or until no message arrives
+     * within {@code maxWait}) and hands them to the listener as a single {@code List}.
+     * Per-message observation is turned off on purpose, overriding the
+     * {@code listener.simple.observation-enabled} the configurer copies: paying one Micrometer
+     * observation per frame is exactly the overhead batch mode is meant to remove.
+     * </p>
+     * <p>
+     * Unlike the single-frame factory, acknowledgements stay automatic: the container settles a
+     * whole batch once the listener has dispatched it to the track workers, not once the frames
+     * were analyzed. A crash may therefore lose the frames of the last batches still queued in
+     * the process, which batch mode accepts in exchange for its throughput.
+     * </p>
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory batchRabbitListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            MessageConverter jsonMessageConverter,
+            MeterRegistry meterRegistry) {
+
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setMessageConverter(rawTrackingMessageConverter(jsonMessageConverter, meterRegistry));
+
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchProperties.size());
+        // The container raises the prefetch to at least one full batch on its own.
+        factory.setReceiveTimeout(batchProperties.maxWait().toMillis());
+        factory.setObservationEnabled(false);
+
+        return factory;
+    }
+}
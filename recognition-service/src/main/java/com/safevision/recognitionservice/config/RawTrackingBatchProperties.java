@@ -0,0 +1,21 @@
+package com.safevision.recognitionservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Type-safe configuration properties for batch consumption of the raw tracking queue.
+ * Maps properties starting with "safevision.recognition.batch" from application.yml.
+ *
+ * @param enabled Switches the raw tracking listener from one-message to batch mode.
+ * @param size    Maximum number of messages delivered to the listener at once.
+ * @param maxWait How long the consumer waits for the next message before releasing a partial batch.
+ */
+@ConfigurationProperties(prefix = "safevision.recognition.batch")
+public record RawTrackingBatchProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("100") int size,
+    @DefaultValue("200ms") Duration maxWait
+) {}
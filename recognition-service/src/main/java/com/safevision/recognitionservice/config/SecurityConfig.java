@@ -36,7 +36,8 @@ public class SecurityConfig {
     private static final String[] PUBLIC_ENDPOINTS = {
         "/v3/api-docs/**",
         "/swagger-ui/**",
-        "/swagger-ui.html"
+        "/swagger-ui.html",
+        "/actuator/**" // Only health, info and prometheus are exposed (see application.yml)
     };
 
     /**
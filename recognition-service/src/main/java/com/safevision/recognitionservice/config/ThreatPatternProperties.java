@@ -0,0 +1,20 @@
+package com.safevision.recognitionservice.config;
+
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import com.safevision.recognitionservice.pattern.SequencePattern;
+
+/**
+ * Type-safe configuration properties for the multi-step threat patterns.
+ * Maps properties starting with "safevision.recognition.patterns" from application.yml.
+ *
+ * @param sequences Sequences of signals that raise an alert when a track goes through them in order.
+ *                  None by default: the shipped ones are declared in application.yml.
+ */
+@ConfigurationProperties(prefix = "safevision.recognition.patterns")
+public record ThreatPatternProperties(
+    @DefaultValue List<SequencePattern> sequences
+) {}
@@ -0,0 +1,34 @@
+package com.safevision.recognitionservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Type-safe configuration properties for routing raw tracking events across service instances.
+ * Maps properties starting with "safevision.recognition.routing" from application.yml.
+ *
+ * @param enabled             Whether frames are routed to the instance that owns their track. Requires Eureka.
+ * @param partitionKey        Field frames are hashed on.
+ * @param virtualNodes        Points per instance on the consistent-hash ring.
+ * @param instanceQueueExpiry The per-instance queue is deleted by the broker after staying unused this long.
+ */
+@ConfigurationProperties(prefix = "safevision.recognition.routing")
+public record TrackRoutingProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("DETECTION_ID") PartitionKey partitionKey,
+    @DefaultValue("128") int virtualNodes,
+    @DefaultValue("5m") Duration instanceQueueExpiry
+) {
+
+    /**
+     * Field of a frame that decides its owning instance.
+     */
+    public enum PartitionKey {
+        /** Spreads load evenly; every detection keeps its state on one instance, but the crowd density only counts a share of each camera. */
+        DETECTION_ID,
+        /** Keeps every track of a camera on one instance, at the cost of a less even spread. */
+        CAMERA_ID
+    }
+}
@@ -0,0 +1,19 @@
+package com.safevision.recognitionservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Type-safe configuration properties for the lifecycle of per-track state.
+ * Maps properties starting with "safevision.recognition.state" from application.yml.
+ *
+ * @param idleTimeout   Time without frames after which a track's state is evicted.
+ * @param sweepInterval Resolution of the timing wheel that detects idle tracks.
+ */
+@ConfigurationProperties(prefix = "safevision.recognition.state")
+public record TrackStateProperties(
+    @DefaultValue("30s") Duration idleTimeout,
+    @DefaultValue("1s") Duration sweepInterval
+) {}
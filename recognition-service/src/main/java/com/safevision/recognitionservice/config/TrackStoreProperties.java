@@ -0,0 +1,18 @@
+package com.safevision.recognitionservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Type-safe configuration properties for the off-heap track state store.
+ * Maps properties starting with "safevision.recognition.state.store" from application.yml.
+ *
+ * @param path     File the store is memory-mapped from, so that track state survives a restart.
+ *                 Empty keeps the store in anonymous off-heap memory.
+ * @param capacity Number of slots in the store; up to 75% of them hold tracks (about 300 bytes each).
+ */
+@ConfigurationProperties(prefix = "safevision.recognition.state.store")
+public record TrackStoreProperties(
+    @DefaultValue("") String path,
+    @DefaultValue("262144") int capacity
+) {}
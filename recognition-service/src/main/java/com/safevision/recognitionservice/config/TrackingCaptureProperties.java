@@ -0,0 +1,21 @@
+package com.safevision.recognitionservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Type-safe configuration properties for capturing the raw tracking stream to a file.
+ * Maps properties starting with "safevision.recognition.capture" from application.yml.
+ *
+ * @param enabled       Whether every frame consumed from the raw tracking queue is written to {@code path}.
+ * @param path          Capture file, overwritten on startup. Replayed with the replay tool of recognition-benchmarks.
+ * @param maxEvents     Frames after which the capture stops on its own.
+ * @param queueCapacity Frames waiting to be written. When full, frames are left out of the capture (and counted).
+ */
+@ConfigurationProperties(prefix = "safevision.recognition.capture")
+public record TrackingCaptureProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("./capture/raw-tracking.svcp") String path,
+    @DefaultValue("10000000") long maxEvents,
+    @DefaultValue("65536") int queueCapacity
+) {}
@@ -0,0 +1,168 @@
+package com.safevision.recognitionservice.config;
+
+import com.safevision.recognitionservice.pipeline.TrackPartitionedExecutor;
+import com.safevision.recognitionservice.service.AlertSuppressionService;
+import com.safevision.recognitionservice.service.CrowdDensityService;
+import com.safevision.recognitionservice.service.EventTimeOrderingService;
+import com.safevision.recognitionservice.service.EvidenceCacheService;
+import com.safevision.recognitionservice.service.PatternMatcherService;
+import com.safevision.recognitionservice.state.MappedTrackStateStore;
+import com.safevision.recognitionservice.state.SymbolTable;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Infrastructure configuration for the in-process tracking pipeline.
+ * Responsible for creating the per-track worker pool that sits between
+ * the RabbitMQ listener and the business facade, the scheduler that
+ * runs periodic track maintenance (e.g. idle eviction), the scheduler for
+ * periodic jobs that block on disk or the broker, the off-heap
+ * store that holds per-track history, and the gauges watching all of them.
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+@EnableConfigurationProperties({
+    TrackingPipelineProperties.class,
+    TrackStateProperties.class,
+    EventTimeProperties.class,
+    AlertSuppressionProperties.class,
+    AdmissionControlProperties.class,
+    TrackStoreProperties.class,
+    TrackingCaptureProperties.class,
+    EvidenceCacheProperties.class,
+    ThreatPatternProperties.class,
+    CrowdDensityProperties.class,
+    EventJournalProperties.class
+})
+public class TrackingPipelineConfig {
+
+    private final TrackingPipelineProperties pipelineProperties;
+
+    /**
+     * Declares the partitioned executor. Events of the same detection ID always land
+     * on the same single-threaded worker, so per-track state never needs locking.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public TrackPartitionedExecutor trackPartitionedExecutor() {
+        int workers = pipelineProperties.effectiveWorkers();
+        log.info("Configuring Track Pipeline: {} workers, {} slots each", workers, pipelineProperties.queueCapacity());
+        return new TrackPartitionedExecutor(workers, pipelineProperties.queueCapacity());
+    }
+
+    /**
+     * Single background thread for periodic track maintenance jobs.
+     * Jobs must stay short and never block: any per-track work is handed back to the track workers
+     * with {@link TrackPartitionedExecutor#tryExecute(String, Runnable)}, and retried on the next run
+     * when a worker is full, so a backlog of frames never holds back the ack flush.
+     * Jobs that block on disk or the network go to {@link #backgroundIoScheduler()} instead,
+     * so they never hold back the ack flush, the reorder flush or the sweeps.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService trackMaintenanceScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "track-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Background threads for periodic jobs that block: journal compaction and retention, and the
+     * broker queue probe of the load check. Two threads, so a long compaction does not hold back
+     * the load check either.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService backgroundIoScheduler() {
+        return Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "background-io");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Dense int handles of the live detection IDs. Each frame resolves its track once; the per-track
+     * state is then indexed by handle. A handle is released when its track is evicted.
+     */
+    @Bean
+    public SymbolTable trackSymbols() {
+        return new SymbolTable();
+    }
+
+    /**
+     * Declares the off-heap track state store, memory-mapped from a file when a path is configured.
+     * A file that cannot be opened must not keep the service down: the store then starts empty in memory.
+     */
+    @Bean(destroyMethod = "close")
+    public MappedTrackStateStore trackStateStore(TrackStoreProperties storeProperties, TrackStateProperties stateProperties) {
+        if (storeProperties.path().isBlank()) {
+            log.info("Track state store: in memory, {} slots", storeProperties.capacity());
+            return MappedTrackStateStore.inMemory(storeProperties.capacity());
+        }
+
+        Path path = Path.of(storeProperties.path());
+        try {
+            MappedTrackStateStore store = MappedTrackStateStore.open(path, storeProperties.capacity(), stateProperties.idleTimeout());
+            log.info("Track state store: mapped from {}, {} tracks recovered", path.toAbsolutePath(), store.size());
+            return store;
+        } catch (IOException | RuntimeException e) {
+            log.error("❌ Could not map track state file {}: {}. Falling back to memory", path, e.getMessage(), e);
+            return MappedTrackStateStore.inMemory(storeProperties.capacity());
+        }
+    }
+
+    /**
+     * Gauges over the pipeline's queues and per-track state, read at scrape time only.
+     */
+    @Bean
+    public MeterBinder trackingPipelineMetrics(TrackPartitionedExecutor trackExecutor,
+                                               SymbolTable trackSymbols,
+                                               MappedTrackStateStore trackStateStore,
+                                               EvidenceCacheService evidenceCache,
+                                               AlertSuppressionService suppressionService,
+                                               PatternMatcherService patternMatcher,
+                                               CrowdDensityService crowdDensity,
+                                               EventTimeOrderingService eventTimeOrdering) {
+        return registry -> {
+            Gauge.builder("recognition.workers.backlog", trackExecutor, TrackPartitionedExecutor::backlog)
+                .description("Frames queued on the track workers")
+                .register(registry);
+            Gauge.builder("recognition.tracks.handles", trackSymbols, SymbolTable::size)
+                .description("Detection IDs holding a handle in the track symbol table")
+                .register(registry);
+            Gauge.builder("recognition.state.store.tracks", trackStateStore, MappedTrackStateStore::size)
+                .description("Tracks held by the off-heap track state store")
+                .register(registry);
+            Gauge.builder("recognition.state.store.capacity", trackStateStore, MappedTrackStateStore::capacity)
+                .description("Tracks the off-heap track state store can hold")
+                .register(registry);
+            cacheGauge("evidence", evidenceCache, EvidenceCacheService::size, registry);
+            cacheGauge("suppression", suppressionService, AlertSuppressionService::size, registry);
+            cacheGauge("pattern", patternMatcher, PatternMatcherService::size, registry);
+            cacheGauge("reorder", eventTimeOrdering, EventTimeOrderingService::bufferedTracks, registry);
+            Gauge.builder("recognition.density.cameras", crowdDensity, CrowdDensityService::size)
+                .description("Cameras with a crowd density window")
+                .register(registry);
+        };
+    }
+
+    private static <T> void cacheGauge(String cache, T owner, ToDoubleFunction<T> size, MeterRegistry registry) {
+        Gauge.builder("recognition.cache.size", owner, size)
+            .description("Tracks with an entry in a per-track cache")
+            .tag("cache", cache)
+            .register(registry);
+    }
+}
@@ -0,0 +1,32 @@
+package com.safevision.recognitionservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Type-safe configuration properties for the in-process tracking pipeline.
+ * Maps properties starting with "safevision.recognition.pipeline" from application.yml.
+ *
+ * @param workers       Number of single-threaded track workers. {@code 0} means one per available core.
+ * @param queueCapacity Maximum number of pending events per worker before the listener is throttled
+ *                      (rounded up to a power of two: it sizes the worker's ring).
+ * @param ackBatchSize  Processed frames settled by one broker acknowledgement. Keep it below the listener prefetch.
+ * @param ackMaxDelay   Longest a processed frame waits for its batch before being acknowledged anyway.
+ */
+@ConfigurationProperties(prefix = "safevision.recognition.pipeline")
+public record TrackingPipelineProperties(
+    @DefaultValue("0") int workers,
+    @DefaultValue("1024") int queueCapacity,
+    @DefaultValue("64") int ackBatchSize,
+    @DefaultValue("50ms") Duration ackMaxDelay
+) {
+
+    /**
+     * Resolves the effective worker count, falling back to the number of available cores.
+     */
+    public int effectiveWorkers() {
+        return workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -1,14 +1,24 @@
 package com.safevision.recognitionservice.controller;
 
 import com.safevision.recognitionservice.dto.AlertEventDTO;
+import com.safevision.recognitionservice.dto.CrowdDensityDTO;
+import com.safevision.recognitionservice.journal.JournalEntry;
 import com.safevision.recognitionservice.producer.AlertProducer;
+import com.safevision.recognitionservice.service.CrowdDensityService;
+import com.safevision.recognitionservice.service.EventJournalService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Instant;
+import java.util.List;
+
 /**
  * REST Controller for external interaction with the Recognition Service.
  * <p>
@@ -22,7 +32,50 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 public class RecognitionController {
 
+    /** Most frames a single journal query returns. */
+    private static final int MAX_JOURNAL_FRAMES = 10_000;
+
     private final AlertProducer alertProducer;
+    private final CrowdDensityService crowdDensityService;
+    private final EventJournalService eventJournalService;
+
+    /**
+     * Reads the current crowd density of every camera in one call.
+     * <p>
+     * Counts are estimates (HyperLogLog, a few percent of error) of the distinct subjects seen
+     * over the density window; the total counts a subject seen by several cameras once.
+     * </p>
+     *
+     * @return Density per camera and across all cameras.
+     */
+    @GetMapping("/density")
+    public ResponseEntity<CrowdDensityDTO> density() {
+        return ResponseEntity.ok(crowdDensityService.snapshot());
+    }
+
+    /**
+     * Reads back the frames a camera sent between two instants, from the event journal.
+     * <p>
+     * Only the journal blocks of that camera overlapping the period are decoded. Frames come
+     * oldest first; a period holding more than {@code limit} frames is cut short.
+     * </p>
+     *
+     * @param cameraId Hardware ID of the camera.
+     * @param from     Start of the period (ISO-8601 instant), inclusive.
+     * @param to       End of the period (ISO-8601 instant), inclusive.
+     * @param limit    Frames returned at most (up to {@value #MAX_JOURNAL_FRAMES}).
+     * @return The journaled frames, with their journal sequence and reception time.
+     */
+    @GetMapping("/journal/cameras/{cameraId}/frames")
+    public ResponseEntity<List<JournalEntry>> journalFrames(@PathVariable String cameraId,
+                                                            @RequestParam Instant from,
+                                                            @RequestParam Instant to,
+                                                            @RequestParam(defaultValue = "1000") int limit) {
+        if (to.isBefore(from) || limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(eventJournalService.query(cameraId, from, to, Math.min(limit, MAX_JOURNAL_FRAMES)));
+    }
 
     /**
      * Manually triggers a detection event and sends it directly to the Alert Service queue.
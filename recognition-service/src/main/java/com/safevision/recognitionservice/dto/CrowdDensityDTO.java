@@ -0,0 +1,16 @@
+package com.safevision.recognitionservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.Map;
+
+@Schema(description = "Distinct subjects seen by the cameras over the recent sliding window")
+public record CrowdDensityDTO(
+    @Schema(description = "Length of the sliding window, in seconds")
+    long windowSeconds,
+
+    @Schema(description = "Estimated distinct subjects across every camera (a subject seen by two cameras counts once)")
+    long distinctSubjects,
+
+    @Schema(description = "Estimated distinct subjects per camera ID")
+    Map<String, Long> cameras
+) {}
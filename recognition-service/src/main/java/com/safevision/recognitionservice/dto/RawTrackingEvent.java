@@ -10,7 +10,7 @@ public record RawTrackingEvent(
     @Schema(description = "Unique ID for the AI detection session")
     String detectionId,
     
-    @Schema(description = "Unix timestamp of the capture")
+    @Schema(description = "Unix timestamp of the capture, in milliseconds (seconds are still accepted)")
     long timestamp,
     
     @Schema(description = "Hardware ID of the camera")
@@ -50,4 +50,25 @@ public record RawTrackingEvent(
         if (detectionId == null || detectionId.isBlank()) throw new IllegalArgumentException("Detection ID cannot be null");
         if (userId == null || userId.isBlank()) throw new IllegalArgumentException("User ID cannot be null");
     }
+
+    /** Below this value a timestamp can only be in seconds (1e11 ms is March 1973, 1e11 s is year 5138). */
+    private static final long MAX_EPOCH_SECONDS = 100_000_000_000L;
+
+    /**
+     * Capture time of the frame in epoch milliseconds (the event time used by the rules).
+     * Older agents send epoch seconds, which are normalized here.
+     *
+     * @return The event time, or 0 if the agent did not send a timestamp.
+     */
+    public long eventTimeMillis() {
+        return eventTimeMillis(timestamp);
+    }
+
+    /**
+     * Event time of a frame sent with the given timestamp, as {@link #eventTimeMillis()} returns it.
+     */
+    public static long eventTimeMillis(long timestamp) {
+        if (timestamp <= 0) return 0;
+        return timestamp < MAX_EPOCH_SECONDS ? timestamp * 1000 : timestamp;
+    }
 }
\ No newline at end of file
@@ -1,18 +1,28 @@
 package com.safevision.recognitionservice.facade;
 
 import com.safevision.recognitionservice.dto.RawTrackingEvent;
-import com.safevision.recognitionservice.service.MovementHistoryService;
+import com.safevision.recognitionservice.pipeline.DeliveryWindow;
+import com.safevision.recognitionservice.service.EventJournalService;
+import com.safevision.recognitionservice.service.EventTimeOrderingService;
 import com.safevision.recognitionservice.service.ThreatAnalysisService;
+import com.safevision.recognitionservice.service.TrackEvictionService;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Facade Pattern: Orchestrates the threat detection pipeline.
  * <p>
  * This class decouples the message listener (Infrastructure Layer) from the
  * business logic (Domain Layer). It ensures that raw events go through the
- * correct sequence of processing steps: History Recording -> Threat Analysis.
+ * correct sequence of processing steps: Track Activity -> Event-Time Ordering -> Threat Analysis
+ * (which records history and other track state exactly once, through the rule plan) -> Journal.
  * </p>
  */
 @Slf4j
@@ -21,7 +31,14 @@ import org.springframework.stereotype.Service;
 public class TrackingWorkflowFacade {
 
     private final ThreatAnalysisService threatAnalysisService;
-    private final MovementHistoryService movementHistoryService;
+    private final TrackEvictionService trackEvictionService;
+    private final EventTimeOrderingService eventTimeOrdering;
+    private final EventJournalService eventJournal;
+
+    @PostConstruct
+    void start() {
+        eventTimeOrdering.start(this::runPipeline);
+    }
 
     /**
      * Orchestrates the processing of a single raw tracking event.
@@ -29,19 +46,84 @@ public class TrackingWorkflowFacade {
      * @param event The raw telemetry data received from the Vision Agent.
      */
     public void processEvent(RawTrackingEvent event) {
+        processEvent(event, null, 0);
+    }
+
+    /**
+     * Orchestrates the processing of a single raw tracking event consumed from the broker.
+     * <p>
+     * The delivery is marked as processed exactly once, when the event leaves the event-time
+     * reorder buffer and went through the analysis, or right away if it never gets there.
+     * </p>
+     *
+     * @param event      The raw telemetry data received from the Vision Agent.
+     * @param deliveries Window of the channel the event came from; {@code null} if there is nothing to settle.
+     * @param delivery   Position of the event in the window.
+     */
+    public void processEvent(RawTrackingEvent event, DeliveryWindow deliveries, long delivery) {
         if (event == null) {
             log.warn("⚠️ Received null event in workflow. Skipping.");
+            if (deliveries != null) deliveries.processed(delivery);
             return;
         }
 
         log.debug("🔄 Starting workflow for Detection ID: {}", event.toString());
 
-        
-        movementHistoryService.recordEvent(event);
+        boolean handedOver = false;
+        try {
+            trackEvictionService.touch(event.detectionId());
+
+            handedOver = true;
+            eventTimeOrdering.offer(event, deliveries, delivery);
+        } finally {
+            if (!handedOver && deliveries != null) deliveries.processed(delivery);
+        }
 
-        
-        threatAnalysisService.analyze(event);
-        
         log.trace("✅ Workflow completed for Detection ID: {}", event.detectionId());
     }
+
+    /**
+     * Orchestrates the processing of a batch of raw tracking events.
+     * <p>
+     * Events are first grouped by detection ID (keeping their arrival order inside
+     * each group), so per-track bookkeeping happens once per track instead of once
+     * per frame. A failure in one track does not prevent the others from being analyzed.
+     * </p>
+     *
+     * @param events The raw telemetry batch received from the Vision Agent.
+     */
+    public void processBatch(List<RawTrackingEvent> events) {
+        if (events == null || events.isEmpty()) {
+            log.warn("⚠️ Received empty batch in workflow. Skipping.");
+            return;
+        }
+
+        Map<String, List<RawTrackingEvent>> eventsByTrack = new LinkedHashMap<>();
+        for (RawTrackingEvent event : events) {
+            if (event == null) continue;
+            eventsByTrack.computeIfAbsent(event.detectionId(), k -> new ArrayList<>()).add(event);
+        }
+
+        log.debug("🔄 Starting batch workflow: {} events across {} tracks", events.size(), eventsByTrack.size());
+
+        eventsByTrack.forEach((detectionId, trackEvents) -> {
+            try {
+                trackEvictionService.touch(detectionId);
+                for (RawTrackingEvent event : trackEvents) {
+                    eventTimeOrdering.offer(event);
+                }
+            } catch (Exception e) {
+                log.error("❌ Error processing batch for Detection ID {}: {}", detectionId, e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Processing steps applied to every frame, once it is released in event-time order.
+     * History is recorded by the rule plan; the frame is journaled as analyzed.
+     */
+    private void runPipeline(RawTrackingEvent event) {
+        threatAnalysisService.analyze(event);
+        eventJournal.append(event);
+    }
 }
\ No newline at end of file
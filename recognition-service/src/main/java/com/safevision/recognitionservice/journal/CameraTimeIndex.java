@@ -0,0 +1,165 @@
+package com.safevision.recognitionservice.journal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sparse time index of one journal segment, per camera.
+ * <p>
+ * The records of a camera are grouped in blocks of up to {@code interval} consecutive records; a
+ * block keeps the byte range it spans in the segment and the event time range of its records. A
+ * query only scans the blocks of its camera whose time range overlaps the requested one, so the
+ * index costs a few dozen bytes per {@code interval} records, and a lookup skips both the other
+ * cameras and the other periods. Frames arrive roughly in event time order, so blocks rarely overlap.
+ * </p>
+ * <p>
+ * Layout of the sidecar file written when the segment is sealed, big-endian:
+ * <pre>
+ * header  4  magic "SVJI"
+ *         4  number of cameras
+ * camera  n  camera ID (modified UTF-8)
+ *         4  number of blocks
+ * block   4  start position, 4 end position, 8 lowest event time, 8 highest event time
+ * </pre>
+ * Not thread-safe: {@link JournalSegment} guards it.
+ * </p>
+ */
+final class CameraTimeIndex {
+
+    private static final int MAGIC = 0x53564A49; // "SVJI"
+
+    /** Camera key of frames without a camera ID. */
+    static final String NO_CAMERA = "";
+
+    private final int interval;
+    private final Map<String, Blocks> cameras = new HashMap<>();
+
+    CameraTimeIndex(int interval) {
+        this.interval = interval;
+    }
+
+    /**
+     * Indexes a record, appended after every record indexed so far.
+     *
+     * @param cameraId  Camera of the record.
+     * @param position  Position of the record in the segment.
+     * @param end       Position right after the record.
+     * @param eventTime Event time of the record.
+     */
+    void add(String cameraId, int position, int end, long eventTime) {
+        Blocks blocks = cameras.computeIfAbsent(key(cameraId), camera -> new Blocks());
+        if (blocks.count == 0 || blocks.openRecords >= interval) {
+            blocks.open(position, eventTime);
+        }
+        int last = blocks.count - 1;
+        blocks.ends[last] = end;
+        blocks.minTimes[last] = Math.min(blocks.minTimes[last], eventTime);
+        blocks.maxTimes[last] = Math.max(blocks.maxTimes[last], eventTime);
+        blocks.openRecords++;
+    }
+
+    /**
+     * Byte ranges to scan for the records of a camera between two event times, inclusive.
+     *
+     * @return Start and end positions, in pairs, in segment order.
+     */
+    int[] ranges(String cameraId, long fromMillis, long toMillis) {
+        Blocks blocks = cameras.get(key(cameraId));
+        if (blocks == null) return new int[0];
+
+        int[] ranges = new int[blocks.count * 2];
+        int size = 0;
+        for (int i = 0; i < blocks.count; i++) {
+            if (blocks.maxTimes[i] < fromMillis || blocks.minTimes[i] > toMillis) continue;
+            // Adjacent blocks are scanned in one go.
+            if (size > 0 && ranges[size - 1] == blocks.starts[i]) {
+                ranges[size - 1] = blocks.ends[i];
+            } else {
+                ranges[size++] = blocks.starts[i];
+                ranges[size++] = blocks.ends[i];
+            }
+        }
+        return Arrays.copyOf(ranges, size);
+    }
+
+    void write(Path path) throws IOException {
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(cameras.size());
+            for (Map.Entry<String, Blocks> camera : cameras.entrySet()) {
+                Blocks blocks = camera.getValue();
+                out.writeUTF(camera.getKey());
+                out.writeInt(blocks.count);
+                for (int i = 0; i < blocks.count; i++) {
+                    out.writeInt(blocks.starts[i]);
+                    out.writeInt(blocks.ends[i]);
+                    out.writeLong(blocks.minTimes[i]);
+                    out.writeLong(blocks.maxTimes[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads the sidecar of a sealed segment. Its blocks are closed: nothing is appended to them.
+     */
+    static CameraTimeIndex read(Path path, int interval) throws IOException {
+        var index = new CameraTimeIndex(interval);
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) throw new IOException(path + " is not a journal index");
+            int cameraCount = in.readInt();
+            for (int c = 0; c < cameraCount; c++) {
+                String cameraId = in.readUTF();
+                int count = in.readInt();
+                Blocks blocks = new Blocks();
+                for (int i = 0; i < count; i++) {
+                    int start = in.readInt();
+                    int end = in.readInt();
+                    long minTime = in.readLong();
+                    blocks.open(start, minTime);
+                    blocks.ends[i] = end;
+                    blocks.maxTimes[i] = in.readLong();
+                }
+                index.cameras.put(cameraId, blocks);
+            }
+        }
+        return index;
+    }
+
+    private static String key(String cameraId) {
+        return cameraId != null ? cameraId : NO_CAMERA;
+    }
+
+    private static final class Blocks {
+
+        int count;
+        int openRecords;
+        int[] starts = new int[4];
+        int[] ends = new int[4];
+        long[] minTimes = new long[4];
+        long[] maxTimes = new long[4];
+
+        void open(int position, long eventTime) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+                minTimes = Arrays.copyOf(minTimes, count * 2);
+                maxTimes = Arrays.copyOf(maxTimes, count * 2);
+            }
+            starts[count] = position;
+            ends[count] = position;
+            minTimes[count] = eventTime;
+            maxTimes[count] = eventTime;
+            count++;
+            openRecords = 0;
+        }
+    }
+}
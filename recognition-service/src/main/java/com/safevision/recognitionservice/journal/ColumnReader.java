@@ -0,0 +1,105 @@
+package com.safevision.recognitionservice.journal;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the column encodings of {@link ColumnWriter} from a buffer, with absolute gets only, so
+ * several readers can share the buffer of a {@link ColumnarSegment}.
+ */
+final class ColumnReader {
+
+    private final ByteBuffer buffer;
+    private int position;
+
+    ColumnReader(ByteBuffer buffer, int position) {
+        this.buffer = buffer;
+        this.position = position;
+    }
+
+    long readVarLong() {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get(position++);
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    long readZigZag() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    long[] readDeltas(int count) {
+        long[] values = new long[count];
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += readZigZag();
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    long[] readDeltaOfDeltas(int count) {
+        long[] values = new long[count];
+        long previous = 0;
+        long delta = 0;
+        for (int i = 0; i < count; i++) {
+            delta = i < 2 ? readZigZag() : delta + readZigZag();
+            previous += delta;
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    /**
+     * Reads the header of a packed column and skips its bits; the values are read from the returned view.
+     */
+    Packed readPacked(int count) {
+        long min = readZigZag();
+        int width = buffer.get(position++);
+        var packed = new Packed(buffer, position, min, width);
+        position += (int) (((long) count * width + 7) / 8);
+        return packed;
+    }
+
+    int position() {
+        return position;
+    }
+
+    /**
+     * A bit-packed column, read at any row.
+     */
+    static final class Packed {
+
+        private final ByteBuffer buffer;
+        private final int start;
+        private final long min;
+        private final int width;
+
+        private Packed(ByteBuffer buffer, int start, long min, int width) {
+            this.buffer = buffer;
+            this.start = start;
+            this.min = min;
+            this.width = width;
+        }
+
+        long get(int row) {
+            if (width == 0) return min;
+            long bit = (long) row * width;
+            int at = start + (int) (bit >>> 3);
+            int skip = (int) (bit & 7);
+            long offset = 0;
+            int read = 0;
+            while (read < width) {
+                int available = 8 - skip;
+                int take = Math.min(available, width - read);
+                long chunk = ((buffer.get(at++) & 0xFF) >>> skip) & ((1L << take) - 1);
+                offset |= chunk << read;
+                read += take;
+                skip = 0;
+            }
+            return min + offset;
+        }
+    }
+}
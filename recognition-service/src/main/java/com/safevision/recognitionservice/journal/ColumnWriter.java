@@ -0,0 +1,140 @@
+package com.safevision.recognitionservice.journal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer with the column encodings of a {@link ColumnarSegment}; read back by {@link ColumnReader}.
+ * <ul>
+ *   <li><b>Deltas</b>: the first value, then the difference with the previous one, as zigzag varints.
+ *       An increasing series of nearby values takes about a byte per value.</li>
+ *   <li><b>Deltas of deltas</b>: the first value, the first delta, then how much each delta differs
+ *       from the previous one. Timestamps at a steady frame rate encode as runs of zeros, a byte each.</li>
+ *   <li><b>Packed</b>: frame of reference and bit packing. The minimum as a zigzag varint, the bit width
+ *       of the largest offset from it, then every offset in exactly that many bits. A column holding
+ *       a single value takes no bits per row; values can be read at any row without decoding the others.</li>
+ * </ul>
+ */
+final class ColumnWriter {
+
+    private byte[] bytes;
+    private int size;
+
+    ColumnWriter(int capacity) {
+        this.bytes = new byte[Math.max(16, capacity)];
+    }
+
+    void writeByte(int value) {
+        ensure(1);
+        bytes[size++] = (byte) value;
+    }
+
+    void writeInt(int value) {
+        ensure(Integer.BYTES);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            bytes[size++] = (byte) (value >>> shift);
+        }
+    }
+
+    void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    void writeBytes(byte[] value) {
+        ensure(value.length);
+        System.arraycopy(value, 0, bytes, size, value.length);
+        size += value.length;
+    }
+
+    /** Unsigned LEB128: 7 bits per byte, low bits first. */
+    void writeVarLong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+    }
+
+    /** Signed varint: small negative values stay short. */
+    void writeZigZag(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    void writeDeltas(long[] values, int count) {
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            writeZigZag(values[i] - previous);
+            previous = values[i];
+        }
+    }
+
+    void writeDeltaOfDeltas(long[] values, int count) {
+        long previous = 0;
+        long previousDelta = 0;
+        for (int i = 0; i < count; i++) {
+            long delta = values[i] - previous;
+            writeZigZag(i < 2 ? delta : delta - previousDelta);
+            previous = values[i];
+            previousDelta = delta;
+        }
+    }
+
+    void writePacked(long[] values, int count) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            min = Math.min(min, values[i]);
+            max = Math.max(max, values[i]);
+        }
+        if (count == 0) min = max = 0;
+        // Unsigned: the range of two extreme longs still fits 64 bits.
+        int width = Long.SIZE - Long.numberOfLeadingZeros(max - min);
+        writeZigZag(min);
+        writeByte(width);
+        if (width == 0) return;
+
+        ensure((int) (((long) count * width + 7) / 8));
+        long accumulator = 0;
+        int bits = 0;
+        for (int i = 0; i < count; i++) {
+            long offset = values[i] - min;
+            int remaining = width;
+            while (remaining > 0) {
+                int take = Math.min(remaining, 8 - bits);
+                accumulator |= (offset & ((1L << take) - 1)) << bits;
+                offset >>>= take;
+                remaining -= take;
+                bits += take;
+                if (bits == 8) {
+                    bytes[size++] = (byte) accumulator;
+                    accumulator = 0;
+                    bits = 0;
+                }
+            }
+        }
+        if (bits > 0) {
+            bytes[size++] = (byte) accumulator;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void reset() {
+        size = 0;
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, size);
+    }
+
+    private void ensure(int more) {
+        if (size + more > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + more));
+        }
+    }
+}
@@ -0,0 +1,485 @@
+package com.safevision.recognitionservice.journal;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * A sealed {@link JournalSegment} compacted into columns, read-only.
+ * <p>
+ * The frames of each camera are cut into blocks of up to {@code blockRows} frames, and each block
+ * stores its frames field by field. Sequences and times grow steadily and are stored as deltas and
+ * deltas of deltas; strings (detection, user, camera IDs...) go through a dictionary shared by the
+ * whole file and are stored as bit-packed dictionary IDs, as are depths and flags (see
+ * {@link ColumnWriter}). A camera's user and coordinates never change, and its detection IDs
+ * change rarely, so most of a frame boils down to a few bits; a segment shrinks several times.
+ * </p>
+ * <p>
+ * The directory at the end of the file keeps, for every block, its camera and event time range. A
+ * query decodes only the blocks of its camera that overlap the period, and within a block reads
+ * the time columns first, so the other fields are only decoded for matching frames.
+ * </p>
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * header     4  magic "SVJC"
+ *            4  format version (1)
+ *            8  sequence of the first frame
+ *            8  sequence after the last frame
+ *            8  latest reception time, epoch milliseconds
+ * blocks     n  columns: sequences (deltas), reception times and timestamps (deltas of deltas), then
+ *               packed: detection ID, user ID, gaze, weapon type, weapon location, snapshot URL
+ *               (dictionary ID + 1, 0 for null), depth, flags, latitude, longitude (fixed-point 10^-7)
+ * dictionary 4  number of strings, 4 * (count + 1) offsets into the UTF-8 bytes that follow
+ * directory  per block: 4 camera (dictionary ID + 1), 4 frames, 8 lowest and 8 highest event time,
+ *               4 position, 4 length
+ * footer     8  dictionary position, 8 directory position, 4 number of blocks, 4 magic
+ * </pre>
+ * The file is written next to its target and moved in place once complete, so a crash during
+ * compaction leaves the raw segment untouched. Thread-safe: reads only use absolute gets.
+ * </p>
+ */
+final class ColumnarSegment implements Segment {
+
+    static final String SUFFIX = ".svjc";
+    static final String TEMP_SUFFIX = ".tmp";
+
+    private static final int MAGIC = 0x53564A43; // "SVJC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int FOOTER_SIZE = 24;
+    private static final int DIRECTORY_ENTRY_SIZE = 32;
+
+    /** Fixed point of the coordinates: the journal frames went through the wire format, which keeps no more. */
+    private static final int COORDINATE_SCALE = 7;
+
+    private static final int FLAG_FACING = 1;
+    private static final int FLAG_WEAPON = 1 << 1;
+    private static final int FLAG_LATITUDE = 1 << 2;
+    private static final int FLAG_LONGITUDE = 1 << 3;
+
+    private static final int[] NO_BLOCKS = new int[0];
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final long baseSequence;
+    private final long nextSequence;
+    private final long newestReceivedAt;
+    private final int dictionaryPosition;
+    private final int dictionarySize;
+
+    private final int[] blockCameras;
+    private final int[] blockRows;
+    private final long[] blockMinTimes;
+    private final long[] blockMaxTimes;
+    private final int[] blockPositions;
+    /** Blocks of each camera, in file order. */
+    private final Map<String, int[]> cameraBlocks;
+
+    private ColumnarSegment(Path file, MappedByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        int footer = buffer.capacity() - FOOTER_SIZE;
+        if (buffer.capacity() < HEADER_SIZE + FOOTER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(footer + 20) != MAGIC) {
+            throw new IOException(file + " is not a complete columnar journal segment");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported columnar journal segment version " + buffer.getInt(4) + " in " + file);
+        }
+        this.baseSequence = buffer.getLong(8);
+        this.nextSequence = buffer.getLong(16);
+        this.newestReceivedAt = buffer.getLong(24);
+        this.dictionaryPosition = (int) buffer.getLong(footer);
+        this.dictionarySize = buffer.getInt(dictionaryPosition);
+
+        int directory = (int) buffer.getLong(footer + 8);
+        int blocks = buffer.getInt(footer + 16);
+        this.blockCameras = new int[blocks];
+        this.blockRows = new int[blocks];
+        this.blockMinTimes = new long[blocks];
+        this.blockMaxTimes = new long[blocks];
+        this.blockPositions = new int[blocks];
+        Map<String, int[]> byCamera = new HashMap<>();
+        for (int b = 0; b < blocks; b++) {
+            int at = directory + b * DIRECTORY_ENTRY_SIZE;
+            blockCameras[b] = buffer.getInt(at);
+            blockRows[b] = buffer.getInt(at + 4);
+            blockMinTimes[b] = buffer.getLong(at + 8);
+            blockMaxTimes[b] = buffer.getLong(at + 16);
+            blockPositions[b] = buffer.getInt(at + 24);
+
+            String camera = blockCameras[b] == 0 ? CameraTimeIndex.NO_CAMERA : string(blockCameras[b] - 1);
+            int[] cameraList = byCamera.getOrDefault(camera, NO_BLOCKS);
+            cameraList = Arrays.copyOf(cameraList, cameraList.length + 1);
+            cameraList[cameraList.length - 1] = b;
+            byCamera.put(camera, cameraList);
+        }
+        this.cameraBlocks = byCamera;
+    }
+
+    /**
+     * Maps a compacted segment.
+     */
+    static ColumnarSegment open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return new ColumnarSegment(file, buffer);
+    }
+
+    /**
+     * Writes the columnar form of a sealed segment next to it, and opens it. The source is left
+     * as is: deleting it is up to the caller.
+     *
+     * @param blockRows Frames of a camera per block.
+     */
+    static ColumnarSegment compact(JournalSegment source, int blockRows) throws IOException {
+        Path target = source.file().resolveSibling(fileName(source.baseSequence()));
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16)) {
+            new Compactor(source, out, blockRows).run();
+            out.flush();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        return open(target);
+    }
+
+    @Override
+    public boolean read(String cameraId, long fromMillis, long toMillis, Predicate<JournalEntry> visitor) {
+        Map<Integer, String> strings = new HashMap<>();
+        for (int block : blocks(cameraId, fromMillis, toMillis)) {
+            if (!readBlock(block, fromMillis, toMillis, strings, visitor)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Blocks a read of a camera over a period decodes: those of the camera whose time range overlaps it.
+     */
+    int[] blocks(String cameraId, long fromMillis, long toMillis) {
+        int[] candidates = cameraBlocks.getOrDefault(cameraId != null ? cameraId : CameraTimeIndex.NO_CAMERA, NO_BLOCKS);
+        int[] blocks = new int[candidates.length];
+        int count = 0;
+        for (int block : candidates) {
+            if (blockMaxTimes[block] >= fromMillis && blockMinTimes[block] <= toMillis) {
+                blocks[count++] = block;
+            }
+        }
+        return Arrays.copyOf(blocks, count);
+    }
+
+    private boolean readBlock(int block, long fromMillis, long toMillis, Map<Integer, String> strings, Predicate<JournalEntry> visitor) {
+        int rows = blockRows[block];
+        var in = new ColumnReader(buffer, blockPositions[block]);
+        long[] sequences = in.readDeltas(rows);
+        long[] receivedAt = in.readDeltaOfDeltas(rows);
+        long[] timestamps = in.readDeltaOfDeltas(rows);
+        ColumnReader.Packed detectionIds = in.readPacked(rows);
+        ColumnReader.Packed userIds = in.readPacked(rows);
+        ColumnReader.Packed gazes = in.readPacked(rows);
+        ColumnReader.Packed weaponTypes = in.readPacked(rows);
+        ColumnReader.Packed weaponLocations = in.readPacked(rows);
+        ColumnReader.Packed snapshotUrls = in.readPacked(rows);
+        ColumnReader.Packed depths = in.readPacked(rows);
+        ColumnReader.Packed flags = in.readPacked(rows);
+        ColumnReader.Packed latitudes = in.readPacked(rows);
+        ColumnReader.Packed longitudes = in.readPacked(rows);
+        String cameraId = blockCameras[block] == 0 ? null : string(blockCameras[block] - 1, strings);
+
+        for (int row = 0; row < rows; row++) {
+            long eventTime = JournalSegment.eventTime(timestamps[row], receivedAt[row]);
+            if (eventTime < fromMillis || eventTime > toMillis) continue;
+
+            int flag = (int) flags.get(row);
+            var event = new RawTrackingEvent(
+                nullableString(detectionIds.get(row), strings), timestamps[row], cameraId,
+                nullableString(userIds.get(row), strings),
+                (flag & FLAG_FACING) != 0, nullableString(gazes.get(row), strings), (int) depths.get(row),
+                (flag & FLAG_WEAPON) != 0, nullableString(weaponTypes.get(row), strings),
+                nullableString(weaponLocations.get(row), strings), nullableString(snapshotUrls.get(row), strings),
+                (flag & FLAG_LATITUDE) != 0 ? BigDecimal.valueOf(latitudes.get(row), COORDINATE_SCALE) : null,
+                (flag & FLAG_LONGITUDE) != 0 ? BigDecimal.valueOf(longitudes.get(row), COORDINATE_SCALE) : null);
+            if (!visitor.test(new JournalEntry(baseSequence + sequences[row], receivedAt[row], event))) return false;
+        }
+        return true;
+    }
+
+    private String nullableString(long id, Map<Integer, String> strings) {
+        return id == 0 ? null : string((int) id - 1, strings);
+    }
+
+    private String string(int id, Map<Integer, String> strings) {
+        return strings.computeIfAbsent(id, this::string);
+    }
+
+    private String string(int id) {
+        int offsets = dictionaryPosition + Integer.BYTES;
+        int bytes = offsets + (dictionarySize + 1) * Integer.BYTES;
+        int start = buffer.getInt(offsets + id * Integer.BYTES);
+        int end = buffer.getInt(offsets + (id + 1) * Integer.BYTES);
+        byte[] utf8 = new byte[end - start];
+        buffer.get(bytes + start, utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public long baseSequence() {
+        return baseSequence;
+    }
+
+    @Override
+    public long nextSequence() {
+        return nextSequence;
+    }
+
+    @Override
+    public long newestReceivedAtMillis() {
+        return newestReceivedAt;
+    }
+
+    @Override
+    public long sizeBytes() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    Path file() {
+        return file;
+    }
+
+    static String fileName(long baseSequence) {
+        return String.format("%020d%s", baseSequence, SUFFIX);
+    }
+
+    /**
+     * Streams the frames of a segment into blocks, buffering at most one block per camera.
+     */
+    private static final class Compactor {
+
+        private final JournalSegment source;
+        private final OutputStream out;
+        private final int blockRows;
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private final List<byte[]> strings = new ArrayList<>();
+        private final Map<String, Block> open = new LinkedHashMap<>();
+        private final ColumnWriter columns;
+        private final ColumnWriter directory = new ColumnWriter(1 << 12);
+        private long position;
+        private int blocks;
+
+        Compactor(JournalSegment source, OutputStream out, int blockRows) {
+            this.source = source;
+            this.out = out;
+            this.blockRows = blockRows;
+            this.columns = new ColumnWriter(blockRows * 16);
+        }
+
+        void run() throws IOException {
+            columns.writeInt(MAGIC);
+            columns.writeInt(VERSION);
+            columns.writeLong(source.baseSequence());
+            columns.writeLong(source.nextSequence());
+            columns.writeLong(source.newestReceivedAtMillis());
+            emit(columns);
+
+            try {
+                source.scan(entry -> {
+                    String camera = entry.event().cameraId();
+                    Block block = open.computeIfAbsent(camera != null ? camera : CameraTimeIndex.NO_CAMERA,
+                        key -> new Block(camera == null ? 0 : id(camera) + 1, blockRows));
+                    block.add(entry, this);
+                    if (block.rows == blockRows) flush(block);
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            for (Block block : open.values()) {
+                if (block.rows > 0) flush(block);
+            }
+
+            long dictionaryPosition = position;
+            columns.writeInt(strings.size());
+            int offset = 0;
+            columns.writeInt(0);
+            for (byte[] string : strings) {
+                offset += string.length;
+                columns.writeInt(offset);
+            }
+            for (byte[] string : strings) {
+                columns.writeBytes(string);
+            }
+            emit(columns);
+
+            long directoryPosition = position;
+            emit(directory);
+            columns.writeLong(dictionaryPosition);
+            columns.writeLong(directoryPosition);
+            columns.writeInt(blocks);
+            columns.writeInt(MAGIC);
+            emit(columns);
+        }
+
+        private void flush(Block block) {
+            try {
+                long at = position;
+                block.encode(columns);
+                emit(columns);
+                directory.writeInt(block.camera);
+                directory.writeInt(block.rows);
+                directory.writeLong(block.minTime);
+                directory.writeLong(block.maxTime);
+                directory.writeInt(Math.toIntExact(at));
+                directory.writeInt(Math.toIntExact(position - at));
+                blocks++;
+                block.clear();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void emit(ColumnWriter writer) throws IOException {
+            writer.writeTo(out);
+            position += writer.size();
+            writer.reset();
+        }
+
+        /** Dictionary ID + 1 of a string, 0 for null. */
+        long nullableId(String value) {
+            return value == null ? 0 : id(value) + 1;
+        }
+
+        private int id(String value) {
+            Integer id = dictionary.get(value);
+            if (id == null) {
+                id = strings.size();
+                dictionary.put(value, id);
+                strings.add(value.getBytes(StandardCharsets.UTF_8));
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Frames of one camera waiting to be written as a block.
+     */
+    private static final class Block {
+
+        final int camera;
+        final long[] sequences;
+        final long[] receivedAt;
+        final long[] timestamps;
+        final long[] detectionIds;
+        final long[] userIds;
+        final long[] gazes;
+        final long[] weaponTypes;
+        final long[] weaponLocations;
+        final long[] snapshotUrls;
+        final long[] depths;
+        final long[] flags;
+        final long[] latitudes;
+        final long[] longitudes;
+        int rows;
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+
+        Block(int camera, int capacity) {
+            this.camera = camera;
+            sequences = new long[capacity];
+            receivedAt = new long[capacity];
+            timestamps = new long[capacity];
+            detectionIds = new long[capacity];
+            userIds = new long[capacity];
+            gazes = new long[capacity];
+            weaponTypes = new long[capacity];
+            weaponLocations = new long[capacity];
+            snapshotUrls = new long[capacity];
+            depths = new long[capacity];
+            flags = new long[capacity];
+            latitudes = new long[capacity];
+            longitudes = new long[capacity];
+        }
+
+        void add(JournalEntry entry, Compactor compactor) {
+            RawTrackingEvent event = entry.event();
+            int row = rows++;
+            sequences[row] = entry.sequence() - compactor.source.baseSequence();
+            receivedAt[row] = entry.receivedAtMillis();
+            timestamps[row] = event.timestamp();
+            detectionIds[row] = compactor.nullableId(event.detectionId());
+            userIds[row] = compactor.nullableId(event.userId());
+            gazes[row] = compactor.nullableId(event.gazeDirection());
+            weaponTypes[row] = compactor.nullableId(event.weaponType());
+            weaponLocations[row] = compactor.nullableId(event.weaponLocation());
+            snapshotUrls[row] = compactor.nullableId(event.snapshotUrl());
+            depths[row] = event.depthPosition();
+            flags[row] = (event.isFacingCamera() ? FLAG_FACING : 0)
+                | (event.hasWeapon() ? FLAG_WEAPON : 0)
+                | (event.latitude() != null ? FLAG_LATITUDE : 0)
+                | (event.longitude() != null ? FLAG_LONGITUDE : 0);
+            latitudes[row] = fixedPoint(event.latitude());
+            longitudes[row] = fixedPoint(event.longitude());
+
+            long eventTime = JournalSegment.eventTime(event.timestamp(), entry.receivedAtMillis());
+            minTime = Math.min(minTime, eventTime);
+            maxTime = Math.max(maxTime, eventTime);
+        }
+
+        void encode(ColumnWriter out) {
+            out.writeDeltas(sequences, rows);
+            out.writeDeltaOfDeltas(receivedAt, rows);
+            out.writeDeltaOfDeltas(timestamps, rows);
+            out.writePacked(detectionIds, rows);
+            out.writePacked(userIds, rows);
+            out.writePacked(gazes, rows);
+            out.writePacked(weaponTypes, rows);
+            out.writePacked(weaponLocations, rows);
+            out.writePacked(snapshotUrls, rows);
+            out.writePacked(depths, rows);
+            out.writePacked(flags, rows);
+            out.writePacked(latitudes, rows);
+            out.writePacked(longitudes, rows);
+        }
+
+        void clear() {
+            rows = 0;
+            minTime = Long.MAX_VALUE;
+            maxTime = Long.MIN_VALUE;
+        }
+
+        private static long fixedPoint(BigDecimal coordinate) {
+            if (coordinate == null) return 0;
+            return coordinate.setScale(COORDINATE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        }
+    }
+}
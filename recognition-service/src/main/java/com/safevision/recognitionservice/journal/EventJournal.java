@@ -0,0 +1,283 @@
+package com.safevision.recognitionservice.journal;
+
+import com.safevision.recognitionservice.codec.RawTrackingBinaryCodec;
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of raw tracking frames, kept on disk as a directory of {@link JournalSegment}s.
+ * <p>
+ * Frames are appended to the active segment, a memory-mapped file, so an append is a copy into
+ * memory. They become durable, and visible to readers, on {@link #commit()}: appending a batch and
+ * committing once amortizes the flush over the whole batch. The active segment is sealed and a new
+ * one started when it is full or its first frame is older than {@code segmentDuration}; whole sealed
+ * segments are deleted by {@link #enforceRetention}.
+ * </p>
+ * <p>
+ * Each segment indexes its frames per camera and event time ({@link CameraTimeIndex}), so reading
+ * back what one camera saw during a period skips the other cameras and the other periods.
+ * </p>
+ * <p>
+ * Sealed segments are rewritten by {@link #compact()} into {@link ColumnarSegment}s, several times
+ * smaller and indexed the same way. Reads go through either form alike.
+ * </p>
+ * <p>
+ * One thread appends and commits; any thread reads.
+ * </p>
+ */
+@Slf4j
+public final class EventJournal implements AutoCloseable {
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long segmentMillis;
+    private final int indexInterval;
+    /** Sealed segments, raw or compacted, oldest first, then the active one. */
+    private final List<Segment> segments = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private JournalSegment active;
+
+    /**
+     * Opens the journal in the given directory, creating it if needed. Segments left by a previous
+     * run are kept, sealed, and appending resumes in a new segment. A compaction cut short is
+     * discarded; one that completed replaces its raw segment.
+     *
+     * @param segmentBytes    Size of a segment file.
+     * @param segmentDuration Age of its first frame after which the active segment is sealed even if not full.
+     * @param indexInterval   Frames of a camera per block of the time index.
+     */
+    public EventJournal(Path directory, int segmentBytes, Duration segmentDuration, int indexInterval) throws IOException {
+        if (segmentBytes < JournalSegment.HEADER_SIZE + JournalSegment.RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("Journal segments must hold at least one record");
+        }
+        if (indexInterval < 1) throw new IllegalArgumentException("The journal index interval must be positive");
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.segmentMillis = segmentDuration.toMillis();
+        this.indexInterval = indexInterval;
+
+        Files.createDirectories(directory);
+        // Zero-padded names: lexical order is sequence order, and a columnar file sorts right after its raw segment.
+        TreeMap<String, Path> files = new TreeMap<>();
+        try (Stream<Path> listing = Files.list(directory)) {
+            for (Path file : listing.toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(ColumnarSegment.TEMP_SUFFIX)) {
+                    Files.delete(file);
+                } else if (name.endsWith(JournalSegment.SUFFIX) || name.endsWith(ColumnarSegment.SUFFIX)) {
+                    files.put(name, file);
+                }
+            }
+        }
+        for (Path file : files.values()) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(ColumnarSegment.SUFFIX)) {
+                segments.add(ColumnarSegment.open(file));
+                continue;
+            }
+            JournalSegment segment = JournalSegment.open(file, indexInterval);
+            String base = name.substring(0, name.length() - JournalSegment.SUFFIX.length());
+            // Left empty by a stop right after a roll over (the new active segment takes its name),
+            // or compacted by a run stopped before it could delete it.
+            if (segment.records() == 0 || files.containsKey(base + ColumnarSegment.SUFFIX)) {
+                segment.delete();
+            } else {
+                segments.add(segment);
+            }
+        }
+        long next = segments.isEmpty() ? 0 : segments.get(segments.size() - 1).nextSequence();
+        active = JournalSegment.create(directory, next, segmentBytes, indexInterval, System.currentTimeMillis());
+        segments.add(active);
+        if (segments.size() > 1) {
+            log.info("📼 Journal {} reopened: {} segments, appending from sequence {}", directory, segments.size() - 1, next);
+        }
+    }
+
+    /**
+     * Appends a frame to the active segment, rolling over to a new one first if needed.
+     * Not durable nor visible to readers before the next {@link #commit()}.
+     *
+     * @return Sequence of the frame in the journal.
+     * @throws IllegalArgumentException If the frame cannot fit in a segment.
+     */
+    public long append(RawTrackingEvent event, long receivedAtMillis) throws IOException {
+        byte[] body = RawTrackingBinaryCodec.encode(event);
+        if (JournalSegment.HEADER_SIZE + JournalSegment.RECORD_HEADER_SIZE + body.length > segmentBytes) {
+            throw new IllegalArgumentException("Frame of " + body.length + " bytes exceeds the journal segment size");
+        }
+        if (active.records() > 0 && receivedAtMillis - active.oldestReceivedAtMillis() >= segmentMillis) {
+            roll(receivedAtMillis);
+        }
+        long sequence = active.nextSequence();
+        if (!active.append(event, body, receivedAtMillis)) {
+            roll(receivedAtMillis);
+            sequence = active.nextSequence();
+            active.append(event, body, receivedAtMillis);
+        }
+        return sequence;
+    }
+
+    /**
+     * Forces the frames appended since the last commit to disk, and makes them visible to readers.
+     */
+    public void commit() {
+        active.force();
+    }
+
+    /**
+     * Calls the visitor with the committed frames of a camera whose event time lies between two
+     * instants, inclusive; oldest segment first, in append order within a segment.
+     *
+     * @param visitor Returns {@code false} to stop the read.
+     */
+    public void read(String cameraId, long fromMillis, long toMillis, Predicate<JournalEntry> visitor) {
+        for (Segment segment : snapshot()) {
+            if (!segment.read(cameraId, fromMillis, toMillis, visitor)) return;
+        }
+    }
+
+    /**
+     * Rewrites every sealed raw segment in columnar form, then deletes it. Readers keep going
+     * through either form meanwhile. Call from one thread at a time; appends can go on.
+     *
+     * @return Number of segments compacted.
+     */
+    public int compact() throws IOException {
+        List<JournalSegment> sealed = new ArrayList<>();
+        for (Segment segment : snapshot()) {
+            if (segment instanceof JournalSegment raw && raw != active) sealed.add(raw);
+        }
+        int compacted = 0;
+        for (JournalSegment raw : sealed) {
+            ColumnarSegment columnar = ColumnarSegment.compact(raw, indexInterval);
+            boolean replaced;
+            lock.lock();
+            try {
+                int at = segments.indexOf(raw);
+                replaced = at >= 0;
+                if (replaced) segments.set(at, columnar);
+            } finally {
+                lock.unlock();
+            }
+            if (replaced) {
+                raw.delete();
+                compacted++;
+                log.debug("Journal segment {} compacted: {} -> {} bytes", raw.file().getFileName(), raw.sizeBytes(), columnar.sizeBytes());
+            } else {
+                // Deleted by the retention meanwhile.
+                columnar.delete();
+            }
+        }
+        return compacted;
+    }
+
+    /**
+     * Deletes the sealed segments whose newest frame was received before {@code now - retention},
+     * then the oldest ones until the journal takes at most {@code maxBytes}. The active segment is
+     * never deleted.
+     *
+     * @return Number of segments deleted.
+     */
+    public int enforceRetention(Duration retention, long maxBytes, long nowMillis) throws IOException {
+        long cutoff = nowMillis - retention.toMillis();
+        List<Segment> expired = new ArrayList<>();
+        lock.lock();
+        try {
+            long total = sizeBytes();
+            Iterator<Segment> it = segments.iterator();
+            while (it.hasNext()) {
+                Segment segment = it.next();
+                if (segment == active) break;
+                if (segment.newestReceivedAtMillis() >= cutoff && total <= maxBytes) break;
+                it.remove();
+                expired.add(segment);
+                total -= segment.sizeBytes();
+            }
+        } finally {
+            lock.unlock();
+        }
+        // A reader may still hold one of them: its mapping stays valid after the file is deleted.
+        for (Segment segment : expired) {
+            segment.delete();
+        }
+        if (!expired.isEmpty()) {
+            log.info("🗑️ Journal retention deleted {} segments, up to sequence {}",
+                expired.size(), expired.get(expired.size() - 1).nextSequence() - 1);
+        }
+        return expired.size();
+    }
+
+    public int segmentCount() {
+        lock.lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Disk space of the journal: compacted files, and the committed part of raw segments. Raw
+     * segments are mapped at the full segment size, but the part never written stays a hole on file
+     * systems that support it.
+     */
+    public long sizeBytes() {
+        lock.lock();
+        try {
+            long size = 0;
+            for (Segment segment : segments) {
+                size += segment.sizeBytes();
+            }
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * Commits and seals the active segment.
+     */
+    @Override
+    public void close() throws IOException {
+        active.seal();
+    }
+
+    private void roll(long nowMillis) throws IOException {
+        active.seal();
+        JournalSegment next = JournalSegment.create(directory, active.nextSequence(), segmentBytes, indexInterval, nowMillis);
+        lock.lock();
+        try {
+            segments.add(next);
+            active = next;
+        } finally {
+            lock.unlock();
+        }
+        log.debug("Journal rolled over to segment {}", next.file().getFileName());
+    }
+
+    private List<Segment> snapshot() {
+        lock.lock();
+        try {
+            return List.copyOf(segments);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.safevision.recognitionservice.journal;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+
+/**
+ * A frame read back from the {@link EventJournal}.
+ *
+ * @param sequence         Position of the frame in the journal, in append order.
+ * @param receivedAtMillis Time the frame was journaled, wall clock.
+ * @param event            The frame as analyzed.
+ */
+public record JournalEntry(long sequence, long receivedAtMillis, RawTrackingEvent event) {}
@@ -0,0 +1,355 @@
+package com.safevision.recognitionservice.journal;
+
+import com.safevision.recognitionservice.codec.RawTrackingBinaryCodec;
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.zip.CRC32C;
+
+/**
+ * One file of the {@link EventJournal}: a memory-mapped, append-only run of frames.
+ * <p>
+ * The file is mapped at its full size when created. On Linux the unwritten tail stays a hole and
+ * takes no disk space, so a segment rolled early by age is not padded on disk.
+ * </p>
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * header  4  magic "SVJL"
+ *         4  format version (1)
+ *         8  sequence of the first record
+ *         8  creation time, epoch milliseconds
+ *         8  reserved
+ * record  4  length of the encoded event (0: end of the written part)
+ *         4  CRC-32C of the rest of the record
+ *         8  sequence
+ *         8  event time, epoch milliseconds
+ *         8  reception time, epoch milliseconds
+ *         n  the event in the binary wire format ({@link RawTrackingBinaryCodec})
+ * </pre>
+ * On open, records are read up to the first empty or corrupt one: a record torn by a crash is
+ * dropped with everything after it.
+ * </p>
+ * <p>
+ * One thread appends and commits; any thread reads. Readers only see records up to the last
+ * {@link #force() commit}. The per-camera {@link CameraTimeIndex} is guarded by a lock.
+ * </p>
+ */
+@Slf4j
+final class JournalSegment implements Segment {
+
+    static final String SUFFIX = ".svj";
+    static final String INDEX_SUFFIX = ".idx";
+
+    private static final int MAGIC = 0x53564A4C; // "SVJL"
+    private static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_HEADER_SIZE = 32;
+
+    private static final int LENGTH = 0;
+    private static final int CRC = 4;
+    private static final int SEQUENCE = 8;
+    private static final int EVENT_TIME = 16;
+    private static final int RECEIVED_AT = 24;
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final long baseSequence;
+    private final long createdAtMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final CRC32C crc = new CRC32C();
+
+    private CameraTimeIndex index;
+    private int position = HEADER_SIZE;
+    private int records;
+    /** Written part readers may see; everything before it has been forced to disk. */
+    private volatile int committed = HEADER_SIZE;
+    private volatile long minEventTime = Long.MAX_VALUE;
+    private volatile long maxEventTime = Long.MIN_VALUE;
+    private long oldestReceivedAt;
+    private volatile long newestReceivedAt;
+    private boolean sealed;
+
+    private JournalSegment(Path file, MappedByteBuffer buffer, long baseSequence, long createdAtMillis, CameraTimeIndex index) {
+        this.file = file;
+        this.buffer = buffer;
+        this.baseSequence = baseSequence;
+        this.createdAtMillis = createdAtMillis;
+        this.index = index;
+    }
+
+    /**
+     * Creates the segment file starting at the given sequence.
+     */
+    static JournalSegment create(Path directory, long baseSequence, int size, int indexInterval, long nowMillis) throws IOException {
+        Path file = directory.resolve(fileName(baseSequence));
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, baseSequence);
+        buffer.putLong(16, nowMillis);
+        buffer.force(0, HEADER_SIZE);
+        return new JournalSegment(file, buffer, baseSequence, nowMillis, new CameraTimeIndex(indexInterval));
+    }
+
+    /**
+     * Maps an existing segment, sealed: it is only read from now on. Its index is loaded from the
+     * sidecar, or rebuilt from the records if the process stopped before writing it.
+     */
+    static JournalSegment open(Path file, int indexInterval) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a journal segment");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported journal segment version " + buffer.getInt(4) + " in " + file);
+        }
+
+        Path indexFile = indexFile(file);
+        CameraTimeIndex index = Files.exists(indexFile) ? CameraTimeIndex.read(indexFile, indexInterval) : null;
+        var segment = new JournalSegment(file, buffer, buffer.getLong(8), buffer.getLong(16),
+            index != null ? index : new CameraTimeIndex(indexInterval));
+        segment.recover(index == null);
+        segment.sealed = true;
+        if (index == null) {
+            segment.index.write(indexFile);
+        }
+        return segment;
+    }
+
+    /**
+     * Appends a frame. Not visible to readers before the next {@link #force()}.
+     *
+     * @param body Encoded event, as {@link RawTrackingBinaryCodec#encode(RawTrackingEvent)} returns it.
+     * @return {@code false}, writing nothing, if the segment has no room left for the frame.
+     */
+    boolean append(RawTrackingEvent event, byte[] body, long receivedAtMillis) {
+        if (sealed) throw new IllegalStateException("Journal segment " + file + " is sealed");
+        int end = position + RECORD_HEADER_SIZE + body.length;
+        if (end > buffer.capacity() || end < 0) return false;
+
+        long eventTime = eventTime(event.timestamp(), receivedAtMillis);
+        buffer.putLong(position + SEQUENCE, baseSequence + records);
+        buffer.putLong(position + EVENT_TIME, eventTime);
+        buffer.putLong(position + RECEIVED_AT, receivedAtMillis);
+        buffer.put(position + RECORD_HEADER_SIZE, body);
+        buffer.putInt(position + CRC, checksum(buffer, position, body.length));
+        // The length goes last: until it is set, the record reads as the end of the segment.
+        buffer.putInt(position + LENGTH, body.length);
+
+        lock.lock();
+        try {
+            index.add(event.cameraId(), position, end, eventTime);
+        } finally {
+            lock.unlock();
+        }
+        position = end;
+        minEventTime = Math.min(minEventTime, eventTime);
+        maxEventTime = Math.max(maxEventTime, eventTime);
+        received(receivedAtMillis);
+        records++;
+        return true;
+    }
+
+    /**
+     * Writes the records appended since the last call to disk and makes them visible to readers.
+     */
+    void force() {
+        int from = committed;
+        if (position == from) return;
+        buffer.force(from, position - from);
+        committed = position;
+    }
+
+    /**
+     * Commits the last records and writes the index sidecar; nothing is appended afterwards.
+     */
+    void seal() throws IOException {
+        if (sealed) return;
+        force();
+        sealed = true;
+        lock.lock();
+        try {
+            index.write(indexFile(file));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads committed frames only.
+     */
+    @Override
+    public boolean read(String cameraId, long fromMillis, long toMillis, Predicate<JournalEntry> visitor) {
+        if (maxEventTime < fromMillis || minEventTime > toMillis) return true;
+
+        int[] ranges;
+        lock.lock();
+        try {
+            ranges = index.ranges(cameraId, fromMillis, toMillis);
+        } finally {
+            lock.unlock();
+        }
+        int limit = committed;
+        String camera = cameraId != null ? cameraId : CameraTimeIndex.NO_CAMERA;
+        for (int r = 0; r < ranges.length; r += 2) {
+            int at = ranges[r];
+            int end = Math.min(ranges[r + 1], limit);
+            while (at < end) {
+                int length = buffer.getInt(at + LENGTH);
+                long eventTime = buffer.getLong(at + EVENT_TIME);
+                if (eventTime >= fromMillis && eventTime <= toMillis) {
+                    byte[] body = new byte[length];
+                    buffer.get(at + RECORD_HEADER_SIZE, body);
+                    RawTrackingEvent event = RawTrackingBinaryCodec.decode(body);
+                    if (camera.equals(Objects.requireNonNullElse(event.cameraId(), CameraTimeIndex.NO_CAMERA))
+                        && !visitor.test(new JournalEntry(buffer.getLong(at + SEQUENCE), buffer.getLong(at + RECEIVED_AT), event))) {
+                        return false;
+                    }
+                }
+                at += RECORD_HEADER_SIZE + length;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calls the visitor with every committed frame, in append order.
+     */
+    void scan(Consumer<JournalEntry> visitor) {
+        int limit = committed;
+        int at = HEADER_SIZE;
+        while (at < limit) {
+            int length = buffer.getInt(at + LENGTH);
+            byte[] body = new byte[length];
+            buffer.get(at + RECORD_HEADER_SIZE, body);
+            visitor.accept(new JournalEntry(buffer.getLong(at + SEQUENCE), buffer.getLong(at + RECEIVED_AT),
+                RawTrackingBinaryCodec.decode(body)));
+            at += RECORD_HEADER_SIZE + length;
+        }
+    }
+
+    @Override
+    public void delete() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(indexFile(file));
+    }
+
+    @Override
+    public long baseSequence() {
+        return baseSequence;
+    }
+
+    @Override
+    public long nextSequence() {
+        return baseSequence + records;
+    }
+
+    int records() {
+        return records;
+    }
+
+    long createdAtMillis() {
+        return createdAtMillis;
+    }
+
+    /** Earliest reception time of its frames, or its creation time if it has none. */
+    long oldestReceivedAtMillis() {
+        return records > 0 ? oldestReceivedAt : createdAtMillis;
+    }
+
+    /** Latest reception time of its frames, or its creation time if it has none. */
+    @Override
+    public long newestReceivedAtMillis() {
+        return records > 0 ? newestReceivedAt : createdAtMillis;
+    }
+
+    /** Bytes of the file holding committed records; the rest of the file is a hole. */
+    @Override
+    public long sizeBytes() {
+        return committed;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    private void recover(boolean rebuildIndex) {
+        int at = HEADER_SIZE;
+        while (at + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(at + LENGTH);
+            int end = at + RECORD_HEADER_SIZE + length;
+            if (length <= 0 || end > buffer.capacity() || end < 0
+                || buffer.getInt(at + CRC) != checksum(buffer, at, length)) {
+                break;
+            }
+            long eventTime = buffer.getLong(at + EVENT_TIME);
+            if (rebuildIndex) {
+                byte[] body = new byte[length];
+                buffer.get(at + RECORD_HEADER_SIZE, body);
+                index.add(RawTrackingBinaryCodec.decode(body).cameraId(), at, end, eventTime);
+            }
+            minEventTime = Math.min(minEventTime, eventTime);
+            maxEventTime = Math.max(maxEventTime, eventTime);
+            received(buffer.getLong(at + RECEIVED_AT));
+            records++;
+            at = end;
+        }
+        if (at + Integer.BYTES <= buffer.capacity() && buffer.getInt(at + LENGTH) != 0) {
+            log.warn("⚠️ Journal segment {} ends with a torn record at byte {}: dropped", file.getFileName(), at);
+        }
+        position = at;
+        committed = at;
+    }
+
+    private void received(long receivedAtMillis) {
+        if (records == 0) {
+            oldestReceivedAt = receivedAtMillis;
+            newestReceivedAt = receivedAtMillis;
+        } else {
+            oldestReceivedAt = Math.min(oldestReceivedAt, receivedAtMillis);
+            newestReceivedAt = Math.max(newestReceivedAt, receivedAtMillis);
+        }
+    }
+
+    private int checksum(ByteBuffer source, int at, int length) {
+        crc.reset();
+        crc.update(source.slice(at + SEQUENCE, RECORD_HEADER_SIZE - SEQUENCE + length));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Time a frame is indexed by: its event time, or its reception time if the agent sent none.
+     */
+    static long eventTime(long timestamp, long receivedAtMillis) {
+        long eventTime = RawTrackingEvent.eventTimeMillis(timestamp);
+        return eventTime > 0 ? eventTime : receivedAtMillis;
+    }
+
+    static String fileName(long baseSequence) {
+        return String.format("%020d%s", baseSequence, SUFFIX);
+    }
+
+    private static Path indexFile(Path segmentFile) {
+        String name = segmentFile.getFileName().toString();
+        return segmentFile.resolveSibling(name.substring(0, name.length() - SUFFIX.length()) + INDEX_SUFFIX);
+    }
+}
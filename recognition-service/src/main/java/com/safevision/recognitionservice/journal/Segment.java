@@ -0,0 +1,34 @@
+package com.safevision.recognitionservice.journal;
+
+import java.io.IOException;
+import java.util.function.Predicate;
+
+/**
+ * A file of the {@link EventJournal}: a {@link JournalSegment} as appended, or a
+ * {@link ColumnarSegment} once compacted.
+ */
+interface Segment {
+
+    /** Sequence of its first frame. */
+    long baseSequence();
+
+    /** Sequence right after its last frame. */
+    long nextSequence();
+
+    /** Latest reception time of its frames. */
+    long newestReceivedAtMillis();
+
+    /** Disk space it takes. */
+    long sizeBytes();
+
+    /**
+     * Calls the visitor with its frames of a camera whose event time lies between two instants,
+     * inclusive, in append order.
+     *
+     * @param visitor Returns {@code false} to stop the read.
+     * @return {@code false} if the visitor stopped the read.
+     */
+    boolean read(String cameraId, long fromMillis, long toMillis, Predicate<JournalEntry> visitor);
+
+    void delete() throws IOException;
+}
@@ -0,0 +1,84 @@
+package com.safevision.recognitionservice.listener;
+
+import com.rabbitmq.client.Channel;
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.facade.TrackingWorkflowFacade;
+import com.safevision.recognitionservice.pipeline.DeliveryWindow;
+import com.safevision.recognitionservice.pipeline.TrackPartitionedExecutor;
+import com.safevision.recognitionservice.service.DeliveryAckService;
+import com.safevision.recognitionservice.service.LoadSheddingService;
+import com.safevision.recognitionservice.service.TrackRoutingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+/**
+ * Infrastructure Layer: listener of the frames other instances forwarded to this one.
+ * <p>
+ * Enabled with {@code safevision.recognition.routing.enabled=true}. The frames on this instance's
+ * own queue belong to tracks it owns (see {@link TrackRoutingService}), so they go straight to
+ * admission and to the track workers, exactly like local frames of the shared queue, and are
+ * never forwarded again. Deliveries are acknowledged once analyzed, as in {@link VisionAgentListener}.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "safevision.recognition.routing", name = "enabled", havingValue = "true")
+public class RoutedTrackingListener {
+
+    private final TrackingWorkflowFacade trackingWorkflow;
+    private final TrackPartitionedExecutor trackExecutor;
+    private final LoadSheddingService loadShedding;
+    private final DeliveryAckService deliveryAcks;
+
+    private final TrackPartitionedExecutor.ItemHandler<RawTrackingEvent, DeliveryWindow> processor = this::process;
+
+    /**
+     * Consumes frames forwarded by the other instances.
+     *
+     * @param event       A frame whose track this instance owns.
+     * @param channel     Channel the frame was delivered on, to acknowledge it once processed.
+     * @param deliveryTag Broker tag of the delivery.
+     */
+    @RabbitListener(queues = "#{trackRoutingService.instanceQueueName()}")
+    public void handleRoutedTrackingEvent(RawTrackingEvent event, Channel channel,
+                                          @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) {
+        DeliveryWindow deliveries = deliveryAcks.window(channel);
+        long delivery = deliveries.received(deliveryTag);
+        boolean queued = false;
+
+        try {
+            if (event == null) return;
+
+            switch (loadShedding.admit(event)) {
+                case PROCESS -> {
+                    trackExecutor.execute(event.detectionId(), event, deliveries, delivery, processor);
+                    queued = true;
+                }
+                case FAST_TRACK -> {
+                    trackExecutor.executeUrgent(event.detectionId(), () -> process(event, deliveries, delivery));
+                    queued = true;
+                }
+                case SHED -> log.trace("Shed routine frame of ID: {}", event.detectionId());
+            }
+        } catch (Exception e) {
+            var eventId = (event != null) ? event.detectionId() : "unknown";
+            log.error("❌ Error dispatching routed tracking event {}: {}", eventId, e.getMessage(), e);
+        } finally {
+            if (!queued) deliveries.processed(delivery);
+        }
+    }
+
+    private void process(RawTrackingEvent event, DeliveryWindow deliveries, long delivery) {
+        try {
+            trackingWorkflow.processEvent(event, deliveries, delivery);
+        } catch (Exception e) {
+            log.error("❌ Error processing tracking event {}: {}", event.detectionId(), e.getMessage(), e);
+        }
+    }
+}
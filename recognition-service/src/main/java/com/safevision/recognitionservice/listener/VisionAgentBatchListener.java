@@ -0,0 +1,104 @@
+package com.safevision.recognitionservice.listener;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.facade.TrackingWorkflowFacade;
+import com.safevision.recognitionservice.pipeline.TrackPartitionedExecutor;
+import com.safevision.recognitionservice.service.LoadSheddingService;
+import com.safevision.recognitionservice.service.TrackingCaptureService;
+import com.safevision.recognitionservice.service.TrackRoutingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Infrastructure Layer: RabbitMQ Batch Message Listener.
+ * <p>
+ * Batch-mode counterpart of {@link VisionAgentListener}, enabled with
+ * {@code safevision.recognition.batch.enabled=true}. Instead of paying listener
+ * dispatch, conversion bookkeeping and observation once per frame, it receives
+ * up to {@code batch.size} frames at once, splits them by owning track worker and
+ * hands each partition to {@link TrackingWorkflowFacade#processBatch(List)}.
+ * </p>
+ * <p>
+ * Frames fast-tracked by the {@link LoadSheddingService} leave the batch and are queued
+ * on their own; shed frames and frames forwarded to their owning instance by the
+ * {@link TrackRoutingService} are left out.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "safevision.recognition.batch", name = "enabled", havingValue = "true")
+public class VisionAgentBatchListener {
+
+    private final TrackingWorkflowFacade trackingWorkflow;
+    private final TrackPartitionedExecutor trackExecutor;
+    private final LoadSheddingService loadShedding;
+    private final TrackRoutingService trackRouting;
+    private final TrackingCaptureService capture;
+
+    /**
+     * Consumes batches of raw tracking events from the Python Agent.
+     *
+     * @param events Frames accumulated by the batch container factory, in delivery order.
+     */
+    @RabbitListener(queues = "#{rawTrackingQueueName}", containerFactory = "batchRabbitListenerContainerFactory")
+    public void handleRawTrackingBatch(List<RawTrackingEvent> events) {
+        if (events == null || events.isEmpty()) {
+            log.warn("⚠️ Received empty batch from RabbitMQ. Skipping.");
+            return;
+        }
+
+        log.debug("🤖 [Recognition] Received batch of {} raw events", events.size());
+
+        try {
+            List<RawTrackingEvent> admitted = new ArrayList<>(events.size());
+            for (RawTrackingEvent event : events) {
+                if (event == null) continue;
+                capture.record(event);
+                if (trackRouting.forwardIfRemote(event)) continue;
+                switch (loadShedding.admit(event)) {
+                    case PROCESS -> admitted.add(event);
+                    case FAST_TRACK -> {
+                        // Earlier frames of the track in this batch are not queued yet: passing them would make them late.
+                        if (containsTrack(admitted, event.detectionId())) {
+                            admitted.add(event);
+                        } else {
+                            trackExecutor.executeUrgent(event.detectionId(), () -> process(List.of(event)));
+                        }
+                    }
+                    case SHED -> { }
+                }
+            }
+
+            if (!admitted.isEmpty()) {
+                trackExecutor.executeBatch(admitted, RawTrackingEvent::detectionId, this::process);
+            }
+        } catch (Exception e) {
+            log.error("❌ Error dispatching tracking batch of {} events: {}", events.size(), e.getMessage(), e);
+        }
+    }
+
+    private static boolean containsTrack(List<RawTrackingEvent> events, String detectionId) {
+        for (RawTrackingEvent event : events) {
+            if (event.detectionId().equals(detectionId)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Runs the business workflow on the track worker that owns this partition of the batch.
+     */
+    private void process(List<RawTrackingEvent> partition) {
+        try {
+            trackingWorkflow.processBatch(partition);
+        } catch (Exception e) {
+            log.error("❌ Error processing tracking batch partition: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -1,10 +1,20 @@
 package com.safevision.recognitionservice.listener;
 
+import com.rabbitmq.client.Channel;
 import com.safevision.recognitionservice.dto.RawTrackingEvent;
 import com.safevision.recognitionservice.facade.TrackingWorkflowFacade;
+import com.safevision.recognitionservice.pipeline.DeliveryWindow;
+import com.safevision.recognitionservice.pipeline.TrackPartitionedExecutor;
+import com.safevision.recognitionservice.service.DeliveryAckService;
+import com.safevision.recognitionservice.service.LoadSheddingService;
+import com.safevision.recognitionservice.service.TrackingCaptureService;
+import com.safevision.recognitionservice.service.TrackRoutingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
 /**
@@ -14,14 +24,42 @@ import org.springframework.stereotype.Component;
  * It consumes high-frequency raw data from the Vision Agent and delegates
  * the processing to the Business Facade.
  * </p>
+ * <p>
+ * Events are not processed on the listener thread: they are handed to the
+ * {@link TrackPartitionedExecutor}, which keeps every detection ID on one worker.
+ * This allows raising the listener concurrency without racing on per-track state.
+ * The frame goes into a preallocated slot of the worker's ring together with its delivery, so the
+ * hand-over allocates nothing; the workflow acknowledges it through the {@link DeliveryAckService}
+ * once analyzed, after any wait in the event-time reorder buffer, in batches, and only then can the broker forget it.
+ * </p>
+ * <p>
+ * Before being queued, every event goes through the {@link LoadSheddingService}, which may
+ * fast-track or drop it while the service is overloaded.
+ * </p>
+ * <p>
+ * With several instances, frames whose track belongs to another instance are forwarded to it
+ * by the {@link TrackRoutingService} instead (see {@link RoutedTrackingListener}).
+ * </p>
+ * <p>
+ * Active unless batch consumption is enabled (see {@link VisionAgentBatchListener}).
+ * </p>
  */
 @Slf4j
 @Component
+@ConditionalOnProperty(prefix = "safevision.recognition.batch", name = "enabled", havingValue = "false", matchIfMissing = true)
 @RequiredArgsConstructor
 public class VisionAgentListener {
 
     
     private final TrackingWorkflowFacade trackingWorkflow;
+    private final TrackPartitionedExecutor trackExecutor;
+    private final LoadSheddingService loadShedding;
+    private final TrackRoutingService trackRouting;
+    private final TrackingCaptureService capture;
+    private final DeliveryAckService deliveryAcks;
+
+    /** Reused for every frame, so that queueing one allocates nothing. */
+    private final TrackPartitionedExecutor.ItemHandler<RawTrackingEvent, DeliveryWindow> processor = this::process;
 
     /**
      * Consumes raw tracking events from the Python Agent.
@@ -30,11 +68,17 @@ public class VisionAgentListener {
      * from the Bean 'rawTrackingQueueName' defined in RabbitMQConfig.
      * </p>
      *
-     * @param event DTO containing raw tracking data (gaze, position, objects).
+     * @param event       DTO containing raw tracking data (gaze, position, objects).
+     * @param channel     Channel the frame was delivered on, to acknowledge it once processed.
+     * @param deliveryTag Broker tag of the delivery.
      */
     @RabbitListener(queues = "#{rawTrackingQueueName}")
-    public void handleRawTrackingEvent(RawTrackingEvent event) {
-        
+    public void handleRawTrackingEvent(RawTrackingEvent event, Channel channel,
+                                       @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) {
+        DeliveryWindow deliveries = deliveryAcks.window(channel);
+        long delivery = deliveries.received(deliveryTag);
+        boolean queued = false;
+
         try {
             if (event == null) {
                 log.warn("⚠️ Received null event from RabbitMQ. Skipping.");
@@ -44,13 +88,40 @@ public class VisionAgentListener {
            
             log.debug("🤖 [Recognition] Received raw event ID: {}", event.detectionId());
             
+            capture.record(event);
+            if (trackRouting.forwardIfRemote(event)) return;
            
-            trackingWorkflow.processEvent(event);
+            switch (loadShedding.admit(event)) {
+                case PROCESS -> {
+                    trackExecutor.execute(event.detectionId(), event, deliveries, delivery, processor);
+                    queued = true;
+                }
+                case FAST_TRACK -> {
+                    trackExecutor.executeUrgent(event.detectionId(), () -> process(event, deliveries, delivery));
+                    queued = true;
+                }
+                case SHED -> log.trace("Shed routine frame of ID: {}", event.detectionId());
+            }
             
         } catch (Exception e) {
            
             var eventId = (event != null) ? event.detectionId() : "unknown";
-            log.error("❌ Error processing tracking event {}: {}", eventId, e.getMessage(), e);
+            log.error("❌ Error dispatching tracking event {}: {}", eventId, e.getMessage(), e);
+        } finally {
+            // Frames that never reach a worker (null, forwarded, shed, rejected) are done here.
+            if (!queued) deliveries.processed(delivery);
+        }
+    }
+
+    /**
+     * Runs the business workflow on the track worker that owns the event. The workflow releases the
+     * delivery once the event leaves the event-time reorder buffer and was analyzed.
+     */
+    private void process(RawTrackingEvent event, DeliveryWindow deliveries, long delivery) {
+        try {
+            trackingWorkflow.processEvent(event, deliveries, delivery);
+        } catch (Exception e) {
+            log.error("❌ Error processing tracking event {}: {}", event.detectionId(), e.getMessage(), e);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,175 @@
+package com.safevision.recognitionservice.pattern;
+
+import java.util.List;
+
+/**
+ * The {@link SequencePattern}s compiled into one state machine each, advanced together per frame.
+ * <p>
+ * A pattern with {@code n} steps becomes a machine with states {@code 0..n-1}: state {@code k}
+ * means the first {@code k} steps were seen, and state 0 waits for the first one. The signals of a
+ * frame arrive as a bit mask, so checking a transition is a single AND, and the per-track state of
+ * every machine fits in a {@link Run} sized at compile time.
+ * </p>
+ * <p>
+ * A frame only visits the machines that can move: those with a partial match, and those whose first
+ * step the frame signals, found through a per-signal table. Patterns that a track is not engaged in
+ * therefore cost nothing, however many are configured. Partial matches older than the window of their
+ * pattern are dropped when the track's next frame visits them.
+ * </p>
+ * <p>
+ * When a frame signals the first step of a pattern already past it, a partial match with only that
+ * first step restarts from the frame, since a more recent start leaves the rest of the sequence more
+ * time; deeper partial matches are kept.
+ * </p>
+ */
+public final class PatternAutomaton {
+
+    /** Patterns are identified by their bit in a {@code long}. */
+    public static final int MAX_PATTERNS = Long.SIZE;
+
+    private final SequencePattern[] patterns;
+    /** Signal mask of each step, per pattern. */
+    private final long[][] transitions;
+    private final long[] windowMillis;
+    /** Patterns whose first step waits for the signal of that ordinal. */
+    private final long[] startingOn;
+    private final long startSignals;
+    private final long signals;
+
+    public PatternAutomaton(List<SequencePattern> patterns) {
+        if (patterns.size() > MAX_PATTERNS) {
+            throw new IllegalArgumentException("At most " + MAX_PATTERNS + " sequence patterns are supported");
+        }
+        this.patterns = patterns.toArray(SequencePattern[]::new);
+        this.transitions = new long[this.patterns.length][];
+        this.windowMillis = new long[this.patterns.length];
+        this.startingOn = new long[PatternSignal.values().length];
+
+        long starts = 0;
+        long used = 0;
+        for (int p = 0; p < this.patterns.length; p++) {
+            List<PatternSignal> steps = this.patterns[p].steps();
+            transitions[p] = new long[steps.size()];
+            for (int step = 0; step < steps.size(); step++) {
+                transitions[p][step] = steps.get(step).bit();
+                used |= steps.get(step).bit();
+            }
+            windowMillis[p] = this.patterns[p].within().toMillis();
+            startingOn[steps.get(0).ordinal()] |= 1L << p;
+            starts |= steps.get(0).bit();
+        }
+        this.startSignals = starts;
+        this.signals = used;
+    }
+
+    /**
+     * Signals read by at least one pattern; the others need not be derived.
+     */
+    public long signals() {
+        return signals;
+    }
+
+    /**
+     * Whether a frame with these signals would start at least one pattern.
+     */
+    public boolean startsOn(long frameSignals) {
+        return (frameSignals & startSignals) != 0;
+    }
+
+    /**
+     * Fresh per-track state, with no partial match.
+     */
+    public Run newRun() {
+        return new Run(patterns.length);
+    }
+
+    /**
+     * Moves every machine of the track that the frame can move.
+     *
+     * @param run             State of the track, updated in place.
+     * @param frameSignals    Signals of the frame, as a mask of {@link PatternSignal#bit()}.
+     * @param eventTimeMillis Capture time of the frame.
+     * @return The patterns completed by the frame, as a mask of pattern indexes (also kept in the run).
+     */
+    public long advance(Run run, long frameSignals, long eventTimeMillis) {
+        long completed = 0;
+        long candidates = run.active | starting(frameSignals);
+        while (candidates != 0) {
+            int p = Long.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+
+            long[] steps = transitions[p];
+            int step = run.steps[p];
+            if (step > 0 && eventTimeMillis - run.startedAt[p] > windowMillis[p]) {
+                step = 0;
+            }
+            if ((frameSignals & steps[step]) != 0) {
+                if (step == 0) run.startedAt[p] = eventTimeMillis;
+                if (++step == steps.length) {
+                    completed |= 1L << p;
+                    step = 0;
+                }
+            } else if (step == 1 && (frameSignals & steps[0]) != 0) {
+                run.startedAt[p] = eventTimeMillis;
+            }
+
+            run.steps[p] = (byte) step;
+            if (step > 0) {
+                run.active |= 1L << p;
+            } else {
+                run.active &= ~(1L << p);
+            }
+        }
+        run.completed = completed;
+        return completed;
+    }
+
+    public SequencePattern pattern(int index) {
+        return patterns[index];
+    }
+
+    public int size() {
+        return patterns.length;
+    }
+
+    private long starting(long frameSignals) {
+        long starting = 0;
+        for (long pending = frameSignals & startSignals; pending != 0; pending &= pending - 1) {
+            starting |= startingOn[Long.numberOfTrailingZeros(pending)];
+        }
+        return starting;
+    }
+
+    /**
+     * Progress of one track through every pattern: fixed size, allocated once per engaged track.
+     * Only touched by the worker that owns the track.
+     */
+    public static final class Run {
+
+        private final byte[] steps;
+        private final long[] startedAt;
+        /** Patterns with a partial match. */
+        private long active;
+        /** Patterns completed by the latest frame. */
+        private long completed;
+
+        private Run(int patterns) {
+            this.steps = new byte[patterns];
+            this.startedAt = new long[patterns];
+        }
+
+        /**
+         * Patterns completed by the latest frame, as a mask of pattern indexes.
+         */
+        public long completed() {
+            return completed;
+        }
+
+        /**
+         * Whether the run holds nothing worth keeping: no partial match and nothing just completed.
+         */
+        public boolean isIdle() {
+            return active == 0 && completed == 0;
+        }
+    }
+}
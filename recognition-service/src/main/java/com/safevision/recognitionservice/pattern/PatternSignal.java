@@ -0,0 +1,39 @@
+package com.safevision.recognitionservice.pattern;
+
+/**
+ * Facts about a frame that the steps of a {@link SequencePattern} can wait for.
+ * <p>
+ * The matcher derives the signals of a frame once, as a bit mask, before any pattern advances;
+ * the thresholds of the derived ones live in {@code PatternMatcherService}.
+ * </p>
+ */
+public enum PatternSignal {
+
+    /** The edge detector saw a weapon on the frame. */
+    WEAPON_VISIBLE,
+
+    /** No weapon on the frame: after {@link #WEAPON_VISIBLE}, the weapon was put away or hidden. */
+    WEAPON_HIDDEN,
+
+    /** The subject faces the camera on the frame. */
+    FACING_CAMERA,
+
+    /** The subject looks away from the camera on the frame. */
+    LOOKING_AWAY,
+
+    /** The subject has kept facing the camera for a while (a stare streak, shorter than the stare rule's). */
+    STARING,
+
+    /** The depth history shows the subject moving fast towards the camera. */
+    APPROACHING,
+
+    /** The depth history shows the subject moving fast away from the camera. */
+    RETREATING;
+
+    /**
+     * The bit of this signal in a signal mask.
+     */
+    public long bit() {
+        return 1L << ordinal();
+    }
+}
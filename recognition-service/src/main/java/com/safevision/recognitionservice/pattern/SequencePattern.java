@@ -0,0 +1,37 @@
+package com.safevision.recognitionservice.pattern;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Declarative multi-step threat: signals that must be seen on successive frames of a track, in
+ * order, the last one no later than {@code within} after the first.
+ * <p>
+ * Other frames may come in between (a step waits until its signal shows up), but each frame
+ * completes at most one step of a given pattern.
+ * </p>
+ *
+ * @param name        Short identifier used in logs and metrics.
+ * @param alertType   Classification sent to the Alert Service when the sequence completes.
+ * @param description Human-readable summary of the threat.
+ * @param steps       Signals to observe, in order.
+ * @param within      Longest event time between the first and the last step.
+ */
+public record SequencePattern(String name, String alertType, String description,
+                              List<PatternSignal> steps, Duration within) {
+
+    /** Steps are tracked in a byte per pattern and track. */
+    public static final int MAX_STEPS = 16;
+
+    public SequencePattern {
+        if (name == null || name.isBlank()) throw new IllegalArgumentException("Pattern name cannot be blank");
+        if (alertType == null || alertType.isBlank()) throw new IllegalArgumentException("Alert type of pattern " + name + " cannot be blank");
+        if (steps == null || steps.isEmpty() || steps.size() > MAX_STEPS) {
+            throw new IllegalArgumentException("Pattern " + name + " needs between 1 and " + MAX_STEPS + " steps");
+        }
+        if (within == null || within.isNegative() || within.isZero()) {
+            throw new IllegalArgumentException("Time window of pattern " + name + " must be positive");
+        }
+        steps = List.copyOf(steps);
+    }
+}
@@ -0,0 +1,157 @@
+package com.safevision.recognitionservice.pipeline;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes frames to a {@link Sink} on a daemon thread of its own, behind a bounded queue.
+ * <p>
+ * {@link #offer(RawTrackingEvent)} only queues the frame, stamped with the time it was offered,
+ * and never blocks: when the writer falls behind and the queue is full, the frame is left out and
+ * counted as dropped, so the caller never slows down. The writer drains the queue in batches and
+ * tells the sink where each batch ends, so it can flush once for many frames.
+ * </p>
+ * <p>
+ * {@link #stop()} lets the writer drain what is still queued, for up to five seconds, and closes the sink.
+ * </p>
+ */
+@Slf4j
+public final class BackgroundFrameWriter {
+
+    /** Frames written between two calls to {@link Sink#endOfBatch(boolean)}. */
+    private static final int MAX_BATCH = 1024;
+
+    private static final long POLL_MILLIS = 100;
+    private static final long STOP_TIMEOUT_SECONDS = 5;
+
+    /**
+     * Destination of the frames, only ever called from the writer thread.
+     */
+    public interface Sink extends Closeable {
+
+        /**
+         * Writes one frame.
+         *
+         * @throws IllegalArgumentException if the frame cannot be written; it is counted as dropped.
+         */
+        void write(long receivedAtMillis, RawTrackingEvent event) throws IOException;
+
+        /**
+         * Called after each batch, and every poll interval while nothing is queued.
+         *
+         * @param drained Whether the queue is empty.
+         */
+        void endOfBatch(boolean drained) throws IOException;
+
+        /**
+         * Whether the sink takes no more frames: the writer then stops and closes it.
+         */
+        default boolean isFull() {
+            return false;
+        }
+    }
+
+    private final String name;
+    private final BlockingQueue<Frame> pending;
+    private final Counter writtenCounter;
+    private final Counter droppedCounter;
+
+    private Thread writerThread;
+    private volatile boolean running;
+
+    /**
+     * @param name           Name of the writer thread, also used in its log messages.
+     * @param capacity       Frames queued at most.
+     * @param writtenCounter Incremented for each frame the sink took.
+     * @param droppedCounter Incremented for each frame left out, on a full queue or rejected by the sink.
+     */
+    public BackgroundFrameWriter(String name, int capacity, Counter writtenCounter, Counter droppedCounter) {
+        this.name = name;
+        this.pending = new ArrayBlockingQueue<>(capacity);
+        this.writtenCounter = writtenCounter;
+        this.droppedCounter = droppedCounter;
+    }
+
+    /**
+     * Starts the writer thread. Frames offered before are ignored.
+     */
+    public void start(Sink sink) {
+        running = true;
+        writerThread = new Thread(() -> run(sink), name);
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Writes the frames still queued and closes the sink. A no-op if the writer never started.
+     */
+    public void stop() {
+        if (writerThread == null) return;
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(STOP_TIMEOUT_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues a frame for the sink. Never blocks; a no-op unless the writer is running.
+     */
+    public void offer(RawTrackingEvent event) {
+        if (!running) return;
+        if (!pending.offer(new Frame(System.currentTimeMillis(), event))) {
+            droppedCounter.increment();
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run(Sink sink) {
+        List<Frame> batch = new ArrayList<>(MAX_BATCH);
+        try (sink) {
+            while ((running || !pending.isEmpty()) && !sink.isFull()) {
+                Frame first = pending.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    pending.drainTo(batch, MAX_BATCH - 1);
+                    for (int i = 0; i < batch.size() && !sink.isFull(); i++) {
+                        write(sink, batch.get(i));
+                    }
+                    batch.clear();
+                }
+                sink.endOfBatch(pending.isEmpty());
+            }
+        } catch (IOException e) {
+            log.error("❌ Writer {} failed: {}", name, e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running = false;
+            pending.clear();
+        }
+    }
+
+    private void write(Sink sink, Frame frame) throws IOException {
+        try {
+            sink.write(frame.receivedAtMillis(), frame.event());
+            writtenCounter.increment();
+        } catch (IllegalArgumentException e) {
+            droppedCounter.increment();
+            log.debug("Frame of ID {} left out by {}: {}", frame.event().detectionId(), name, e.getMessage());
+        }
+    }
+
+    private record Frame(long receivedAtMillis, RawTrackingEvent event) {}
+}
@@ -0,0 +1,102 @@
+package com.safevision.recognitionservice.pipeline;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring assigning partition keys (detection or camera IDs) to service instances.
+ * <p>
+ * Each member is placed on the ring at {@code virtualNodes} pseudo-random points; a key belongs to
+ * the first point at or after its own hash. When a member joins or leaves, only the keys of the
+ * arcs it gains or loses change owner (about {@code 1/N} of them), so the per-track state of every
+ * other track stays on the instance that already holds it.
+ * </p>
+ * <p>
+ * Placement only depends on the member IDs, never on the order they are listed in: every instance
+ * that sees the same membership computes the same owners. Hashes build on {@link String#hashCode()},
+ * whose value is fixed by the language specification, so they also agree across JVMs.
+ * </p>
+ */
+public final class ConsistentHashRing {
+
+    private final List<String> members;
+    private final long[] points;
+    private final String[] owners;
+
+    private ConsistentHashRing(List<String> members, long[] points, String[] owners) {
+        this.members = members;
+        this.points = points;
+        this.owners = owners;
+    }
+
+    /**
+     * Builds a ring over the given members. Duplicates are ignored.
+     *
+     * @param members      Instance IDs. Must not be empty.
+     * @param virtualNodes Points per member; more points spread keys more evenly.
+     */
+    public static ConsistentHashRing of(Collection<String> members, int virtualNodes) {
+        if (members.isEmpty()) throw new IllegalArgumentException("A ring needs at least one member");
+        if (virtualNodes <= 0) throw new IllegalArgumentException("Virtual nodes must be positive");
+
+        List<String> sorted = List.copyOf(new TreeSet<>(members));
+        int size = sorted.size() * virtualNodes;
+        long[] unsorted = new long[size];
+        Integer[] order = new Integer[size];
+        for (int m = 0, i = 0; m < sorted.size(); m++) {
+            long memberHash = sorted.get(m).hashCode() * 0x9E3779B97F4A7C15L;
+            for (int v = 0; v < virtualNodes; v++, i++) {
+                unsorted[i] = mix(memberHash + v);
+                order[i] = i;
+            }
+        }
+
+        // Built once per membership change: sorting boxed indices is fine here.
+        Arrays.sort(order, (a, b) -> Long.compare(unsorted[a], unsorted[b]));
+        long[] points = new long[size];
+        String[] owners = new String[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = unsorted[order[i]];
+            owners[i] = sorted.get(order[i] / virtualNodes);
+        }
+        return new ConsistentHashRing(sorted, points, owners);
+    }
+
+    /**
+     * Resolves the member that owns a key.
+     *
+     * @param key The partition key of a frame.
+     * @return The owning member ID.
+     */
+    public String ownerOf(String key) {
+        long hash = mix(key.hashCode());
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) index = -index - 1;
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * Members of the ring, sorted.
+     */
+    public List<String> members() {
+        return members;
+    }
+
+    public boolean contains(String member) {
+        return members.contains(member);
+    }
+
+    /**
+     * Finalizer of MurmurHash3 (fmix64): spreads every input bit over the whole 64-bit point.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
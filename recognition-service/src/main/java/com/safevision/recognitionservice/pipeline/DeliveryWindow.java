@@ -0,0 +1,162 @@
+package com.safevision.recognitionservice.pipeline;
+
+import com.rabbitmq.client.Channel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Deliveries of one AMQP channel that are still being processed, acknowledged in batches.
+ * <p>
+ * Frames of a channel complete out of order, since each goes to the worker of its own track. A
+ * {@code basicAck(tag, multiple = true)} settles every delivery up to {@code tag}, so it may only
+ * cover a prefix of deliveries that are all done: the window keeps them in arrival order, advances
+ * over the completed prefix and acknowledges it once {@code batchSize} deliveries piled up, or on
+ * {@link #flush()}. One broker frame then settles a whole batch.
+ * </p>
+ * <p>
+ * Deliveries must be {@link #received(long) received} in delivery tag order, which the listener
+ * thread of the channel guarantees; {@link #processed(long)} may be called from any thread.
+ * </p>
+ */
+@Slf4j
+public final class DeliveryWindow {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final Channel channel;
+    private final int batchSize;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long[] tags = new long[INITIAL_CAPACITY];
+    private boolean[] done = new boolean[INITIAL_CAPACITY];
+    /** Position of the oldest delivery not acknowledged yet. */
+    private long head;
+    /** Position the next received delivery takes. */
+    private long tail;
+    /** Deliveries completed and passed by {@link #head}, but not acknowledged to the broker yet. */
+    private int settled;
+    private long settledTag;
+    private long acks;
+
+    public DeliveryWindow(Channel channel, int batchSize) {
+        if (batchSize <= 0) throw new IllegalArgumentException("Ack batch size must be positive");
+        this.channel = channel;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Records a delivery handed to the application.
+     *
+     * @param deliveryTag The broker's tag of the delivery, greater than every tag received before.
+     * @return The position to pass to {@link #processed(long)} once the delivery has been processed.
+     */
+    public long received(long deliveryTag) {
+        lock.lock();
+        try {
+            if (tail - head == tags.length) {
+                grow();
+            }
+            int index = index(tail);
+            tags[index] = deliveryTag;
+            done[index] = false;
+            return tail++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks a delivery as processed, acknowledging the completed prefix when a batch is full.
+     *
+     * @param position What {@link #received(long)} returned for the delivery.
+     */
+    public void processed(long position) {
+        lock.lock();
+        try {
+            done[index(position)] = true;
+            while (head < tail && done[index(head)]) {
+                settledTag = tags[index(head)];
+                head++;
+                settled++;
+            }
+            if (settled >= batchSize) {
+                acknowledge();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Acknowledges the completed prefix now, whatever its size.
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            if (settled > 0) {
+                acknowledge();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deliveries received and not acknowledged yet, processed or not.
+     */
+    public int pending() {
+        lock.lock();
+        try {
+            return (int) (tail - head) + settled;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of {@code basicAck} frames sent so far.
+     */
+    public long acks() {
+        lock.lock();
+        try {
+            return acks;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    private void acknowledge() {
+        try {
+            channel.basicAck(settledTag, true);
+            acks++;
+        } catch (Exception e) {
+            // The channel is gone: the broker requeues everything it had not settled, nothing to retry here.
+            log.warn("⚠️ Could not acknowledge deliveries up to tag {} on channel {}: {}",
+                settledTag, channel.getChannelNumber(), e.getMessage());
+        }
+        settled = 0;
+    }
+
+    private void grow() {
+        int size = tags.length;
+        long[] newTags = new long[size * 2];
+        boolean[] newDone = new boolean[size * 2];
+        for (long position = head; position < tail; position++) {
+            int from = (int) (position % size);
+            int to = (int) (position % (size * 2));
+            newTags[to] = tags[from];
+            newDone[to] = done[from];
+        }
+        tags = newTags;
+        done = newDone;
+    }
+
+    private int index(long position) {
+        return (int) (position & (tags.length - 1));
+    }
+}
@@ -0,0 +1,37 @@
+package com.safevision.recognitionservice.pipeline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Timers shared by the components of the frame pipeline, so every stage lands in the same metric.
+ * <p>
+ * {@code recognition.stage.duration}, tagged by {@code stage}: {@code decode} (AMQP body to event),
+ * one stage per kind of track state ({@code depth_history}, {@code stare_count}, {@code evidence}),
+ * and {@code publish} (a batch of alerts handed to the broker). Rules have their own timer,
+ * {@code recognition.rule.duration}, tagged by {@code rule}.
+ * </p>
+ * <p>
+ * None of them publishes a histogram by default; one can be turned on per metric with
+ * {@code management.metrics.distribution.percentiles-histogram.<name>}.
+ * </p>
+ */
+public final class PipelineTimers {
+
+    private PipelineTimers() {
+    }
+
+    public static Timer stage(String stage, MeterRegistry meterRegistry) {
+        return Timer.builder("recognition.stage.duration")
+            .description("Time spent in one stage of the tracking pipeline")
+            .tag("stage", stage)
+            .register(meterRegistry);
+    }
+
+    public static Timer rule(String rule, MeterRegistry meterRegistry) {
+        return Timer.builder("recognition.rule.duration")
+            .description("Time spent evaluating a threat rule on a frame it applies to")
+            .tag("rule", rule)
+            .register(meterRegistry);
+    }
+}
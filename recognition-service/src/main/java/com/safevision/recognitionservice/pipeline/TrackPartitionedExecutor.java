@@ -0,0 +1,488 @@
+package com.safevision.recognitionservice.pipeline;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Partitioned executor that keeps every tracked subject on a single thread.
+ * <p>
+ * Tasks are routed by hashing a partition key (the {@code detectionId}) to one of a
+ * fixed set of single-threaded workers. This gives three guarantees:
+ * <ul>
+ * <li>Events of the same track are processed in submission order.</li>
+ * <li>Per-track state is only ever mutated by one thread (single-writer), so it needs no locks.</li>
+ * <li>Different tracks are processed in parallel, scaling with the number of workers.</li>
+ * </ul>
+ * Each worker owns a bounded queue. When it is full, {@link #execute(String, Runnable)} blocks
+ * the caller, which propagates backpressure to the RabbitMQ listener (and therefore to the broker prefetch).
+ * </p>
+ * <p>
+ * The queue is a Disruptor-style ring: its slots are allocated once, producers claim a sequence
+ * with a CAS and publish the slot by writing that sequence back, and the worker reads slots in
+ * sequence order without taking any lock. Through {@link #execute(String, Object, Object, long, ItemHandler)}
+ * the item, its attachment and the handler are stored in the slot itself, so handing a frame over
+ * allocates nothing. An idle worker spins briefly, then parks until a producer unparks it.
+ * </p>
+ * <p>
+ * Each worker also has an urgent lane, drained before its regular queue, for the few tasks that must
+ * not wait behind a backlog (see {@link #executeUrgent(String, Runnable)}). Since urgent tasks pass
+ * earlier tasks of their own key, {@link #hasQueued(String)} tells whether any are still pending.
+ * </p>
+ */
+@Slf4j
+public class TrackPartitionedExecutor {
+
+    private static final Runnable POISON_PILL = () -> { };
+    /** Counters of regular tasks not finished yet, by key hash; keys sharing a counter count together. */
+    private static final int PENDING_BUCKETS = 1 << 16;
+    private static final int NO_BUCKET = -1;
+    private static final ItemHandler<Runnable, Object> RUN = (task, attachment, tag) -> task.run();
+
+    /**
+     * Work applied by the owning worker to an item taken straight from its ring slot.
+     *
+     * @param <T> Type of the item.
+     * @param <A> Type of the attachment travelling with it.
+     */
+    @FunctionalInterface
+    public interface ItemHandler<T, A> {
+
+        void handle(T item, A attachment, long tag);
+    }
+
+    private final Worker[] workers;
+    private final AtomicIntegerArray pending = new AtomicIntegerArray(PENDING_BUCKETS);
+    private volatile boolean shutdown;
+
+    public TrackPartitionedExecutor(int workerCount, int queueCapacity) {
+        if (workerCount <= 0) throw new IllegalArgumentException("Worker count must be positive");
+        if (queueCapacity <= 0) throw new IllegalArgumentException("Queue capacity must be positive");
+
+        this.workers = new Worker[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Worker(i, queueCapacity, pending);
+            workers[i].thread.start();
+        }
+    }
+
+    /**
+     * Submits a task to the worker that owns the given partition key.
+     * Blocks while that worker's queue is full.
+     *
+     * @param key  The partition key (usually the detection ID).
+     * @param task The work to run on the owning worker.
+     * @throws RejectedExecutionException if the executor is shutting down or the caller is interrupted.
+     */
+    public void execute(String key, Runnable task) {
+        execute(key, task, null, 0, RUN);
+    }
+
+    /**
+     * Submits an item to the worker that owns the given partition key, without allocating a task:
+     * the item, its attachment and tag are stored in a preallocated ring slot and passed to the
+     * handler on the worker. Same ordering and blocking behaviour as {@link #execute(String, Runnable)}.
+     *
+     * @param key        The partition key (usually the detection ID).
+     * @param item       The item to process.
+     * @param attachment Passed along to the handler (e.g. what to acknowledge once done). May be null.
+     * @param tag        Passed along to the handler.
+     * @param handler    Runs on the owning worker. Should be a long-lived instance, not a capturing lambda.
+     * @throws RejectedExecutionException if the executor is shutting down or the caller is interrupted.
+     */
+    public <T, A> void execute(String key, T item, A attachment, long tag, ItemHandler<? super T, ? super A> handler) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Track executor is shut down");
+        }
+
+        int bucket = pendingBucket(key);
+        pending.incrementAndGet(bucket);
+        try {
+            workers[workerIndex(key)].put(item, attachment, tag, handler, bucket);
+        } catch (InterruptedException e) {
+            pending.decrementAndGet(bucket);
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for a free worker slot", e);
+        }
+    }
+
+    /**
+     * Submits a task to the worker that owns the given partition key, unless that worker's queue is
+     * full. For periodic jobs, which must never park their thread behind the frames: a task that was
+     * not accepted is simply tried again on the next run.
+     *
+     * @param key  The partition key (usually the detection ID).
+     * @param task The work to run on the owning worker.
+     * @return {@code false} if the owning worker's queue was full and the task was not submitted.
+     * @throws RejectedExecutionException if the executor is shutting down.
+     */
+    public boolean tryExecute(String key, Runnable task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Track executor is shut down");
+        }
+
+        int bucket = pendingBucket(key);
+        pending.incrementAndGet(bucket);
+        if (workers[workerIndex(key)].offer(task, null, 0, RUN, bucket)) return true;
+        pending.decrementAndGet(bucket);
+        return false;
+    }
+
+    /**
+     * Submits a task to the urgent lane of the worker that owns the given partition key.
+     * <p>
+     * The task runs before every regular task already queued on that worker, including earlier
+     * ones of the same key: callers that need per-key ordering check {@link #hasQueued(String)}
+     * first. When the urgent lane is full as well, it falls back to {@link #execute(String, Runnable)}.
+     * </p>
+     *
+     * @param key  The partition key (usually the detection ID).
+     * @param task The work to run on the owning worker.
+     * @throws RejectedExecutionException if the executor is shutting down or the caller is interrupted.
+     */
+    public void executeUrgent(String key, Runnable task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Track executor is shut down");
+        }
+
+        if (!workers[workerIndex(key)].offerUrgent(task)) {
+            execute(key, task);
+        }
+    }
+
+    /**
+     * Splits a batch by owning worker and submits one task per worker.
+     * <p>
+     * Relative order is preserved inside each partition, so the per-key ordering
+     * guarantee of {@link #execute(String, Runnable)} also holds for batches.
+     * </p>
+     *
+     * @param items  The batch to distribute. Null items are skipped.
+     * @param keyOf  Extracts the partition key of an item.
+     * @param action Runs on the owning worker with the items of its partition.
+     */
+    public <T> void executeBatch(List<T> items, Function<T, String> keyOf, Consumer<List<T>> action) {
+        List<List<T>> partitions = new ArrayList<>(workers.length);
+        for (int i = 0; i < workers.length; i++) {
+            partitions.add(null);
+        }
+
+        for (T item : items) {
+            if (item == null) continue;
+            int index = workerIndex(keyOf.apply(item));
+            List<T> partition = partitions.get(index);
+            if (partition == null) {
+                partition = new ArrayList<>();
+                partitions.set(index, partition);
+            }
+            partition.add(item);
+        }
+
+        for (List<T> partition : partitions) {
+            if (partition == null) continue;
+            // Every key of the partition is pending until the whole partition ran.
+            int[] buckets = new int[partition.size()];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = pendingBucket(keyOf.apply(partition.get(i)));
+                pending.incrementAndGet(buckets[i]);
+            }
+            try {
+                execute(keyOf.apply(partition.get(0)), () -> {
+                    try {
+                        action.accept(partition);
+                    } finally {
+                        for (int bucket : buckets) pending.decrementAndGet(bucket);
+                    }
+                });
+            } catch (RuntimeException e) {
+                for (int bucket : buckets) pending.decrementAndGet(bucket);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Whether a regular task of the given key may still be queued or running. Keys sharing a counter
+     * are counted together, so the answer errs towards {@code true}; {@code false} is exact.
+     */
+    public boolean hasQueued(String key) {
+        return pending.get(pendingBucket(key)) > 0;
+    }
+
+    /**
+     * Resolves the worker that owns a partition key. Stable for the lifetime of the executor.
+     */
+    public int workerIndex(String key) {
+        int h = key.hashCode();
+        // Spreads the high bits, the same way HashMap does, before reducing to the worker range.
+        return Math.floorMod(h ^ (h >>> 16), workers.length);
+    }
+
+    private static int pendingBucket(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (PENDING_BUCKETS - 1);
+    }
+
+    public int workerCount() {
+        return workers.length;
+    }
+
+    /**
+     * Total number of regular task slots across all workers (each queue capacity is rounded up to a power of two).
+     */
+    public int capacity() {
+        return workers.length * workers[0].ringSize();
+    }
+
+    /**
+     * Total number of tasks waiting across all workers.
+     */
+    public int backlog() {
+        int total = 0;
+        for (Worker worker : workers) {
+            total += worker.size();
+        }
+        return total;
+    }
+
+    /**
+     * Stops accepting new tasks and lets every worker drain what is already queued.
+     */
+    public void shutdown() {
+        if (shutdown) return;
+        shutdown = true;
+
+        log.info("Shutting down track executor. Pending tasks: {}", backlog());
+        for (Worker worker : workers) {
+            try {
+                worker.put(POISON_PILL, null, 0, RUN, NO_BUCKET);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        for (Worker worker : workers) {
+            try {
+                worker.thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * A single-threaded consumer with its own ring of slots and an urgent lane.
+     * <p>
+     * The ring is multi-producer, single-consumer. A producer only claims a sequence once its slot
+     * is free (the worker is less than one lap behind), so a claimed sequence is always published
+     * and the worker never waits on a hole. The urgent lane is a plain concurrent queue: it is
+     * rarely used and checked before the ring.
+     * </p>
+     */
+    private static final class Worker implements Runnable {
+
+        private static final int SPINS_BEFORE_YIELD = 100;
+        private static final int SPINS_BEFORE_PARK = 200;
+        private static final long FULL_RING_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+        private final Slot[] slots;
+        private final int mask;
+        /** Sequence published in each slot; a slot is ready when it holds the sequence being read. */
+        private final AtomicLongArray published;
+        /** Next sequence a producer may claim. */
+        private final AtomicLong claimed = new AtomicLong();
+        /** Next sequence the worker reads; slots before it can be reused. */
+        private final AtomicLong consumed = new AtomicLong();
+        private final ConcurrentLinkedQueue<Runnable> urgent = new ConcurrentLinkedQueue<>();
+        private final AtomicIntegerArray pending;
+        private final AtomicInteger urgentSize = new AtomicInteger();
+        private final int urgentCapacity;
+        private final Thread thread;
+        private volatile boolean parked;
+
+        Worker(int index, int queueCapacity, AtomicIntegerArray pending) {
+            int size = Integer.highestOneBit(queueCapacity);
+            if (size < queueCapacity) size <<= 1;
+            this.slots = new Slot[size];
+            this.published = new AtomicLongArray(size);
+            for (int i = 0; i < size; i++) {
+                slots[i] = new Slot();
+                published.set(i, -1);
+            }
+            this.mask = size - 1;
+            this.pending = pending;
+            this.urgentCapacity = queueCapacity;
+            this.thread = new Thread(this, "track-worker-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        int ringSize() {
+            return slots.length;
+        }
+
+        <T, A> void put(T item, A attachment, long tag, ItemHandler<? super T, ? super A> handler, int bucket)
+            throws InterruptedException {
+            long sequence;
+            int attempts = 0;
+            while (true) {
+                sequence = claimed.get();
+                if (sequence - consumed.get() >= slots.length) {
+                    // Full: the caller waits, exactly as on a bounded blocking queue.
+                    if (Thread.interrupted()) throw new InterruptedException();
+                    if (++attempts < SPINS_BEFORE_YIELD) {
+                        Thread.onSpinWait();
+                    } else {
+                        LockSupport.parkNanos(this, FULL_RING_PARK_NANOS);
+                    }
+                } else if (claimed.compareAndSet(sequence, sequence + 1)) {
+                    break;
+                }
+            }
+            publish(sequence, item, attachment, tag, handler, bucket);
+        }
+
+        <T, A> boolean offer(T item, A attachment, long tag, ItemHandler<? super T, ? super A> handler, int bucket) {
+            long sequence;
+            do {
+                sequence = claimed.get();
+                if (sequence - consumed.get() >= slots.length) return false;
+            } while (!claimed.compareAndSet(sequence, sequence + 1));
+            publish(sequence, item, attachment, tag, handler, bucket);
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T, A> void publish(long sequence, T item, A attachment, long tag,
+                                    ItemHandler<? super T, ? super A> handler, int bucket) {
+            int index = (int) sequence & mask;
+            Slot slot = slots[index];
+            slot.item = item;
+            slot.attachment = attachment;
+            slot.tag = tag;
+            slot.bucket = bucket;
+            slot.handler = (ItemHandler<Object, Object>) handler;
+            published.set(index, sequence);
+            wakeUp();
+        }
+
+        boolean offerUrgent(Runnable task) {
+            if (urgentSize.incrementAndGet() > urgentCapacity) {
+                urgentSize.decrementAndGet();
+                return false;
+            }
+            urgent.add(task);
+            wakeUp();
+            return true;
+        }
+
+        int size() {
+            return urgentSize.get() + (int) (claimed.get() - consumed.get());
+        }
+
+        /**
+         * Paired with the volatile write of {@link #parked} and the re-check in {@link #idle(int)}:
+         * either the worker sees the new slot, or this sees the worker parked.
+         */
+        private void wakeUp() {
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        private boolean hasWork() {
+            long next = consumed.get();
+            return !urgent.isEmpty() || published.get((int) next & mask) == next;
+        }
+
+        @Override
+        public void run() {
+            int idleRounds = 0;
+            while (!Thread.currentThread().isInterrupted()) {
+                Runnable urgentTask = urgent.poll();
+                if (urgentTask != null) {
+                    urgentSize.decrementAndGet();
+                    runSafely(RUN, urgentTask, null, 0);
+                    idleRounds = 0;
+                    continue;
+                }
+
+                long sequence = consumed.get();
+                int index = (int) sequence & mask;
+                if (published.get(index) != sequence) {
+                    idle(idleRounds++);
+                    continue;
+                }
+
+                Slot slot = slots[index];
+                ItemHandler<Object, Object> handler = slot.handler;
+                Object item = slot.item;
+                Object attachment = slot.attachment;
+                long tag = slot.tag;
+                int bucket = slot.bucket;
+                slot.clear();
+                // Hands the slot back to the producers before running the work.
+                consumed.set(sequence + 1);
+                idleRounds = 0;
+
+                if (item == POISON_PILL) return;
+                runSafely(handler, item, attachment, tag);
+                pending.decrementAndGet(bucket);
+            }
+        }
+
+        private void idle(int rounds) {
+            if (rounds < SPINS_BEFORE_YIELD) {
+                Thread.onSpinWait();
+            } else if (rounds < SPINS_BEFORE_PARK) {
+                Thread.yield();
+            } else {
+                parked = true;
+                if (!hasWork()) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+            }
+        }
+
+        private <T, A> void runSafely(ItemHandler<? super T, ? super A> handler, T item, A attachment, long tag) {
+            try {
+                handler.handle(item, attachment, tag);
+            } catch (Exception e) {
+                // A failing task must never kill the worker, or its whole partition would stall.
+                log.error("❌ Unhandled error in {}: {}", thread.getName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * A preallocated ring entry, reused for every item that goes through it.
+     */
+    private static final class Slot {
+
+        Object item;
+        Object attachment;
+        long tag;
+        /** Pending counter of the key, released once the item ran. */
+        int bucket;
+        ItemHandler<Object, Object> handler;
+
+        void clear() {
+            item = null;
+            attachment = null;
+            handler = null;
+        }
+    }
+}
@@ -1,11 +1,33 @@
 package com.safevision.recognitionservice.producer;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Service;
 
+import com.safevision.recognitionservice.config.AlertPublisherProperties;
 import com.safevision.recognitionservice.dto.AlertEventDTO;
+import com.safevision.recognitionservice.pipeline.PipelineTimers;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -14,30 +36,357 @@ import lombok.extern.slf4j.Slf4j;
  * Adheres to the Single Responsibility Principle (SRP) by focusing only on the
  * communication layer with the Message Broker.
  * </p>
+ * <p>
+ * Publishing is asynchronous: {@link #sendAlert(AlertEventDTO)} only enqueues the alert, so the
+ * track workers never wait for the broker. A dedicated {@code alert-publisher} thread:
+ * <ol>
+ * <li>Collects alerts for a short publish window and sends the batch on one channel.</li>
+ * <li>Publishes each alert with its own {@link CorrelationData} and keeps it in a bounded in-flight
+ *     map until the broker confirms it. When the map is full, only this thread pauses.</li>
+ * <li>Republishes alerts that were nacked, returned as unroutable, or not confirmed in time,
+ *     up to {@code maxAttempts}. Delivery is therefore at-least-once: a confirm that arrives
+ *     after the timeout can leave a duplicate in the queue.</li>
+ * </ol>
+ * Requires {@code spring.rabbitmq.publisher-confirm-type=correlated}, {@code publisher-returns=true}
+ * and {@code template.mandatory=true}.
+ * </p>
+ * <p>
+ * Metrics: {@code recognition.alerts.published}, {@code .confirmed}, {@code .retried}, {@code .failed}
+ * and {@code .dropped} (counters), {@code recognition.alerts.pending} and {@code .inflight} (gauges),
+ * and {@code recognition.alerts.confirm.latency} (timer, publish to broker confirm). Handing a batch
+ * to the broker is timed as the {@code publish} stage of {@link PipelineTimers}.
+ * </p>
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class AlertProducer {
 
+    private static final String DEFAULT_EXCHANGE = "";
+    private static final long MAX_IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
     private final RabbitTemplate rabbitTemplate;
     private final String alertsQueueName;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long publishWindowNanos;
+    private final long confirmTimeoutNanos;
+    private final long sweepIntervalNanos;
+    private final long retryBackoffMillis;
+
+    private final BlockingQueue<AlertEventDTO> pending;
+    /** Alerts to publish again. Filled by confirm callbacks and the publisher itself, drained before new alerts. */
+    private final Queue<PendingAlert> retries = new ConcurrentLinkedQueue<>();
+    /** Published alerts waiting for their confirm, by correlation ID of the current attempt. */
+    private final Map<String, PendingAlert> inFlight = new ConcurrentHashMap<>();
+    private final Semaphore inFlightPermits;
+    private final AtomicLong correlationSequence = new AtomicLong();
+
+    /** Current batch and position in it. Only touched by the publisher thread. */
+    private final List<PendingAlert> batch;
+    private int batchCursor;
+
+    private final Counter publishedCounter;
+    private final Counter confirmedCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+    private final Counter droppedCounter;
+    private final Timer confirmLatency;
+    private final Timer publishTimer;
+
+    private Thread publisherThread;
+    private volatile boolean running;
+
+    public AlertProducer(RabbitTemplate rabbitTemplate,
+                         String alertsQueueName,
+                         AlertPublisherProperties properties,
+                         MeterRegistry meterRegistry) {
+        if (properties.queueCapacity() <= 0) throw new IllegalArgumentException("Alert queue capacity must be positive");
+        if (properties.maxInFlight() <= 0) throw new IllegalArgumentException("Max in-flight alerts must be positive");
+        if (properties.maxAttempts() <= 0) throw new IllegalArgumentException("Max publish attempts must be positive");
+
+        this.rabbitTemplate = rabbitTemplate;
+        this.alertsQueueName = alertsQueueName;
+        // A batch is only published once all its alerts fit in flight.
+        this.batchSize = Math.max(1, Math.min(properties.batchSize(), properties.maxInFlight()));
+        this.maxAttempts = properties.maxAttempts();
+        this.publishWindowNanos = properties.publishWindow().toNanos();
+        this.confirmTimeoutNanos = properties.confirmTimeout().toNanos();
+        this.sweepIntervalNanos = Math.max(confirmTimeoutNanos / 4, TimeUnit.MILLISECONDS.toNanos(1));
+        this.retryBackoffMillis = properties.retryBackoff().toMillis();
+
+        this.pending = new ArrayBlockingQueue<>(properties.queueCapacity());
+        this.inFlightPermits = new Semaphore(properties.maxInFlight());
+        this.batch = new ArrayList<>(batchSize);
+
+        this.publishedCounter = Counter.builder("recognition.alerts.published")
+            .description("Alert publish attempts handed to the broker, retries included")
+            .register(meterRegistry);
+        this.confirmedCounter = Counter.builder("recognition.alerts.confirmed")
+            .description("Alerts confirmed by the broker")
+            .register(meterRegistry);
+        this.retriedCounter = Counter.builder("recognition.alerts.retried")
+            .description("Alerts scheduled for another publish after a nack, return, send error or confirm timeout")
+            .register(meterRegistry);
+        this.failedCounter = Counter.builder("recognition.alerts.failed")
+            .description("Alerts given up after exhausting every publish attempt")
+            .register(meterRegistry);
+        this.droppedCounter = Counter.builder("recognition.alerts.dropped")
+            .description("Alerts rejected because the publish queue was full")
+            .register(meterRegistry);
+        this.confirmLatency = Timer.builder("recognition.alerts.confirm.latency")
+            .description("Time between publishing an alert and receiving its broker confirm")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.publishTimer = PipelineTimers.stage("publish", meterRegistry);
+        Gauge.builder("recognition.alerts.pending", this, AlertProducer::pendingAlerts)
+            .description("Alerts waiting to be published, retries included")
+            .register(meterRegistry);
+        Gauge.builder("recognition.alerts.inflight", inFlight, Map::size)
+            .description("Published alerts waiting for a broker confirm")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        publisherThread = new Thread(this::runPublisher, "alert-publisher");
+        publisherThread.setDaemon(true);
+        publisherThread.start();
+        log.info("Alert publisher started: up to {} alerts per {} ms window to queue {}",
+            batchSize, TimeUnit.NANOSECONDS.toMillis(publishWindowNanos), alertsQueueName);
+    }
+
+    /**
+     * Stops accepting work and gives queued and in-flight alerts one confirm timeout to go out.
+     */
+    @PreDestroy
+    void stop() {
+        if (publisherThread == null || !running) return;
+        running = false;
+
+        try {
+            publisherThread.join(TimeUnit.NANOSECONDS.toMillis(confirmTimeoutNanos + publishWindowNanos) + 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (publisherThread.isAlive()) {
+            publisherThread.interrupt();
+            log.warn("⚠️ Alert publisher stopped with {} alerts pending and {} unconfirmed", pendingAlerts(), inFlight.size());
+        }
+    }
 
-   
     /**
-     * Sends the final filtered alert DTO to the output queue.
+     * Queues the final filtered alert DTO for publishing. Never blocks.
      *
      * @param finalAlert The DTO containing the threat details and evidence URL.
      */
     public void sendAlert(AlertEventDTO finalAlert) {
-        log.debug("Attempting to send alert to queue: {}", alertsQueueName);
+        if (!pending.offer(finalAlert)) {
+            droppedCounter.increment();
+            log.error("❌ Alert publish queue is full, dropping {} alert from camera {}", finalAlert.alertType(), finalAlert.cameraId());
+            return;
+        }
+        log.debug("Queued {} alert for queue: {}", finalAlert.alertType(), alertsQueueName);
+    }
+
+    /**
+     * Alerts not yet handed to the broker, retries included.
+     */
+    public int pendingAlerts() {
+        return pending.size() + retries.size();
+    }
+
+    /**
+     * Published alerts still waiting for a broker confirm.
+     */
+    public int inFlightAlerts() {
+        return inFlight.size();
+    }
+
+    private void runPublisher() {
+        long nextSweep = System.nanoTime() + sweepIntervalNanos;
+
+        while (running || !pending.isEmpty() || !retries.isEmpty() || !inFlight.isEmpty()) {
+            try {
+                collectBatch();
+                if (!batch.isEmpty()) {
+                    publishBatch();
+                }
+
+                long now = System.nanoTime();
+                if (now - nextSweep >= 0) {
+                    expireUnconfirmed(now);
+                    nextSweep = now + sweepIntervalNanos;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // Whatever happens, this thread must survive or every later alert would be stuck.
+                log.error("❌ Unexpected error in alert publisher: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Fills the batch with retries first, then with new alerts arriving within the publish window.
+     */
+    private void collectBatch() throws InterruptedException {
+        for (PendingAlert retry; batch.size() < batchSize && (retry = retries.poll()) != null; ) {
+            batch.add(retry);
+        }
+
+        if (batch.isEmpty()) {
+            AlertEventDTO first = pending.poll(Math.min(sweepIntervalNanos, MAX_IDLE_WAIT_NANOS), TimeUnit.NANOSECONDS);
+            if (first == null) return;
+            batch.add(new PendingAlert(first));
+        }
 
+        long deadline = System.nanoTime() + publishWindowNanos;
+        while (batch.size() < batchSize) {
+            long remaining = deadline - System.nanoTime();
+            AlertEventDTO next = remaining > 0 ? pending.poll(remaining, TimeUnit.NANOSECONDS) : pending.poll();
+            if (next == null) break;
+            batch.add(new PendingAlert(next));
+        }
+    }
+
+    /**
+     * Publishes the batch on a single channel. Alerts that could not be sent go back to the retry queue.
+     */
+    private void publishBatch() throws InterruptedException {
+        // Waiting for room in flight is the only place where the publisher blocks; it keeps expiring
+        // unconfirmed alerts meanwhile, otherwise a broker that never answers would stall it forever.
+        while (!inFlightPermits.tryAcquire(batch.size(), sweepIntervalNanos, TimeUnit.NANOSECONDS)) {
+            expireUnconfirmed(System.nanoTime());
+        }
+
+        batchCursor = 0;
+        boolean failed = false;
+        long start = System.nanoTime();
         try {
-            rabbitTemplate.convertAndSend(alertsQueueName, finalAlert);
-            log.info("✅ [AlertProducer] Critical Alert dispatched to RabbitMQ successfully.");
+            failed = Boolean.TRUE.equals(rabbitTemplate.invoke(operations -> {
+                while (batchCursor < batch.size()) {
+                    if (!publish(operations, batch.get(batchCursor++))) return true;
+                }
+                return false;
+            }));
+        } catch (Exception e) {
+            log.warn("⚠️ Could not open a channel to publish {} alerts: {}", batch.size() - batchCursor, e.getMessage());
+            failed = true;
+        }
+        publishTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
+        int unsent = batch.size() - batchCursor;
+        if (unsent > 0) {
+            for (int i = batchCursor; i < batch.size(); i++) {
+                retries.add(batch.get(i));
+            }
+            inFlightPermits.release(unsent);
+        }
+        batch.clear();
+
+        if (failed) {
+            Thread.sleep(retryBackoffMillis);
+        }
+    }
+
+    /**
+     * Sends one attempt of an alert and registers it as in flight.
+     *
+     * @return {@code false} if the send failed on the client side (the alert is already rescheduled).
+     */
+    private boolean publish(RabbitOperations operations, PendingAlert alert) {
+        String correlationId = Long.toString(correlationSequence.incrementAndGet());
+        CorrelationData correlation = new CorrelationData(correlationId);
+        alert.attempts++;
+        alert.publishedNanos = System.nanoTime();
+
+        // Registered before sending: the confirm may arrive before convertAndSend returns.
+        inFlight.put(correlationId, alert);
+        correlation.getFuture().whenComplete((confirm, error) -> {
+            String failure = error != null ? error.getMessage() : confirmFailure(confirm, correlation.getReturned());
+            onConfirm(correlationId, alert, failure);
+        });
+
+        publishedCounter.increment();
+        try {
+            operations.convertAndSend(DEFAULT_EXCHANGE, alertsQueueName, alert.alert, correlation);
         } catch (Exception e) {
-            log.error("❌ Error publishing alert to RabbitMQ: {}", e.getMessage(), e);
+            // A late nack for this attempt (e.g. on channel close) is then ignored by onConfirm.
+            inFlight.remove(correlationId);
+            inFlightPermits.release();
+            retryOrFail(alert, "send failed: " + e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    private static String confirmFailure(CorrelationData.Confirm confirm, ReturnedMessage returned) {
+        if (returned != null) return "returned by broker: " + returned.getReplyText();
+        if (!confirm.isAck()) return "nacked by broker: " + confirm.getReason();
+        return null;
+    }
+
+    /**
+     * Runs on the connection thread that received the confirm.
+     *
+     * @param failure {@code null} for a positive confirm, otherwise the reason the publish failed.
+     */
+    private void onConfirm(String correlationId, PendingAlert alert, String failure) {
+        // Lost the race against the timeout sweep: this attempt was already given up and republished.
+        if (!inFlight.remove(correlationId, alert)) return;
+        inFlightPermits.release();
+
+        if (failure != null) {
+            retryOrFail(alert, failure);
+            return;
+        }
+
+        confirmLatency.record(System.nanoTime() - alert.publishedNanos, TimeUnit.NANOSECONDS);
+        confirmedCounter.increment();
+        log.debug("✅ [AlertProducer] {} alert confirmed by RabbitMQ", alert.alert.alertType());
+    }
+
+    /**
+     * Releases in-flight alerts whose confirm did not arrive within the timeout.
+     */
+    private void expireUnconfirmed(long nowNanos) {
+        for (Map.Entry<String, PendingAlert> entry : inFlight.entrySet()) {
+            PendingAlert alert = entry.getValue();
+            if (nowNanos - alert.publishedNanos >= confirmTimeoutNanos && inFlight.remove(entry.getKey(), alert)) {
+                inFlightPermits.release();
+                retryOrFail(alert, "no confirm within " + TimeUnit.NANOSECONDS.toMillis(confirmTimeoutNanos) + " ms");
+            }
+        }
+    }
+
+    private void retryOrFail(PendingAlert alert, String reason) {
+        if (alert.attempts >= maxAttempts) {
+            failedCounter.increment();
+            log.error("❌ Giving up {} alert from camera {} after {} attempts: {}",
+                alert.alert.alertType(), alert.alert.cameraId(), alert.attempts, reason);
+            return;
+        }
+
+        retriedCounter.increment();
+        retries.add(alert);
+        log.warn("⚠️ Republishing {} alert from camera {} (attempt {} failed: {})",
+            alert.alert.alertType(), alert.alert.cameraId(), alert.attempts, reason);
+    }
+
+    /**
+     * An alert and its publish attempts. Owned by the publisher thread, or by the in-flight map
+     * while waiting for a confirm, so it is never mutated by two threads at once.
+     */
+    private static final class PendingAlert {
+
+        private final AlertEventDTO alert;
+        private int attempts;
+        private long publishedNanos;
+
+        PendingAlert(AlertEventDTO alert) {
+            this.alert = alert;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,76 @@
+package com.safevision.recognitionservice.rule;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.service.MovementHistoryService;
+import com.safevision.recognitionservice.state.MappedTrackStateStore;
+import com.safevision.recognitionservice.state.TrackHistoryView;
+import com.safevision.recognitionservice.state.TrackState;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Rule 3 (loitering): fires when a subject approaches fast enough to get significantly closer
+ * within {@value #LOITERING_WINDOW_MILLIS} ms, in event time.
+ * <p>
+ * The approach velocity is the least-squares slope of depth over time across the whole retained
+ * history, kept up to date in O(1) by the history itself. Fitting every sample, rather than
+ * comparing the first and the last one, means a single bad depth reading at either end can neither
+ * fire the alert nor hide a real approach. Velocity is per second, so the threshold does not depend
+ * on the frame rate of the edge agent; the rule waits until the history covers a full window.
+ * </p>
+ * <p>
+ * The history keeps {@value MappedTrackStateStore#HISTORY_SPAN_MILLIS} ms of samples, but at most
+ * {@value MappedTrackStateStore#HISTORY_CAPACITY} of them: they cover the window up to about 6 fps.
+ * Above that rate the history never spans a full window and the rule cannot fire.
+ * </p>
+ */
+@Slf4j
+@Component
+@Order(3)
+@RequiredArgsConstructor
+public class ApproachingThreatRule implements ThreatRule {
+
+    /** Ten frames at the nominal 2 fps of the Vision Agent. */
+    private static final long LOITERING_WINDOW_MILLIS = 4_500;
+    private static final int PROXIMITY_DIFFERENCE = 15;
+
+    private static final Set<TrackState> REQUIRED = EnumSet.of(TrackState.DEPTH_HISTORY);
+    private static final Set<TrackState> RESETS = EnumSet.of(TrackState.DEPTH_HISTORY, TrackState.EVIDENCE);
+
+    private final MovementHistoryService historyService;
+
+    @Override
+    public String name() {
+        return "approaching";
+    }
+
+    @Override
+    public Set<TrackState> requiredState() {
+        return REQUIRED;
+    }
+
+    @Override
+    public Optional<ThreatFinding> evaluate(int track, RawTrackingEvent event) {
+        String id = event.detectionId();
+        TrackHistoryView history = historyService.getHistory(track, id);
+
+        if (history.spanMillis() < LOITERING_WINDOW_MILLIS) return Optional.empty();
+
+        double approach = history.depthSlope() * LOITERING_WINDOW_MILLIS / 1_000.0;
+        if (approach < PROXIMITY_DIFFERENCE) return Optional.empty();
+
+        log.warn("🚶 Threat Approaching! ID: {} ({} depth units per second)", id, String.format("%.1f", history.depthSlope()));
+
+        return Optional.of(new ThreatFinding(
+            "PESSOA_APROXIMANDO",
+            "Pessoa que está rondando e se aproximando rapidamente do perímetro de segurança.",
+            RESETS
+        ));
+    }
+}
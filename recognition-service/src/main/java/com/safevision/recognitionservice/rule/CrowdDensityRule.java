@@ -0,0 +1,63 @@
+package com.safevision.recognitionservice.rule;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.service.CrowdDensityService;
+import com.safevision.recognitionservice.state.TrackState;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+
+/**
+ * Rule 5 (crowd): fires when the number of distinct subjects a camera saw over the density window
+ * reaches the configured threshold.
+ * <p>
+ * The condition belongs to the camera, not to the track of the frame: the
+ * {@link CrowdDensityService} lets a single frame raise the alert per crossing of the threshold,
+ * so a crowd of fifty tracks does not raise fifty alerts.
+ * </p>
+ */
+@Slf4j
+@Component
+@Order(5)
+@RequiredArgsConstructor
+public class CrowdDensityRule implements ThreatRule {
+
+    private static final Set<TrackState> REQUIRED = EnumSet.of(TrackState.CAMERA_DENSITY);
+
+    private final CrowdDensityService densityService;
+
+    @Override
+    public String name() {
+        return "crowd";
+    }
+
+    @Override
+    public Set<TrackState> requiredState() {
+        return REQUIRED;
+    }
+
+    @Override
+    public boolean appliesTo(RawTrackingEvent event) {
+        return event.cameraId() != null;
+    }
+
+    @Override
+    public Optional<ThreatFinding> evaluate(int track, RawTrackingEvent event) {
+        OptionalLong density = densityService.tryRaiseCrowd(event);
+        if (density.isEmpty()) return Optional.empty();
+
+        log.warn("👥 Crowd Detected! Camera: {} (~{} distinct subjects)", event.cameraId(), density.getAsLong());
+
+        return Optional.of(new ThreatFinding(
+            "AGLOMERACAO_DETECTADA",
+            "Aglomeração: cerca de " + density.getAsLong() + " pessoas distintas vistas pela câmera recentemente.",
+            Set.of()
+        ));
+    }
+}
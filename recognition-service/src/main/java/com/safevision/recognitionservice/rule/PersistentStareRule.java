@@ -0,0 +1,66 @@
+package com.safevision.recognitionservice.rule;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.service.StareCounterService;
+import com.safevision.recognitionservice.state.TrackState;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Rule 2: fires when a subject keeps facing the camera for {@value #STARE_THRESHOLD_MILLIS} ms of event time.
+ * <p>
+ * The duration comes from the capture timestamps of the frames, so it stays correct when the
+ * edge agent runs below its nominal frame rate or replays a backlog at full speed.
+ * </p>
+ */
+@Slf4j
+@Component
+@Order(2)
+@RequiredArgsConstructor
+public class PersistentStareRule implements ThreatRule {
+
+    private static final long STARE_THRESHOLD_MILLIS = 5_000;
+
+    private static final Set<TrackState> REQUIRED = EnumSet.of(TrackState.STARE_COUNT);
+    private static final Set<TrackState> RESETS = EnumSet.of(TrackState.STARE_COUNT, TrackState.EVIDENCE);
+
+    private final StareCounterService stareCounter;
+
+    @Override
+    public String name() {
+        return "stare";
+    }
+
+    @Override
+    public Set<TrackState> requiredState() {
+        return REQUIRED;
+    }
+
+    @Override
+    public boolean appliesTo(RawTrackingEvent event) {
+        return event.isFacingCamera();
+    }
+
+    @Override
+    public Optional<ThreatFinding> evaluate(int track, RawTrackingEvent event) {
+        String id = event.detectionId();
+        long durationMillis = stareCounter.getStareDurationMillis(track, id);
+        if (durationMillis < STARE_THRESHOLD_MILLIS) return Optional.empty();
+
+        log.warn("👁️ Persistent Stare Detected! ID: {}", id);
+
+        double seconds = Math.round(durationMillis / 100.0) / 10.0;
+
+        return Optional.of(new ThreatFinding(
+            "OBSERVACAO_DETECTADA",
+            "Pessoa te observou por " + seconds + " segundos.",
+            RESETS
+        ));
+    }
+}
@@ -0,0 +1,69 @@
+package com.safevision.recognitionservice.rule;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.pattern.SequencePattern;
+import com.safevision.recognitionservice.service.PatternMatcherService;
+import com.safevision.recognitionservice.state.TrackState;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Rule 4 (sequences): fires when a track completes one of the configured multi-step patterns,
+ * e.g. a stare followed by a fast approach, or a weapon seen and then hidden.
+ * <p>
+ * The patterns are advanced by the {@link PatternMatcherService} while the state is recorded; this
+ * rule only reads which of them the frame completed. A pattern restarts once completed, and repeats
+ * are left to the alert suppression window. Patterns completed by the same frame are reported as
+ * one composite finding, in the format of the coalesced alerts.
+ * </p>
+ */
+@Slf4j
+@Component
+@Order(4)
+@RequiredArgsConstructor
+public class SequencePatternRule implements ThreatRule {
+
+    /** The signals read by the patterns come from the depth history and the stare streak. */
+    private static final Set<TrackState> REQUIRED =
+        EnumSet.of(TrackState.DEPTH_HISTORY, TrackState.STARE_COUNT, TrackState.PATTERN_PROGRESS);
+    private static final Set<TrackState> RESETS = EnumSet.of(TrackState.EVIDENCE);
+
+    private final PatternMatcherService patternMatcher;
+
+    @Override
+    public String name() {
+        return "sequence";
+    }
+
+    @Override
+    public Set<TrackState> requiredState() {
+        return REQUIRED;
+    }
+
+    @Override
+    public Optional<ThreatFinding> evaluate(int track, RawTrackingEvent event) {
+        long completed = patternMatcher.completed(track);
+        if (completed == 0) return Optional.empty();
+
+        StringBuilder alertType = new StringBuilder();
+        StringBuilder description = new StringBuilder();
+        for (long pending = completed; pending != 0; pending &= pending - 1) {
+            SequencePattern pattern = patternMatcher.pattern(Long.numberOfTrailingZeros(pending));
+            log.warn("🧩 Threat Sequence '{}' Detected! ID: {}", pattern.name(), event.detectionId());
+            if (!alertType.isEmpty()) {
+                alertType.append('+');
+                description.append(" | ");
+            }
+            alertType.append(pattern.alertType());
+            description.append(pattern.description());
+        }
+
+        return Optional.of(new ThreatFinding(alertType.toString(), description.toString(), RESETS));
+    }
+}
@@ -0,0 +1,14 @@
+package com.safevision.recognitionservice.rule;
+
+import com.safevision.recognitionservice.state.TrackState;
+
+import java.util.Set;
+
+/**
+ * Outcome of a {@link ThreatRule} that fired on a frame.
+ *
+ * @param alertType   Classification sent to the Alert Service (e.g. "PESSOA_APROXIMANDO").
+ * @param description Human-readable summary of the threat.
+ * @param resets      Track state to clear once the alert has been dispatched.
+ */
+public record ThreatFinding(String alertType, String description, Set<TrackState> resets) {}
@@ -0,0 +1,45 @@
+package com.safevision.recognitionservice.rule;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.state.TrackState;
+
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * SPI for security rules evaluated on every raw tracking frame.
+ * <p>
+ * Rules are Spring beans discovered by the {@link ThreatRuleEngine} and evaluated in
+ * {@code @Order} order. A rule never updates track state itself: it declares which
+ * state it reads through {@link #requiredState()}, and the engine makes sure every
+ * required {@code TrackStateRecorder} has seen the frame (exactly once) before any rule runs.
+ * </p>
+ */
+public interface ThreatRule {
+
+    /**
+     * Short identifier used in logs and metrics.
+     */
+    String name();
+
+    /**
+     * Track state this rule reads. The engine keeps it up to date.
+     */
+    Set<TrackState> requiredState();
+
+    /**
+     * Cheap guard on the frame fields the rule depends on. Rules that do not apply
+     * to a frame are skipped without being evaluated.
+     */
+    default boolean appliesTo(RawTrackingEvent event) {
+        return true;
+    }
+
+    /**
+     * Evaluates the rule against a frame whose state has already been recorded.
+     *
+     * @param track The handle of the track in the track {@code SymbolTable}, to read its state by.
+     * @return The finding if the rule fired, or empty otherwise.
+     */
+    Optional<ThreatFinding> evaluate(int track, RawTrackingEvent event);
+}
@@ -0,0 +1,143 @@
+package com.safevision.recognitionservice.rule;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.pipeline.PipelineTimers;
+import com.safevision.recognitionservice.state.TrackState;
+import com.safevision.recognitionservice.state.TrackStateRecorder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiles the registered {@link ThreatRule}s into a fixed evaluation plan.
+ * <p>
+ * The plan is built once, at startup:
+ * <ol>
+ * <li>The state required by all rules (plus {@link TrackState#EVIDENCE}, which every alert attaches)
+ *     is resolved to one {@link TrackStateRecorder} per kind, in {@link TrackState} order.</li>
+ * <li>Rules are kept in {@code @Order} order.</li>
+ * </ol>
+ * Per frame, each recorder is applied exactly once and then every applicable rule is evaluated.
+ * Adding a rule that reads already-recorded state therefore adds no extra state updates.
+ * </p>
+ * <p>
+ * Every step of the plan is timed (see {@link PipelineTimers}). The timers are resolved once and
+ * consecutive steps share their clock reads, so a frame costs one {@link System#nanoTime()} per step.
+ * </p>
+ */
+@Slf4j
+@Component
+public class ThreatRuleEngine {
+
+    private final TrackStateRecorder[] recorders;
+    private final ThreatRule[] rules;
+    private final Map<TrackState, TrackStateRecorder> recordersByState;
+    private final Timer[] recorderTimers;
+    private final Timer[] ruleTimers;
+
+    public ThreatRuleEngine(List<ThreatRule> rules, List<TrackStateRecorder> recorders, MeterRegistry meterRegistry) {
+        Set<TrackState> required = EnumSet.of(TrackState.EVIDENCE);
+        for (ThreatRule rule : rules) {
+            required.addAll(rule.requiredState());
+        }
+
+        Map<TrackState, TrackStateRecorder> available = new EnumMap<>(TrackState.class);
+        for (TrackStateRecorder recorder : recorders) {
+            TrackStateRecorder previous = available.put(recorder.state(), recorder);
+            if (previous != null) {
+                throw new IllegalStateException("Duplicate recorders for state " + recorder.state() + ": "
+                    + previous.getClass().getSimpleName() + " and " + recorder.getClass().getSimpleName());
+            }
+        }
+
+        // EnumSet iterates in declaration order, which is the update order of the plan.
+        List<TrackStateRecorder> plan = new ArrayList<>();
+        for (TrackState state : required) {
+            TrackStateRecorder recorder = available.get(state);
+            if (recorder == null) {
+                throw new IllegalStateException("No TrackStateRecorder registered for required state " + state);
+            }
+            plan.add(recorder);
+        }
+
+        this.recorders = plan.toArray(TrackStateRecorder[]::new);
+        this.rules = rules.toArray(ThreatRule[]::new);
+        this.recordersByState = available;
+        this.recorderTimers = plan.stream()
+            .map(recorder -> PipelineTimers.stage(recorder.state().name().toLowerCase(Locale.ROOT), meterRegistry))
+            .toArray(Timer[]::new);
+        this.ruleTimers = Arrays.stream(this.rules)
+            .map(rule -> PipelineTimers.rule(rule.name(), meterRegistry))
+            .toArray(Timer[]::new);
+
+        log.info("🧩 Compiled threat rule plan: state updates {} -> rules {}", required,
+            Arrays.stream(this.rules).map(ThreatRule::name).toList());
+    }
+
+    /**
+     * Applies the state updates of the plan and evaluates every applicable rule.
+     *
+     * @param track The handle of the track, through which every step reaches its state.
+     * @param event The raw tracking data event.
+     * @return The findings of the rules that fired, in rule order (empty list, without allocation, if none).
+     */
+    public List<ThreatFinding> evaluate(int track, RawTrackingEvent event) {
+        long start = System.nanoTime();
+        for (int i = 0; i < recorders.length; i++) {
+            recorders[i].record(track, event);
+            start = stop(recorderTimers[i], start);
+        }
+
+        List<ThreatFinding> findings = List.of();
+        for (int i = 0; i < rules.length; i++) {
+            ThreatRule rule = rules[i];
+            // The guard of a skipped rule is cheap; its time goes to the next rule evaluated.
+            if (!rule.appliesTo(event)) continue;
+
+            Optional<ThreatFinding> finding = rule.evaluate(track, event);
+            start = stop(ruleTimers[i], start);
+            if (finding.isPresent()) {
+                if (findings.isEmpty()) findings = new ArrayList<>(2);
+                findings.add(finding.get());
+            }
+        }
+        return findings;
+    }
+
+    /**
+     * Clears the given kinds of state for a track, typically after an alert was dispatched.
+     */
+    public void reset(int track, String detectionId, Set<TrackState> states) {
+        for (TrackState state : states) {
+            TrackStateRecorder recorder = recordersByState.get(state);
+            if (recorder != null) {
+                recorder.evict(track, detectionId);
+            }
+        }
+    }
+
+    /**
+     * Names of the compiled rules, in evaluation order.
+     */
+    public List<String> ruleNames() {
+        return Arrays.stream(rules).map(ThreatRule::name).toList();
+    }
+
+    private static long stop(Timer timer, long start) {
+        long end = System.nanoTime();
+        timer.record(end - start, TimeUnit.NANOSECONDS);
+        return end;
+    }
+}
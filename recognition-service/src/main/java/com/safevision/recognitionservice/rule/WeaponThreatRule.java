@@ -0,0 +1,45 @@
+package com.safevision.recognitionservice.rule;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.state.TrackState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Rule 1: fires immediately on any frame where the edge detector saw a weapon.
+ * Stateless: it only reads the weapon fields of the frame.
+ */
+@Slf4j
+@Component
+@Order(1)
+public class WeaponThreatRule implements ThreatRule {
+
+    @Override
+    public String name() {
+        return "weapon";
+    }
+
+    @Override
+    public Set<TrackState> requiredState() {
+        return Set.of();
+    }
+
+    @Override
+    public boolean appliesTo(RawTrackingEvent event) {
+        return event.hasWeapon();
+    }
+
+    @Override
+    public Optional<ThreatFinding> evaluate(int track, RawTrackingEvent event) {
+        log.warn("🔫 WEAPON DETECTED! ID: {}", event.detectionId());
+        return Optional.of(new ThreatFinding(
+            event.weaponType() + "_DETECTADA",
+            event.weaponType() + " foi localizada na " + event.weaponLocation(),
+            Set.of()
+        ));
+    }
+}
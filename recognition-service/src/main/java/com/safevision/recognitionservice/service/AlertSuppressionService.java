@@ -0,0 +1,90 @@
+package com.safevision.recognitionservice.service;
+
+import com.safevision.recognitionservice.config.AlertSuppressionProperties;
+import com.safevision.recognitionservice.state.HandleMap;
+import com.safevision.recognitionservice.state.TrackStateStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service responsible for deduplicating alerts of a track.
+ * <p>
+ * A rule such as the weapon rule fires on every frame in which its condition holds, so a
+ * visible weapon at 2 fps would otherwise produce a new CRITICAL alert (persisted, geocoded
+ * and notified by SMS, Telegram and email) twice per second. This service remembers when each
+ * (detectionId, alertType) pair was last dispatched and rejects repeats inside the window.
+ * </p>
+ * <p>
+ * The per-track entry is indexed by the handle of the track, only touched by the worker that owns
+ * the track, and released together with the rest of the track state when the subject goes idle.
+ * </p>
+ * <p>
+ * Metrics: {@code recognition.alerts.suppressed} (counter, tagged by {@code type}).
+ * </p>
+ */
+@Slf4j
+@Service
+public class AlertSuppressionService implements TrackStateStore {
+
+    private final long windowMillis;
+    private final MeterRegistry meterRegistry;
+    private final HandleMap<Map<String, Long>> lastDispatchMap = new HandleMap<>();
+    private final Map<String, Counter> suppressedCounters = new ConcurrentHashMap<>();
+
+    public AlertSuppressionService(AlertSuppressionProperties properties, MeterRegistry meterRegistry) {
+        this.windowMillis = properties.suppressionWindow().toMillis();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Decides whether an alert may be dispatched, and if so records it as the latest of its type.
+     *
+     * @param track     The handle of the track that raised the alert.
+     * @param alertType The classification of the alert.
+     * @param nowMillis The current time.
+     * @return {@code true} if the alert should go out; {@code false} if it repeats one sent inside the window.
+     */
+    public boolean tryAcquire(int track, String alertType, long nowMillis) {
+        if (windowMillis <= 0) return true;
+
+        Map<String, Long> lastByType = lastDispatchMap.get(track);
+        if (lastByType == null) {
+            lastByType = new HashMap<>(4);
+            lastDispatchMap.put(track, lastByType);
+        }
+        Long last = lastByType.get(alertType);
+        if (last != null && nowMillis - last < windowMillis) {
+            suppressedCounter(alertType).increment();
+            log.debug("🔕 Suppressed repeated {} alert for track {}", alertType, track);
+            return false;
+        }
+
+        lastByType.put(alertType, nowMillis);
+        return true;
+    }
+
+    /**
+     * Number of tracks with at least one alert inside the window.
+     */
+    public int size() {
+        return lastDispatchMap.size();
+    }
+
+    @Override
+    public void evict(int track, String detectionId) {
+        lastDispatchMap.remove(track);
+    }
+
+    private Counter suppressedCounter(String alertType) {
+        return suppressedCounters.computeIfAbsent(alertType, type -> Counter.builder("recognition.alerts.suppressed")
+            .description("Alerts dropped because the same track raised the same type inside the suppression window")
+            .tag("type", type)
+            .register(meterRegistry));
+    }
+}
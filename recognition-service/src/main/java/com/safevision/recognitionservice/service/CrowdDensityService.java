@@ -0,0 +1,226 @@
+package com.safevision.recognitionservice.service;
+
+import com.safevision.recognitionservice.config.CrowdDensityProperties;
+import com.safevision.recognitionservice.dto.CrowdDensityDTO;
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.state.HyperLogLog;
+import com.safevision.recognitionservice.state.SlidingDistinctCounter;
+import com.safevision.recognitionservice.state.TrackState;
+import com.safevision.recognitionservice.state.TrackStateRecorder;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Service responsible for estimating how many distinct subjects each camera saw recently.
+ * <p>
+ * Exact sets of detection IDs per camera would grow with the crowd. Each camera instead keeps a
+ * {@link SlidingDistinctCounter}: HyperLogLog sketches over the last {@code window}, a few KB per
+ * camera whatever the traffic, with an error of a few percent. The sketches merge, so the number of
+ * distinct subjects across all cameras comes out of the same data.
+ * </p>
+ * <p>
+ * Windows follow event time, and never the wall clock: the agents' clocks may drift from this service's,
+ * and a replayed backlog is hours old. Frames of a camera belong to many tracks, hence to many workers,
+ * so each camera's window has its own lock, held for a hash and a register update per frame. Reads for
+ * the density endpoint report the window ending at the newest frame of each camera. A periodic sweep
+ * drops the cameras whose newest frame is a whole window older than the newest frame of any camera.
+ * </p>
+ * <p>
+ * The density is per camera, not per track: a subject that leaves stays counted until its buckets
+ * age out, so {@link #evict(String)} has nothing to drop. With track routing, it counts the subjects
+ * this instance receives: a camera is only counted whole when routing partitions by camera.
+ * </p>
+ */
+@Slf4j
+@Service
+public class CrowdDensityService implements TrackStateRecorder {
+
+    /** A camera raises a new crowd alert only after its density fell below this share of the threshold. */
+    static final double REARM_RATIO = 0.8;
+
+    private final Duration window;
+    private final int buckets;
+    private final int precision;
+    private final int crowdThreshold;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, CameraWindow> cameras = new ConcurrentHashMap<>();
+    /** Newest event time of any camera: the sweep measures how far behind each camera is against it. */
+    private final LongAccumulator latestEventTime = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    public CrowdDensityService(CrowdDensityProperties properties, ScheduledExecutorService trackMaintenanceScheduler) {
+        this.window = properties.window();
+        this.buckets = properties.buckets();
+        this.precision = properties.precision();
+        this.crowdThreshold = properties.crowdThreshold();
+        this.scheduler = trackMaintenanceScheduler;
+        // Fails at startup on a bad precision or bucket count, not on the first frame.
+        new SlidingDistinctCounter(precision, buckets, window);
+    }
+
+    @PostConstruct
+    void start() {
+        long sweepMillis = Math.max(1, window.toMillis() / buckets);
+        log.info("Estimating distinct subjects per camera over {} (precision {}), crowd alert from {}",
+            window, precision, crowdThreshold);
+        scheduler.scheduleWithFixedDelay(this::sweep, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public TrackState state() {
+        return TrackState.CAMERA_DENSITY;
+    }
+
+    /**
+     * Counts the subject of the frame in the window of its camera.
+     */
+    @Override
+    public void record(int track, RawTrackingEvent event) {
+        String cameraId = event.cameraId();
+        if (cameraId == null) return;
+
+        long hash = HyperLogLog.hash(event.detectionId());
+        long time = eventTime(event);
+        while (true) {
+            CameraWindow camera = cameras.get(cameraId);
+            if (camera == null) {
+                camera = cameras.computeIfAbsent(cameraId, id -> new CameraWindow(new SlidingDistinctCounter(precision, buckets, window)));
+            }
+            camera.lock.lock();
+            try {
+                // Swept between the lookup and the lock: count the frame in the camera's next window.
+                if (camera.retired) continue;
+                camera.counter.add(hash, time);
+                if (time > camera.latestEventTime) camera.latestEventTime = time;
+                break;
+            } finally {
+                camera.lock.unlock();
+            }
+        }
+        latestEventTime.accumulate(time);
+    }
+
+    /**
+     * Decides whether the frame's camera just became crowded. Exactly one frame wins per crossing of
+     * the threshold, whatever the worker it runs on; the camera is re-armed once the density fell
+     * back below {@value #REARM_RATIO} of the threshold.
+     *
+     * @return The density if the camera crossed the threshold on this frame, empty otherwise.
+     */
+    public OptionalLong tryRaiseCrowd(RawTrackingEvent event) {
+        CameraWindow camera = event.cameraId() != null ? cameras.get(event.cameraId()) : null;
+        if (camera == null) return OptionalLong.empty();
+
+        camera.lock.lock();
+        try {
+            long density = camera.counter.estimate(eventTime(event));
+            if (!camera.crowded && density >= crowdThreshold) {
+                camera.crowded = true;
+                return OptionalLong.of(density);
+            }
+            if (camera.crowded && density < crowdThreshold * REARM_RATIO) {
+                camera.crowded = false;
+            }
+            return OptionalLong.empty();
+        } finally {
+            camera.lock.unlock();
+        }
+    }
+
+    /**
+     * Estimated distinct subjects seen by the camera over the window ending at its newest frame (0 if unknown).
+     */
+    public long density(String cameraId) {
+        CameraWindow camera = cameras.get(cameraId);
+        if (camera == null) return 0;
+        camera.lock.lock();
+        try {
+            return camera.counter.estimate(camera.latestEventTime);
+        } finally {
+            camera.lock.unlock();
+        }
+    }
+
+    /**
+     * Density of every camera, and of all of them together, over the window ending at each camera's newest frame.
+     */
+    public CrowdDensityDTO snapshot() {
+        HyperLogLog union = new HyperLogLog(precision);
+        Map<String, Long> densities = new TreeMap<>();
+        cameras.forEach((cameraId, camera) -> {
+            camera.lock.lock();
+            try {
+                densities.put(cameraId, camera.counter.estimate(camera.latestEventTime));
+                camera.counter.mergeInto(union, camera.latestEventTime);
+            } finally {
+                camera.lock.unlock();
+            }
+        });
+        return new CrowdDensityDTO(window.toSeconds(), union.estimate(), densities);
+    }
+
+    /**
+     * Number of cameras with a window.
+     */
+    public int size() {
+        return cameras.size();
+    }
+
+    @Override
+    public void evict(int track, String detectionId) {
+        // Counts are per camera; nothing is held per track.
+    }
+
+    /**
+     * Drops the windows of cameras that sent nothing during a whole window of event time, measured
+     * against the newest frame of any camera. Public so that the replay harness can drive it.
+     */
+    public void sweep() {
+        try {
+            long horizon = latestEventTime.get() - window.toMillis();
+            cameras.values().removeIf(camera -> {
+                camera.lock.lock();
+                try {
+                    camera.retired = camera.latestEventTime <= horizon;
+                    return camera.retired;
+                } finally {
+                    camera.lock.unlock();
+                }
+            });
+        } catch (Exception e) {
+            // An exception escaping a scheduled task would silently cancel every future sweep.
+            log.error("❌ Camera density sweep failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private static long eventTime(RawTrackingEvent event) {
+        long eventTime = event.eventTimeMillis();
+        return eventTime > 0 ? eventTime : System.currentTimeMillis();
+    }
+
+    private static final class CameraWindow {
+
+        final ReentrantLock lock = new ReentrantLock();
+        final SlidingDistinctCounter counter;
+        /** Whether a crowd alert was raised and the density has not fallen back yet. */
+        boolean crowded;
+        /** Removed from the map by the sweep; frames must go to a new window. */
+        boolean retired;
+        /** Newest event time counted; reads slide the window to it. */
+        long latestEventTime = Long.MIN_VALUE;
+
+        CameraWindow(SlidingDistinctCounter counter) {
+            this.counter = counter;
+        }
+    }
+}
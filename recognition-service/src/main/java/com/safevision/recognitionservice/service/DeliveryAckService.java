@@ -0,0 +1,108 @@
+package com.safevision.recognitionservice.service;
+
+import com.rabbitmq.client.Channel;
+import com.safevision.recognitionservice.config.TrackingPipelineProperties;
+import com.safevision.recognitionservice.pipeline.DeliveryWindow;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service responsible for acknowledging raw tracking frames to the broker once they are processed.
+ * <p>
+ * The raw tracking listeners run with manual acknowledgements: a frame is only settled after its
+ * track worker ran it through the workflow, so a crash redelivers what was still queued in the
+ * process instead of losing it. Frames held back by the event-time reorder buffer are only settled
+ * once released and analyzed, so they also hold the prefix of their channel for up to
+ * {@code maxOutOfOrderness}; the prefetch must cover the frames that arrive in that time.
+ * Each consumer channel gets a {@link DeliveryWindow}, which sends one {@code basicAck(multiple)}
+ * per {@code ackBatchSize} frames; a periodic flush settles the rest within {@code ackMaxDelay}. The batch must stay below the listener prefetch, or the broker
+ * stops delivering until the flush.
+ * </p>
+ * <p>
+ * Metrics: {@code recognition.acks.sent} (broker acknowledgements) and
+ * {@code recognition.acks.pending} (frames received and not acknowledged yet).
+ * </p>
+ */
+@Slf4j
+@Service
+public class DeliveryAckService {
+
+    private final int batchSize;
+    private final long maxDelayMillis;
+    private final ScheduledExecutorService scheduler;
+    private final Map<Channel, DeliveryWindow> windows = new ConcurrentHashMap<>();
+    private volatile long closedChannelAcks;
+
+    public DeliveryAckService(TrackingPipelineProperties pipelineProperties,
+                              ScheduledExecutorService trackMaintenanceScheduler,
+                              MeterRegistry meterRegistry) {
+        this.batchSize = pipelineProperties.ackBatchSize();
+        this.maxDelayMillis = pipelineProperties.ackMaxDelay().toMillis();
+        this.scheduler = trackMaintenanceScheduler;
+
+        FunctionCounter.builder("recognition.acks.sent", this, DeliveryAckService::acksSent)
+            .description("Broker acknowledgements sent, each settling every processed frame up to its tag")
+            .register(meterRegistry);
+        Gauge.builder("recognition.acks.pending", this, DeliveryAckService::pending)
+            .description("Raw tracking frames received and not acknowledged to the broker yet")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        log.info("Acknowledging raw tracking frames in batches of {}, at most {} ms late", batchSize, maxDelayMillis);
+        scheduler.scheduleWithFixedDelay(this::flush, maxDelayMillis, maxDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Window of the channel a frame was delivered on. Called on the listener thread.
+     */
+    public DeliveryWindow window(Channel channel) {
+        DeliveryWindow window = windows.get(channel);
+        return window != null ? window : windows.computeIfAbsent(channel, key -> new DeliveryWindow(key, batchSize));
+    }
+
+    /**
+     * Acknowledges every completed prefix, and forgets the channels that were closed.
+     */
+    @PreDestroy
+    public void flush() {
+        try {
+            windows.values().removeIf(window -> {
+                window.flush();
+                if (window.isOpen()) return false;
+                closedChannelAcks += window.acks();
+                return true;
+            });
+        } catch (Exception e) {
+            // An exception escaping a scheduled task would silently cancel every future flush.
+            log.error("❌ Acknowledgement flush failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private double acksSent() {
+        long total = closedChannelAcks;
+        for (DeliveryWindow window : windows.values()) {
+            total += window.acks();
+        }
+        return total;
+    }
+
+    private double pending() {
+        int total = 0;
+        for (DeliveryWindow window : windows.values()) {
+            total += window.pending();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,203 @@
+package com.safevision.recognitionservice.service;
+
+import com.safevision.recognitionservice.config.EventJournalProperties;
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.journal.EventJournal;
+import com.safevision.recognitionservice.journal.JournalEntry;
+import com.safevision.recognitionservice.pipeline.BackgroundFrameWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Keeps every analyzed frame in an {@link EventJournal}, so what a camera saw can be read back
+ * for an incident review or replayed after a rule change.
+ * <p>
+ * The pipeline hands each frame to {@link #append(RawTrackingEvent)}, which only queues it for a
+ * {@link BackgroundFrameWriter}. Its thread appends whatever is queued and commits once the queue ran
+ * dry, or at most {@code commitInterval} after the first uncommitted frame: one flush covers the
+ * frames of every track worker that arrived meanwhile. Journaling never slows analysis down: when the
+ * writer falls behind, frames are left out of the journal and counted.
+ * </p>
+ * <p>
+ * Once a minute, closed segments are compacted into columnar files, and segments older than the
+ * retention, or beyond the disk budget, are deleted. This runs on the background I/O scheduler,
+ * never on the track maintenance thread.
+ * </p>
+ * <p>
+ * Metrics: {@code recognition.journal.appended}, {@code recognition.journal.dropped},
+ * {@code recognition.journal.commits} and {@code recognition.journal.compacted} (counters),
+ * {@code recognition.journal.segments} and {@code recognition.journal.size} (gauges).
+ * </p>
+ */
+@Slf4j
+@Service
+public class EventJournalService {
+
+    private static final long MAINTENANCE_PERIOD_SECONDS = 60;
+
+    private final EventJournalProperties properties;
+    private final ScheduledExecutorService scheduler;
+    private final BackgroundFrameWriter writer;
+    private final Counter commitsCounter;
+    private final Counter compactedCounter;
+
+    private volatile EventJournal journal;
+
+    public EventJournalService(EventJournalProperties properties,
+                               ScheduledExecutorService backgroundIoScheduler,
+                               MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.scheduler = backgroundIoScheduler;
+        this.writer = new BackgroundFrameWriter("event-journal", properties.enabled() ? properties.queueCapacity() : 1,
+            Counter.builder("recognition.journal.appended")
+                .description("Frames appended to the event journal")
+                .register(meterRegistry),
+            Counter.builder("recognition.journal.dropped")
+                .description("Frames left out of the event journal because the writer fell behind")
+                .register(meterRegistry));
+        this.commitsCounter = Counter.builder("recognition.journal.commits")
+            .description("Group commits of the event journal to disk")
+            .register(meterRegistry);
+        this.compactedCounter = Counter.builder("recognition.journal.compacted")
+            .description("Event journal segments rewritten in columnar form")
+            .register(meterRegistry);
+        Gauge.builder("recognition.journal.segments", this, service -> service.journal != null ? service.journal.segmentCount() : 0)
+            .description("Segment files of the event journal")
+            .register(meterRegistry);
+        Gauge.builder("recognition.journal.size", this, service -> service.journal != null ? service.journal.sizeBytes() : 0)
+            .description("Disk space taken by the event journal")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!properties.enabled()) return;
+
+        Path path = Path.of(properties.path());
+        journal = new EventJournal(path,
+            Math.toIntExact(properties.segmentSize().toBytes()),
+            properties.segmentDuration(),
+            properties.indexInterval());
+        writer.start(new JournalSink(journal));
+        scheduler.scheduleWithFixedDelay(this::maintain,
+            MAINTENANCE_PERIOD_SECONDS, MAINTENANCE_PERIOD_SECONDS, TimeUnit.SECONDS);
+        log.info("📼 Journaling analyzed frames to {} (retention {}, up to {})",
+            path.toAbsolutePath(), properties.retention(), properties.maxSize());
+    }
+
+    /**
+     * Journals the frames still queued and seals the active segment.
+     */
+    @PreDestroy
+    public void stop() {
+        writer.stop();
+    }
+
+    /**
+     * Queues a frame for the journal. Never blocks; a no-op unless the journal is enabled.
+     *
+     * @param event A frame just analyzed.
+     */
+    public void append(RawTrackingEvent event) {
+        writer.offer(event);
+    }
+
+    /**
+     * Calls the visitor with the journaled frames of a camera whose capture time lies between two
+     * instants (epoch milliseconds, inclusive), oldest first. Frames still queued, or appended
+     * since the last commit, are not seen.
+     *
+     * @param visitor Returns {@code false} to stop the read.
+     */
+    public void read(String cameraId, long fromMillis, long toMillis, Predicate<JournalEntry> visitor) {
+        EventJournal current = journal;
+        if (current != null) {
+            current.read(cameraId, fromMillis, toMillis, visitor);
+        }
+    }
+
+    /**
+     * The first journaled frames of a camera between two instants, oldest first.
+     *
+     * @param limit Frames returned at most; the read stops there.
+     */
+    public List<JournalEntry> query(String cameraId, Instant from, Instant to, int limit) {
+        List<JournalEntry> frames = new ArrayList<>();
+        if (limit <= 0) return frames;
+        read(cameraId, from.toEpochMilli(), to.toEpochMilli(), frame -> frames.add(frame) && frames.size() < limit);
+        return frames;
+    }
+
+    public boolean isJournaling() {
+        return writer.isRunning();
+    }
+
+    /**
+     * Compacts the closed segments, then applies the retention. Compacting first lets the disk
+     * budget count segments at their compacted size.
+     */
+    void maintain() {
+        try {
+            compactedCounter.increment(journal.compact());
+            journal.enforceRetention(properties.retention(), properties.maxSize().toBytes(), System.currentTimeMillis());
+        } catch (Exception e) {
+            // An exception escaping a scheduled task would silently cancel every future maintenance pass.
+            log.error("❌ Event journal maintenance failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Appends to the journal and group-commits: once the queue ran dry, or the oldest uncommitted
+     * frame waited {@code commitInterval}.
+     */
+    private final class JournalSink implements BackgroundFrameWriter.Sink {
+
+        private final EventJournal journal;
+        private final long commitNanos = properties.commitInterval().toNanos();
+        private long uncommittedSince;
+        private boolean uncommitted;
+
+        JournalSink(EventJournal journal) {
+            this.journal = journal;
+        }
+
+        @Override
+        public void write(long receivedAtMillis, RawTrackingEvent event) throws IOException {
+            journal.append(event, receivedAtMillis);
+            if (!uncommitted) {
+                uncommitted = true;
+                uncommittedSince = System.nanoTime();
+            }
+        }
+
+        @Override
+        public void endOfBatch(boolean drained) throws IOException {
+            if (uncommitted && (drained || System.nanoTime() - uncommittedSince >= commitNanos)) {
+                journal.commit();
+                commitsCounter.increment();
+                uncommitted = false;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            journal.close();
+            log.info("⏹️ Event journal closed in {}", properties.path());
+        }
+    }
+}
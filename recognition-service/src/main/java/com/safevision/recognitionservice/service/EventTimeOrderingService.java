@@ -0,0 +1,234 @@
+package com.safevision.recognitionservice.service;
+
+import com.safevision.recognitionservice.config.EventTimeProperties;
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.pipeline.DeliveryWindow;
+import com.safevision.recognitionservice.pipeline.TrackPartitionedExecutor;
+import com.safevision.recognitionservice.state.HandleMap;
+import com.safevision.recognitionservice.state.ReorderBuffer;
+import com.safevision.recognitionservice.state.SymbolTable;
+import com.safevision.recognitionservice.state.TrackStateStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Service responsible for handing frames to the analysis in event-time order.
+ * <p>
+ * The rules reason about time (how long a subject stared, how fast it approached), and the
+ * capture time of a frame is {@link RawTrackingEvent#eventTimeMillis()}, not its arrival time.
+ * When the edge agent reconnects and flushes a backlog, or two listener threads interleave,
+ * frames of a track can arrive out of order. Each track therefore gets a small {@link ReorderBuffer}
+ * (indexed by the handle of the track) and a watermark of {@code newest event time - maxOutOfOrderness}:
+ * frames are released, in order, once the watermark passes them. A frame older than what was already released is late and dropped.
+ * </p>
+ * <p>
+ * A frame showing a weapon does not wait for the watermark: it is released as soon as it arrives,
+ * together with the frames buffered before it, so a weapon fast-tracked under overload is analyzed
+ * on its urgent turn instead of sitting in the buffer. Frames of the track that arrive afterwards
+ * with an earlier event time are late.
+ * </p>
+ * <p>
+ * The watermark only advances with new frames, so a periodic flush releases what is left in the
+ * buffer of a track that stopped sending frames for longer than {@code maxOutOfOrderness}
+ * (processing time). The flush runs on the worker that owns the track; when that worker's queue is
+ * full, the track is left for the next flush, so the maintenance thread never waits on the frames.
+ * </p>
+ * <p>
+ * A frame carries its broker delivery through the buffer, and the delivery is only marked as
+ * processed once the frame left the buffer and went through the analysis (or was dropped as late,
+ * or evicted with its track). A crash therefore redelivers the frames still waiting here.
+ * </p>
+ * <p>
+ * Metrics: {@code recognition.events.reordered} (frames put back in order) and
+ * {@code recognition.events.late} (frames dropped because they arrived too late).
+ * </p>
+ */
+@Slf4j
+@Service
+public class EventTimeOrderingService implements TrackStateStore {
+
+    /** The flush never runs more often than this, even with a tiny out-of-orderness. */
+    private static final long MIN_FLUSH_INTERVAL_MILLIS = 100;
+
+    private final long maxOutOfOrdernessMillis;
+    private final int maxBufferedFrames;
+    private final TrackPartitionedExecutor trackExecutor;
+    private final ScheduledExecutorService scheduler;
+    private final SymbolTable trackSymbols;
+    private final HandleMap<ReorderBuffer<DeliveryWindow>> buffers = new HandleMap<>();
+    /** Reused for every released frame, so that releasing one allocates nothing. */
+    private final ReorderBuffer.Release<DeliveryWindow> release = this::release;
+    private final Counter reorderedCounter;
+    private final Counter lateCounter;
+
+    private volatile Consumer<RawTrackingEvent> downstream;
+
+    public EventTimeOrderingService(EventTimeProperties properties,
+                                    TrackPartitionedExecutor trackExecutor,
+                                    ScheduledExecutorService trackMaintenanceScheduler,
+                                    SymbolTable trackSymbols,
+                                    MeterRegistry meterRegistry) {
+        this.maxOutOfOrdernessMillis = properties.maxOutOfOrderness().toMillis();
+        this.maxBufferedFrames = properties.maxBufferedFrames();
+        this.trackExecutor = trackExecutor;
+        this.scheduler = trackMaintenanceScheduler;
+        this.trackSymbols = trackSymbols;
+
+        this.reorderedCounter = Counter.builder("recognition.events.reordered")
+            .description("Frames that arrived out of event-time order and were put back in order")
+            .register(meterRegistry);
+        this.lateCounter = Counter.builder("recognition.events.late")
+            .description("Frames dropped because frames with a later event time were already analyzed")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Binds the analysis pipeline that receives the ordered frames and starts the periodic flush.
+     *
+     * @param downstream Called on the owning track worker with each frame, in event-time order.
+     */
+    public void start(Consumer<RawTrackingEvent> downstream) {
+        this.downstream = downstream;
+        if (maxOutOfOrdernessMillis <= 0) {
+            log.info("Event-time reordering disabled: frames are analyzed as they arrive (late frames are still dropped)");
+            return;
+        }
+
+        long interval = Math.max(maxOutOfOrdernessMillis, MIN_FLUSH_INTERVAL_MILLIS);
+        log.info("Event-time reordering enabled: out-of-orderness {} ms, up to {} frames per track",
+            maxOutOfOrdernessMillis, maxBufferedFrames);
+        scheduler.scheduleAtFixedRate(this::flushIdle, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Buffers a frame and releases every frame the track's watermark has passed, or every frame up
+     * to this one if it shows a weapon. Must be called from the worker that owns the track.
+     *
+     * @param event The frame, in arrival order.
+     */
+    public void offer(RawTrackingEvent event) {
+        offer(event, null, 0);
+    }
+
+    /**
+     * Same as {@link #offer(RawTrackingEvent)}, for a frame whose broker delivery must be marked as
+     * processed once the frame is done with. Every call settles the delivery exactly once, on release,
+     * on drop or on eviction of the track, even if it throws.
+     *
+     * @param event      The frame, in arrival order.
+     * @param deliveries Window of the channel the frame came from; {@code null} if there is nothing to settle.
+     * @param delivery   Position of the frame in the window.
+     */
+    public void offer(RawTrackingEvent event, DeliveryWindow deliveries, long delivery) {
+        if (event.eventTimeMillis() == 0) {
+            // Without a capture time there is nothing to order by.
+            release(event, deliveries, delivery);
+            return;
+        }
+
+        ReorderBuffer<DeliveryWindow> buffer;
+        boolean outOfOrder;
+        boolean buffered = false;
+        try {
+            int track = trackSymbols.handle(event.detectionId());
+            buffer = buffers.get(track);
+            if (buffer == null) {
+                buffer = new ReorderBuffer<>(maxBufferedFrames);
+                buffers.put(track, buffer);
+            }
+            if (buffer.size() == maxBufferedFrames) {
+                buffer.releaseOldest(release);
+            }
+
+            outOfOrder = event.eventTimeMillis() < buffer.maxEventTime();
+            buffered = buffer.offer(event, deliveries, delivery, System.currentTimeMillis());
+        } finally {
+            if (!buffered) settle(deliveries, delivery);
+        }
+        if (!buffered) {
+            lateCounter.increment();
+            log.debug("⏱️ Dropped late frame for ID {} (event time {} behind watermark)", event.detectionId(), event.eventTimeMillis());
+            return;
+        }
+        if (outOfOrder) reorderedCounter.increment();
+
+        long watermark = buffer.maxEventTime() - maxOutOfOrdernessMillis;
+        buffer.releaseUpTo(event.hasWeapon() ? Math.max(watermark, event.eventTimeMillis()) : watermark, release);
+    }
+
+    /**
+     * Schedules a flush, on the owning worker, for every track whose buffer is waiting on frames
+     * that stopped coming. Never blocks: a track whose worker is full is tried again on the next run.
+     */
+    public void flushIdle() {
+        try {
+            long now = System.currentTimeMillis();
+            buffers.forEach((buffer, track) -> {
+                String detectionId = trackSymbols.name(track);
+                if (detectionId != null && !buffer.isEmpty() && isIdle(buffer, now)) {
+                    trackExecutor.tryExecute(detectionId, () -> flushIfIdle(detectionId));
+                }
+            });
+        } catch (Exception e) {
+            // An exception escaping a fixed-rate task would silently cancel every future flush.
+            log.error("❌ Reorder buffer flush failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Runs on the owning track worker, so no frame of this track can interleave with it.
+     */
+    public void flushIfIdle(String detectionId) {
+        ReorderBuffer<DeliveryWindow> buffer = buffers.get(trackSymbols.find(detectionId));
+        if (buffer == null || !isIdle(buffer, System.currentTimeMillis())) return;
+
+        buffer.drain(release);
+    }
+
+    /**
+     * Number of frames currently held for the given track.
+     */
+    public int buffered(String detectionId) {
+        ReorderBuffer<DeliveryWindow> buffer = buffers.get(trackSymbols.find(detectionId));
+        return buffer != null ? buffer.size() : 0;
+    }
+
+    /**
+     * Number of tracks with a reorder buffer.
+     */
+    public int bufferedTracks() {
+        return buffers.size();
+    }
+
+    @Override
+    public void evict(int track, String detectionId) {
+        ReorderBuffer<DeliveryWindow> buffer = buffers.remove(track);
+        // Frames the idle flush did not release yet go away with the track, but their deliveries are still open.
+        if (buffer != null) buffer.drain((event, deliveries, delivery) -> settle(deliveries, delivery));
+    }
+
+    /**
+     * Runs a released frame through the analysis, then settles its delivery.
+     */
+    private void release(RawTrackingEvent event, DeliveryWindow deliveries, long delivery) {
+        try {
+            downstream.accept(event);
+        } finally {
+            settle(deliveries, delivery);
+        }
+    }
+
+    private static void settle(DeliveryWindow deliveries, long delivery) {
+        if (deliveries != null) deliveries.processed(delivery);
+    }
+
+    private boolean isIdle(ReorderBuffer<?> buffer, long now) {
+        return now - buffer.lastArrivalMillis() >= maxOutOfOrdernessMillis;
+    }
+}
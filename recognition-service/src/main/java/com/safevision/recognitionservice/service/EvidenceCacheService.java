@@ -0,0 +1,124 @@
+package com.safevision.recognitionservice.service;
+
+import com.safevision.recognitionservice.config.EvidenceCacheProperties;
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.state.SegmentedLruCache;
+import com.safevision.recognitionservice.state.SegmentedLruCache.RemovalCause;
+import com.safevision.recognitionservice.state.TrackState;
+import com.safevision.recognitionservice.state.TrackStateRecorder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service responsible for remembering the last evidence snapshot of each track.
+ * <p>
+ * The Vision Agent only uploads a snapshot on some frames. Caching the last URL
+ * lets an alert raised on a later frame still carry visual evidence.
+ * </p>
+ * <p>
+ * Tracks that leave the frame are evicted with the rest of their state, but that alone does not
+ * bound the cache: a flood of short-lived tracks, or a sweep falling behind, would let it grow
+ * with the traffic. The cache is therefore capped by entries and by approximate memory, dropping
+ * the least recently used URLs first, and a URL expires with the snapshot it points to.
+ * </p>
+ * <p>
+ * Metrics: {@code recognition.evidence.lookups} (tagged {@code result=hit|miss}, lookups made for
+ * alerts whose frame carried no snapshot), {@code recognition.evidence.evictions} (tagged
+ * {@code cause=size|expired}) and {@code recognition.evidence.weight} (approximate bytes held).
+ * </p>
+ */
+@Slf4j
+@Service
+public class EvidenceCacheService implements TrackStateRecorder {
+
+    /** Lock stripes of the cache, enough for the track workers to rarely meet. */
+    private static final int SEGMENTS = 16;
+
+    /**
+     * Approximate footprint of an entry besides its strings' characters: the map node, the cache
+     * entry and two String headers with their backing arrays.
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+
+    private final SegmentedLruCache<String, String> evidenceCache;
+    private final Counter hits;
+    private final Counter misses;
+
+    public EvidenceCacheService(EvidenceCacheProperties properties, MeterRegistry meterRegistry) {
+        this.evidenceCache = new SegmentedLruCache<>(SEGMENTS,
+            properties.maxEntries(),
+            properties.maxWeight().toBytes(),
+            properties.expireAfterWrite(),
+            EvidenceCacheService::weigh,
+            System::nanoTime);
+
+        this.hits = lookups("hit", meterRegistry);
+        this.misses = lookups("miss", meterRegistry);
+        evictions(RemovalCause.SIZE, meterRegistry);
+        evictions(RemovalCause.EXPIRED, meterRegistry);
+        Gauge.builder("recognition.evidence.weight", evidenceCache, SegmentedLruCache::weight)
+            .description("Approximate memory held by the cached evidence snapshot URLs")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public TrackState state() {
+        return TrackState.EVIDENCE;
+    }
+
+    /**
+     * Caches the snapshot URL of the frame, if it carries one.
+     */
+    @Override
+    public void record(int track, RawTrackingEvent event) {
+        if (event.snapshotUrl() != null && !event.snapshotUrl().isEmpty()) {
+            evidenceCache.put(event.detectionId(), event.snapshotUrl());
+            log.debug("📸 Evidence cached for ID: {}", event.detectionId());
+        }
+    }
+
+    /**
+     * Last snapshot URL received for the track, or {@code null} if none or if it expired.
+     */
+    public String getEvidence(String detectionId) {
+        String snapshotUrl = evidenceCache.get(detectionId);
+        (snapshotUrl != null ? hits : misses).increment();
+        return snapshotUrl;
+    }
+
+    /**
+     * Number of tracks with a cached snapshot.
+     */
+    public long size() {
+        return evidenceCache.size();
+    }
+
+    @Override
+    public void evict(int track, String detectionId) {
+        evidenceCache.remove(detectionId);
+    }
+
+    private static int weigh(String detectionId, String snapshotUrl) {
+        // IDs and URLs are ASCII, so compact strings store one byte per character.
+        return ENTRY_OVERHEAD_BYTES + detectionId.length() + snapshotUrl.length();
+    }
+
+    private static Counter lookups(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("recognition.evidence.lookups")
+            .description("Evidence cache lookups for alerts raised on frames without a snapshot")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    private void evictions(RemovalCause cause, MeterRegistry meterRegistry) {
+        FunctionCounter.builder("recognition.evidence.evictions", evidenceCache, cache -> cache.evictions(cause))
+            .description("Snapshot URLs dropped by the evidence cache before their track was evicted")
+            .tag("cause", cause.name().toLowerCase())
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,261 @@
+package com.safevision.recognitionservice.service;
+
+import com.safevision.recognitionservice.config.AdmissionControlProperties;
+import com.safevision.recognitionservice.config.AdmissionControlProperties.SheddingPolicy;
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.pipeline.TrackPartitionedExecutor;
+import com.safevision.recognitionservice.state.TrackStateStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Admission stage in front of the tracking pipeline, deciding what happens to each frame when the
+ * service falls behind.
+ * <p>
+ * Every {@code checkInterval}, three signals are sampled: the highest capture-to-consumption lag seen
+ * by the listeners, the depth of the raw tracking queue in the broker, and the backlog of the track
+ * workers. The service is overloaded when any of them crosses its limit, and stays so until all of
+ * them fall below {@code recoveryRatio} of their limits. Lag is measured against the capture time
+ * stamped by the edge agent, so it assumes the agent and this service have synchronized clocks.
+ * Reading the queue depth is a blocking call to the broker, so the check runs on the background I/O
+ * scheduler.
+ * </p>
+ * <p>
+ * While overloaded:
+ * <ul>
+ * <li>Weapon frames are fast-tracked to the urgent lane of their track worker, unless earlier frames
+ *     of the track are still queued: passing them would get them dropped as late by the event-time
+ *     ordering, and never analyzed or journaled. Those weapon frames are processed in order.</li>
+ * <li>Frames facing the camera are processed normally; they feed the stare rule.</li>
+ * <li>Routine frames (no weapon, not facing the camera) are shed according to the {@link SheddingPolicy},
+ *     but only when the previous frame admitted for the track was routine too. A frame that changes
+ *     the state of the track (the subject looks away, a weapon disappears) is always processed: it is
+ *     what ends a stare streak, and what the sequence patterns wait on.</li>
+ * </ul>
+ * Otherwise every frame is admitted untouched.
+ * </p>
+ * <p>
+ * {@link #admit(RawTrackingEvent)} runs on the listener threads, before a frame is queued, so shed
+ * frames cost no worker time at all.
+ * </p>
+ * <p>
+ * Metrics: {@code recognition.admission.shed} (counter, tagged by {@code reason}),
+ * {@code recognition.admission.fast_tracked} (counter), {@code recognition.admission.overloaded},
+ * {@code recognition.admission.lag} and {@code recognition.admission.queue.depth} (gauges).
+ * </p>
+ */
+@Slf4j
+@Service
+public class LoadSheddingService implements TrackStateStore {
+
+    /** What the listener must do with a frame. */
+    public enum Admission {
+        PROCESS,
+        FAST_TRACK,
+        SHED
+    }
+
+    private final AdmissionControlProperties properties;
+    private final TrackPartitionedExecutor trackExecutor;
+    private final ScheduledExecutorService scheduler;
+    private final AmqpAdmin amqpAdmin;
+    private final String rawTrackingQueueName;
+    private final long maxLagMillis;
+    private final long thinIntervalMillis;
+
+    /** State of the last admitted frame of a track; unknown until the first one admitted while overloaded. */
+    private static final long UNKNOWN = 0;
+    private static final long ROUTINE = 1;
+    private static final long FACING = 2;
+    private static final long WEAPON = 3;
+
+    /**
+     * Per track, the event time of the last routine frame kept and the state of the last admitted
+     * frame. Only used, and only filled, while overloaded.
+     */
+    private final Map<String, long[]> lastKeptMap = new ConcurrentHashMap<>();
+    private final LongAccumulator observedLag = new LongAccumulator(Math::max, 0);
+
+    private final Counter droppedCounter;
+    private final Counter thinnedCounter;
+    private final Counter fastTrackedCounter;
+
+    private volatile boolean overloaded;
+    private volatile long lagMillis;
+    private volatile long queueDepth = -1;
+
+    public LoadSheddingService(AdmissionControlProperties properties,
+                               TrackPartitionedExecutor trackExecutor,
+                               ScheduledExecutorService backgroundIoScheduler,
+                               AmqpAdmin amqpAdmin,
+                               String rawTrackingQueueName,
+                               MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.trackExecutor = trackExecutor;
+        this.scheduler = backgroundIoScheduler;
+        this.amqpAdmin = amqpAdmin;
+        this.rawTrackingQueueName = rawTrackingQueueName;
+        this.maxLagMillis = properties.maxLag().toMillis();
+        this.thinIntervalMillis = properties.thinInterval().toMillis();
+
+        this.droppedCounter = shedCounter("dropped", meterRegistry);
+        this.thinnedCounter = shedCounter("thinned", meterRegistry);
+        this.fastTrackedCounter = Counter.builder("recognition.admission.fast_tracked")
+            .description("Weapon frames moved ahead of the track worker backlog while overloaded")
+            .register(meterRegistry);
+        Gauge.builder("recognition.admission.overloaded", this, service -> service.isOverloaded() ? 1 : 0)
+            .description("1 while the service is shedding load, 0 otherwise")
+            .register(meterRegistry);
+        Gauge.builder("recognition.admission.lag", this, service -> service.lagMillis)
+            .description("Highest capture-to-consumption delay of the last check, in milliseconds")
+            .baseUnit("milliseconds")
+            .register(meterRegistry);
+        Gauge.builder("recognition.admission.queue.depth", this, service -> service.queueDepth)
+            .description("Messages waiting in the raw tracking queue at the last check (-1 if unknown)")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!properties.enabled()) {
+            log.info("Load shedding disabled: every frame is admitted");
+            return;
+        }
+
+        long interval = properties.checkInterval().toMillis();
+        log.info("Load shedding enabled: policy {}, max lag {} ms, max queue depth {}, max backlog {}%",
+            properties.policy(), maxLagMillis, properties.maxQueueDepth(), Math.round(properties.maxBacklogRatio() * 100));
+        scheduler.scheduleAtFixedRate(this::checkLoad, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Classifies a frame. Called by the listeners for every frame, before it is queued.
+     *
+     * @param event The incoming frame.
+     * @return Whether to process, fast-track or drop the frame.
+     */
+    public Admission admit(RawTrackingEvent event) {
+        long now = System.currentTimeMillis();
+        long eventTime = event.eventTimeMillis();
+        if (eventTime > 0) {
+            observedLag.accumulate(now - eventTime);
+        }
+
+        if (!overloaded) return Admission.PROCESS;
+
+        // Frames of a track may come through several listener threads; a lost update only keeps one frame more.
+        long[] lastKept = lastKeptMap.computeIfAbsent(event.detectionId(), k -> new long[] {0, UNKNOWN});
+        long previous = lastKept[1];
+        if (event.hasWeapon()) {
+            lastKept[1] = WEAPON;
+            if (trackExecutor.hasQueued(event.detectionId())) return Admission.PROCESS;
+            fastTrackedCounter.increment();
+            return Admission.FAST_TRACK;
+        }
+        if (event.isFacingCamera()) {
+            lastKept[1] = FACING;
+            return Admission.PROCESS;
+        }
+
+        long timeMillis = eventTime > 0 ? eventTime : now;
+        if (previous != ROUTINE) {
+            // The frame changes the state of the track: shedding it would hide the change from the rules.
+            lastKept[0] = timeMillis;
+            lastKept[1] = ROUTINE;
+            return Admission.PROCESS;
+        }
+
+        return switch (properties.policy()) {
+            case NONE -> Admission.PROCESS;
+            case DROP -> {
+                droppedCounter.increment();
+                yield Admission.SHED;
+            }
+            case THIN -> thin(lastKept, timeMillis);
+        };
+    }
+
+    private Admission thin(long[] lastKept, long timeMillis) {
+        if (timeMillis - lastKept[0] >= thinIntervalMillis) {
+            lastKept[0] = timeMillis;
+            return Admission.PROCESS;
+        }
+        thinnedCounter.increment();
+        return Admission.SHED;
+    }
+
+    /**
+     * Samples lag, queue depth and backlog, and enters or leaves overload.
+     */
+    public void checkLoad() {
+        try {
+            lagMillis = Math.max(0, observedLag.getThenReset());
+            queueDepth = fetchQueueDepth();
+
+            double pressure = Math.max(
+                ratio(lagMillis, maxLagMillis),
+                Math.max(ratio(queueDepth, properties.maxQueueDepth()),
+                    ratio(trackExecutor.backlog(), trackExecutor.capacity() * properties.maxBacklogRatio())));
+
+            if (!overloaded && pressure >= 1) {
+                overloaded = true;
+                log.warn("🚦 Overloaded (lag {} ms, queue depth {}, backlog {}): fast-tracking weapon frames, policy {} for routine frames",
+                    lagMillis, queueDepth, trackExecutor.backlog(), properties.policy());
+            } else if (overloaded && pressure < properties.recoveryRatio()) {
+                overloaded = false;
+                lastKeptMap.clear();
+                log.info("🚦 Load back to normal (lag {} ms, queue depth {}, backlog {}): admitting every frame",
+                    lagMillis, queueDepth, trackExecutor.backlog());
+            }
+        } catch (Exception e) {
+            // An exception escaping a fixed-rate task would silently cancel every future check.
+            log.error("❌ Load check failed: {}", e.getMessage(), e);
+        }
+    }
+
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+
+    @Override
+    public void evict(int track, String detectionId) {
+        lastKeptMap.remove(detectionId);
+    }
+
+    private long fetchQueueDepth() {
+        if (properties.maxQueueDepth() <= 0) return -1;
+        try {
+            QueueInformation info = amqpAdmin.getQueueInfo(rawTrackingQueueName);
+            return info != null ? info.getMessageCount() : -1;
+        } catch (Exception e) {
+            log.debug("Could not read depth of queue {}: {}", rawTrackingQueueName, e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * How close a signal is to its limit. Disabled limits and unknown values never count.
+     */
+    private static double ratio(double value, double limit) {
+        return limit > 0 && value > 0 ? value / limit : 0;
+    }
+
+    private static Counter shedCounter(String reason, MeterRegistry meterRegistry) {
+        return Counter.builder("recognition.admission.shed")
+            .description("Routine frames not processed because the service was overloaded")
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+}
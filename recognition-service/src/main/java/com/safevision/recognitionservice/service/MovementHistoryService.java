@@ -1,64 +1,90 @@
 package com.safevision.recognitionservice.service;
 
 import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.state.MappedTrackStateStore;
+import com.safevision.recognitionservice.state.SymbolTable;
+import com.safevision.recognitionservice.state.TrackHistoryView;
+import com.safevision.recognitionservice.state.TrackState;
+import com.safevision.recognitionservice.state.TrackStateRecorder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
 /**
  * Service responsible for managing the recent historical state (tracking data)
- * for each detected object in memory.
+ * for each detected object.
+ * <p>
+ * This acts as the 'Repository' for time-series analysis required by the
+ * ThreatAnalysisService. The sliding window of depth/position data lives in the
+ * off-heap {@link MappedTrackStateStore} (no boxing, no per-frame allocation, no heap
+ * per track), so it survives a restart when the store is backed by a file.
+ * </p>
  * <p>
- * This acts as an in-memory 'Repository' or 'Cache' for time-series analysis
- * required by the ThreatAnalysisService. It stores a sliding window of depth/position data.
+ * Thread-safety: each history is only touched by the track worker that owns its
+ * detection ID (see {@code TrackPartitionedExecutor}), so the per-track record itself
+ * is never accessed concurrently.
  * </p>
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class MovementHistoryService {
+public class MovementHistoryService implements TrackStateRecorder {
 
-   
-    private final Map<String, LinkedList<Integer>> historyMap = new ConcurrentHashMap<>();
-    
-   
-    private static final int HISTORY_WINDOW_SIZE = 10;
+    private final MappedTrackStateStore store;
+
+    @Override
+    public TrackState state() {
+        return TrackState.DEPTH_HISTORY;
+    }
+
+    @Override
+    public void record(int track, RawTrackingEvent event) {
+        recordEvent(track, event);
+    }
+
+    /**
+     * Records the new depth measurement for the tracked object, looking it up by ID only.
+     */
+    public void recordEvent(RawTrackingEvent event) {
+        recordEvent(SymbolTable.NO_HANDLE, event);
+    }
 
     /**
      * Records the new depth measurement for the tracked object.
-     * Maintains a fixed-size sliding window by evicting old data.
+     * Maintains a sliding window of the last {@value MappedTrackStateStore#HISTORY_SPAN_MILLIS} ms
+     * of event time, of at most {@value MappedTrackStateStore#HISTORY_CAPACITY} samples.
      *
+     * @param track The handle of the track.
      * @param event The raw tracking data event.
      */
-    public void recordEvent(RawTrackingEvent event) {
-        var id = event.detectionId();
-        
-   
-        var history = historyMap.computeIfAbsent(id, k -> new LinkedList<>());
-        
-   
-        history.addFirst(event.depthPosition());
-        
-   
-        while (history.size() > HISTORY_WINDOW_SIZE) {
-            history.removeLast();
+    public void recordEvent(int track, RawTrackingEvent event) {
+        int slot = store.findOrCreate(track, event.detectionId());
+        if (slot < 0) {
+            log.debug("No room in the track state store for ID: {}", event.detectionId());
+            return;
         }
+        store.appendDepth(slot, event.depthPosition(), event.eventTimeMillis());
     }
 
     /**
-     * Retrieves the list of recent depth measurements for the tracked object.
-     * Returns an empty list if no history is found (Null Object Pattern).
+     * Retrieves a read-only view of the recent samples for the tracked object.
+     * The view is backed by the store (no copy is made), is reused by the calling
+     * thread and must only be read from the owning track worker. Returns an empty
+     * view if no history is found (Null Object Pattern).
      *
      * @param detectionId The ID of the tracked object.
-     * @return A list of the last N depth values.
+     * @return A view over the last N samples, newest first.
      */
-    public List<Integer> getDepths(String detectionId) {
-        return historyMap.getOrDefault(detectionId, new LinkedList<>());
+    public TrackHistoryView getHistory(String detectionId) {
+        return getHistory(SymbolTable.NO_HANDLE, detectionId);
+    }
+
+    /**
+     * Same as {@link #getHistory(String)}, reaching the record through the handle of the track.
+     */
+    public TrackHistoryView getHistory(int track, String detectionId) {
+        int slot = store.find(track, detectionId);
+        return slot >= 0 ? store.history(slot) : TrackHistoryView.EMPTY;
     }
     
     /**
@@ -68,9 +94,19 @@ public class MovementHistoryService {
      * @param detectionId The ID of the object whose history must be cleared.
      */
     public void clearHistory(String detectionId) {
-        if (historyMap.containsKey(detectionId)) {
+        int slot = store.find(detectionId);
+        if (slot >= 0) {
             log.debug("Clearing tracking history for ID: {}", detectionId);
-            historyMap.remove(detectionId);
+            store.clearHistory(slot);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Releases the history of a track that went idle.
+     */
+    @Override
+    public void evict(int track, String detectionId) {
+        int slot = store.find(track, detectionId);
+        if (slot >= 0) store.clearHistory(slot);
+    }
+}
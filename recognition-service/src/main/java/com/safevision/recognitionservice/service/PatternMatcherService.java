@@ -0,0 +1,141 @@
+package com.safevision.recognitionservice.service;
+
+import com.safevision.recognitionservice.config.ThreatPatternProperties;
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.pattern.PatternAutomaton;
+import com.safevision.recognitionservice.pattern.PatternSignal;
+import com.safevision.recognitionservice.pattern.SequencePattern;
+import com.safevision.recognitionservice.state.HandleMap;
+import com.safevision.recognitionservice.state.TrackHistoryView;
+import com.safevision.recognitionservice.state.TrackState;
+import com.safevision.recognitionservice.state.TrackStateRecorder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service responsible for following each track through the configured multi-step threat patterns.
+ * <p>
+ * The patterns are compiled once into a {@link PatternAutomaton}. Per frame, the signals the
+ * patterns read are derived once (the depth and stare ones from state recorded earlier in the same
+ * plan), then the machines of the track advance in constant time per machine that can move.
+ * A track only holds state while it is part-way through a pattern, in a {@code Run} of fixed size
+ * indexed by the handle of the track.
+ * </p>
+ * <p>
+ * Thresholds of the derived signals: {@code STARING} after {@value #STARE_SIGNAL_MILLIS} ms facing
+ * the camera; {@code APPROACHING} and {@code RETREATING} from a depth slope of
+ * {@value #MOTION_SIGNAL_SPEED} units per second, once the history covers {@value #MOTION_MIN_SPAN_MILLIS} ms.
+ * </p>
+ * <p>
+ * Metrics: {@code recognition.patterns.matched} (counter, tagged by {@code pattern}).
+ * </p>
+ */
+@Slf4j
+@Service
+public class PatternMatcherService implements TrackStateRecorder {
+
+    static final long STARE_SIGNAL_MILLIS = 2_000;
+    static final double MOTION_SIGNAL_SPEED = 4.0;
+    static final long MOTION_MIN_SPAN_MILLIS = 1_000;
+
+    private static final long MOTION_SIGNALS = PatternSignal.APPROACHING.bit() | PatternSignal.RETREATING.bit();
+
+    private final PatternAutomaton automaton;
+    private final MovementHistoryService historyService;
+    private final StareCounterService stareCounter;
+    private final HandleMap<PatternAutomaton.Run> runs = new HandleMap<>();
+    private final Counter[] matchedCounters;
+
+    public PatternMatcherService(ThreatPatternProperties properties,
+                                 MovementHistoryService historyService,
+                                 StareCounterService stareCounter,
+                                 MeterRegistry meterRegistry) {
+        this.automaton = new PatternAutomaton(properties.sequences());
+        this.historyService = historyService;
+        this.stareCounter = stareCounter;
+        this.matchedCounters = new Counter[automaton.size()];
+        for (int i = 0; i < automaton.size(); i++) {
+            SequencePattern pattern = automaton.pattern(i);
+            matchedCounters[i] = Counter.builder("recognition.patterns.matched")
+                .description("Tracks that went through a multi-step threat pattern")
+                .tag("pattern", pattern.name())
+                .register(meterRegistry);
+            log.info("🧩 Sequence pattern '{}': {} within {}", pattern.name(), pattern.steps(), pattern.within());
+        }
+    }
+
+    @Override
+    public TrackState state() {
+        return TrackState.PATTERN_PROGRESS;
+    }
+
+    /**
+     * Advances the patterns of the track with the signals of the frame.
+     */
+    @Override
+    public void record(int track, RawTrackingEvent event) {
+        long signals = signals(track, event);
+
+        PatternAutomaton.Run run = runs.get(track);
+        if (run == null) {
+            if (!automaton.startsOn(signals)) return;
+            run = automaton.newRun();
+            runs.put(track, run);
+        }
+
+        long completed = automaton.advance(run, signals, event.eventTimeMillis());
+        for (long pending = completed; pending != 0; pending &= pending - 1) {
+            matchedCounters[Long.numberOfTrailingZeros(pending)].increment();
+        }
+        if (run.isIdle()) {
+            runs.remove(track);
+        }
+    }
+
+    /**
+     * Patterns the latest frame of the track completed, as a mask of indexes for {@link #pattern(int)}.
+     */
+    public long completed(int track) {
+        PatternAutomaton.Run run = runs.get(track);
+        return run != null ? run.completed() : 0;
+    }
+
+    public SequencePattern pattern(int index) {
+        return automaton.pattern(index);
+    }
+
+    /**
+     * Number of tracks part-way through at least one pattern.
+     */
+    public int size() {
+        return runs.size();
+    }
+
+    @Override
+    public void evict(int track, String detectionId) {
+        runs.remove(track);
+    }
+
+    private long signals(int track, RawTrackingEvent event) {
+        long used = automaton.signals();
+        long signals = event.hasWeapon() ? PatternSignal.WEAPON_VISIBLE.bit() : PatternSignal.WEAPON_HIDDEN.bit();
+        signals |= event.isFacingCamera() ? PatternSignal.FACING_CAMERA.bit() : PatternSignal.LOOKING_AWAY.bit();
+
+        // The derived signals read track state: only pay for them when a pattern needs them.
+        if ((used & PatternSignal.STARING.bit()) != 0
+            && stareCounter.getStareDurationMillis(track, event.detectionId()) >= STARE_SIGNAL_MILLIS) {
+            signals |= PatternSignal.STARING.bit();
+        }
+        if ((used & MOTION_SIGNALS) != 0) {
+            TrackHistoryView history = historyService.getHistory(track, event.detectionId());
+            if (history.spanMillis() >= MOTION_MIN_SPAN_MILLIS) {
+                double slope = history.depthSlope();
+                if (slope >= MOTION_SIGNAL_SPEED) signals |= PatternSignal.APPROACHING.bit();
+                if (slope <= -MOTION_SIGNAL_SPEED) signals |= PatternSignal.RETREATING.bit();
+            }
+        }
+        return signals & used;
+    }
+}
@@ -0,0 +1,88 @@
+package com.safevision.recognitionservice.service;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.state.MappedTrackStateStore;
+import com.safevision.recognitionservice.state.SymbolTable;
+import com.safevision.recognitionservice.state.TrackState;
+import com.safevision.recognitionservice.state.TrackStateRecorder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service responsible for tracking how long a subject keeps facing the camera.
+ * <p>
+ * A streak starts on the first facing frame and grows with each following one, measured in
+ * event time. It is dropped as soon as a frame arrives with the subject looking away, or
+ * restarted when consecutive facing frames are more than {@value #MAX_FRAME_GAP_MILLIS} ms apart
+ * (the subject was not observed in between). It feeds the persistent stare rule.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StareCounterService implements TrackStateRecorder {
+
+    static final long MAX_FRAME_GAP_MILLIS = 2_000;
+
+    /** Streaks live in the off-heap store, next to the depth history of the track. */
+    private final MappedTrackStateStore store;
+
+    @Override
+    public TrackState state() {
+        return TrackState.STARE_COUNT;
+    }
+
+    /**
+     * Extends the streak while the subject faces the camera, drops it otherwise.
+     */
+    @Override
+    public void record(int track, RawTrackingEvent event) {
+        if (!event.isFacingCamera()) {
+            evict(track, event.detectionId());
+            return;
+        }
+
+        int slot = store.findOrCreate(track, event.detectionId());
+        if (slot < 0) return;
+
+        long eventTime = event.eventTimeMillis();
+        int frames = store.stareFrames(slot);
+        long lastMillis = store.stareLastMillis(slot);
+        if (frames == 0 || eventTime - lastMillis > MAX_FRAME_GAP_MILLIS) {
+            store.setStare(slot, eventTime, eventTime, 1);
+        } else {
+            store.setStare(slot, store.stareStartMillis(slot), Math.max(lastMillis, eventTime), frames + 1);
+        }
+    }
+
+    /**
+     * Number of consecutive facing frames for the track (0 if it is not staring).
+     */
+    public int getStareCount(String detectionId) {
+        int slot = store.find(detectionId);
+        return slot >= 0 ? store.stareFrames(slot) : 0;
+    }
+
+    /**
+     * Event time elapsed between the first and the latest frame of the current streak (0 if it is not staring).
+     */
+    public long getStareDurationMillis(String detectionId) {
+        return getStareDurationMillis(SymbolTable.NO_HANDLE, detectionId);
+    }
+
+    /**
+     * Same as {@link #getStareDurationMillis(String)}, reaching the record through the handle of the track.
+     */
+    public long getStareDurationMillis(int track, String detectionId) {
+        int slot = store.find(track, detectionId);
+        if (slot < 0 || store.stareFrames(slot) == 0) return 0;
+        return store.stareLastMillis(slot) - store.stareStartMillis(slot);
+    }
+
+    @Override
+    public void evict(int track, String detectionId) {
+        int slot = store.find(track, detectionId);
+        if (slot >= 0) store.clearStare(slot);
+    }
+}
@@ -1,15 +1,22 @@
 package com.safevision.recognitionservice.service;
 
+import com.safevision.recognitionservice.config.AlertSuppressionProperties;
 import com.safevision.recognitionservice.dto.AlertEventDTO;
 import com.safevision.recognitionservice.dto.RawTrackingEvent;
 import com.safevision.recognitionservice.producer.AlertProducer;
-import lombok.RequiredArgsConstructor;
+import com.safevision.recognitionservice.rule.ThreatFinding;
+import com.safevision.recognitionservice.rule.ThreatRuleEngine;
+import com.safevision.recognitionservice.state.SymbolTable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Core Logic Service (The "Brain" of Recognition).
@@ -18,128 +25,133 @@ import java.util.concurrent.ConcurrentHashMap;
  * and applies security rules (Business Logic) to determine if a critical
  * alert should be triggered.
  * </p>
+ * <p>
+ * The rules themselves are pluggable {@code ThreatRule} beans, compiled by the
+ * {@link ThreatRuleEngine} into a plan that updates each kind of track state exactly
+ * once per frame. This service turns their findings into alerts: repeats inside the
+ * suppression window are dropped by the {@link AlertSuppressionService}, and the findings
+ * left on the same frame are coalesced into a single composite alert.
+ * </p>
+ * <p>
+ * The detection ID of the frame is resolved once, to its handle in the track {@link SymbolTable};
+ * every step of the plan then reaches the state of the track by handle.
+ * </p>
+ * <p>
+ * Metrics: {@code recognition.alerts.dispatched} and {@code recognition.alerts.coalesced}
+ * (findings merged into another alert instead of being sent on their own), and
+ * {@code recognition.events.delay}, a histogram of the time between the capture at the edge and
+ * the analysis (it assumes the agents and this service have synchronized clocks).
+ * </p>
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class ThreatAnalysisService {
 
-    private final AlertProducer alertProducer;
-    private final MovementHistoryService historyService;
-
-   
-    private final Map<String, Integer> stareCountMap = new ConcurrentHashMap<>();
-    
-   
-    private static final int STARE_THRESHOLD = 10; 
+    private static final String COMPOSITE_TYPE_SEPARATOR = "+";
+    private static final String COMPOSITE_DESCRIPTION_SEPARATOR = " | ";
 
-   
-    private static final int LOITERING_WINDOW = 10;
-    private static final int PROXIMITY_DIFFERENCE = 15;
-
-   
-    private final Map<String, String> evidenceCache = new ConcurrentHashMap<>();
+    private final AlertProducer alertProducer;
+    private final ThreatRuleEngine ruleEngine;
+    private final EvidenceCacheService evidenceCache;
+    private final AlertSuppressionService suppressionService;
+    private final SymbolTable trackSymbols;
+    private final boolean coalesce;
+    private final Counter dispatchedCounter;
+    private final Counter coalescedCounter;
+    private final Timer delayTimer;
+
+    public ThreatAnalysisService(AlertProducer alertProducer,
+                                 ThreatRuleEngine ruleEngine,
+                                 EvidenceCacheService evidenceCache,
+                                 AlertSuppressionService suppressionService,
+                                 AlertSuppressionProperties suppressionProperties,
+                                 SymbolTable trackSymbols,
+                                 MeterRegistry meterRegistry) {
+        this.alertProducer = alertProducer;
+        this.ruleEngine = ruleEngine;
+        this.evidenceCache = evidenceCache;
+        this.suppressionService = suppressionService;
+        this.trackSymbols = trackSymbols;
+        this.coalesce = suppressionProperties.coalesce();
+        this.dispatchedCounter = Counter.builder("recognition.alerts.dispatched")
+            .description("Alerts sent to the Alert Service")
+            .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("recognition.alerts.coalesced")
+            .description("Findings merged into a composite alert of the same frame")
+            .register(meterRegistry);
+        this.delayTimer = Timer.builder("recognition.events.delay")
+            .description("Time between the capture of a frame at the edge and its analysis")
+            .publishPercentileHistogram()
+            .minimumExpectedValue(Duration.ofMillis(1))
+            .maximumExpectedValue(Duration.ofMinutes(5))
+            .register(meterRegistry);
+    }
 
     /**
      * Main entry point for event analysis.
-     * Orchestrates the execution of all security rules.
+     * Runs the compiled rule plan, drops repeated findings and dispatches what is left
+     * (as one composite alert when several rules fired on the same frame).
      *
      * @param event The raw tracking data from the Vision Agent.
      */
     public void analyze(RawTrackingEvent event) {
         if (event == null) return;
-        
-        String id = event.detectionId();
-        log.trace("Analyzing event for ID: {}", event.detectionId());
-        
-       
-        if (event.snapshotUrl() != null && !event.snapshotUrl().isEmpty()) {
-            evidenceCache.put(id, event.snapshotUrl());
-            log.debug("📸 Evidence cached for ID: {}", id);
-        }
 
-       
-        analyzeWeaponRule(event);
+        log.trace("Analyzing event for ID: {}", event.detectionId());
 
-       
-        analyzeStareRule(event);
+        long eventTime = event.eventTimeMillis();
+        if (eventTime > 0) {
+            // A clock running ahead at the edge would give a negative delay; it counts as none.
+            delayTimer.record(Math.max(0, System.currentTimeMillis() - eventTime), TimeUnit.MILLISECONDS);
+        }
 
-       
-        analyzeLoiteringRule(event);
-        
-       
-    }
+        int track = trackSymbols.handle(event.detectionId());
+        List<ThreatFinding> findings = ruleEngine.evaluate(track, event);
+        if (findings.isEmpty()) return;
 
-   
-    private void analyzeWeaponRule(RawTrackingEvent event) {
-        if (event.hasWeapon()) {
-            log.warn("🔫 WEAPON DETECTED! ID: {}", event.detectionId());
-            sendCriticalAlert(
-                event,
-                event.weaponType() +"_DETECTADA",
-                event.weaponType() + " foi localizada na " + event.weaponLocation()
-            );
+        // Suppression runs on event time too, so a replayed backlog is deduplicated like the live feed.
+        long now = eventTime > 0 ? eventTime : System.currentTimeMillis();
+        List<ThreatFinding> fresh = new ArrayList<>(findings.size());
+        for (ThreatFinding finding : findings) {
+            if (suppressionService.tryAcquire(track, finding.alertType(), now)) {
+                fresh.add(finding);
+            }
         }
-    }
 
-   
-    private void analyzeStareRule(RawTrackingEvent event) {
-        String id = event.detectionId();
-
-        if (event.isFacingCamera()) {
-           
-            int currentCount = stareCountMap.merge(id, 1, Integer::sum);
-
-            if (currentCount >= STARE_THRESHOLD) {
-                log.warn("👁️ Persistent Stare Detected! ID: {}", id);
-                
-           
-                double seconds = STARE_THRESHOLD * 0.5; 
-                
-                sendCriticalAlert(
-                    event,
-                    "OBSERVACAO_DETECTADA",
-                    "Pessoa te observou por " + seconds + " segundos."
-                );
-
-           
-                stareCountMap.remove(id);
-                evidenceCache.remove(id); 
-            }
+        if (fresh.size() > 1 && coalesce) {
+            sendCriticalAlert(event, compositeType(fresh), compositeDescription(fresh));
+            coalescedCounter.increment(fresh.size() - 1);
         } else {
+            for (ThreatFinding finding : fresh) {
+                sendCriticalAlert(event, finding.alertType(), finding.description());
+            }
+        }
 
-            stareCountMap.remove(id);
+        // State is reset only after every alert of the frame went out with its evidence.
+        // Suppressed findings reset too: the rule consumed its state, the alert was just redundant.
+        for (ThreatFinding finding : findings) {
+            ruleEngine.reset(track, event.detectionId(), finding.resets());
         }
     }
 
-  
-    private void analyzeLoiteringRule(RawTrackingEvent event) {
-        historyService.recordEvent(event);
-        
-        String id = event.detectionId();
-        List<Integer> depths = historyService.getDepths(id);
-
-        if (depths.size() < LOITERING_WINDOW) return;
-
-        int currentDepth = depths.get(0); 
-        int initialDepth = depths.get(LOITERING_WINDOW - 1); 
-        boolean isApproaching = (currentDepth - initialDepth) >= PROXIMITY_DIFFERENCE;
-
-        if (isApproaching) {
-            log.warn("🚶 Threat Approaching! ID: {}", id);
-
-            sendCriticalAlert(
-                event,
-                "PESSOA_APROXIMANDO",
-                "Pessoa que está rondando e se aproximando rapidamente do perímetro de segurança."
-            );
+    private static String compositeType(List<ThreatFinding> findings) {
+        StringBuilder type = new StringBuilder();
+        for (ThreatFinding finding : findings) {
+            if (!type.isEmpty()) type.append(COMPOSITE_TYPE_SEPARATOR);
+            type.append(finding.alertType());
+        }
+        return type.toString();
+    }
 
-            historyService.clearHistory(id);
-            evidenceCache.remove(id); 
+    private static String compositeDescription(List<ThreatFinding> findings) {
+        StringBuilder description = new StringBuilder();
+        for (ThreatFinding finding : findings) {
+            if (!description.isEmpty()) description.append(COMPOSITE_DESCRIPTION_SEPARATOR);
+            description.append(finding.description());
         }
+        return description.toString();
     }
 
-  
     /**
      * Constructs the Alert DTO using the current event data and cached evidence,
      * then dispatches it to the Message Broker.
@@ -151,7 +163,7 @@ public class ThreatAnalysisService {
 
         
         if (finalSnapshotUrl == null || finalSnapshotUrl.isEmpty()) {
-            finalSnapshotUrl = evidenceCache.get(event.detectionId());
+            finalSnapshotUrl = evidenceCache.getEvidence(event.detectionId());
             if (finalSnapshotUrl != null) {
                 log.info("📎 Attached cached evidence to alert: {}", finalSnapshotUrl);
             }
@@ -170,5 +182,6 @@ public class ThreatAnalysisService {
         );
         
         alertProducer.sendAlert(finalAlert);
+        dispatchedCounter.increment();
     }
-}
\ No newline at end of file
+}
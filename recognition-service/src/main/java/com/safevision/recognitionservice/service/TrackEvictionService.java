@@ -0,0 +1,132 @@
+package com.safevision.recognitionservice.service;
+
+import com.safevision.recognitionservice.config.TrackStateProperties;
+import com.safevision.recognitionservice.pipeline.TrackPartitionedExecutor;
+import com.safevision.recognitionservice.state.IdleTrackWheel;
+import com.safevision.recognitionservice.state.SymbolTable;
+import com.safevision.recognitionservice.state.TrackStateStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service responsible for releasing the in-memory state of subjects that left the scene.
+ * <p>
+ * Without it, every {@link TrackStateStore} would only shrink when an alert fires, and
+ * a subject that simply walks out of frame would leak its entries forever. Activity is
+ * tracked in an {@link IdleTrackWheel}; a periodic sweep hands idle candidates back to
+ * their track worker, which confirms and evicts them from every store, then releases the
+ * handle of the track in the track {@link SymbolTable} for a new track to reuse.
+ * </p>
+ * <p>
+ * Metrics: {@code recognition.tracks.live} (gauge) and {@code recognition.tracks.evicted}
+ * (counter, use {@code rate()} for evictions per second).
+ * </p>
+ */
+@Slf4j
+@Service
+public class TrackEvictionService {
+
+    private final IdleTrackWheel wheel;
+    private final List<TrackStateStore> stores;
+    private final SymbolTable trackSymbols;
+    private final TrackPartitionedExecutor trackExecutor;
+    private final ScheduledExecutorService scheduler;
+    private final long sweepIntervalMillis;
+    private final Counter evictedCounter;
+
+    public TrackEvictionService(TrackStateProperties stateProperties,
+                                List<TrackStateStore> stores,
+                                SymbolTable trackSymbols,
+                                TrackPartitionedExecutor trackExecutor,
+                                ScheduledExecutorService trackMaintenanceScheduler,
+                                MeterRegistry meterRegistry) {
+        this.wheel = new IdleTrackWheel(stateProperties.idleTimeout(), stateProperties.sweepInterval(), System.currentTimeMillis());
+        this.stores = stores;
+        this.trackSymbols = trackSymbols;
+        this.trackExecutor = trackExecutor;
+        this.scheduler = trackMaintenanceScheduler;
+        this.sweepIntervalMillis = stateProperties.sweepInterval().toMillis();
+
+        Gauge.builder("recognition.tracks.live", wheel, IdleTrackWheel::size)
+            .description("Tracks that received a frame within the idle timeout")
+            .register(meterRegistry);
+        this.evictedCounter = Counter.builder("recognition.tracks.evicted")
+            .description("Tracks whose state was released after going idle")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        stores.forEach(store -> store.forEachTrack(this::touch));
+        if (wheel.size() > 0) {
+            log.info("Watching {} tracks recovered from the previous run", wheel.size());
+        }
+        log.info("Idle track eviction enabled for {} stores, sweeping every {} ms", stores.size(), sweepIntervalMillis);
+        scheduler.scheduleAtFixedRate(this::sweep, sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Marks a track as active. Called by the workflow for every processed frame.
+     *
+     * @param detectionId The ID of the track that just produced a frame.
+     */
+    public void touch(String detectionId) {
+        wheel.touch(detectionId, System.currentTimeMillis());
+    }
+
+    /**
+     * Number of tracks currently considered live.
+     */
+    public int liveTracks() {
+        return wheel.size();
+    }
+
+    /**
+     * Advances the timing wheel and schedules the eviction of idle candidates
+     * on the worker that owns them. Never blocks: a candidate whose worker is full goes back
+     * on the wheel for the next sweep. Public so that the scheduler wiring, the replay harness
+     * and the tests outside this package can drive it.
+     */
+    public void sweep() {
+        try {
+            wheel.advance(System.currentTimeMillis(), this::scheduleEviction);
+        } catch (Exception e) {
+            // An exception escaping a fixed-rate task would silently cancel every future sweep.
+            log.error("❌ Idle track sweep failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void scheduleEviction(String detectionId) {
+        try {
+            if (!trackExecutor.tryExecute(detectionId, () -> evictIfIdle(detectionId))) {
+                wheel.retry(detectionId);
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Could not schedule eviction for ID {}: {}", detectionId, e.getMessage());
+        }
+    }
+
+    /**
+     * Runs on the owning track worker, so no frame of this track can interleave with it.
+     */
+    private void evictIfIdle(String detectionId) {
+        if (!wheel.removeIfIdle(detectionId, System.currentTimeMillis())) return;
+
+        int track = trackSymbols.find(detectionId);
+        for (TrackStateStore store : stores) {
+            store.evict(track, detectionId);
+        }
+        // Only once no store holds anything under the handle.
+        if (track != SymbolTable.NO_HANDLE) trackSymbols.release(track);
+        evictedCounter.increment();
+        log.debug("🧹 Evicted idle track state for ID: {}", detectionId);
+    }
+}
@@ -0,0 +1,199 @@
+package com.safevision.recognitionservice.service;
+
+import com.safevision.recognitionservice.codec.RawTrackingBinaryCodec;
+import com.safevision.recognitionservice.config.TrackRoutingProperties;
+import com.safevision.recognitionservice.config.TrackRoutingProperties.PartitionKey;
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.pipeline.ConsistentHashRing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Routes raw tracking events to the recognition-service instance that owns their track.
+ * <p>
+ * All instances still compete on the shared raw tracking queue, which the Vision Agent publishes to.
+ * Each frame is hashed on its {@link PartitionKey} onto a {@link ConsistentHashRing} of the live
+ * instances: frames this instance owns are processed here, the others are forwarded, in the compact
+ * binary format, to the owner's own queue ({@code <raw tracking queue>.<instance ID>}). Per-track state
+ * (history, stare streaks, reorder buffers) therefore only ever lives on one instance.
+ * </p>
+ * <p>
+ * Membership comes from Eureka and is refreshed on every registry fetch. When an instance joins or
+ * leaves, only the tracks of the arcs it gains or loses move; their state is not migrated, so those
+ * tracks start over on their new owner and their old state is released by idle eviction. Frames
+ * consumed from the instance queue are never forwarded again, so instances that briefly disagree on
+ * the membership cannot bounce a frame between them.
+ * </p>
+ * <p>
+ * The crowd density is per camera, so it is only whole when the partition key is the camera: by
+ * detection ID, each instance sees its share of a camera's subjects and a warning is logged at startup.
+ * </p>
+ * <p>
+ * Metrics: {@code recognition.routing.forwarded} and {@code recognition.routing.forward.failed}
+ * (counters), {@code recognition.routing.rebalances} (counter) and {@code recognition.routing.instances} (gauge).
+ * </p>
+ */
+@Slf4j
+@Service
+public class TrackRoutingService {
+
+    private final TrackRoutingProperties properties;
+    private final DiscoveryClient discoveryClient;
+    private final RabbitTemplate rabbitTemplate;
+    private final String rawTrackingQueueName;
+    private final String serviceId;
+    private final String instanceId;
+    private final String instanceQueueName;
+
+    private final Counter forwardedCounter;
+    private final Counter forwardFailedCounter;
+    private final Counter rebalancesCounter;
+
+    private volatile ConsistentHashRing ring;
+
+    public TrackRoutingService(TrackRoutingProperties properties,
+                               ObjectProvider<DiscoveryClient> discoveryClient,
+                               ObjectProvider<Registration> registration,
+                               RabbitTemplate rabbitTemplate,
+                               String rawTrackingQueueName,
+                               MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.discoveryClient = discoveryClient.getIfAvailable();
+        this.rabbitTemplate = rabbitTemplate;
+        this.rawTrackingQueueName = rawTrackingQueueName;
+
+        Registration self = registration.getIfAvailable();
+        if (properties.enabled() && (self == null || this.discoveryClient == null)) {
+            throw new IllegalStateException("Track routing requires this instance to be registered in Eureka");
+        }
+        this.serviceId = self != null ? self.getServiceId() : null;
+        this.instanceId = self != null ? self.getInstanceId() : null;
+        this.instanceQueueName = instanceId != null ? queueNameOf(instanceId) : null;
+        // Members are the queue names of the instances: the owner of a frame is where it goes.
+        this.ring = instanceId != null ? ConsistentHashRing.of(List.of(instanceQueueName), properties.virtualNodes()) : null;
+
+        this.forwardedCounter = Counter.builder("recognition.routing.forwarded")
+            .description("Frames forwarded to the instance that owns their track")
+            .register(meterRegistry);
+        this.forwardFailedCounter = Counter.builder("recognition.routing.forward.failed")
+            .description("Frames that could not be forwarded and were processed locally instead")
+            .register(meterRegistry);
+        this.rebalancesCounter = Counter.builder("recognition.routing.rebalances")
+            .description("Changes of the set of instances sharing the tracks")
+            .register(meterRegistry);
+        Gauge.builder("recognition.routing.instances", this, service -> service.isEnabled() ? service.ring.members().size() : 1)
+            .description("Instances currently sharing the tracks")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!isEnabled()) return;
+
+        log.info("Track routing enabled: instance {} partitioned by {}, consuming forwarded frames from {}",
+            instanceId, properties.partitionKey(), instanceQueueName);
+        if (properties.partitionKey() == PartitionKey.DETECTION_ID) {
+            log.warn("Tracks of a camera are spread over the instances: crowd density and crowd alerts only count "
+                + "the subjects routed to this instance. Partition by CAMERA_ID to count whole cameras.");
+        }
+        refresh();
+    }
+
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Queue this instance receives forwarded frames on.
+     */
+    public String instanceQueueName() {
+        return instanceQueueName;
+    }
+
+    /**
+     * Forwards the frame to its owning instance, unless this instance owns it.
+     * Called by the listeners for every frame consumed from the shared queue, before admission.
+     *
+     * @param event The incoming frame.
+     * @return {@code true} if the frame was forwarded and must not be processed here.
+     */
+    public boolean forwardIfRemote(RawTrackingEvent event) {
+        if (!isEnabled()) return false;
+
+        String ownerQueue = ring.ownerOf(partitionKeyOf(event));
+        if (ownerQueue.equals(instanceQueueName)) return false;
+
+        try {
+            rabbitTemplate.send("", ownerQueue, toMessage(event));
+            forwardedCounter.increment();
+            return true;
+        } catch (Exception e) {
+            // Processing a foreign frame here only costs that track some continuity; losing it costs more.
+            forwardFailedCounter.increment();
+            log.warn("⚠️ Could not forward frame of ID {} to {}: {}", event.detectionId(), ownerQueue, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Rebuilds the ring when Eureka reports a different set of instances.
+     */
+    @EventListener(HeartbeatEvent.class)
+    public void refresh() {
+        if (!isEnabled()) return;
+
+        try {
+            TreeSet<String> members = new TreeSet<>();
+            members.add(instanceQueueName); // This instance may not be listed yet right after registering.
+            discoveryClient.getInstances(serviceId).stream()
+                .map(ServiceInstance::getInstanceId)
+                .filter(Objects::nonNull)
+                .map(this::queueNameOf)
+                .forEach(members::add);
+
+            if (members.equals(new TreeSet<>(ring.members()))) return;
+
+            ring = ConsistentHashRing.of(members, properties.virtualNodes());
+            rebalancesCounter.increment();
+            log.info("🔀 Tracks rebalanced across {} instances: {}", members.size(), members);
+        } catch (Exception e) {
+            log.error("❌ Could not refresh recognition-service instances: {}", e.getMessage(), e);
+        }
+    }
+
+    private String partitionKeyOf(RawTrackingEvent event) {
+        if (properties.partitionKey() == PartitionKey.CAMERA_ID && event.cameraId() != null) {
+            return event.cameraId();
+        }
+        return event.detectionId();
+    }
+
+    private String queueNameOf(String instance) {
+        return rawTrackingQueueName + "." + instance.replaceAll("[^A-Za-z0-9._-]", "-");
+    }
+
+    private static Message toMessage(RawTrackingEvent event) {
+        byte[] body = RawTrackingBinaryCodec.encode(event);
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(RawTrackingBinaryCodec.CONTENT_TYPE);
+        messageProperties.setContentLength(body.length);
+        return new Message(body, messageProperties);
+    }
+}
@@ -0,0 +1,117 @@
+package com.safevision.recognitionservice.service;
+
+import com.safevision.recognitionservice.codec.RawTrackingCaptureFile;
+import com.safevision.recognitionservice.config.TrackingCaptureProperties;
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.pipeline.BackgroundFrameWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Records the raw tracking stream, as consumed by this instance, into a {@link RawTrackingCaptureFile}.
+ * <p>
+ * Meant to bring production traffic back to a test bench: the file is replayed by the replay tool
+ * of {@code recognition-benchmarks}, at its original pace or faster. The listeners hand every frame
+ * to {@link #record(RawTrackingEvent)}, which only queues it; a {@link BackgroundFrameWriter} encodes and writes.
+ * Capturing never slows consumption down: when the writer falls behind, frames are left out of the
+ * capture and counted.
+ * </p>
+ * <p>
+ * Metrics: {@code recognition.capture.recorded} and {@code recognition.capture.dropped} (counters).
+ * </p>
+ */
+@Slf4j
+@Service
+public class TrackingCaptureService {
+
+    private final TrackingCaptureProperties properties;
+    private final BackgroundFrameWriter writer;
+
+    public TrackingCaptureService(TrackingCaptureProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.writer = new BackgroundFrameWriter("tracking-capture", properties.enabled() ? properties.queueCapacity() : 1,
+            Counter.builder("recognition.capture.recorded")
+                .description("Frames written to the capture file")
+                .register(meterRegistry),
+            Counter.builder("recognition.capture.dropped")
+                .description("Frames left out of the capture because the writer fell behind")
+                .register(meterRegistry));
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!properties.enabled()) return;
+
+        Path path = Path.of(properties.path());
+        writer.start(new CaptureSink(new RawTrackingCaptureFile.Writer(path)));
+        log.warn("⏺️ Capturing the raw tracking stream to {} (up to {} frames)", path.toAbsolutePath(), properties.maxEvents());
+    }
+
+    /**
+     * Writes the frames still queued and closes the capture file.
+     */
+    @PreDestroy
+    public void stop() {
+        writer.stop();
+    }
+
+    /**
+     * Queues a frame for the capture. Never blocks; a no-op unless capture is enabled.
+     *
+     * @param event A frame just consumed from the raw tracking queue.
+     */
+    public void record(RawTrackingEvent event) {
+        writer.offer(event);
+    }
+
+    public boolean isCapturing() {
+        return writer.isRunning();
+    }
+
+    /**
+     * Writes to the capture file, flushed whenever the queue runs dry, and takes no more frames
+     * once {@code maxEvents} were written.
+     */
+    private final class CaptureSink implements BackgroundFrameWriter.Sink {
+
+        private final RawTrackingCaptureFile.Writer file;
+        private long written;
+
+        CaptureSink(RawTrackingCaptureFile.Writer file) {
+            this.file = file;
+        }
+
+        @Override
+        public void write(long receivedAtMillis, RawTrackingEvent event) throws IOException {
+            file.write(receivedAtMillis, event);
+            if (++written == properties.maxEvents()) {
+                log.warn("⏹️ Capture reached {} frames and stopped", written);
+            }
+        }
+
+        @Override
+        public void endOfBatch(boolean drained) throws IOException {
+            if (drained) {
+                file.flush();
+            }
+        }
+
+        @Override
+        public boolean isFull() {
+            return written >= properties.maxEvents();
+        }
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+            log.info("⏹️ Capture closed: {} frames in {}", written, properties.path());
+        }
+    }
+}
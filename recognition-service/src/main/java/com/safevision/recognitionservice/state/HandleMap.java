@@ -0,0 +1,118 @@
+package com.safevision.recognitionservice.state;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Values indexed by {@link SymbolTable} handle: an array lookup instead of a hash map keyed by the ID.
+ * <p>
+ * Values live in pages of {@value #PAGE_SIZE} entries, allocated under a lock on first use and never
+ * moved, so growing the map never loses a write made concurrently to another entry. Entries are written
+ * with release semantics and read with acquire semantics: a periodic sweep on another thread may read
+ * an entry the owning worker just replaced and see either value, but always a fully built one.
+ * </p>
+ * <p>
+ * Thread-safety follows the track pipeline: an entry is only written by the worker that owns its handle.
+ * </p>
+ */
+public final class HandleMap<V> {
+
+    static final int PAGE_SHIFT = 10;
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private static final VarHandle ELEMENT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile Object[][] pages = new Object[0][];
+
+    /**
+     * @return The value of the handle, or {@code null} if it has none.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int handle) {
+        if (handle < 0) return null;
+        Object[][] current = pages;
+        int page = handle >>> PAGE_SHIFT;
+        if (page >= current.length || current[page] == null) return null;
+        return (V) ELEMENT.getAcquire(current[page], handle & PAGE_MASK);
+    }
+
+    /**
+     * Sets the value of a handle.
+     */
+    public void put(int handle, V value) {
+        if (value == null) throw new IllegalArgumentException("Value cannot be null");
+        Object[] page = page(handle);
+        Object previous = ELEMENT.getAndSetRelease(page, handle & PAGE_MASK, value);
+        if (previous == null) size.incrementAndGet();
+    }
+
+    /**
+     * Clears the value of a handle.
+     *
+     * @return The value it had, or {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int handle) {
+        if (handle < 0) return null;
+        Object[][] current = pages;
+        int page = handle >>> PAGE_SHIFT;
+        if (page >= current.length || current[page] == null) return null;
+
+        Object previous = ELEMENT.getAndSetRelease(current[page], handle & PAGE_MASK, null);
+        if (previous != null) size.decrementAndGet();
+        return (V) previous;
+    }
+
+    /**
+     * Calls the action with every value and its handle. Values set or cleared meanwhile may or may not be seen.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjIntConsumer<V> action) {
+        Object[][] current = pages;
+        for (int page = 0; page < current.length; page++) {
+            Object[] values = current[page];
+            if (values == null) continue;
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                Object value = ELEMENT.getAcquire(values, i);
+                if (value != null) action.accept((V) value, (page << PAGE_SHIFT) | i);
+            }
+        }
+    }
+
+    /**
+     * Number of handles with a value.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    private Object[] page(int handle) {
+        if (handle < 0) throw new IllegalArgumentException("Invalid handle: " + handle);
+        int page = handle >>> PAGE_SHIFT;
+        Object[][] current = pages;
+        if (page < current.length && current[page] != null) return current[page];
+
+        lock.lock();
+        try {
+            current = pages;
+            if (page >= current.length) {
+                current = Arrays.copyOf(current, Math.max(current.length * 2, page + 1));
+            }
+            if (current[page] == null) {
+                current[page] = new Object[PAGE_SIZE];
+            }
+            // Publishes the new page, and the directory if it grew.
+            pages = current;
+            return current[page];
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.safevision.recognitionservice.state;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog sketch: estimates how many distinct items were added, in {@code 2^precision} bytes.
+ * <p>
+ * Each item is hashed to 64 bits; the top {@code precision} bits pick a register, which keeps the
+ * highest rank (position of the first set bit) seen among the remaining bits. The standard error of
+ * the estimate is about {@code 1.04 / sqrt(2^precision)}, 3.3% at precision 10. Two sketches of the
+ * same precision merge by taking the maximum of each register, which gives the sketch of the union.
+ * </p>
+ * <p>
+ * Besides the registers, the sketch keeps how many registers hold each rank, so an estimate costs a
+ * pass over the possible ranks rather than over every register. Not thread-safe.
+ * </p>
+ */
+public final class HyperLogLog {
+
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 16;
+
+    private final int precision;
+    private final byte[] registers;
+    /** Number of registers holding each rank; index 0 counts the empty ones. */
+    private final int[] rankCounts;
+    private final double alphaMm;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("HyperLogLog precision must be between " + MIN_PRECISION + " and " + MAX_PRECISION);
+        }
+        int m = 1 << precision;
+        this.precision = precision;
+        this.registers = new byte[m];
+        this.rankCounts = new int[Long.SIZE - precision + 2];
+        this.rankCounts[0] = m;
+        this.alphaMm = alpha(m) * m * m;
+    }
+
+    /**
+     * 64-bit hash of a string, well mixed in every bit as the registers require.
+     */
+    public static long hash(CharSequence value) {
+        // FNV-1a over the characters, then the MurmurHash3 finalizer for avalanche.
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Adds an item by its {@link #hash(CharSequence) hash}.
+     *
+     * @return Whether a register changed, i.e. whether the estimate may have moved.
+     */
+    public boolean add(long hash) {
+        int index = (int) (hash >>> (Long.SIZE - precision));
+        // The sentinel bit caps the rank when every remaining bit is zero.
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        return raise(index, rank);
+    }
+
+    /**
+     * Folds another sketch of the same precision into this one.
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge HyperLogLog sketches of precision " + other.precision + " and " + precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            raise(i, other.registers[i]);
+        }
+    }
+
+    /**
+     * Estimated number of distinct items added.
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        for (int rank = 0; rank < rankCounts.length; rank++) {
+            if (rankCounts[rank] != 0) sum += Math.scalb((double) rankCounts[rank], -rank);
+        }
+        double estimate = alphaMm / sum;
+        // Small range: with empty registers left, linear counting is more accurate.
+        if (estimate <= 2.5 * m && rankCounts[0] > 0) {
+            estimate = m * Math.log((double) m / rankCounts[0]);
+        }
+        return Math.round(estimate);
+    }
+
+    public boolean isEmpty() {
+        return rankCounts[0] == registers.length;
+    }
+
+    public void clear() {
+        Arrays.fill(registers, (byte) 0);
+        Arrays.fill(rankCounts, 0);
+        rankCounts[0] = registers.length;
+    }
+
+    public int precision() {
+        return precision;
+    }
+
+    private boolean raise(int index, int rank) {
+        int current = registers[index];
+        if (rank <= current) return false;
+        rankCounts[current]--;
+        rankCounts[rank]++;
+        registers[index] = (byte) rank;
+        return true;
+    }
+
+    private static double alpha(int m) {
+        return switch (m) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / m);
+        };
+    }
+}
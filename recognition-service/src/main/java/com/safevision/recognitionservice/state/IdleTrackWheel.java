@@ -0,0 +1,156 @@
+package com.safevision.recognitionservice.state;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel that detects tracks which stopped receiving frames.
+ * <p>
+ * A track is scheduled once, when it is first seen. Later frames only bump its
+ * {@code lastSeen} timestamp, so {@link #touch(String, long)} costs a single map lookup.
+ * When the wheel reaches a track's bucket it re-checks the real deadline: tracks that
+ * were touched in the meantime are lazily rescheduled, the others are reported as idle.
+ * </p>
+ * <p>
+ * Idle candidates are not removed by the sweeping thread. The caller confirms the
+ * eviction with {@link #removeIfIdle(String, long)} from the thread that owns the
+ * track, so a frame arriving between the sweep and the eviction is never lost.
+ * </p>
+ */
+public final class IdleTrackWheel {
+
+    private final long idleTimeoutMillis;
+    private final long tickMillis;
+    private final Queue<String>[] buckets;
+    private final int mask;
+    private final ConcurrentHashMap<String, LastSeen> tracks = new ConcurrentHashMap<>();
+
+    /** Reused by the sweeping thread to drain a bucket before re-checking its entries. */
+    private final List<String> drained = new ArrayList<>();
+
+    /** Last tick already swept. Written only by the sweeping thread. */
+    private volatile long sweptTick;
+
+    @SuppressWarnings("unchecked")
+    public IdleTrackWheel(Duration idleTimeout, Duration tick, long nowMillis) {
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) throw new IllegalArgumentException("Idle timeout must be positive");
+        if (tick.isNegative() || tick.isZero()) throw new IllegalArgumentException("Tick must be positive");
+
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+        this.tickMillis = tick.toMillis();
+
+        // One full rotation covers the idle timeout, so most tracks are checked only once.
+        long ticksPerTimeout = (idleTimeoutMillis + tickMillis - 1) / tickMillis;
+        int wheelSize = Integer.highestOneBit((int) Math.min(ticksPerTimeout, 1 << 16) + 1) << 1;
+
+        this.buckets = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.mask = wheelSize - 1;
+        this.sweptTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Records activity for a track, scheduling it on first sight.
+     */
+    public void touch(String detectionId, long nowMillis) {
+        LastSeen lastSeen = tracks.get(detectionId);
+        if (lastSeen == null) {
+            lastSeen = new LastSeen(nowMillis);
+            LastSeen previous = tracks.putIfAbsent(detectionId, lastSeen);
+            if (previous == null) {
+                schedule(detectionId, nowMillis + idleTimeoutMillis);
+                return;
+            }
+            lastSeen = previous;
+        }
+        lastSeen.millis = nowMillis;
+    }
+
+    /**
+     * Advances the wheel up to {@code nowMillis} and reports every track whose idle
+     * deadline has passed. Must be called from a single sweeping thread.
+     *
+     * @param onIdle Receives the detection ID of each idle candidate.
+     */
+    public void advance(long nowMillis, Consumer<String> onIdle) {
+        long targetTick = nowMillis / tickMillis;
+        long firstTick = Math.max(sweptTick + 1, targetTick - mask);
+
+        for (long tick = firstTick; tick <= targetTick; tick++) {
+            Queue<String> bucket = buckets[(int) (tick & mask)];
+            for (String id; (id = bucket.poll()) != null; ) {
+                drained.add(id);
+            }
+            sweptTick = tick;
+
+            for (String id : drained) {
+                LastSeen lastSeen = tracks.get(id);
+                if (lastSeen == null) continue; // already evicted
+
+                long deadline = lastSeen.millis + idleTimeoutMillis;
+                if (deadline <= nowMillis) {
+                    onIdle.accept(id);
+                } else {
+                    schedule(id, deadline);
+                }
+            }
+            drained.clear();
+        }
+    }
+
+    /**
+     * Confirms an idle candidate. Must be called from the thread that owns the track.
+     *
+     * @return {@code true} if the track was still idle and has been forgotten;
+     *         {@code false} if it received frames meanwhile (it is then rescheduled).
+     */
+    public boolean removeIfIdle(String detectionId, long nowMillis) {
+        LastSeen lastSeen = tracks.get(detectionId);
+        if (lastSeen == null) return false;
+
+        long deadline = lastSeen.millis + idleTimeoutMillis;
+        if (deadline <= nowMillis) {
+            tracks.remove(detectionId, lastSeen);
+            return true;
+        }
+
+        schedule(detectionId, deadline);
+        return false;
+    }
+
+    /**
+     * Reports an idle candidate again on the next tick, when its eviction could not be handed to
+     * the thread that owns it. Must be called from the sweeping thread.
+     */
+    public void retry(String detectionId) {
+        schedule(detectionId, 0);
+    }
+
+    /**
+     * Number of tracks currently considered live.
+     */
+    public int size() {
+        return tracks.size();
+    }
+
+    private void schedule(String detectionId, long deadlineMillis) {
+        // Never schedule into a bucket the sweeper has already passed.
+        long tick = Math.max(deadlineMillis / tickMillis, sweptTick + 1);
+        buckets[(int) (tick & mask)].add(detectionId);
+    }
+
+    private static final class LastSeen {
+        volatile long millis;
+
+        LastSeen(long millis) {
+            this.millis = millis;
+        }
+    }
+}
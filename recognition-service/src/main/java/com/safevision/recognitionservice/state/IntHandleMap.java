@@ -0,0 +1,69 @@
+package com.safevision.recognitionservice.state;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Non-negative {@code int} values indexed by {@link SymbolTable} handle, without boxing.
+ * <p>
+ * Same paged layout as {@link HandleMap}, but entries are plain reads and writes: an entry must only be
+ * read and written by the worker that owns its handle. Releasing the handle to another worker goes
+ * through the lock of the {@link SymbolTable}, which orders the clearing before the next owner's reads.
+ * </p>
+ */
+public final class IntHandleMap {
+
+    /** Returned by {@link #get(int)} for a handle without a value. */
+    public static final int ABSENT = -1;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile int[][] pages = new int[0][];
+
+    /**
+     * @return The value of the handle, or {@link #ABSENT}.
+     */
+    public int get(int handle) {
+        if (handle < 0) return ABSENT;
+        int[][] current = pages;
+        int page = handle >>> HandleMap.PAGE_SHIFT;
+        if (page >= current.length || current[page] == null) return ABSENT;
+        // Stored plus one, so that the zeroes of a new page read as absent.
+        return current[page][handle & HandleMap.PAGE_MASK] - 1;
+    }
+
+    public void put(int handle, int value) {
+        if (value < 0) throw new IllegalArgumentException("Value must not be negative: " + value);
+        page(handle)[handle & HandleMap.PAGE_MASK] = value + 1;
+    }
+
+    public void remove(int handle) {
+        if (handle < 0) return;
+        int[][] current = pages;
+        int page = handle >>> HandleMap.PAGE_SHIFT;
+        if (page < current.length && current[page] != null) {
+            current[page][handle & HandleMap.PAGE_MASK] = 0;
+        }
+    }
+
+    private int[] page(int handle) {
+        if (handle < 0) throw new IllegalArgumentException("Invalid handle: " + handle);
+        int page = handle >>> HandleMap.PAGE_SHIFT;
+        int[][] current = pages;
+        if (page < current.length && current[page] != null) return current[page];
+
+        lock.lock();
+        try {
+            current = pages;
+            if (page >= current.length) {
+                current = Arrays.copyOf(current, Math.max(current.length * 2, page + 1));
+            }
+            if (current[page] == null) {
+                current[page] = new int[HandleMap.PAGE_SIZE];
+            }
+            pages = current;
+            return current[page];
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,630 @@
+package com.safevision.recognitionservice.state;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Off-heap store for the fixed-size state of every track: its depth history and its stare streak.
+ * <p>
+ * The store is an open-addressing hash table of fixed-size records, laid out in a single
+ * {@link ByteBuffer}. When backed by a file, the buffer is memory-mapped: the state lives in the
+ * page cache, survives a restart or redeploy of the service, and is available again as soon as the
+ * file is mapped, without replaying any frame. The Java heap only holds this object, whatever the
+ * number of tracks.
+ * </p>
+ * <p>
+ * Record layout ({@value #RECORD_SIZE} bytes, native byte order):
+ * <pre>
+ *   0  int    status (empty, used, deleted)
+ *   4  int    String.hashCode() of the detection ID
+ *   8  int    length of the detection ID, in chars
+ *  12  int    history head (slot of the newest sample, -1 if none)
+ *  16  int    history size
+ *  20  int    stare frames (0 if not staring)
+ *  24  long   stare start, event time
+ *  32  long   stare last, event time
+ *  40  long   last update, wall clock (to drop stale tracks on open)
+ *  48  char[] detection ID, up to {@value #MAX_KEY_CHARS} chars
+ * 176  int[]  depths, {@value #HISTORY_CAPACITY} samples
+ * 304  long[] timestamps, {@value #HISTORY_CAPACITY} samples
+ * 560  long   origin of the window sums, event time
+ * 568  double sum of times, depths, times², times × depths and depths² (seconds since the origin)
+ * </pre>
+ * </p>
+ * <p>
+ * The history is bounded by event time: an append drops the samples more than
+ * {@value #HISTORY_SPAN_MILLIS} ms older than the new one, so the window covers the same stretch of
+ * time whatever the frame rate. {@value #HISTORY_CAPACITY} samples cover that span up to about 6 fps;
+ * above that, the oldest samples are overwritten before they age out and the window gets shorter.
+ * </p>
+ * <p>
+ * The window sums back the O(1) statistics of {@link TrackHistoryView}: each append adds the new
+ * sample and subtracts the ones it overwrites or drops, and every time the ring wraps around they are
+ * rebuilt from the samples, which keeps the rounding error of a long-lived track bounded.
+ * </p>
+ * <p>
+ * Thread-safety follows the track pipeline: a record is only read and written by the worker that
+ * owns its detection ID. Lookups are lock-free; inserting and deleting records (rare: once per track)
+ * take a lock, so that concurrent workers never claim the same free slot.
+ * </p>
+ * <p>
+ * The records are keyed by detection ID, which outlives the process. Within the process, the slot of
+ * each track is also remembered by its {@link SymbolTable} handle ({@link #find(int, String)}), so the
+ * several lookups a frame makes are an array read each instead of a probe comparing the ID.
+ * </p>
+ */
+@Slf4j
+public final class MappedTrackStateStore implements TrackStateStore, AutoCloseable {
+
+    /** Most depth samples kept per track. */
+    public static final int HISTORY_CAPACITY = 32;
+
+    /** Depth samples older than this, relative to the newest one, are dropped. */
+    public static final long HISTORY_SPAN_MILLIS = 5_000;
+
+    /** Longest detection ID that can be stored. Longer IDs are simply not tracked. */
+    public static final int MAX_KEY_CHARS = 64;
+
+    private static final int MAGIC = 0x53565453; // "SVTS"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 64;
+
+    private static final int EMPTY = 0;
+    private static final int USED = 1;
+    private static final int DELETED = 2;
+
+    private static final int STATUS = 0;
+    private static final int HASH = 4;
+    private static final int KEY_LENGTH = 8;
+    private static final int HISTORY_HEAD = 12;
+    private static final int HISTORY_SIZE = 16;
+    private static final int STARE_FRAMES = 20;
+    private static final int STARE_START = 24;
+    private static final int STARE_LAST = 32;
+    private static final int LAST_UPDATE = 40;
+    private static final int KEY = 48;
+    private static final int DEPTHS = KEY + MAX_KEY_CHARS * Character.BYTES;
+    private static final int TIMESTAMPS = DEPTHS + HISTORY_CAPACITY * Integer.BYTES;
+    private static final int SUMS_ORIGIN = TIMESTAMPS + HISTORY_CAPACITY * Long.BYTES;
+    private static final int SUM_TIME = SUMS_ORIGIN + Long.BYTES;
+    private static final int SUM_DEPTH = SUM_TIME + Double.BYTES;
+    private static final int SUM_TIME_SQUARED = SUM_DEPTH + Double.BYTES;
+    private static final int SUM_TIME_DEPTH = SUM_TIME_SQUARED + Double.BYTES;
+    private static final int SUM_DEPTH_SQUARED = SUM_TIME_DEPTH + Double.BYTES;
+    static final int RECORD_SIZE = SUM_DEPTH_SQUARED + Double.BYTES;
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final int mask;
+    private final int maxTracks;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final AtomicInteger size = new AtomicInteger();
+    private final ThreadLocal<HistoryView> views = ThreadLocal.withInitial(HistoryView::new);
+    private final IntHandleMap slotsByTrack = new IntHandleMap();
+
+    private MappedTrackStateStore(ByteBuffer buffer, int capacity) {
+        this.buffer = buffer.order(ByteOrder.nativeOrder());
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        // Open addressing degrades quickly past this load factor.
+        this.maxTracks = capacity / 4 * 3;
+    }
+
+    /**
+     * Creates a store in anonymous off-heap memory. Nothing survives the process.
+     *
+     * @param capacity Number of slots (rounded up to a power of two); up to 75% of them hold tracks.
+     */
+    public static MappedTrackStateStore inMemory(int capacity) {
+        int slots = slotsFor(capacity);
+        MappedTrackStateStore store = new MappedTrackStateStore(ByteBuffer.allocateDirect(fileSize(slots)), slots);
+        store.writeHeader(); // allocateDirect zeroes the memory: every slot starts empty
+        return store;
+    }
+
+    /**
+     * Maps the store file, recovering the tracks it holds, or creates it.
+     * A file with a different layout or capacity is discarded.
+     *
+     * @param path       The store file. Parent directories are created if needed.
+     * @param capacity   Number of slots (rounded up to a power of two); up to 75% of them hold tracks.
+     * @param staleAfter Recovered tracks not updated for this long (wall clock) are dropped. Zero keeps all.
+     */
+    public static MappedTrackStateStore open(Path path, int capacity, Duration staleAfter) throws IOException {
+        int slots = slotsFor(capacity);
+        long fileSize = fileSize(slots);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            boolean fresh = channel.size() != fileSize;
+            if (fresh && channel.size() > 0) {
+                log.warn("⚠️ Track state file {} does not match the configured capacity; starting empty", path);
+                channel.truncate(0);
+            }
+
+            // The mapping stays valid after the channel is closed.
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            MappedTrackStateStore store = new MappedTrackStateStore(mapped, slots);
+            if (fresh || !store.headerMatches()) {
+                store.reset();
+            } else {
+                store.recover(System.currentTimeMillis(), staleAfter.toMillis());
+            }
+            return store;
+        }
+    }
+
+    /**
+     * Resolves the record of a track.
+     *
+     * @return The record index, or -1 if the track has no state.
+     */
+    public int find(String detectionId) {
+        int hash = detectionId.hashCode();
+        for (int probe = 0, slot = spread(hash) & mask; probe < capacity; probe++, slot = (slot + 1) & mask) {
+            int base = base(slot);
+            int status = (int) INT.getAcquire(buffer, base + STATUS);
+            if (status == EMPTY) return -1;
+            if (status == USED && buffer.getInt(base + HASH) == hash && keyEquals(base, detectionId)) return slot;
+        }
+        return -1;
+    }
+
+    /**
+     * Resolves the record of a track, creating an empty one if needed.
+     *
+     * @return The record index, or -1 if the store is full or the ID is too long to be stored.
+     */
+    public int findOrCreate(String detectionId) {
+        int slot = find(detectionId);
+        if (slot >= 0) return slot;
+        if (detectionId.length() > MAX_KEY_CHARS) return -1;
+
+        writeLock.lock();
+        try {
+            if (size.get() >= maxTracks) return -1;
+
+            // Only the owning worker inserts this ID, so it cannot have appeared since find().
+            int hash = detectionId.hashCode();
+            for (int probe = 0, candidate = spread(hash) & mask; probe < capacity; probe++, candidate = (candidate + 1) & mask) {
+                int base = base(candidate);
+                if (buffer.getInt(base + STATUS) == USED) continue;
+
+                buffer.putInt(base + HASH, hash);
+                buffer.putInt(base + KEY_LENGTH, detectionId.length());
+                for (int i = 0; i < detectionId.length(); i++) {
+                    buffer.putChar(base + KEY + i * Character.BYTES, detectionId.charAt(i));
+                }
+                buffer.putInt(base + HISTORY_HEAD, -1);
+                buffer.putInt(base + HISTORY_SIZE, 0);
+                buffer.putInt(base + STARE_FRAMES, 0);
+                buffer.putLong(base + LAST_UPDATE, System.currentTimeMillis());
+                INT.setRelease(buffer, base + STATUS, USED);
+                size.incrementAndGet();
+                return candidate;
+            }
+            return -1;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Resolves the record of a track through its handle, falling back to {@link #find(String)} the
+     * first time and remembering the slot.
+     *
+     * @param track The handle of the track, or {@link SymbolTable#NO_HANDLE} to only search by ID.
+     * @return The record index, or -1 if the track has no state.
+     */
+    public int find(int track, String detectionId) {
+        int slot = slotsByTrack.get(track);
+        if (slot >= 0 && isRecordOf(slot, detectionId)) return slot;
+
+        slot = find(detectionId);
+        if (slot >= 0 && track >= 0) slotsByTrack.put(track, slot);
+        return slot;
+    }
+
+    /**
+     * Resolves the record of a track through its handle, creating an empty one if needed.
+     *
+     * @return The record index, or -1 if the store is full or the ID is too long to be stored.
+     */
+    public int findOrCreate(int track, String detectionId) {
+        int slot = slotsByTrack.get(track);
+        if (slot >= 0 && isRecordOf(slot, detectionId)) return slot;
+
+        slot = findOrCreate(detectionId);
+        if (slot >= 0 && track >= 0) slotsByTrack.put(track, slot);
+        return slot;
+    }
+
+    /**
+     * Drops the record of a track.
+     */
+    @Override
+    public void evict(int track, String detectionId) {
+        int slot = find(track, detectionId);
+        slotsByTrack.remove(track);
+        if (slot < 0) return;
+
+        writeLock.lock();
+        try {
+            delete(slot);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // --- Depth history -------------------------------------------------------------------------
+
+    /**
+     * Appends a depth sample, overwriting the oldest one when the history is full and dropping
+     * the ones more than {@value #HISTORY_SPAN_MILLIS} ms older than it.
+     */
+    public void appendDepth(int slot, int depth, long timestamp) {
+        int base = base(slot);
+        int head = (buffer.getInt(base + HISTORY_HEAD) + 1) % HISTORY_CAPACITY;
+        int depthOffset = base + DEPTHS + head * Integer.BYTES;
+        int timestampOffset = base + TIMESTAMPS + head * Long.BYTES;
+        int historySize = buffer.getInt(base + HISTORY_SIZE);
+        if (historySize == HISTORY_CAPACITY) {
+            accumulate(base, buffer.getInt(depthOffset), buffer.getLong(timestampOffset), -1);
+            historySize--;
+        }
+
+        buffer.putInt(depthOffset, depth);
+        buffer.putLong(timestampOffset, timestamp);
+        buffer.putInt(base + HISTORY_HEAD, head);
+        historySize = dropSamplesBefore(base, head, historySize, timestamp - HISTORY_SPAN_MILLIS);
+        buffer.putInt(base + HISTORY_SIZE, historySize + 1);
+        buffer.putLong(base + LAST_UPDATE, System.currentTimeMillis());
+
+        if (head == 0) {
+            rebuildSums(base);
+        } else {
+            accumulate(base, depth, timestamp, 1);
+        }
+    }
+
+    public void clearHistory(int slot) {
+        int base = base(slot);
+        buffer.putInt(base + HISTORY_HEAD, -1);
+        buffer.putInt(base + HISTORY_SIZE, 0);
+    }
+
+    /**
+     * Zero-copy view over the history of a record.
+     * <p>
+     * The view object is reused by the calling thread: it is only valid until that thread asks for
+     * another view, which is always the case for a rule reading the track it is evaluating.
+     * </p>
+     */
+    public TrackHistoryView history(int slot) {
+        HistoryView view = views.get();
+        view.base = base(slot);
+        return view;
+    }
+
+    // --- Stare streak --------------------------------------------------------------------------
+
+    public int stareFrames(int slot) {
+        return buffer.getInt(base(slot) + STARE_FRAMES);
+    }
+
+    public long stareStartMillis(int slot) {
+        return buffer.getLong(base(slot) + STARE_START);
+    }
+
+    public long stareLastMillis(int slot) {
+        return buffer.getLong(base(slot) + STARE_LAST);
+    }
+
+    public void setStare(int slot, long startMillis, long lastMillis, int frames) {
+        int base = base(slot);
+        buffer.putLong(base + STARE_START, startMillis);
+        buffer.putLong(base + STARE_LAST, lastMillis);
+        buffer.putInt(base + STARE_FRAMES, frames);
+        buffer.putLong(base + LAST_UPDATE, System.currentTimeMillis());
+    }
+
+    public void clearStare(int slot) {
+        buffer.putInt(base(slot) + STARE_FRAMES, 0);
+    }
+
+    // --- Lifecycle -----------------------------------------------------------------------------
+
+    /**
+     * Number of tracks with a record.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Maximum number of tracks the store accepts.
+     */
+    public int capacity() {
+        return maxTracks;
+    }
+
+    /**
+     * Calls the action with the detection ID of every stored track. Allocates one String per track:
+     * meant for startup, not for the hot path.
+     */
+    @Override
+    public void forEachTrack(Consumer<String> action) {
+        char[] chars = new char[MAX_KEY_CHARS];
+        for (int slot = 0; slot < capacity; slot++) {
+            int base = base(slot);
+            if ((int) INT.getAcquire(buffer, base + STATUS) != USED) continue;
+
+            int length = buffer.getInt(base + KEY_LENGTH);
+            for (int i = 0; i < length; i++) {
+                chars[i] = buffer.getChar(base + KEY + i * Character.BYTES);
+            }
+            action.accept(new String(chars, 0, length));
+        }
+    }
+
+    /**
+     * Flushes the mapped pages to the file. The kernel writes them back on its own anyway, so this
+     * only matters if the host itself crashes.
+     */
+    public void force() {
+        if (buffer instanceof MappedByteBuffer mapped) {
+            mapped.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        force();
+    }
+
+    // --- Internals -----------------------------------------------------------------------------
+
+    private int base(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    private void accumulate(int base, int depth, long timestamp, int sign) {
+        double t = WindowStatistics.seconds(timestamp, buffer.getLong(base + SUMS_ORIGIN));
+        addTo(base + SUM_TIME, sign * t);
+        addTo(base + SUM_DEPTH, sign * depth);
+        addTo(base + SUM_TIME_SQUARED, sign * t * t);
+        addTo(base + SUM_TIME_DEPTH, sign * t * depth);
+        addTo(base + SUM_DEPTH_SQUARED, sign * (double) depth * depth);
+    }
+
+    private void addTo(int offset, double value) {
+        buffer.putDouble(offset, buffer.getDouble(offset) + value);
+    }
+
+    /**
+     * Drops, oldest first, the samples that came before {@code cutoff}, among the {@code count}
+     * ones preceding the new sample at {@code head}.
+     *
+     * @return The number of those samples left.
+     */
+    private int dropSamplesBefore(int base, int head, int count, long cutoff) {
+        int oldest = head - count;
+        if (oldest < 0) oldest += HISTORY_CAPACITY;
+        while (count > 0) {
+            long timestamp = buffer.getLong(base + TIMESTAMPS + oldest * Long.BYTES);
+            if (timestamp >= cutoff) break;
+            accumulate(base, buffer.getInt(base + DEPTHS + oldest * Integer.BYTES), timestamp, -1);
+            oldest = (oldest + 1) % HISTORY_CAPACITY;
+            count--;
+        }
+        return count;
+    }
+
+    /**
+     * Recomputes the window sums from the samples, relative to the oldest one. At most
+     * {@value #HISTORY_CAPACITY} samples, once every {@value #HISTORY_CAPACITY} appends.
+     */
+    private void rebuildSums(int base) {
+        int historySize = buffer.getInt(base + HISTORY_SIZE);
+        int head = buffer.getInt(base + HISTORY_HEAD);
+        int oldest = head - (historySize - 1);
+        if (oldest < 0) oldest += HISTORY_CAPACITY;
+
+        buffer.putLong(base + SUMS_ORIGIN, buffer.getLong(base + TIMESTAMPS + oldest * Long.BYTES));
+        for (int offset = SUM_TIME; offset <= SUM_DEPTH_SQUARED; offset += Double.BYTES) {
+            buffer.putDouble(base + offset, 0);
+        }
+        for (int i = 0, sample = oldest; i < historySize; i++, sample = (sample + 1) % HISTORY_CAPACITY) {
+            accumulate(base, buffer.getInt(base + DEPTHS + sample * Integer.BYTES),
+                buffer.getLong(base + TIMESTAMPS + sample * Long.BYTES), 1);
+        }
+    }
+
+    /**
+     * Spreads the high bits of the hash, the same way HashMap does, before masking.
+     */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Cheap check that a remembered slot still holds the track: its record was not deleted and
+     * reused meanwhile (slots are forgotten on eviction, so this only guards against misuse).
+     */
+    private boolean isRecordOf(int slot, String detectionId) {
+        int base = base(slot);
+        return (int) INT.getAcquire(buffer, base + STATUS) == USED && buffer.getInt(base + HASH) == detectionId.hashCode();
+    }
+
+    private boolean keyEquals(int base, String detectionId) {
+        int length = detectionId.length();
+        if (buffer.getInt(base + KEY_LENGTH) != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (buffer.getChar(base + KEY + i * Character.BYTES) != detectionId.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Frees a record. Must hold the write lock.
+     * <p>
+     * A deleted slot must stay a tombstone while probe chains run through it. When the next slot is
+     * empty no chain can, so the slot and the tombstones right before it become empty again; this
+     * keeps lookups short without ever rehashing the table.
+     * </p>
+     */
+    private void delete(int slot) {
+        size.decrementAndGet();
+        if (buffer.getInt(base((slot + 1) & mask) + STATUS) != EMPTY) {
+            INT.setRelease(buffer, base(slot) + STATUS, DELETED);
+            return;
+        }
+
+        INT.setRelease(buffer, base(slot) + STATUS, EMPTY);
+        for (int previous = (slot - 1) & mask;
+             previous != slot && buffer.getInt(base(previous) + STATUS) == DELETED;
+             previous = (previous - 1) & mask) {
+            INT.setRelease(buffer, base(previous) + STATUS, EMPTY);
+        }
+    }
+
+    private void writeHeader() {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, capacity);
+        buffer.putInt(12, RECORD_SIZE);
+        buffer.putInt(16, HISTORY_CAPACITY);
+    }
+
+    private boolean headerMatches() {
+        return buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION && buffer.getInt(8) == capacity
+            && buffer.getInt(12) == RECORD_SIZE && buffer.getInt(16) == HISTORY_CAPACITY;
+    }
+
+    private void reset() {
+        for (int slot = 0; slot < capacity; slot++) {
+            buffer.putInt(base(slot) + STATUS, EMPTY);
+        }
+        writeHeader();
+    }
+
+    /**
+     * Counts the recovered tracks and drops those that went stale while the service was down.
+     */
+    private void recover(long nowMillis, long staleAfterMillis) {
+        int live = 0;
+        int stale = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            int base = base(slot);
+            int status = buffer.getInt(base + STATUS);
+            if (status == USED && staleAfterMillis > 0 && nowMillis - buffer.getLong(base + LAST_UPDATE) > staleAfterMillis) {
+                buffer.putInt(base + STATUS, DELETED);
+                stale++;
+            } else if (status == USED) {
+                live++;
+            } else if (status != EMPTY && status != DELETED) {
+                // Unknown status: the file was damaged. The slot is kept as a tombstone so chains stay intact.
+                buffer.putInt(base + STATUS, DELETED);
+            }
+        }
+        size.set(live);
+        clearTrailingTombstones();
+        log.info("♻️ Recovered {} tracks from the state store ({} stale dropped)", live, stale);
+    }
+
+    /**
+     * Turns back into empty slots every tombstone that no probe chain runs through, walking the
+     * table backwards from an empty slot (the same rule {@link #delete(int)} applies one slot at a time).
+     */
+    private void clearTrailingTombstones() {
+        int empty = -1;
+        for (int slot = 0; slot < capacity && empty < 0; slot++) {
+            if (buffer.getInt(base(slot) + STATUS) == EMPTY) empty = slot;
+        }
+        if (empty < 0) return;
+
+        for (int i = 1, slot = (empty - 1) & mask; i < capacity; i++, slot = (slot - 1) & mask) {
+            if (buffer.getInt(base(slot) + STATUS) == DELETED && buffer.getInt(base((slot + 1) & mask) + STATUS) == EMPTY) {
+                buffer.putInt(base(slot) + STATUS, EMPTY);
+            }
+        }
+    }
+
+    private static int slotsFor(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive");
+        int slots = Integer.highestOneBit(capacity);
+        if (slots < capacity) slots <<= 1;
+        if ((long) slots * RECORD_SIZE + HEADER_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Capacity too large for a single mapping: " + capacity);
+        }
+        return slots;
+    }
+
+    private static int fileSize(int slots) {
+        return HEADER_SIZE + slots * RECORD_SIZE;
+    }
+
+    /**
+     * Flyweight {@link TrackHistoryView} over the history of one record.
+     */
+    private final class HistoryView implements TrackHistoryView {
+
+        private int base;
+
+        @Override
+        public int size() {
+            return buffer.getInt(base + HISTORY_SIZE);
+        }
+
+        @Override
+        public int depthAt(int age) {
+            return buffer.getInt(base + DEPTHS + slot(age) * Integer.BYTES);
+        }
+
+        @Override
+        public long timestampAt(int age) {
+            return buffer.getLong(base + TIMESTAMPS + slot(age) * Long.BYTES);
+        }
+
+        @Override
+        public double depthMean() {
+            return WindowStatistics.mean(size(), buffer.getDouble(base + SUM_DEPTH));
+        }
+
+        @Override
+        public double depthVariance() {
+            return WindowStatistics.variance(size(), buffer.getDouble(base + SUM_DEPTH), buffer.getDouble(base + SUM_DEPTH_SQUARED));
+        }
+
+        @Override
+        public double depthSlope() {
+            return WindowStatistics.slope(size(), buffer.getDouble(base + SUM_TIME), buffer.getDouble(base + SUM_DEPTH),
+                buffer.getDouble(base + SUM_TIME_SQUARED), buffer.getDouble(base + SUM_TIME_DEPTH));
+        }
+
+        private int slot(int age) {
+            if (age < 0 || age >= size()) throw new IndexOutOfBoundsException(age);
+            int slot = buffer.getInt(base + HISTORY_HEAD) - age;
+            return slot >= 0 ? slot : slot + HISTORY_CAPACITY;
+        }
+    }
+}
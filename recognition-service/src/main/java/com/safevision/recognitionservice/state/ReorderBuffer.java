@@ -0,0 +1,153 @@
+package com.safevision.recognitionservice.state;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+
+/**
+ * Small per-track buffer that puts frames back in event-time order.
+ * <p>
+ * Frames are kept sorted by {@link RawTrackingEvent#eventTimeMillis()}. Since they almost always
+ * arrive in order, insertion walks back from the tail and usually stops immediately; frames with
+ * equal timestamps keep their arrival order. A frame older than the last one released can no longer
+ * be put in order and is rejected as late.
+ * </p>
+ * <p>
+ * Each frame travels with an opaque attachment and tag (the listener uses them for the broker
+ * delivery), handed back with the frame on release so the caller can settle it only then.
+ * </p>
+ * <p>
+ * Not thread-safe: it is only mutated by the worker that owns the track. {@link #lastArrivalMillis()}
+ * and {@link #size()} may be read from other threads as hints.
+ * </p>
+ */
+public final class ReorderBuffer<A> {
+
+    /**
+     * Receives a frame leaving the buffer, with what was buffered along with it.
+     */
+    @FunctionalInterface
+    public interface Release<A> {
+
+        void release(RawTrackingEvent event, A attachment, long tag);
+    }
+
+    private final RawTrackingEvent[] frames;
+    private final A[] attachments;
+    private final long[] tags;
+    private int head;
+    private volatile int size;
+    private long maxEventTime = Long.MIN_VALUE;
+    private long lastReleasedTime = Long.MIN_VALUE;
+    private volatile long lastArrivalMillis;
+
+    @SuppressWarnings("unchecked")
+    public ReorderBuffer(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive");
+        this.frames = new RawTrackingEvent[capacity];
+        this.attachments = (A[]) new Object[capacity];
+        this.tags = new long[capacity];
+    }
+
+    /**
+     * Inserts a frame at its event-time position.
+     *
+     * @param event         The frame to buffer.
+     * @param attachment    Handed back with the frame on release; may be {@code null}.
+     * @param tag           Handed back with the frame on release.
+     * @param arrivalMillis Wall-clock time of arrival, used to flush tracks that stopped sending frames.
+     * @return {@code true} if the frame was buffered; {@code false} if it is late or the buffer is full.
+     */
+    public boolean offer(RawTrackingEvent event, A attachment, long tag, long arrivalMillis) {
+        long eventTime = event.eventTimeMillis();
+        if (eventTime < lastReleasedTime || size == frames.length) return false;
+
+        int i = size;
+        while (i > 0 && frames[slot(i - 1)].eventTimeMillis() > eventTime) {
+            frames[slot(i)] = frames[slot(i - 1)];
+            attachments[slot(i)] = attachments[slot(i - 1)];
+            tags[slot(i)] = tags[slot(i - 1)];
+            i--;
+        }
+        frames[slot(i)] = event;
+        attachments[slot(i)] = attachment;
+        tags[slot(i)] = tag;
+        size++;
+
+        if (eventTime > maxEventTime) maxEventTime = eventTime;
+        lastArrivalMillis = arrivalMillis;
+        return true;
+    }
+
+    /**
+     * Releases, in order, every buffered frame whose event time is not after the watermark.
+     *
+     * @return The number of frames released.
+     */
+    public int releaseUpTo(long watermark, Release<? super A> downstream) {
+        int released = 0;
+        while (size > 0 && frames[head].eventTimeMillis() <= watermark) {
+            releaseHead(downstream);
+            released++;
+        }
+        return released;
+    }
+
+    /**
+     * Releases every buffered frame, in order.
+     */
+    public int drain(Release<? super A> downstream) {
+        int released = 0;
+        while (size > 0) {
+            releaseHead(downstream);
+            released++;
+        }
+        return released;
+    }
+
+    /**
+     * Releases the oldest buffered frame, to make room for a new one.
+     */
+    public void releaseOldest(Release<? super A> downstream) {
+        if (size > 0) releaseHead(downstream);
+    }
+
+    /**
+     * Newest event time seen on this track (the watermark is derived from it).
+     */
+    public long maxEventTime() {
+        return maxEventTime;
+    }
+
+    /**
+     * Wall-clock time of the last buffered frame.
+     */
+    public long lastArrivalMillis() {
+        return lastArrivalMillis;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes the head before handing it downstream, so a failing consumer can never make a frame run twice.
+     */
+    private void releaseHead(Release<? super A> downstream) {
+        RawTrackingEvent event = frames[head];
+        A attachment = attachments[head];
+        long tag = tags[head];
+        frames[head] = null;
+        attachments[head] = null;
+        head = (head + 1) % frames.length;
+        size--;
+        lastReleasedTime = event.eventTimeMillis();
+        downstream.release(event, attachment, tag);
+    }
+
+    private int slot(int index) {
+        return (head + index) % frames.length;
+    }
+}
@@ -0,0 +1,212 @@
+package com.safevision.recognitionservice.state;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Bounded LRU cache, split into independently locked segments.
+ * <p>
+ * Keys are spread over a power-of-two number of segments by hash; each segment is an access-ordered
+ * {@link LinkedHashMap} with its share of the entry and weight budgets, so threads working on
+ * different keys rarely contend. When a segment goes over either budget its least recently used
+ * entries are evicted. Entries also expire a fixed time after they were written: they are dropped
+ * when read, or when they reach the LRU end of their segment.
+ * </p>
+ * <p>
+ * The LRU order is per segment, so the entry evicted is the least recently used of its segment,
+ * not necessarily of the whole cache. With many more entries than segments the difference is noise.
+ * </p>
+ *
+ * @param <K> Type of the keys.
+ * @param <V> Type of the values.
+ */
+public final class SegmentedLruCache<K, V> {
+
+    /** Why an entry left the cache on its own. */
+    public enum RemovalCause { SIZE, EXPIRED }
+
+    private final Segment<K, V>[] segments;
+    private final int mask;
+    private final long expireAfterWriteNanos;
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+    private final LongSupplier nanoClock;
+    private final LongAdder sizeEvictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param segmentCount     Number of segments, rounded up to a power of two.
+     * @param maxEntries       Entries the whole cache may hold.
+     * @param maxWeight        Total weight the whole cache may hold.
+     * @param expireAfterWrite How long an entry stays valid after it was written.
+     * @param weigher          Weight of an entry, e.g. its approximate size in bytes.
+     * @param nanoClock        Time source in nanoseconds, {@code System::nanoTime} outside tests.
+     */
+    @SuppressWarnings("unchecked")
+    public SegmentedLruCache(int segmentCount, long maxEntries, long maxWeight, Duration expireAfterWrite,
+                             ToIntBiFunction<? super K, ? super V> weigher, LongSupplier nanoClock) {
+        if (segmentCount <= 0) throw new IllegalArgumentException("Segment count must be positive");
+        if (maxEntries <= 0 || maxWeight <= 0) throw new IllegalArgumentException("Cache bounds must be positive");
+
+        int count = Integer.highestOneBit(segmentCount);
+        if (count < segmentCount) count <<= 1;
+        this.segments = new Segment[count];
+        this.mask = count - 1;
+        // Rounded up, so that the budgets add up to at least the configured bounds.
+        long entriesPerSegment = Math.max(1, (maxEntries + count - 1) / count);
+        long weightPerSegment = Math.max(1, (maxWeight + count - 1) / count);
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(entriesPerSegment, weightPerSegment);
+        }
+        this.expireAfterWriteNanos = expireAfterWrite.toNanos();
+        this.weigher = weigher;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Value of the key, marking it as recently used; {@code null} if absent or expired.
+     */
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            Entry<V> entry = segment.map.get(key);
+            if (entry == null) return null;
+            if (isExpired(entry, nanoClock.getAsLong())) {
+                segment.remove(key);
+                expirations.increment();
+                return null;
+            }
+            return entry.value;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Stores the value, replacing the previous one and restarting its expiry, then evicts the least
+     * recently used entries of the segment while it is over budget. A value heavier than the whole
+     * weight budget of a segment is not stored, and drops the previous value of the key.
+     */
+    public void put(K key, V value) {
+        int weight = weigher.applyAsInt(key, value);
+        long now = nanoClock.getAsLong();
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            if (weight > segment.maxWeight) {
+                // Storing it would flush the whole segment for an entry that cannot stay anyway.
+                segment.remove(key);
+                sizeEvictions.increment();
+                return;
+            }
+            Entry<V> previous = segment.map.put(key, new Entry<>(value, weight, now));
+            if (previous != null) segment.weight -= previous.weight;
+            segment.weight += weight;
+            evictOverBudget(segment, now);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    public void remove(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            segment.remove(key);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Number of entries, expired ones not collected yet included.
+     */
+    public long size() {
+        long size = 0;
+        for (Segment<K, V> segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.map.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Total weight of the entries.
+     */
+    public long weight() {
+        long weight = 0;
+        for (Segment<K, V> segment : segments) {
+            segment.lock.lock();
+            try {
+                weight += segment.weight;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Entries removed by the cache itself for the given cause, since it was created.
+     */
+    public long evictions(RemovalCause cause) {
+        return switch (cause) {
+            case SIZE -> sizeEvictions.sum();
+            case EXPIRED -> expirations.sum();
+        };
+    }
+
+    private void evictOverBudget(Segment<K, V> segment, long now) {
+        Iterator<Entry<V>> lru = segment.map.values().iterator();
+        while (lru.hasNext()) {
+            Entry<V> eldest = lru.next();
+            boolean expired = isExpired(eldest, now);
+            if (!expired && segment.map.size() <= segment.maxEntries && segment.weight <= segment.maxWeight) return;
+
+            lru.remove();
+            segment.weight -= eldest.weight;
+            (expired ? expirations : sizeEvictions).increment();
+        }
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return now - entry.writtenAt >= expireAfterWriteNanos;
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        // Spreads the high bits, the same way HashMap does, before masking.
+        return segments[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    private record Entry<V>(V value, int weight, long writtenAt) {
+    }
+
+    private static final class Segment<K, V> {
+
+        final ReentrantLock lock = new ReentrantLock();
+        final LinkedHashMap<K, Entry<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+        final long maxEntries;
+        final long maxWeight;
+        long weight;
+
+        Segment(long maxEntries, long maxWeight) {
+            this.maxEntries = maxEntries;
+            this.maxWeight = maxWeight;
+        }
+
+        void remove(Object key) {
+            Entry<?> removed = map.remove(key);
+            if (removed != null) weight -= removed.weight;
+        }
+    }
+}
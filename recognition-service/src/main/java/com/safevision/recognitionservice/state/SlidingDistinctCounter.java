@@ -0,0 +1,107 @@
+package com.safevision.recognitionservice.state;
+
+import java.time.Duration;
+
+/**
+ * Distinct count over a sliding time window, from one {@link HyperLogLog} per time bucket.
+ * <p>
+ * The window is cut into {@code buckets} buckets; an item goes into the sketch of the bucket of its
+ * timestamp, and also into a merged sketch of every live bucket, which answers the estimate without
+ * merging anything. When the window slides past a bucket, that bucket is cleared and the merged
+ * sketch is rebuilt from the others: a sketch cannot forget single items, only whole buckets.
+ * The window therefore covers between {@code buckets - 1} and {@code buckets} bucket lengths.
+ * </p>
+ * <p>
+ * Time only moves forward: items older than the window are ignored. Not thread-safe.
+ * </p>
+ */
+public final class SlidingDistinctCounter {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final HyperLogLog[] buckets;
+    /** Bucket number (time divided by the bucket length) each sketch holds, or {@link #EMPTY}. */
+    private final long[] epochs;
+    private final HyperLogLog merged;
+    private final long bucketMillis;
+    private long latestEpoch = EMPTY;
+
+    /**
+     * @param precision Precision of each {@link HyperLogLog}.
+     * @param buckets   Buckets the window is cut into; more buckets slide more smoothly but take more memory.
+     * @param window    Length of the window.
+     */
+    public SlidingDistinctCounter(int precision, int buckets, Duration window) {
+        if (buckets < 1) throw new IllegalArgumentException("A sliding window needs at least one bucket");
+        this.bucketMillis = Math.max(1, window.toMillis() / buckets);
+        this.buckets = new HyperLogLog[buckets];
+        this.epochs = new long[buckets];
+        for (int i = 0; i < buckets; i++) {
+            this.buckets[i] = new HyperLogLog(precision);
+            this.epochs[i] = EMPTY;
+        }
+        this.merged = new HyperLogLog(precision);
+    }
+
+    /**
+     * Adds an item, by its {@link HyperLogLog#hash(CharSequence) hash}, seen at the given time.
+     */
+    public void add(long hash, long timeMillis) {
+        long epoch = Math.floorDiv(timeMillis, bucketMillis);
+        slideTo(epoch);
+        if (epoch <= latestEpoch - buckets.length) return;
+
+        int slot = (int) Math.floorMod(epoch, (long) buckets.length);
+        if (epochs[slot] != epoch) {
+            buckets[slot].clear();
+            epochs[slot] = epoch;
+        }
+        buckets[slot].add(hash);
+        merged.add(hash);
+    }
+
+    /**
+     * Estimated number of distinct items in the window ending at the given time.
+     */
+    public long estimate(long nowMillis) {
+        slideTo(Math.floorDiv(nowMillis, bucketMillis));
+        return merged.estimate();
+    }
+
+    /**
+     * Folds the items of the window ending at the given time into another sketch, e.g. to count
+     * distinct items across several windows.
+     */
+    public void mergeInto(HyperLogLog target, long nowMillis) {
+        slideTo(Math.floorDiv(nowMillis, bucketMillis));
+        target.merge(merged);
+    }
+
+    /**
+     * Whether the window ending at the given time holds nothing.
+     */
+    public boolean isEmpty(long nowMillis) {
+        slideTo(Math.floorDiv(nowMillis, bucketMillis));
+        return merged.isEmpty();
+    }
+
+    private void slideTo(long epoch) {
+        if (latestEpoch != EMPTY && epoch <= latestEpoch) return;
+        latestEpoch = epoch;
+
+        boolean expired = false;
+        for (int i = 0; i < buckets.length; i++) {
+            if (epochs[i] != EMPTY && epochs[i] <= epoch - buckets.length) {
+                buckets[i].clear();
+                epochs[i] = EMPTY;
+                expired = true;
+            }
+        }
+        if (expired) {
+            merged.clear();
+            for (int i = 0; i < buckets.length; i++) {
+                if (epochs[i] != EMPTY) merged.merge(buckets[i]);
+            }
+        }
+    }
+}
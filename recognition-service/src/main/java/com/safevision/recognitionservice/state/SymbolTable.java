@@ -0,0 +1,192 @@
+package com.safevision.recognitionservice.state;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrent symbol table that gives every distinct identifier a dense {@code int} handle.
+ * <p>
+ * A frame resolves its detection ID once; the following steps reach the state of the track by
+ * handle, in a {@link HandleMap} or an {@link IntHandleMap}, instead of hashing and comparing the ID
+ * again in a map of their own. Handles of released identifiers are reused first, so arrays indexed by
+ * handle stay as large as the peak number of live identifiers.
+ * </p>
+ * <p>
+ * Lookups are lock-free: an open-addressing table whose keys are published with release semantics
+ * and read with acquire semantics, so a reader that sees a key also sees its handle. Assigning and
+ * releasing a handle take a lock; the table is kept at most half full (tombstones included) and is
+ * rebuilt into a new one, published at once, when it fills up.
+ * </p>
+ * <p>
+ * An identifier must not be looked up while it is being released. The track pipeline guarantees it:
+ * both happen on the worker that owns the detection ID.
+ * </p>
+ */
+public final class SymbolTable {
+
+    /** Returned by {@link #find(String)} for an identifier without a handle. */
+    public static final int NO_HANDLE = -1;
+
+    private static final int MIN_CAPACITY = 64;
+
+    /** Marks the slot of a released identifier; compared by identity only. */
+    private static final String RELEASED = new String("released");
+
+    private static final VarHandle ELEMENT = MethodHandles.arrayElementVarHandle(String[].class);
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile Table table = new Table(MIN_CAPACITY);
+    private volatile String[] names = new String[MIN_CAPACITY];
+    private volatile int size;
+
+    /** Released handles, reused last-in first-out. Guarded by the lock. */
+    private int[] released = new int[16];
+    private int releasedCount;
+    private int nextHandle;
+
+    /**
+     * Returns the handle of an identifier, assigning one on first sight.
+     */
+    public int handle(String name) {
+        int handle = find(table, name);
+        if (handle != NO_HANDLE) return handle;
+
+        lock.lock();
+        try {
+            Table current = table;
+            handle = find(current, name);
+            if (handle != NO_HANDLE) return handle;
+
+            handle = releasedCount > 0 ? released[--releasedCount] : nextHandle++;
+            if (handle >= names.length) {
+                names = Arrays.copyOf(names, Math.max(names.length * 2, handle + 1));
+            }
+            ELEMENT.setRelease(names, handle, name);
+
+            if (current.used + 1 > current.keys.length / 2) {
+                current = rebuild(current, size + 1);
+            }
+            current.insert(name, handle);
+            size++;
+            return handle;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the handle of an identifier, or {@link #NO_HANDLE} if it has none.
+     */
+    public int find(String name) {
+        return find(table, name);
+    }
+
+    /**
+     * Returns the identifier of a handle, or {@code null} if the handle is not assigned.
+     */
+    public String name(int handle) {
+        String[] current = names;
+        return handle >= 0 && handle < current.length ? (String) ELEMENT.getAcquire(current, handle) : null;
+    }
+
+    /**
+     * Forgets an identifier; its handle is given to the next new one. Every state indexed by the
+     * handle must have been cleared before.
+     */
+    public void release(int handle) {
+        lock.lock();
+        try {
+            String name = name(handle);
+            if (name == null) return;
+
+            table.remove(name);
+            ELEMENT.setRelease(names, handle, null);
+            if (releasedCount == released.length) {
+                released = Arrays.copyOf(released, released.length * 2);
+            }
+            released[releasedCount++] = handle;
+            size--;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of identifiers with a handle.
+     */
+    public int size() {
+        return size;
+    }
+
+    private static int find(Table table, String name) {
+        String[] keys = table.keys;
+        int mask = keys.length - 1;
+        for (int slot = spread(name.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            String key = (String) ELEMENT.getAcquire(keys, slot);
+            if (key == null) return NO_HANDLE;
+            if (key != RELEASED && (key == name || key.equals(name))) return table.handles[slot];
+        }
+    }
+
+    /**
+     * Copies the live identifiers into a table sized for them, dropping the tombstones. Must hold the lock.
+     */
+    private Table rebuild(Table current, int live) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < live * 4) capacity <<= 1;
+
+        Table rebuilt = new Table(capacity);
+        for (int slot = 0; slot < current.keys.length; slot++) {
+            String key = current.keys[slot];
+            if (key != null && key != RELEASED) rebuilt.insert(key, current.handles[slot]);
+        }
+        table = rebuilt;
+        return rebuilt;
+    }
+
+    /**
+     * Spreads the high bits of the hash, the same way HashMap does, before masking.
+     */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Table {
+
+        final String[] keys;
+        final int[] handles;
+
+        /** Slots holding an identifier or a tombstone. Written under the lock only. */
+        int used;
+
+        Table(int capacity) {
+            this.keys = new String[capacity];
+            this.handles = new int[capacity];
+        }
+
+        void insert(String name, int handle) {
+            int mask = keys.length - 1;
+            int slot = spread(name.hashCode()) & mask;
+            while (keys[slot] != null && keys[slot] != RELEASED) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == null) used++;
+            handles[slot] = handle;
+            ELEMENT.setRelease(keys, slot, name);
+        }
+
+        void remove(String name) {
+            int mask = keys.length - 1;
+            for (int slot = spread(name.hashCode()) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] != RELEASED && keys[slot].equals(name)) {
+                    // A tombstone, not an empty slot: probe chains may run through it.
+                    ELEMENT.setRelease(keys, slot, RELEASED);
+                    return;
+                }
+            }
+        }
+    }
+}
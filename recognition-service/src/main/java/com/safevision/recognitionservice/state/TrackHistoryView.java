@@ -0,0 +1,78 @@
+package com.safevision.recognitionservice.state;
+
+/**
+ * Read-only, zero-copy view over the recent samples of a tracked subject.
+ * <p>
+ * Samples are addressed by age: index {@code 0} is the newest sample and
+ * {@code size() - 1} the oldest one still retained. All accessors are O(1)
+ * and never allocate, so rules can read window endpoints on the hot path.
+ * </p>
+ * <p>
+ * The statistics over the whole window (mean, variance, slope) come from running sums that the
+ * history updates as each sample enters and the oldest one leaves, so reading them never rescans
+ * the samples either.
+ * </p>
+ */
+public interface TrackHistoryView {
+
+    /**
+     * Shared view returned for subjects without any recorded history (Null Object Pattern).
+     */
+    TrackHistoryView EMPTY = new TrackHistoryView() {
+        @Override public int size() { return 0; }
+        @Override public int depthAt(int age) { throw new IndexOutOfBoundsException(age); }
+        @Override public long timestampAt(int age) { throw new IndexOutOfBoundsException(age); }
+        @Override public double depthMean() { return 0; }
+        @Override public double depthVariance() { return 0; }
+        @Override public double depthSlope() { return 0; }
+    };
+
+    /**
+     * Number of samples currently retained.
+     */
+    int size();
+
+    /**
+     * Depth (proximity index) of the sample with the given age.
+     *
+     * @param age 0 for the newest sample, {@code size() - 1} for the oldest.
+     * @throws IndexOutOfBoundsException if {@code age} is outside {@code [0, size())}.
+     */
+    int depthAt(int age);
+
+    /**
+     * Capture timestamp of the sample with the given age.
+     *
+     * @param age 0 for the newest sample, {@code size() - 1} for the oldest.
+     * @throws IndexOutOfBoundsException if {@code age} is outside {@code [0, size())}.
+     */
+    long timestampAt(int age);
+
+    /**
+     * Mean depth of the retained samples, 0 if there are none.
+     */
+    double depthMean();
+
+    /**
+     * Population variance of the retained depths, 0 if there are none.
+     */
+    double depthVariance();
+
+    /**
+     * Least-squares slope of depth over capture time, in depth units per second: the approach
+     * velocity of the subject, smoothed over every retained sample. Positive when it gets closer;
+     * 0 with fewer than two distinct timestamps.
+     */
+    double depthSlope();
+
+    /**
+     * Capture time between the oldest and the newest retained sample.
+     */
+    default long spanMillis() {
+        return isEmpty() ? 0 : timestampAt(0) - timestampAt(size() - 1);
+    }
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+}
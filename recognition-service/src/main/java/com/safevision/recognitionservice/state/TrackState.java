@@ -0,0 +1,32 @@
+package com.safevision.recognitionservice.state;
+
+/**
+ * Kinds of per-track state that threat rules can depend on.
+ * <p>
+ * Each kind is maintained by exactly one {@link TrackStateRecorder}. The declaration
+ * order is the order in which the compiled rule plan applies the updates.
+ * </p>
+ */
+public enum TrackState {
+
+    /** Sliding window of depth samples (see {@code MovementHistoryService}). */
+    DEPTH_HISTORY,
+
+    /** Consecutive frames facing the camera (see {@code StareCounterService}). */
+    STARE_COUNT,
+
+    /**
+     * Progress of the track through the multi-step threat patterns (see {@code PatternMatcherService}).
+     * Derived from the frame and the two kinds above, so it is updated after them.
+     */
+    PATTERN_PROGRESS,
+
+    /**
+     * Distinct subjects seen by each camera over a sliding window (see {@code CrowdDensityService}).
+     * Kept per camera rather than per track.
+     */
+    CAMERA_DENSITY,
+
+    /** Last snapshot URL received for the track (see {@code EvidenceCacheService}). */
+    EVIDENCE
+}
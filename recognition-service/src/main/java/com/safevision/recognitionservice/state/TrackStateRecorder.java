@@ -0,0 +1,26 @@
+package com.safevision.recognitionservice.state;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+
+/**
+ * A {@link TrackStateStore} that derives its state from incoming frames.
+ * <p>
+ * Recorders are not called by the rules themselves: the compiled rule plan applies
+ * {@link #record(int, RawTrackingEvent)} exactly once per frame, before any rule reads the state.
+ * </p>
+ */
+public interface TrackStateRecorder extends TrackStateStore {
+
+    /**
+     * The kind of state maintained by this recorder.
+     */
+    TrackState state();
+
+    /**
+     * Folds a new frame into the state of its track.
+     *
+     * @param track The handle of the track in the track {@link SymbolTable}.
+     * @param event The raw tracking data event.
+     */
+    void record(int track, RawTrackingEvent event);
+}
@@ -0,0 +1,37 @@
+package com.safevision.recognitionservice.state;
+
+import java.util.function.Consumer;
+
+/**
+ * Contract for components that keep per-track state in memory.
+ * <p>
+ * Every implementation is discovered by the {@code TrackEvictionService}, which calls
+ * {@link #evict(int, String)} once a subject has been idle for longer than the configured
+ * timeout. Eviction always runs on the track worker that owns the detection ID.
+ * </p>
+ * <p>
+ * Tracks are identified by both their detection ID and their handle in the track
+ * {@link SymbolTable}: stores indexed by handle use the latter, the others (and those that
+ * outlive the process) the former. The handle is released once every store evicted the track.
+ * </p>
+ */
+public interface TrackStateStore {
+
+    /**
+     * Drops every piece of state held for the given track.
+     *
+     * @param track       The handle of the track, or {@link SymbolTable#NO_HANDLE} if it never got one.
+     * @param detectionId The ID of the track that left the scene.
+     */
+    void evict(int track, String detectionId);
+
+    /**
+     * Calls the action with every detection ID the store already holds state for. Only stores whose
+     * state outlives the process need to implement it: the {@code TrackEvictionService} uses it at
+     * startup so that recovered tracks are evicted too if they never show up again.
+     *
+     * @param action Receives each detection ID.
+     */
+    default void forEachTrack(Consumer<String> action) {
+    }
+}
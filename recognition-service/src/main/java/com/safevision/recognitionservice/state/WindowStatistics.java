@@ -0,0 +1,43 @@
+package com.safevision.recognitionservice.state;
+
+/**
+ * Closed forms of the depth statistics exposed by {@link TrackHistoryView}, from the running sums
+ * each history keeps up to date as samples enter and leave its window.
+ * <p>
+ * Times are seconds relative to an origin close to the samples (the oldest one when the sums were
+ * last rebuilt), so that squares stay small and the differences below do not cancel out.
+ * </p>
+ */
+final class WindowStatistics {
+
+    private WindowStatistics() {
+    }
+
+    static double mean(int count, double sumDepth) {
+        return count == 0 ? 0 : sumDepth / count;
+    }
+
+    /**
+     * Population variance of the depths.
+     */
+    static double variance(int count, double sumDepth, double sumDepthSquared) {
+        if (count == 0) return 0;
+        double mean = sumDepth / count;
+        // Rounding can leave a tiny negative value when every depth is equal.
+        return Math.max(0, sumDepthSquared / count - mean * mean);
+    }
+
+    /**
+     * Least-squares slope of depth over time, in depth units per second.
+     */
+    static double slope(int count, double sumTime, double sumDepth, double sumTimeSquared, double sumTimeDepth) {
+        double timeSpread = count * sumTimeSquared - sumTime * sumTime;
+        // Fewer than two distinct timestamps: no line to fit.
+        if (count < 2 || timeSpread <= 1e-9) return 0;
+        return (count * sumTimeDepth - sumTime * sumDepth) / timeSpread;
+    }
+
+    static double seconds(long timestamp, long originMillis) {
+        return (timestamp - originMillis) / 1_000.0;
+    }
+}
@@ -0,0 +1,58 @@
+package com.safevision.recognitionservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.safevision.recognitionservice.config.AlertSuppressionProperties;
+import com.safevision.recognitionservice.service.AlertSuppressionService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AlertSuppressionServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AlertSuppressionService suppressionService =
+        new AlertSuppressionService(new AlertSuppressionProperties(Duration.ofSeconds(10), true), meterRegistry);
+
+    @Test
+    @DisplayName("Deve suprimir o mesmo tipo de alerta dentro da janela e liberar depois dela")
+    void tryAcquire_SuppressesInsideWindow() {
+        assertThat(suppressionService.tryAcquire(0, "PISTOLA_DETECTADA", 1_000)).isTrue();
+        assertThat(suppressionService.tryAcquire(0, "PISTOLA_DETECTADA", 5_000)).isFalse();
+        assertThat(suppressionService.tryAcquire(0, "PISTOLA_DETECTADA", 11_000)).isTrue();
+
+        assertThat(meterRegistry.get("recognition.alerts.suppressed").tag("type", "PISTOLA_DETECTADA").counter().count())
+            .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("A chave de supressão é (handle do track, tipo de alerta)")
+    void tryAcquire_KeyedByTrackAndType() {
+        assertThat(suppressionService.tryAcquire(0, "PISTOLA_DETECTADA", 1_000)).isTrue();
+
+        assertThat(suppressionService.tryAcquire(0, "OBSERVACAO_DETECTADA", 1_000)).isTrue();
+        assertThat(suppressionService.tryAcquire(1, "PISTOLA_DETECTADA", 1_000)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Eviction do track deve esquecer os alertas já enviados")
+    void evict_ForgetsTrack() {
+        suppressionService.tryAcquire(0, "PISTOLA_DETECTADA", 1_000);
+        suppressionService.evict(0, "det-1");
+
+        assertThat(suppressionService.tryAcquire(0, "PISTOLA_DETECTADA", 2_000)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Janela zero desabilita a supressão")
+    void tryAcquire_ZeroWindowDisablesSuppression() {
+        var disabled = new AlertSuppressionService(new AlertSuppressionProperties(Duration.ZERO, true), meterRegistry);
+
+        assertThat(disabled.tryAcquire(0, "PISTOLA_DETECTADA", 1_000)).isTrue();
+        assertThat(disabled.tryAcquire(0, "PISTOLA_DETECTADA", 1_000)).isTrue();
+    }
+}
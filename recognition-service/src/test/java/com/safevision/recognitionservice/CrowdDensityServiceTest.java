@@ -0,0 +1,94 @@
+package com.safevision.recognitionservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.safevision.recognitionservice.config.CrowdDensityProperties;
+import com.safevision.recognitionservice.dto.CrowdDensityDTO;
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.service.CrowdDensityService;
+
+class CrowdDensityServiceTest {
+
+    private final CrowdDensityService densityService = new CrowdDensityService(
+        new CrowdDensityProperties(Duration.ofSeconds(60), 6, 10, 25), mock(ScheduledExecutorService.class));
+
+    @Test
+    @DisplayName("Deve disparar a aglomeração uma única vez por câmera ao cruzar o limite")
+    void tryRaiseCrowd_FiresOncePerCrossing() {
+        int raised = 0;
+        for (int frame = 0; frame < 3; frame++) {
+            for (int i = 0; i < 40; i++) {
+                var event = createEvent("det-" + i, "C1");
+                densityService.record(i, event);
+                if (densityService.tryRaiseCrowd(event).isPresent()) raised++;
+            }
+        }
+
+        assertThat(raised).isEqualTo(1);
+        assertThat(densityService.density("C1")).isCloseTo(40L, within(2L));
+    }
+
+    @Test
+    @DisplayName("Deve ler a densidade de todas as câmeras e o total de pessoas distintas")
+    void snapshot_ReadsEveryCameraAndTheirUnion() {
+        for (int i = 0; i < 20; i++) {
+            densityService.record(i, createEvent("det-" + i, "C1"));
+            densityService.record(i + 10, createEvent("det-" + (i + 10), "C2"));
+        }
+
+        CrowdDensityDTO snapshot = densityService.snapshot();
+
+        assertThat(snapshot.windowSeconds()).isEqualTo(60);
+        assertThat(snapshot.cameras()).containsOnlyKeys("C1", "C2");
+        assertThat(snapshot.cameras().get("C1")).isCloseTo(20L, within(1L));
+        assertThat(snapshot.distinctSubjects()).isCloseTo(30L, within(1L));
+    }
+
+    @Test
+    @DisplayName("Janelas devem seguir o event time, mesmo para frames capturados há horas")
+    void density_FollowsEventTime() {
+        long capturedAt = System.currentTimeMillis() - Duration.ofHours(2).toMillis();
+        for (int i = 0; i < 10; i++) {
+            densityService.record(i, createEvent("det-" + i, "C1", capturedAt + i * 1_000L));
+        }
+        densityService.sweep();
+
+        assertThat(densityService.density("C1")).isCloseTo(10L, within(1L));
+        assertThat(densityService.snapshot().distinctSubjects()).isCloseTo(10L, within(1L));
+    }
+
+    @Test
+    @DisplayName("A limpeza deve descartar câmeras uma janela inteira atrás do frame mais recente")
+    void sweep_DropsCamerasAWindowBehindTheNewestFrame() {
+        long t0 = 1_700_000_000_000L;
+        densityService.record(1, createEvent("det-1", "C1", t0));
+        densityService.record(2, createEvent("det-2", "C2", t0 + 30_000));
+        densityService.sweep();
+        assertThat(densityService.size()).isEqualTo(2);
+
+        densityService.record(2, createEvent("det-2", "C2", t0 + 60_000));
+        densityService.sweep();
+
+        assertThat(densityService.snapshot().cameras()).containsOnlyKeys("C2");
+        assertThat(densityService.density("C2")).isEqualTo(1L);
+    }
+
+    private RawTrackingEvent createEvent(String id, String cameraId) {
+        return createEvent(id, cameraId, System.currentTimeMillis());
+    }
+
+    private RawTrackingEvent createEvent(String id, String cameraId, long timestamp) {
+        return new RawTrackingEvent(id, timestamp, cameraId, "U1",
+                                   false, null, 50, false, null, null, null,
+                                   BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,76 @@
+package com.safevision.recognitionservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import com.safevision.recognitionservice.config.EventJournalProperties;
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.journal.EventJournal;
+import com.safevision.recognitionservice.service.EventJournalService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class EventJournalServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Deve gravar os frames analisados e mantê-los no journal após o desligamento")
+    void append_JournalsFramesAndSealsOnStop() throws IOException {
+        Path dir = tempDir.resolve("journal");
+        var journal = new EventJournalService(properties(true, dir), mock(ScheduledExecutorService.class), meterRegistry);
+        journal.start();
+
+        for (int i = 0; i < 5; i++) {
+            journal.append(event("det-" + i, 1_700_000_000_000L + i));
+        }
+        journal.stop();
+
+        assertThat(journal.isJournaling()).isFalse();
+        assertThat(meterRegistry.get("recognition.journal.appended").counter().count()).isEqualTo(5.0);
+        try (var reopened = new EventJournal(dir, 1 << 20, Duration.ofHours(1), 256)) {
+            List<String> ids = new ArrayList<>();
+            reopened.read("cam-1", 1_700_000_000_000L, 1_700_000_001_000L, entry -> ids.add(entry.event().detectionId()));
+            assertThat(ids).containsExactly("det-0", "det-1", "det-2", "det-3", "det-4");
+        }
+    }
+
+    @Test
+    @DisplayName("Journal desligado não deve fazer nada")
+    void append_IgnoredWhenDisabled() throws IOException {
+        Path dir = tempDir.resolve("journal");
+        var journal = new EventJournalService(properties(false, dir), mock(ScheduledExecutorService.class), meterRegistry);
+        journal.start();
+
+        journal.append(event("det-1", 1_700_000_000_000L));
+
+        assertThat(journal.isJournaling()).isFalse();
+        assertThat(Files.exists(dir)).isFalse();
+    }
+
+    private static EventJournalProperties properties(boolean enabled, Path dir) {
+        return new EventJournalProperties(enabled, dir.toString(), DataSize.ofMegabytes(1), Duration.ofHours(1),
+            Duration.ofDays(30), DataSize.ofGigabytes(1), Duration.ofMillis(10), 100, 256);
+    }
+
+    private RawTrackingEvent event(String id, long timestamp) {
+        return new RawTrackingEvent(id, timestamp, "cam-1", "user-1", false, null, 50, false, null, null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,234 @@
+package com.safevision.recognitionservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.rabbitmq.client.Channel;
+import com.safevision.recognitionservice.config.EventTimeProperties;
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.pipeline.DeliveryWindow;
+import com.safevision.recognitionservice.pipeline.TrackPartitionedExecutor;
+import com.safevision.recognitionservice.service.EventTimeOrderingService;
+import com.safevision.recognitionservice.state.SymbolTable;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class EventTimeOrderingServiceTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+
+    private final TrackPartitionedExecutor trackExecutor = mock(TrackPartitionedExecutor.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SymbolTable trackSymbols = new SymbolTable();
+    private final List<Long> analyzed = new ArrayList<>();
+
+    private EventTimeOrderingService orderingService;
+
+    @BeforeEach
+    void setUp() {
+        // Executa o flush na própria thread do teste, simulando o worker do track
+        doAnswer(inv -> {
+            inv.<Runnable>getArgument(1).run();
+            return true;
+        }).when(trackExecutor).tryExecute(anyString(), any());
+
+        orderingService = create(Duration.ofSeconds(1));
+    }
+
+    @Test
+    @DisplayName("Deve entregar frames fora de ordem na ordem de event time")
+    void offer_ReordersWithinOutOfOrderness() {
+        offer(T0);
+        offer(T0 + 1_000);
+        offer(T0 + 500);  // chegou atrasado, mas dentro da tolerância
+        offer(T0 + 2_000);
+
+        assertThat(analyzed).containsExactly(T0, T0 + 500, T0 + 1_000);
+        assertThat(orderingService.buffered("det-1")).isEqualTo(1);
+        assertThat(meterRegistry.get("recognition.events.reordered").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Deve descartar frames que chegam depois do watermark")
+    void offer_DropsLateFrames() {
+        offer(T0);
+        offer(T0 + 3_000);  // watermark passa a T0 + 2000
+        offer(T0 + 1_000);  // fora de ordem, mas ainda não é mais antigo do que T0
+
+        offer(T0 + 10_000);
+        offer(T0 + 500);    // mais antigo do que frames já analisados: descartado
+
+        assertThat(analyzed).containsExactly(T0, T0 + 1_000, T0 + 3_000);
+        assertThat(meterRegistry.get("recognition.events.late").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Deve liberar o buffer de um track que parou de enviar frames")
+    void flushIfIdle_DrainsStalledTrack() throws InterruptedException {
+        orderingService = create(Duration.ofMillis(20));
+        offer(T0);
+        offer(T0 + 10);
+        assertThat(analyzed).isEmpty();
+
+        Thread.sleep(40);
+        orderingService.flushIfIdle("det-1");
+
+        assertThat(analyzed).containsExactly(T0, T0 + 10);
+        assertThat(orderingService.buffered("det-1")).isZero();
+    }
+
+    @Test
+    @DisplayName("Frame com arma deve ser liberado na hora, junto com os anteriores a ele")
+    void offer_ReleasesWeaponFramesImmediately() {
+        offer(T0);
+        offer(T0 + 400);
+        orderingService.offer(event("det-1", T0 + 200, true));
+        offer(T0 + 600);
+
+        assertThat(analyzed).containsExactly(T0, T0 + 200);
+        assertThat(orderingService.buffered("det-1")).isEqualTo(2);
+
+        offer(T0 + 100);  // mais antigo do que o frame com arma: descartado
+        assertThat(meterRegistry.get("recognition.events.late").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Frame com arma no fast track não deve esperar o backlog do worker nem o watermark")
+    void offer_WeaponBehindFullLaneIsAnalyzedOnItsUrgentTurn() throws InterruptedException {
+        var executor = new TrackPartitionedExecutor(1, 64);
+        try {
+            List<RawTrackingEvent> released = new CopyOnWriteArrayList<>();
+            CountDownLatch weaponAnalyzed = new CountDownLatch(1);
+            var service = new EventTimeOrderingService(new EventTimeProperties(Duration.ofSeconds(1), 16),
+                executor, mock(ScheduledExecutorService.class), new SymbolTable(), meterRegistry);
+            service.start(event -> {
+                released.add(event);
+                if (event.hasWeapon()) weaponAnalyzed.countDown();
+            });
+
+            // Um frame anterior do mesmo track fica no buffer, aguardando o watermark
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch blocker = new CountDownLatch(1);
+            executor.execute("det-1", () -> {
+                service.offer(event("det-1", T0, false));
+                started.countDown();
+                awaitQuietly(blocker);
+            });
+            assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+            // Backlog de 50 frames de outros tracks, 20 ms cada: 1 s de fila no mesmo worker
+            for (int i = 0; i < 50; i++) {
+                var routine = event("det-other-" + i, T0 + i, false);
+                executor.execute(routine.detectionId(), () -> {
+                    sleepQuietly(20);
+                    service.offer(routine);
+                });
+            }
+
+            long start = System.nanoTime();
+            executor.executeUrgent("det-1", () -> service.offer(event("det-1", T0 + 500, true)));
+            blocker.countDown();
+
+            assertThat(weaponAnalyzed.await(500, TimeUnit.MILLISECONDS)).isTrue();
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(500);
+            assertThat(released).extracting(RawTrackingEvent::timestamp).startsWith(T0, T0 + 500);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("A entrega só deve ser confirmada quando o frame sai do buffer e é analisado")
+    void offer_SettlesDeliveryAfterAnalysis() throws Exception {
+        Channel channel = mock(Channel.class);
+        when(channel.isOpen()).thenReturn(true);
+        var deliveries = new DeliveryWindow(channel, 1);
+
+        orderingService.offer(event("det-1", T0, false), deliveries, deliveries.received(1));
+        orderingService.offer(event("det-1", T0 + 500, false), deliveries, deliveries.received(2));
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+
+        orderingService.offer(event("det-1", T0 + 1_000, false), deliveries, deliveries.received(3));
+        verify(channel).basicAck(1L, true);
+
+        // Frame atrasado é liberado na hora, mas o prefixo ainda espera os frames no buffer
+        orderingService.offer(event("det-1", T0 - 500, false), deliveries, deliveries.received(4));
+        verify(channel, never()).basicAck(4L, true);
+
+        // Na eviction do track, os frames retidos são descartados e as entregas, liberadas
+        orderingService.evict(trackSymbols.find("det-1"), "det-1");
+        verify(channel).basicAck(4L, true);
+        assertThat(analyzed).containsExactly(T0);
+        assertThat(orderingService.buffered("det-1")).isZero();
+    }
+
+    @Test
+    @DisplayName("Tolerância zero entrega cada frame imediatamente")
+    void offer_PassThroughWhenDisabled() {
+        orderingService = create(Duration.ZERO);
+        offer(T0);
+        offer(T0 + 500);
+
+        assertThat(analyzed).containsExactly(T0, T0 + 500);
+    }
+
+    @Test
+    @DisplayName("Frames sem timestamp não são retidos")
+    void offer_PassesThroughFramesWithoutTimestamp() {
+        offer(0);
+
+        assertThat(analyzed).containsExactly(0L);
+    }
+
+    private EventTimeOrderingService create(Duration maxOutOfOrderness) {
+        var service = new EventTimeOrderingService(new EventTimeProperties(maxOutOfOrderness, 16),
+            trackExecutor, mock(ScheduledExecutorService.class), trackSymbols, meterRegistry);
+        service.start(event -> analyzed.add(event.eventTimeMillis()));
+        return service;
+    }
+
+    private void offer(long timestamp) {
+        orderingService.offer(event("det-1", timestamp, false));
+    }
+
+    private static RawTrackingEvent event(String detectionId, long timestamp, boolean hasWeapon) {
+        return new RawTrackingEvent(detectionId, timestamp, "C1", "U1", false, null, 50, hasWeapon, null, null, null,
+                                    BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.safevision.recognitionservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+
+import com.safevision.recognitionservice.config.AdmissionControlProperties;
+import com.safevision.recognitionservice.config.AdmissionControlProperties.SheddingPolicy;
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.pipeline.TrackPartitionedExecutor;
+import com.safevision.recognitionservice.rule.PersistentStareRule;
+import com.safevision.recognitionservice.rule.ThreatFinding;
+import com.safevision.recognitionservice.service.LoadSheddingService;
+import com.safevision.recognitionservice.service.LoadSheddingService.Admission;
+import com.safevision.recognitionservice.service.StareCounterService;
+import com.safevision.recognitionservice.state.MappedTrackStateStore;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LoadSheddingServiceTest {
+
+    private static final String QUEUE = "safevision.vision.raw.tracking";
+    private static final long T0 = 1_700_000_000_000L;
+
+    private final TrackPartitionedExecutor trackExecutor = mock(TrackPartitionedExecutor.class);
+    private final AmqpAdmin amqpAdmin = mock(AmqpAdmin.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private LoadSheddingService sheddingService;
+
+    @BeforeEach
+    void setUp() {
+        when(trackExecutor.capacity()).thenReturn(1_000);
+        sheddingService = create(SheddingPolicy.THIN);
+    }
+
+    @Test
+    @DisplayName("Sem sobrecarga todo frame deve ser processado")
+    void admit_ProcessesEverythingWhenNotOverloaded() {
+        sheddingService.checkLoad();
+
+        assertThat(sheddingService.isOverloaded()).isFalse();
+        assertThat(sheddingService.admit(routine("det-1", 0))).isEqualTo(Admission.PROCESS);
+        assertThat(sheddingService.admit(weapon("det-1", 0))).isEqualTo(Admission.PROCESS);
+    }
+
+    @Test
+    @DisplayName("Backlog dos workers acima do limite deve ativar a sobrecarga e priorizar armas")
+    void checkLoad_BacklogTriggersOverload() {
+        when(trackExecutor.backlog()).thenReturn(900);
+        sheddingService.checkLoad();
+
+        assertThat(sheddingService.isOverloaded()).isTrue();
+        assertThat(sheddingService.admit(weapon("det-1", 0))).isEqualTo(Admission.FAST_TRACK);
+        assertThat(sheddingService.admit(facing("det-1", 0))).isEqualTo(Admission.PROCESS);
+        assertThat(meterRegistry.get("recognition.admission.fast_tracked").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Arma não deve passar na frente de frames do próprio track ainda na fila")
+    void admit_KeepsWeaponInOrderBehindQueuedFramesOfItsTrack() {
+        overload();
+        when(trackExecutor.hasQueued("det-1")).thenReturn(true);
+
+        assertThat(sheddingService.admit(weapon("det-1", 0))).isEqualTo(Admission.PROCESS);
+        assertThat(sheddingService.admit(weapon("det-2", 0))).isEqualTo(Admission.FAST_TRACK);
+        assertThat(meterRegistry.get("recognition.admission.fast_tracked").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Profundidade da fila no broker acima do limite deve ativar a sobrecarga")
+    void checkLoad_QueueDepthTriggersOverload() {
+        when(amqpAdmin.getQueueInfo(QUEUE)).thenReturn(new QueueInformation(QUEUE, 20_000, 1));
+
+        sheddingService.checkLoad();
+
+        assertThat(sheddingService.isOverloaded()).isTrue();
+        assertThat(meterRegistry.get("recognition.admission.queue.depth").gauge().value()).isEqualTo(20_000.0);
+    }
+
+    @Test
+    @DisplayName("Atraso entre captura e consumo acima do limite deve ativar a sobrecarga")
+    void checkLoad_LagTriggersOverload() {
+        sheddingService.admit(routine("det-1", System.currentTimeMillis() - 10_000));
+
+        sheddingService.checkLoad();
+
+        assertThat(sheddingService.isOverloaded()).isTrue();
+        assertThat(meterRegistry.get("recognition.admission.lag").gauge().value()).isGreaterThanOrEqualTo(10_000.0);
+    }
+
+    @Test
+    @DisplayName("Política THIN deve manter no máximo um frame rotineiro por intervalo em cada track")
+    void admit_ThinsRoutineFramesPerTrack() {
+        overload();
+        long t0 = System.currentTimeMillis();
+
+        assertThat(sheddingService.admit(routine("det-1", t0))).isEqualTo(Admission.PROCESS);
+        assertThat(sheddingService.admit(routine("det-1", t0 + 500))).isEqualTo(Admission.SHED);
+        assertThat(sheddingService.admit(routine("det-2", t0 + 500))).isEqualTo(Admission.PROCESS);
+        assertThat(sheddingService.admit(routine("det-1", t0 + 1_000))).isEqualTo(Admission.PROCESS);
+
+        assertThat(meterRegistry.get("recognition.admission.shed").tag("reason", "thinned").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Política DROP deve descartar todo frame rotineiro sob sobrecarga")
+    void admit_DropsRoutineFrames() {
+        sheddingService = create(SheddingPolicy.DROP);
+        overload();
+
+        // O primeiro frame rotineiro do track muda o estado conhecido: é processado
+        assertThat(sheddingService.admit(routine("det-1", 0))).isEqualTo(Admission.PROCESS);
+        assertThat(sheddingService.admit(routine("det-1", 0))).isEqualTo(Admission.SHED);
+        assertThat(sheddingService.admit(routine("det-1", 0))).isEqualTo(Admission.SHED);
+        assertThat(meterRegistry.get("recognition.admission.shed").tag("reason", "dropped").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("Frames que mudam o estado do track nunca devem ser descartados")
+    void admit_ProcessesStateChanges() {
+        sheddingService = create(SheddingPolicy.DROP);
+        overload();
+
+        assertThat(sheddingService.admit(facing("det-1", 0))).isEqualTo(Admission.PROCESS);
+        assertThat(sheddingService.admit(routine("det-1", 500))).isEqualTo(Admission.PROCESS);
+        assertThat(sheddingService.admit(routine("det-1", 1_000))).isEqualTo(Admission.SHED);
+        assertThat(sheddingService.admit(weapon("det-1", 1_500))).isEqualTo(Admission.FAST_TRACK);
+        assertThat(sheddingService.admit(routine("det-1", 2_000))).isEqualTo(Admission.PROCESS);
+    }
+
+    @Test
+    @DisplayName("Descarte sob sobrecarga não deve emendar olhares separados por um desvio curto")
+    void admit_SheddingKeepsLookAwayBetweenStares() {
+        sheddingService = create(SheddingPolicy.DROP);
+        overload();
+        var store = MappedTrackStateStore.inMemory(16);
+        var stareCounter = new StareCounterService(store);
+        var stareRule = new PersistentStareRule(stareCounter);
+
+        // 2 fps: 3 s olhando, 1 s desviando (menos que o intervalo que reinicia o olhar), mais 3,5 s olhando
+        List<ThreatFinding> findings = new ArrayList<>();
+        for (long t = 0; t <= 8_000; t += 500) {
+            var frame = t > 3_000 && t < 4_500 ? routine("det-1", T0 + t) : facing("det-1", T0 + t);
+            if (sheddingService.admit(frame) == Admission.SHED) continue;
+            stareCounter.record(0, frame);
+            if (stareRule.appliesTo(frame)) stareRule.evaluate(0, frame).ifPresent(findings::add);
+        }
+
+        assertThat(findings).isEmpty();
+        assertThat(stareCounter.getStareDurationMillis("det-1")).isEqualTo(3_500);
+    }
+
+    @Test
+    @DisplayName("A sobrecarga só termina abaixo da razão de recuperação (histerese)")
+    void checkLoad_RecoversWithHysteresis() {
+        overload();
+
+        when(trackExecutor.backlog()).thenReturn(600); // 80% do limite: ainda sobrecarregado
+        sheddingService.checkLoad();
+        assertThat(sheddingService.isOverloaded()).isTrue();
+
+        when(trackExecutor.backlog()).thenReturn(100);
+        sheddingService.checkLoad();
+        assertThat(sheddingService.isOverloaded()).isFalse();
+        assertThat(sheddingService.admit(routine("det-1", 0))).isEqualTo(Admission.PROCESS);
+    }
+
+    private void overload() {
+        when(trackExecutor.backlog()).thenReturn(1_000);
+        sheddingService.checkLoad();
+        assertThat(sheddingService.isOverloaded()).isTrue();
+    }
+
+    private LoadSheddingService create(SheddingPolicy policy) {
+        var properties = new AdmissionControlProperties(true, policy, Duration.ofSeconds(2), 10_000, 0.75, 0.5,
+            Duration.ofSeconds(1), Duration.ofSeconds(1));
+        return new LoadSheddingService(properties, trackExecutor, mock(ScheduledExecutorService.class), amqpAdmin, QUEUE, meterRegistry);
+    }
+
+    private RawTrackingEvent routine(String id, long timestamp) {
+        return new RawTrackingEvent(id, timestamp, "cam-1", "user-1", false, null, 50, false, null, null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+
+    private RawTrackingEvent facing(String id, long timestamp) {
+        return new RawTrackingEvent(id, timestamp, "cam-1", "user-1", true, "CENTER", 50, false, null, null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+
+    private RawTrackingEvent weapon(String id, long timestamp) {
+        return new RawTrackingEvent(id, timestamp, "cam-1", "user-1", false, null, 50, true, "FIREARM", null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+}
@@ -1,9 +1,9 @@
 package com.safevision.recognitionservice;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 
 import java.math.BigDecimal;
-import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -11,43 +11,65 @@ import org.junit.jupiter.api.Test;
 
 import com.safevision.recognitionservice.dto.RawTrackingEvent;
 import com.safevision.recognitionservice.service.MovementHistoryService;
+import com.safevision.recognitionservice.state.MappedTrackStateStore;
+import com.safevision.recognitionservice.state.TrackHistoryView;
 
 class MovementHistoryServiceTest {
 
+    private static final long T0 = 1_700_000_000_000L;
+
     private MovementHistoryService historyService;
 
     @BeforeEach
     void setUp() {
-        historyService = new MovementHistoryService();
+        historyService = new MovementHistoryService(MappedTrackStateStore.inMemory(1024));
     }
 
     @Test
-    @DisplayName("Deve manter apenas os últimos 10 eventos (Janela Deslizante)")
+    @DisplayName("Deve manter apenas os últimos 5 segundos de eventos (Janela Deslizante)")
     void recordEvent_SlidingWindow_Success() {
         String detId = "test-1";
         
-        // Adiciona 15 eventos com profundidades de 1 a 15
+        // Adiciona 15 eventos a 2 fps com profundidades de 1 a 15
         for (int i = 1; i <= 15; i++) {
-            historyService.recordEvent(createMockEvent(detId, i));
+            historyService.recordEvent(createMockEvent(detId, i, T0 + i * 500L));
         }
 
-        List<Integer> depths = historyService.getDepths(detId);
+        TrackHistoryView history = historyService.getHistory(detId);
 
-        // 1. O tamanho deve ser exatamente 10 (conforme HISTORY_WINDOW_SIZE)
-        assertThat(depths).hasSize(10);
+        // 1. Ficam as amostras dos últimos 5 s (conforme HISTORY_SPAN_MILLIS)
+        assertThat(history.size()).isEqualTo(11);
+        assertThat(history.spanMillis()).isEqualTo(MappedTrackStateStore.HISTORY_SPAN_MILLIS);
         
-        // 2. Como usamos history.addFirst(), o primeiro elemento deve ser o último inserido (15)
-        assertThat(depths.get(0)).isEqualTo(15);
+        // 2. A idade 0 é sempre a amostra mais recente (15)
+        assertThat(history.depthAt(0)).isEqualTo(15);
         
-        // 3. O último da lista deve ser o 6 (pois o 1-5 foram removidos da janela)
-        assertThat(depths.get(9)).isEqualTo(6);
+        // 3. A mais antiga deve ser a 5 (as de 1 a 4 saíram da janela)
+        assertThat(history.depthAt(10)).isEqualTo(5);
     }
 
     @Test
-    @DisplayName("Deve retornar lista vazia para ID inexistente")
-    void getDepths_EmptyForUnknownId() {
-        List<Integer> depths = historyService.getDepths("unknown");
-        assertThat(depths).isEmpty();
+    @DisplayName("Em taxas maiores de frames a janela deve continuar cobrindo o tempo do loitering")
+    void recordEvent_WindowCoversTimeAtHigherFrameRates() {
+        String detId = "fast";
+
+        // 6 fps durante 8 segundos
+        for (int i = 0; i < 48; i++) {
+            historyService.recordEvent(createMockEvent(detId, 100 + i, T0 + i * 1_000L / 6));
+        }
+
+        TrackHistoryView history = historyService.getHistory(detId);
+        assertThat(history.size()).isLessThanOrEqualTo(MappedTrackStateStore.HISTORY_CAPACITY);
+        assertThat(history.spanMillis()).isBetween(4_500L, MappedTrackStateStore.HISTORY_SPAN_MILLIS);
+        // Profundidade cresce 6 unidades por segundo
+        assertThat(history.depthSlope()).isCloseTo(6.0, within(0.05));
+    }
+
+    @Test
+    @DisplayName("Deve retornar histórico vazio para ID inexistente")
+    void getHistory_EmptyForUnknownId() {
+        TrackHistoryView history = historyService.getHistory("unknown");
+        assertThat(history.isEmpty()).isTrue();
     }
 
     @Test
@@ -56,15 +78,19 @@ class MovementHistoryServiceTest {
         String detId = "to-clear";
         historyService.recordEvent(createMockEvent(detId, 50));
         
-        assertThat(historyService.getDepths(detId)).isNotEmpty();
+        assertThat(historyService.getHistory(detId).isEmpty()).isFalse();
         
         historyService.clearHistory(detId);
         
-        assertThat(historyService.getDepths(detId)).isEmpty();
+        assertThat(historyService.getHistory(detId).isEmpty()).isTrue();
     }
 
     private RawTrackingEvent createMockEvent(String id, int depth) {
-        return new RawTrackingEvent(id, System.currentTimeMillis(), "CAM", "USER", 
+        return createMockEvent(id, depth, System.currentTimeMillis());
+    }
+
+    private RawTrackingEvent createMockEvent(String id, int depth, long timestamp) {
+        return new RawTrackingEvent(id, timestamp, "CAM", "USER", 
                                    false, null, depth, false, null, null, null, 
                                    BigDecimal.ZERO, BigDecimal.ZERO);
     }
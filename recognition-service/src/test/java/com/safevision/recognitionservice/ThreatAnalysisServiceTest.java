@@ -1,75 +1,236 @@
 package com.safevision.recognitionservice;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
 
+import com.safevision.recognitionservice.config.AlertSuppressionProperties;
+import com.safevision.recognitionservice.config.EvidenceCacheProperties;
+import com.safevision.recognitionservice.config.ThreatPatternProperties;
+import com.safevision.recognitionservice.dto.AlertEventDTO;
 import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.pattern.PatternSignal;
+import com.safevision.recognitionservice.pattern.SequencePattern;
 import com.safevision.recognitionservice.producer.AlertProducer;
+import com.safevision.recognitionservice.rule.ApproachingThreatRule;
+import com.safevision.recognitionservice.rule.PersistentStareRule;
+import com.safevision.recognitionservice.rule.SequencePatternRule;
+import com.safevision.recognitionservice.rule.ThreatRuleEngine;
+import com.safevision.recognitionservice.rule.WeaponThreatRule;
+import com.safevision.recognitionservice.service.AlertSuppressionService;
+import com.safevision.recognitionservice.service.EvidenceCacheService;
 import com.safevision.recognitionservice.service.MovementHistoryService;
+import com.safevision.recognitionservice.service.PatternMatcherService;
+import com.safevision.recognitionservice.service.StareCounterService;
 import com.safevision.recognitionservice.service.ThreatAnalysisService;
+import com.safevision.recognitionservice.state.MappedTrackStateStore;
+import com.safevision.recognitionservice.state.SymbolTable;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(MockitoExtension.class)
 class ThreatAnalysisServiceTest {
 
+    private static final long T0 = 1_700_000_000_000L;
+
     @Mock private AlertProducer alertProducer;
-    @Mock private MovementHistoryService historyService;
-    @InjectMocks private ThreatAnalysisService threatAnalysisService;
+
+    private MovementHistoryService historyService;
+    private SimpleMeterRegistry meterRegistry;
+    private ThreatAnalysisService threatAnalysisService;
+
+    @BeforeEach
+    void setUp() {
+        // Regras e stores reais: apenas a saída (AlertProducer) é mockada
+        var trackStore = MappedTrackStateStore.inMemory(1024);
+        historyService = new MovementHistoryService(trackStore);
+        var stareCounter = new StareCounterService(trackStore);
+        meterRegistry = new SimpleMeterRegistry();
+        var evidenceCache = new EvidenceCacheService(
+            new EvidenceCacheProperties(1_000, DataSize.ofMegabytes(1), Duration.ofDays(30)), meterRegistry);
+
+        var patternMatcher = new PatternMatcherService(new ThreatPatternProperties(List.of(
+            new SequencePattern("stare-then-approach", "OBSERVACAO_SEGUIDA_DE_APROXIMACAO", "Observou e se aproximou.",
+                List.of(PatternSignal.STARING, PatternSignal.APPROACHING), Duration.ofSeconds(5)))),
+            historyService, stareCounter, meterRegistry);
+
+        var ruleEngine = new ThreatRuleEngine(
+            List.of(new WeaponThreatRule(), new PersistentStareRule(stareCounter), new ApproachingThreatRule(historyService),
+                    new SequencePatternRule(patternMatcher)),
+            List.of(historyService, stareCounter, patternMatcher, evidenceCache),
+            meterRegistry
+        );
+        var alertProperties = new AlertSuppressionProperties(Duration.ofSeconds(30), true);
+        threatAnalysisService = new ThreatAnalysisService(alertProducer, ruleEngine, evidenceCache,
+            new AlertSuppressionService(alertProperties, meterRegistry), alertProperties, new SymbolTable(), meterRegistry);
+    }
 
     @Test
     @DisplayName("Regra 1: Deve disparar alerta quando arma for detectada")
     void analyze_WeaponRule_Success() {
-        var event = createEvent("det-1", true, false, 50);
+        var event = createEvent("det-1", T0, true, false, 50);
         threatAnalysisService.analyze(event);
         verify(alertProducer, times(1)).sendAlert(any());
     }
 
     @Test
-    @DisplayName("Regra 2: Deve disparar alerta após 10 encaradas (stare)")
+    @DisplayName("Regra 2: Deve disparar alerta após 5 segundos encarando a câmera (stare)")
     void analyze_StareRule_Success() {
-        var event = createEvent("det-stare", false, true, 50);
-        // Simula 10 chamadas
-        for (int i = 0; i < 10; i++) {
-            threatAnalysisService.analyze(event);
+        // 11 frames a 2 fps: 0 ms .. 5000 ms de event time
+        for (int i = 0; i <= 10; i++) {
+            threatAnalysisService.analyze(createEvent("det-stare", T0 + i * 500L, false, true, 50));
         }
         verify(alertProducer, atLeastOnce()).sendAlert(any());
     }
 
+    @Test
+    @DisplayName("Regra 2: A duração da encarada vem do event time, não da quantidade de frames")
+    void analyze_StareRule_UsesEventTime() {
+        // Backlog reenviado a 10 fps: 11 frames cobrem apenas 1 segundo
+        for (int i = 0; i <= 10; i++) {
+            threatAnalysisService.analyze(createEvent("det-fast", T0 + i * 100L, false, true, 50));
+        }
+        verify(alertProducer, never()).sendAlert(any());
+
+        // Agente lento a 1 fps: 6 frames já somam 5 segundos
+        for (int i = 0; i <= 5; i++) {
+            threatAnalysisService.analyze(createEvent("det-slow", T0 + i * 1_000L, false, true, 50));
+        }
+        verify(alertProducer, times(1)).sendAlert(any());
+    }
+
     @Test
     @DisplayName("Regra 3: Deve disparar alerta quando houver aproximação rápida (Janela de 10)")
     void analyze_LoiteringRule_Success() {
         String detId = "det-loiter";
-        var event = createEvent(detId, false, false, 40);
 
-        // Criamos uma lista com 10 elementos (o tamanho da janela)
-        // index 0 (atual) = 40
-        // index 9 (antigo) = 10
+        // idade 9 (antiga) = 10, idade 0 (atual) = 40
         // Diferença: 40 - 10 = 30 (que é >= 15)
-        List<Integer> mockDepths = List.of(40, 35, 30, 25, 20, 18, 15, 12, 11, 10);
-        
-        when(historyService.getDepths(detId)).thenReturn(mockDepths);
+        int[] depths = {10, 11, 12, 15, 18, 20, 25, 30, 35, 40};
+        for (int i = 0; i < depths.length; i++) {
+            threatAnalysisService.analyze(createEvent(detId, T0 + i * 500L, false, false, depths[i]));
+        }
 
-        threatAnalysisService.analyze(event);
+        verify(alertProducer, times(1)).sendAlert(any());
+    }
+
+    @Test
+    @DisplayName("Regra 3: Uma única leitura ruidosa de profundidade não deve disparar o alerta")
+    void analyze_LoiteringRule_IgnoresSingleNoisyDepth() {
+        // Sujeito parado a 10; só o último frame traz uma leitura errada de 30
+        for (int i = 0; i < 9; i++) {
+            threatAnalysisService.analyze(createEvent("det-noisy", T0 + i * 500L, false, false, 10));
+        }
+        threatAnalysisService.analyze(createEvent("det-noisy", T0 + 9 * 500L, false, false, 30));
+
+        verify(alertProducer, never()).sendAlert(any());
+    }
+
+    @Test
+    @DisplayName("Deve registrar o histórico exatamente uma vez por evento")
+    void analyze_RecordsHistoryOncePerEvent() {
+        for (int i = 0; i < 5; i++) {
+            threatAnalysisService.analyze(createEvent("det-once", T0 + i * 500L, false, false, 50));
+        }
+
+        assertThat(historyService.getHistory("det-once").size()).isEqualTo(5);
+        verify(alertProducer, never()).sendAlert(any());
+    }
+
+    @Test
+    @DisplayName("Padrão: Deve disparar alerta quando a encarada é seguida de aproximação rápida")
+    void analyze_StareThenApproachPattern_Success() {
+        // 2 segundos encarando, sem chegar aos 5 segundos da regra 2
+        for (int i = 0; i <= 4; i++) {
+            threatAnalysisService.analyze(createEvent("det-seq", T0 + i * 500L, false, true, 50));
+        }
+        // Desvia o olhar e avança rápido, antes da janela da regra 3
+        threatAnalysisService.analyze(createEvent("det-seq", T0 + 2_500, false, false, 60));
+        verify(alertProducer, never()).sendAlert(any());
+        threatAnalysisService.analyze(createEvent("det-seq", T0 + 3_000, false, false, 75));
+
+        ArgumentCaptor<AlertEventDTO> alert = ArgumentCaptor.forClass(AlertEventDTO.class);
+        verify(alertProducer).sendAlert(alert.capture());
+        assertThat(alert.getValue().alertType()).isEqualTo("OBSERVACAO_SEGUIDA_DE_APROXIMACAO");
+        assertThat(meterRegistry.get("recognition.patterns.matched").tag("pattern", "stare-then-approach").counter().count())
+            .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Deve anexar a evidência em cache ao alerta")
+    void analyze_AttachesCachedEvidence() {
+        var withSnapshot = new RawTrackingEvent("det-ev", T0, "C1", "U1",
+                                                false, null, 50, false, null, null, "http://minio/snap.jpg",
+                                                BigDecimal.ZERO, BigDecimal.ZERO);
+        threatAnalysisService.analyze(withSnapshot);
+        threatAnalysisService.analyze(createEvent("det-ev", T0 + 500, true, false, 50));
+
+        ArgumentCaptor<AlertEventDTO> alert = ArgumentCaptor.forClass(AlertEventDTO.class);
+        verify(alertProducer).sendAlert(alert.capture());
+        assertThat(alert.getValue().snapshotUrl()).isEqualTo("http://minio/snap.jpg");
+        assertThat(meterRegistry.get("recognition.evidence.lookups").tag("result", "hit").counter().count())
+            .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Deve suprimir alertas repetidos do mesmo tipo dentro da janela")
+    void analyze_SuppressesRepeatedAlerts() {
+        for (int i = 0; i < 6; i++) {
+            threatAnalysisService.analyze(createEvent("det-flood", T0 + i * 500L, true, false, 50));
+        }
 
-        // Agora sim o alertProducer deve ser chamado!
         verify(alertProducer, times(1)).sendAlert(any());
+        assertThat(meterRegistry.get("recognition.alerts.suppressed").tag("type", "PISTOLA_DETECTADA").counter().count())
+            .isEqualTo(5.0);
+    }
+
+    @Test
+    @DisplayName("Deve unir regras disparadas no mesmo frame em um único alerta composto")
+    void analyze_CoalescesFindingsOfSameFrame() {
+        for (int i = 0; i < 10; i++) {
+            threatAnalysisService.analyze(createEvent("det-combo", T0 + i * 500L, false, true, 50));
+        }
+        // Frame dos 5 segundos: encarada persistente + arma ao mesmo tempo
+        threatAnalysisService.analyze(createEvent("det-combo", T0 + 5_000, true, true, 50));
+
+        ArgumentCaptor<AlertEventDTO> alert = ArgumentCaptor.forClass(AlertEventDTO.class);
+        verify(alertProducer, times(1)).sendAlert(alert.capture());
+        assertThat(alert.getValue().alertType()).isEqualTo("PISTOLA_DETECTADA+OBSERVACAO_DETECTADA");
+        assertThat(alert.getValue().description()).contains("PISTOLA foi localizada na MAO").contains(" | ");
+        assertThat(meterRegistry.get("recognition.alerts.coalesced").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Deve registrar o atraso entre a captura na borda e a análise")
+    void analyze_RecordsEdgeToAnalysisDelay() {
+        threatAnalysisService.analyze(createEvent("det-delay", System.currentTimeMillis() - 2_000, false, false, 50));
+        threatAnalysisService.analyze(createEvent("det-delay", 0, false, false, 50));
+
+        var delay = meterRegistry.get("recognition.events.delay").timer();
+        assertThat(delay.count()).isEqualTo(1);
+        assertThat(delay.totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(2_000.0);
     }
 
-    private RawTrackingEvent createEvent(String id, boolean weapon, boolean facing, int depth) {
-        return new RawTrackingEvent(id, System.currentTimeMillis(), "C1", "U1", 
+    private RawTrackingEvent createEvent(String id, long timestamp, boolean weapon, boolean facing, int depth) {
+        return new RawTrackingEvent(id, timestamp, "C1", "U1", 
                                    facing, null, depth, weapon, "PISTOLA", "MAO", null, 
                                    BigDecimal.ZERO, BigDecimal.ZERO);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,104 @@
+package com.safevision.recognitionservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.safevision.recognitionservice.config.TrackStateProperties;
+import com.safevision.recognitionservice.pipeline.TrackPartitionedExecutor;
+import com.safevision.recognitionservice.service.TrackEvictionService;
+import com.safevision.recognitionservice.state.SymbolTable;
+import com.safevision.recognitionservice.state.TrackStateStore;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TrackEvictionServiceTest {
+
+    private final TrackStateStore historyStore = mock(TrackStateStore.class);
+    private final TrackStateStore stareStore = mock(TrackStateStore.class);
+    private final SymbolTable trackSymbols = new SymbolTable();
+    private final TrackPartitionedExecutor trackExecutor = mock(TrackPartitionedExecutor.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TrackEvictionService evictionService;
+
+    @BeforeEach
+    void setUp() {
+        // Executa a eviction na própria thread do teste, simulando o worker do track
+        doAnswer(inv -> {
+            inv.<Runnable>getArgument(1).run();
+            return true;
+        }).when(trackExecutor).tryExecute(anyString(), any());
+
+        var properties = new TrackStateProperties(Duration.ofMillis(20), Duration.ofMillis(5));
+        evictionService = new TrackEvictionService(properties, List.of(historyStore, stareStore),
+            trackSymbols, trackExecutor, mock(ScheduledExecutorService.class), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Deve liberar o estado de todos os stores quando o track fica ocioso")
+    void sweep_EvictsIdleTrackFromAllStores() throws InterruptedException {
+        evictionService.touch("det-gone");
+        int track = trackSymbols.handle("det-gone");
+        assertThat(meterRegistry.get("recognition.tracks.live").gauge().value()).isEqualTo(1.0);
+
+        Thread.sleep(60);
+        evictionService.sweep();
+
+        verify(historyStore).evict(track, "det-gone");
+        verify(stareStore).evict(track, "det-gone");
+        // O handle só volta para a tabela depois que todos os stores esqueceram o track
+        assertThat(trackSymbols.find("det-gone")).isEqualTo(SymbolTable.NO_HANDLE);
+        assertThat(evictionService.liveTracks()).isZero();
+        assertThat(meterRegistry.get("recognition.tracks.evicted").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Worker cheio não deve travar a varredura: o track volta para a próxima")
+    void sweep_RetriesEvictionWhenWorkerIsFull() throws InterruptedException {
+        evictionService.touch("det-gone");
+        int track = trackSymbols.handle("det-gone");
+        Thread.sleep(60);
+        doReturn(false).when(trackExecutor).tryExecute(anyString(), any());
+
+        evictionService.sweep();
+
+        verify(historyStore, never()).evict(anyInt(), anyString());
+        assertThat(evictionService.liveTracks()).isEqualTo(1);
+
+        doAnswer(inv -> {
+            inv.<Runnable>getArgument(1).run();
+            return true;
+        }).when(trackExecutor).tryExecute(anyString(), any());
+        Thread.sleep(10);
+        evictionService.sweep();
+
+        verify(historyStore).evict(track, "det-gone");
+        assertThat(evictionService.liveTracks()).isZero();
+    }
+
+    @Test
+    @DisplayName("Não deve liberar o estado de um track ativo")
+    void sweep_KeepsActiveTrack() {
+        evictionService.touch("det-active");
+
+        evictionService.sweep();
+
+        verify(historyStore, never()).evict(anyInt(), anyString());
+        assertThat(evictionService.liveTracks()).isEqualTo(1);
+    }
+}
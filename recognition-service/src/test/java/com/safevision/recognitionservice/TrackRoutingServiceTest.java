@@ -0,0 +1,158 @@
+package com.safevision.recognitionservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+
+import com.safevision.recognitionservice.codec.RawTrackingBinaryCodec;
+import com.safevision.recognitionservice.config.TrackRoutingProperties;
+import com.safevision.recognitionservice.config.TrackRoutingProperties.PartitionKey;
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.service.TrackRoutingService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TrackRoutingServiceTest {
+
+    private static final String QUEUE = "safevision.vision.raw.tracking";
+    private static final int FRAMES = 200;
+
+    private final DiscoveryClient discoveryClient = mock(DiscoveryClient.class);
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private SimpleMeterRegistry meterRegistry;
+
+    private TrackRoutingService routing;
+
+    @BeforeEach
+    void setUp() {
+        routing = create(true, PartitionKey.DETECTION_ID);
+    }
+
+    @Test
+    @DisplayName("Instância sozinha no Eureka deve processar todos os frames localmente")
+    void forwardIfRemote_KeepsEverythingWhenAlone() {
+        routing.refresh();
+
+        for (int i = 0; i < FRAMES; i++) {
+            assertThat(routing.forwardIfRemote(event("det-" + i, "cam-1"))).isFalse();
+        }
+        verify(rabbitTemplate, never()).send(anyString(), anyString(), any(Message.class));
+    }
+
+    @Test
+    @DisplayName("Com duas instâncias, frames do outro dono devem ir para a fila dele em formato binário")
+    void forwardIfRemote_ForwardsForeignTracksToOwnerQueue() {
+        joinPeer();
+
+        int forwarded = 0;
+        for (int i = 0; i < FRAMES; i++) {
+            if (routing.forwardIfRemote(event("det-" + i, "cam-1"))) forwarded++;
+        }
+
+        ArgumentCaptor<Message> message = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate, times(forwarded)).send(eq(""), eq(QUEUE + ".host-b-recognition-service-8080"), message.capture());
+        assertThat(forwarded).isBetween(FRAMES / 4, FRAMES * 3 / 4);
+        assertThat(message.getValue().getMessageProperties().getContentType()).isEqualTo(RawTrackingBinaryCodec.CONTENT_TYPE);
+        assertThat(meterRegistry.get("recognition.routing.forwarded").counter().count()).isEqualTo(forwarded);
+        assertThat(meterRegistry.get("recognition.routing.instances").gauge().value()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("Os frames de um mesmo track devem ter sempre o mesmo destino")
+    void forwardIfRemote_IsStablePerTrack() {
+        joinPeer();
+
+        for (int i = 0; i < FRAMES; i++) {
+            var first = routing.forwardIfRemote(event("det-" + i, "cam-1"));
+            assertThat(routing.forwardIfRemote(event("det-" + i, "cam-1"))).isEqualTo(first);
+        }
+    }
+
+    @Test
+    @DisplayName("Particionando por câmera, todos os tracks de uma câmera devem ficar na mesma instância")
+    void forwardIfRemote_PartitionsByCamera() {
+        routing = create(true, PartitionKey.CAMERA_ID);
+        joinPeer();
+
+        var first = routing.forwardIfRemote(event("det-0", "cam-7"));
+        for (int i = 1; i < FRAMES; i++) {
+            assertThat(routing.forwardIfRemote(event("det-" + i, "cam-7"))).isEqualTo(first);
+        }
+    }
+
+    @Test
+    @DisplayName("Falha ao encaminhar deve processar o frame localmente em vez de perdê-lo")
+    void forwardIfRemote_FallsBackToLocalOnFailure() {
+        joinPeer();
+        doThrow(new RuntimeException("broker down")).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class));
+
+        for (int i = 0; i < FRAMES; i++) {
+            assertThat(routing.forwardIfRemote(event("det-" + i, "cam-1"))).isFalse();
+        }
+        assertThat(meterRegistry.get("recognition.routing.forward.failed").counter().count()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Roteamento desligado nunca deve encaminhar frames")
+    void forwardIfRemote_DisabledKeepsEverything() {
+        routing = create(false, PartitionKey.DETECTION_ID);
+
+        assertThat(routing.forwardIfRemote(event("det-1", "cam-1"))).isFalse();
+        verify(rabbitTemplate, never()).send(anyString(), anyString(), any(Message.class));
+    }
+
+    private void joinPeer() {
+        var self = instance("host-a:recognition-service:8080");
+        var peer = instance("host-b:recognition-service:8080");
+        when(discoveryClient.getInstances("recognition-service")).thenReturn(List.of(self, peer));
+        routing.refresh();
+        assertThat(meterRegistry.get("recognition.routing.rebalances").counter().count()).isEqualTo(1.0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private TrackRoutingService create(boolean enabled, PartitionKey partitionKey) {
+        Registration registration = mock(Registration.class);
+        when(registration.getServiceId()).thenReturn("recognition-service");
+        when(registration.getInstanceId()).thenReturn("host-a:recognition-service:8080");
+        ObjectProvider<Registration> registrationProvider = mock(ObjectProvider.class);
+        when(registrationProvider.getIfAvailable()).thenReturn(registration);
+        ObjectProvider<DiscoveryClient> discoveryProvider = mock(ObjectProvider.class);
+        when(discoveryProvider.getIfAvailable()).thenReturn(discoveryClient);
+
+        meterRegistry = new SimpleMeterRegistry();
+        var properties = new TrackRoutingProperties(enabled, partitionKey, 64, Duration.ofMinutes(5));
+        return new TrackRoutingService(properties, discoveryProvider, registrationProvider, rabbitTemplate, QUEUE, meterRegistry);
+    }
+
+    private ServiceInstance instance(String instanceId) {
+        ServiceInstance instance = mock(ServiceInstance.class);
+        when(instance.getInstanceId()).thenReturn(instanceId);
+        return instance;
+    }
+
+    private RawTrackingEvent event(String id, String cameraId) {
+        return new RawTrackingEvent(id, 123L, cameraId, "user-1", false, null, 50, false, null, null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,67 @@
+package com.safevision.recognitionservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.safevision.recognitionservice.codec.RawTrackingCaptureFile;
+import com.safevision.recognitionservice.config.TrackingCaptureProperties;
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.service.TrackingCaptureService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TrackingCaptureServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Deve gravar os frames recebidos e parar ao atingir o limite")
+    void record_WritesFramesUpToTheLimit() throws IOException {
+        Path file = tempDir.resolve("raw.svcp");
+        var capture = new TrackingCaptureService(new TrackingCaptureProperties(true, file.toString(), 3, 100), meterRegistry);
+        capture.start();
+
+        for (int i = 0; i < 5; i++) {
+            capture.record(event("det-" + i));
+        }
+        capture.stop();
+
+        List<String> ids = new ArrayList<>();
+        try (var reader = new RawTrackingCaptureFile.Reader(file)) {
+            while (reader.next()) ids.add(reader.event().detectionId());
+        }
+        assertThat(ids).containsExactly("det-0", "det-1", "det-2");
+        assertThat(meterRegistry.get("recognition.capture.recorded").counter().count()).isEqualTo(3.0);
+        assertThat(capture.isCapturing()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Captura desligada não deve fazer nada")
+    void record_IgnoredWhenDisabled() throws IOException {
+        Path file = tempDir.resolve("raw.svcp");
+        var capture = new TrackingCaptureService(new TrackingCaptureProperties(false, file.toString(), 3, 100), meterRegistry);
+        capture.start();
+
+        capture.record(event("det-1"));
+
+        assertThat(capture.isCapturing()).isFalse();
+        assertThat(Files.exists(file)).isFalse();
+    }
+
+    private RawTrackingEvent event(String id) {
+        return new RawTrackingEvent(id, 1_700_000_000_123L, "cam-1", "user-1", false, null, 50, false, null, null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,119 @@
+package com.safevision.recognitionservice.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+
+class RawTrackingBinaryMessageConverterTest {
+
+    private final RawTrackingEvent event = new RawTrackingEvent("det-1", 1_700_000_000_123L, "CAM-01", "user-42",
+        true, "LEFT", 57, false, null, null, null, new BigDecimal("-23.5505199"), new BigDecimal("-46.6333094"));
+
+    private final ContentTypeDelegatingMessageConverter converter = createConverter();
+
+    @Test
+    @DisplayName("Deve decodificar mensagens binárias pelo content_type")
+    void fromMessage_Binary() {
+        var properties = new MessageProperties();
+        properties.setContentType(RawTrackingBinaryCodec.CONTENT_TYPE);
+
+        Object decoded = converter.fromMessage(new Message(RawTrackingBinaryCodec.encode(event), properties));
+
+        assertThat(decoded).isEqualTo(event);
+    }
+
+    @Test
+    @DisplayName("Frames seguidos devem reaproveitar as mesmas Strings de IDs, câmera e usuário")
+    void fromMessage_InternsIdentifiers() {
+        var properties = new MessageProperties();
+        properties.setContentType(RawTrackingBinaryCodec.CONTENT_TYPE);
+        var next = new RawTrackingEvent("det-1", 1_700_000_000_156L, "CAM-01", "user-42",
+            false, "LEFT", 55, false, null, null, "https://minio/evidence/1.jpg", null, null);
+
+        var first = (RawTrackingEvent) converter.fromMessage(new Message(RawTrackingBinaryCodec.encode(event), properties));
+        var second = (RawTrackingEvent) converter.fromMessage(new Message(RawTrackingBinaryCodec.encode(next), properties));
+
+        assertThat(second).isEqualTo(next);
+        assertThat(second.detectionId()).isSameAs(first.detectionId());
+        assertThat(second.cameraId()).isSameAs(first.cameraId());
+        assertThat(second.userId()).isSameAs(first.userId());
+    }
+
+    @Test
+    @DisplayName("Deve continuar aceitando JSON durante a migração")
+    void fromMessage_JsonFallback() {
+        String json = """
+            {"detectionId":"det-1","timestamp":1700000000123,"cameraId":"CAM-01","userId":"user-42",
+             "isFacingCamera":true,"gazeDirection":"LEFT","depthPosition":57,"hasWeapon":false,
+             "latitude":-23.5505199,"longitude":-46.6333094}
+            """;
+        var properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setInferredArgumentType(RawTrackingEvent.class);
+
+        Object decoded = converter.fromMessage(new Message(json.getBytes(StandardCharsets.UTF_8), properties));
+
+        assertThat(decoded).isEqualTo(event);
+    }
+
+    @Test
+    @DisplayName("JSON e binário na mesma thread devem compartilhar o dicionário de IDs")
+    void fromMessage_SharesDictionaryWithJsonDecoder() {
+        String json = """
+            {"detectionId":"det-shared","timestamp":1700000000123,"cameraId":"CAM-SHARED","userId":"user-shared",
+             "isFacingCamera":false,"depthPosition":57,"hasWeapon":false}
+            """;
+        var forwarded = new RawTrackingEvent("det-shared", 1_700_000_000_156L, "CAM-SHARED", "user-shared",
+            false, null, 55, false, null, null, null, null, null);
+        var properties = new MessageProperties();
+        properties.setContentType(RawTrackingBinaryCodec.CONTENT_TYPE);
+
+        var fromJson = (RawTrackingEvent) new RawTrackingJsonMessageConverter(new Jackson2JsonMessageConverter())
+            .fromMessage(new Message(json.getBytes(StandardCharsets.UTF_8), new MessageProperties()));
+        var fromBinary = (RawTrackingEvent) converter.fromMessage(new Message(RawTrackingBinaryCodec.encode(forwarded), properties));
+
+        assertThat(fromBinary.detectionId()).isSameAs(fromJson.detectionId());
+        assertThat(fromBinary.cameraId()).isSameAs(fromJson.cameraId());
+        assertThat(fromBinary.userId()).isSameAs(fromJson.userId());
+    }
+
+    @Test
+    @DisplayName("Deve gerar mensagens binárias com o content_type do schema")
+    void toMessage_SetsContentType() {
+        var properties = new MessageProperties();
+        properties.setContentType(RawTrackingBinaryCodec.CONTENT_TYPE);
+
+        Message message = converter.toMessage(event, properties);
+
+        assertThat(message.getMessageProperties().getContentType()).isEqualTo(RawTrackingBinaryCodec.CONTENT_TYPE);
+        assertThat(message.getBody()).isEqualTo(RawTrackingBinaryCodec.encode(event));
+    }
+
+    @Test
+    @DisplayName("Corpo binário malformado deve gerar MessageConversionException (rejeição sem requeue)")
+    void fromMessage_Malformed() {
+        var properties = new MessageProperties();
+        properties.setContentType(RawTrackingBinaryCodec.CONTENT_TYPE);
+
+        assertThatThrownBy(() -> converter.fromMessage(new Message(new byte[] {1, 2, 3}, properties)))
+            .isInstanceOf(MessageConversionException.class);
+    }
+
+    private static ContentTypeDelegatingMessageConverter createConverter() {
+        var converter = new ContentTypeDelegatingMessageConverter(new Jackson2JsonMessageConverter());
+        converter.addDelegate(RawTrackingBinaryCodec.CONTENT_TYPE, new RawTrackingBinaryMessageConverter());
+        return converter;
+    }
+}
@@ -0,0 +1,74 @@
+package com.safevision.recognitionservice.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+
+class RawTrackingCaptureFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Deve ler os frames gravados na mesma ordem, com o horário de recepção")
+    void writeThenRead_RoundTrips() throws IOException {
+        Path file = tempDir.resolve("capture/raw.svcp");
+        var first = event("det-1", true);
+        var second = event("det-2", false);
+        try (var writer = new RawTrackingCaptureFile.Writer(file)) {
+            writer.write(1_000L, first);
+            writer.write(1_040L, second);
+        }
+
+        try (var reader = new RawTrackingCaptureFile.Reader(file)) {
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.receivedAtMillis()).isEqualTo(1_000L);
+            assertThat(reader.event()).isEqualTo(first);
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.event()).isEqualTo(second);
+            assertThat(reader.next()).isFalse();
+        }
+    }
+
+    @Test
+    @DisplayName("Registro cortado no fim do arquivo deve ser ignorado")
+    void read_IgnoresTruncatedLastRecord() throws IOException {
+        Path file = tempDir.resolve("raw.svcp");
+        try (var writer = new RawTrackingCaptureFile.Writer(file)) {
+            writer.write(1_000L, event("det-1", false));
+            writer.write(1_040L, event("det-2", false));
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 5));
+
+        try (var reader = new RawTrackingCaptureFile.Reader(file)) {
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.next()).isFalse();
+        }
+    }
+
+    @Test
+    @DisplayName("Arquivo que não é captura deve ser recusado")
+    void read_RejectsOtherFiles() throws IOException {
+        Path file = tempDir.resolve("other.json");
+        Files.writeString(file, "{\"detectionId\":\"det-1\"}");
+
+        assertThatThrownBy(() -> new RawTrackingCaptureFile.Reader(file)).isInstanceOf(IOException.class);
+    }
+
+    private RawTrackingEvent event(String id, boolean hasWeapon) {
+        return new RawTrackingEvent(id, 1_700_000_000_123L, "cam-1", "user-1", true, "LEFT", 57, hasWeapon,
+            hasWeapon ? "FIREARM" : null, null, "http://minio/snap.jpg", new BigDecimal("-27.5969000"), new BigDecimal("-48.5495000"));
+    }
+}
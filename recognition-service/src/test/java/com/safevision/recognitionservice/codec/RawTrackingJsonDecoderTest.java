@@ -0,0 +1,105 @@
+package com.safevision.recognitionservice.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+
+class RawTrackingJsonDecoderTest {
+
+    /** Payload as serialized by the Vision Agent (Python json.dumps). */
+    static final String AGENT_PAYLOAD = """
+        {"detectionId": "det-1", "timestamp": 1700000000123, "isFacingCamera": true, "depthPosition": 57, \
+        "gazeDirection": "LEFT", "cameraId": "VISION-AGENT", "userId": "user-42", "hasWeapon": true, \
+        "weaponType": "PISTOLA", "weaponLocation": "MAO", "snapshotUrl": "http://minio/snap.jpg", \
+        "latitude": -27.5969, "longitude": -48.5495}""";
+
+    private final RawTrackingJsonDecoder decoder = new RawTrackingJsonDecoder();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Deve produzir o mesmo evento que o Jackson")
+    void decode_MatchesJackson() throws Exception {
+        String[] payloads = {
+            AGENT_PAYLOAD,
+            "{\"detectionId\":\"d\",\"userId\":\"u\"}",
+            "{\"detectionId\":\"d\",\"userId\":\"u\",\"latitude\":null,\"longitude\":0,\"snapshotUrl\":null,\"timestamp\":null}",
+            "{\"detectionId\":\"d\",\"userId\":\"u\",\"latitude\":1e-05,\"longitude\":-1.50E+2,\"depthPosition\":-3}",
+            "{\"detectionId\":\"c\\u00e2mera \\\"1\\\"\",\"userId\":\"usuário\",\"gazeDirection\":\"\\t\"}",
+            "{\"extra\":{\"nested\":[1,2.5,{\"x\":\"y\"}],\"flag\":true},\"detectionId\":\"d\",\"userId\":\"u\",\"more\":null}",
+            "  {\"detectionId\" : \"d\" ,\n \"userId\" : \"u\" }  "
+        };
+
+        for (String payload : payloads) {
+            byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+            assertThat(decoder.decode(body)).as(payload).isEqualTo(objectMapper.readValue(body, RawTrackingEvent.class));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve recusar (para o fallback) o que está fora do subconjunto suportado")
+    void decode_RejectsUnsupportedShapes() {
+        String[] payloads = {
+            "{\"detectionId\":\"d\",\"userId\":\"u\",\"timestamp\":1.7E12}",   // float em campo inteiro
+            "{\"detectionId\":\"d\",\"userId\":\"u\",\"cameraId\":42}",        // coerção de escalar
+            "{\"detectionId\":\"d\",\"userId\":\"u\",\"latitude\":\"-27.5\"}", // número como string
+            "{\"detectionId\":\"d\",\"userId\":\"u\",\"latitude\":-27.12345678901234567}",
+            "{\"detection\\u0049d\":\"d\",\"userId\":\"u\"}",                   // chave com escape
+            "{\"detectionId\":\"d\",\"userId\":\"u\"",                          // truncado
+            "[]"
+        };
+
+        for (String payload : payloads) {
+            assertThatThrownBy(() -> decoder.decode(payload.getBytes(StandardCharsets.UTF_8)))
+                .as(payload)
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve reaproveitar as strings de IDs repetidos e as coordenadas de uma câmera parada")
+    void decode_ReusesRepeatedValues() {
+        byte[] body = AGENT_PAYLOAD.getBytes(StandardCharsets.UTF_8);
+
+        RawTrackingEvent first = decoder.decode(body);
+        RawTrackingEvent second = decoder.decode(body);
+
+        assertThat(second.cameraId()).isSameAs(first.cameraId());
+        assertThat(second.userId()).isSameAs(first.userId());
+        assertThat(second.detectionId()).isSameAs(first.detectionId());
+        assertThat(second.latitude()).isSameAs(first.latitude());
+        // URLs de snapshot são únicas: nunca entram no dicionário
+        assertThat(second.snapshotUrl()).isNotSameAs(first.snapshotUrl());
+    }
+
+    @Test
+    @DisplayName("Em regime, a decodificação aloca apenas o próprio evento e a URL do snapshot")
+    void decode_AllocatesOnlyTheEvent() {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        byte[] body = AGENT_PAYLOAD.replace("\"http://minio/snap.jpg\"", "null").getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < 10_000; i++) {
+            decoder.decode(body);
+        }
+
+        int events = 10_000;
+        long threadId = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < events; i++) {
+            decoder.decode(body);
+        }
+        long perEvent = (threads.getThreadAllocatedBytes(threadId) - before) / events;
+
+        // O record RawTrackingEvent ocupa 64 bytes com compressed oops; a margem cobre outros layouts de JVM
+        assertThat(perEvent).isLessThanOrEqualTo(96L);
+    }
+}
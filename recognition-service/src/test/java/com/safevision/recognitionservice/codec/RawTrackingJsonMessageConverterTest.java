@@ -0,0 +1,52 @@
+package com.safevision.recognitionservice.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+
+class RawTrackingJsonMessageConverterTest {
+
+    private final MessageConverter jackson = mock(MessageConverter.class);
+    private final RawTrackingJsonMessageConverter converter = new RawTrackingJsonMessageConverter(jackson);
+
+    @Test
+    @DisplayName("Deve decodificar o payload do agente sem passar pelo Jackson")
+    void fromMessage_StreamingPath() {
+        Object decoded = converter.fromMessage(message(RawTrackingJsonDecoderTest.AGENT_PAYLOAD));
+
+        assertThat(decoded).isInstanceOf(RawTrackingEvent.class);
+        assertThat(((RawTrackingEvent) decoded).cameraId()).isEqualTo("VISION-AGENT");
+        verifyNoInteractions(jackson);
+    }
+
+    @Test
+    @DisplayName("Deve delegar ao Jackson o que o decoder não suporta")
+    void fromMessage_FallsBackToJackson() {
+        var fallbackEvent = new RawTrackingEvent("d", 1_700_000_000_000L, null, "u", false, null, 0, false, null, null, null, null, null);
+        when(jackson.fromMessage(any())).thenReturn(fallbackEvent);
+
+        Message message = message("{\"detectionId\":\"d\",\"userId\":\"u\",\"timestamp\":1.7E12}");
+
+        assertThat(converter.fromMessage(message)).isSameAs(fallbackEvent);
+        verify(jackson).fromMessage(message);
+    }
+
+    private static Message message(String json) {
+        var properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        return new Message(json.getBytes(StandardCharsets.UTF_8), properties);
+    }
+}
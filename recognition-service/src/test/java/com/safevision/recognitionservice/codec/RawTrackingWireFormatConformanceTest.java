@@ -0,0 +1,123 @@
+package com.safevision.recognitionservice.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+
+/**
+ * Conformance suite of the binary wire format (schema v1).
+ * The golden vectors are shared with the Vision Agent ({@code vision-agent/tests/test_wire_format.py}).
+ */
+class RawTrackingWireFormatConformanceTest {
+
+    private static final RawTrackingEvent FULL_EVENT = new RawTrackingEvent(
+        "det-1", 1_700_000_000_123L, "CAM-01", "user-42", true, "LEFT", 57, true, "PISTOLA", "MAO",
+        "http://minio/s.jpg", new BigDecimal("-23.5505199"), new BigDecimal("-46.6333094"));
+    private static final String FULL_HEX =
+        "5356010f0000018bcfe5687b00000039fffffffff1f679d1ffffffffe434525a"
+        + "00056465742d31000643414d2d30310007757365722d343200044c454654"
+        + "0007504953544f4c4100034d414f0012687474703a2f2f6d696e696f2f732e6a7067";
+
+    private static final RawTrackingEvent MINIMAL_EVENT = new RawTrackingEvent(
+        "d", 0L, null, "u", false, null, 0, false, null, null, null, null, null);
+    private static final String MINIMAL_HEX =
+        "5356010000000000000000000000000000000000000000000000000000000000"
+        + "000164ffff000175ffffffffffffffff";
+
+    private static final RawTrackingEvent UNICODE_EVENT = new RawTrackingEvent(
+        "câmera-ç-👁", 1_700_000_000L, null, "u", false, null, -1, false, null, null, null,
+        BigDecimal.ZERO, new BigDecimal("180"));
+    private static final String UNICODE_HEX =
+        "5356010c000000006553f100ffffffff0000000000000000000000006b49d200"
+        + "000f63c3a26d6572612dc3a72df09f9181ffff000175ffffffffffffffff";
+
+    @Test
+    @DisplayName("Vetor completo: todos os campos preenchidos")
+    void fullVector() {
+        assertThat(hex(RawTrackingBinaryCodec.encode(FULL_EVENT))).isEqualTo(FULL_HEX);
+        assertThat(RawTrackingBinaryCodec.decode(bytes(FULL_HEX))).isEqualTo(FULL_EVENT);
+    }
+
+    @Test
+    @DisplayName("Vetor mínimo: strings opcionais nulas e sem coordenadas")
+    void minimalVector() {
+        assertThat(hex(RawTrackingBinaryCodec.encode(MINIMAL_EVENT))).isEqualTo(MINIMAL_HEX);
+        assertThat(RawTrackingBinaryCodec.decode(bytes(MINIMAL_HEX))).isEqualTo(MINIMAL_EVENT);
+    }
+
+    @Test
+    @DisplayName("Vetor unicode: UTF-8 multibyte, profundidade negativa e coordenadas nos limites")
+    void unicodeVector() {
+        assertThat(hex(RawTrackingBinaryCodec.encode(UNICODE_EVENT))).isEqualTo(UNICODE_HEX);
+
+        RawTrackingEvent decoded = RawTrackingBinaryCodec.decode(bytes(UNICODE_HEX));
+        assertThat(decoded.detectionId()).isEqualTo("câmera-ç-👁");
+        assertThat(decoded.depthPosition()).isEqualTo(-1);
+        // Coordenadas voltam com escala fixa de 7 casas: compara pelo valor
+        assertThat(decoded.latitude().compareTo(BigDecimal.ZERO)).isZero();
+        assertThat(decoded.longitude().compareTo(new BigDecimal("180"))).isZero();
+    }
+
+    @Test
+    @DisplayName("Coordenadas são arredondadas para 7 casas decimais")
+    void roundsCoordinatesToSevenDecimals() {
+        var event = new RawTrackingEvent("d", 1L, null, "u", false, null, 0, false, null, null, null,
+            new BigDecimal("-23.55051994"), new BigDecimal("-46.63330945"));
+
+        RawTrackingEvent decoded = RawTrackingBinaryCodec.decode(RawTrackingBinaryCodec.encode(event));
+
+        assertThat(decoded.latitude()).isEqualTo(new BigDecimal("-23.5505199"));
+        assertThat(decoded.longitude()).isEqualTo(new BigDecimal("-46.6333095"));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar mensagens malformadas")
+    void rejectsMalformedMessages() {
+        byte[] valid = bytes(MINIMAL_HEX);
+
+        byte[] badMagic = valid.clone();
+        badMagic[0] = 'X';
+        byte[] badVersion = valid.clone();
+        badVersion[2] = 2;
+        byte[] trailing = Arrays.copyOf(valid, valid.length + 1);
+
+        assertThatThrownBy(() -> RawTrackingBinaryCodec.decode(Arrays.copyOf(valid, 31))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RawTrackingBinaryCodec.decode(Arrays.copyOf(valid, valid.length - 1))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RawTrackingBinaryCodec.decode(badMagic)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RawTrackingBinaryCodec.decode(badVersion)).hasMessageContaining("version");
+        assertThatThrownBy(() -> RawTrackingBinaryCodec.decode(trailing)).hasMessageContaining("Trailing");
+    }
+
+    @Test
+    @DisplayName("Deve aplicar as validações do evento ao decodificar")
+    void rejectsEventWithoutDetectionId() {
+        byte[] nullDetectionId = bytes("5356010000000000000000000000000000000000000000000000000000000000"
+            + "ffffffff000175ffffffffffffffff");
+
+        assertThatThrownBy(() -> RawTrackingBinaryCodec.decode(nullDetectionId)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar strings maiores do que o prefixo de 16 bits comporta")
+    void rejectsOversizedString() {
+        var event = new RawTrackingEvent("d", 1L, null, "u", false, null, 0, false, null, null, "x".repeat(0xFFFF), null, null);
+
+        assertThatThrownBy(() -> RawTrackingBinaryCodec.encode(event)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String hex(byte[] bytes) {
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    private static byte[] bytes(String hex) {
+        return HexFormat.of().parseHex(hex);
+    }
+}
@@ -0,0 +1,51 @@
+package com.safevision.recognitionservice.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class StringDictionaryTest {
+
+    @Test
+    @DisplayName("Deve devolver a mesma instância para os mesmos bytes")
+    void intern_ReturnsCachedInstance() {
+        var dictionary = new StringDictionary(16, 64);
+        byte[] body = "xxCAM-01yyCAM-01".getBytes(StandardCharsets.UTF_8);
+
+        String first = dictionary.intern(body, 2, 6);
+        String second = dictionary.intern(body, 10, 6);
+
+        assertThat(first).isEqualTo("CAM-01");
+        assertThat(second).isSameAs(first);
+        assertThat(dictionary.hits()).isEqualTo(1);
+        assertThat(dictionary.misses()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve manter o tamanho limitado, substituindo entradas em colisão")
+    void intern_StaysBounded() {
+        var dictionary = new StringDictionary(2, 64);
+        for (int i = 0; i < 100; i++) {
+            byte[] id = ("det-" + i).getBytes(StandardCharsets.UTF_8);
+            assertThat(dictionary.intern(id, 0, id.length)).isEqualTo("det-" + i);
+        }
+
+        assertThat(dictionary.misses()).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("Valores maiores que o limite não entram no dicionário")
+    void intern_SkipsLongValues() {
+        var dictionary = new StringDictionary(16, 4);
+        byte[] url = "http://minio/snap.jpg".getBytes(StandardCharsets.UTF_8);
+
+        String first = dictionary.intern(url, 0, url.length);
+        String second = dictionary.intern(url, 0, url.length);
+
+        assertThat(second).isEqualTo(first).isNotSameAs(first);
+        assertThat(dictionary.hits()).isZero();
+    }
+}
@@ -0,0 +1,33 @@
+package com.safevision.recognitionservice.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TimedMessageConverterTest {
+
+    private final RawTrackingEvent event = new RawTrackingEvent("det-1", 1_700_000_000_123L, "CAM-01", "user-42",
+        true, "LEFT", 57, false, null, null, null, new BigDecimal("-23.5505199"), new BigDecimal("-46.6333094"));
+
+    private final Timer decodeTimer = Timer.builder("decode").register(new SimpleMeterRegistry());
+    private final TimedMessageConverter converter = new TimedMessageConverter(new RawTrackingBinaryMessageConverter(), decodeTimer);
+
+    @Test
+    @DisplayName("Deve medir apenas a decodificação, repassando a mensagem ao conversor decorado")
+    void fromMessage_TimesDecodeOnly() {
+        Message message = converter.toMessage(event, new MessageProperties());
+
+        assertThat(converter.fromMessage(message)).isEqualTo(event);
+        assertThat(decodeTimer.count()).isEqualTo(1);
+    }
+}
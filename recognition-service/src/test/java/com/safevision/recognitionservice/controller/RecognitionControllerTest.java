@@ -2,6 +2,8 @@ package com.safevision.recognitionservice.controller;
 
 import com.safevision.recognitionservice.facade.TrackingWorkflowFacade;
 import com.safevision.recognitionservice.producer.AlertProducer;
+import com.safevision.recognitionservice.service.CrowdDensityService;
+import com.safevision.recognitionservice.service.EventJournalService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -23,6 +25,12 @@ class RecognitionControllerTest {
     @MockBean
     private AlertProducer alertProducer; // 👈 O Spring reclamou da falta deste cara
 
+    @MockBean
+    private CrowdDensityService crowdDensityService;
+
+    @MockBean
+    private EventJournalService eventJournalService;
+
     @Test
     void controllerLoads() throws Exception {
         // Apenas valida que o contexto web do controller sobe
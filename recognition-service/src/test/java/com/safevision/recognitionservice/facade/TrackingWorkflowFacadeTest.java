@@ -1,21 +1,33 @@
 package com.safevision.recognitionservice.facade;
 
 import com.safevision.recognitionservice.dto.RawTrackingEvent;
-import com.safevision.recognitionservice.service.MovementHistoryService;
+import com.safevision.recognitionservice.pipeline.DeliveryWindow;
+import com.safevision.recognitionservice.service.EventJournalService;
+import com.safevision.recognitionservice.service.EventTimeOrderingService;
 import com.safevision.recognitionservice.service.ThreatAnalysisService;
+import com.safevision.recognitionservice.service.TrackEvictionService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.InOrder;
+
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class TrackingWorkflowFacadeTest {
 
     @Mock private ThreatAnalysisService threatAnalysisService;
-    @Mock private MovementHistoryService movementHistoryService;
+    @Mock private TrackEvictionService trackEvictionService;
+    @Mock private EventTimeOrderingService eventTimeOrdering;
+    @Mock private EventJournalService eventJournal;
     @InjectMocks private TrackingWorkflowFacade facade;
 
     @Test
@@ -24,14 +36,76 @@ class TrackingWorkflowFacadeTest {
         
         facade.processEvent(event);
 
-        // Verifica se chamou o histórico E a análise
-        verify(movementHistoryService).recordEvent(event);
-        verify(threatAnalysisService).analyze(event);
+        // Verifica se marcou o track como ativo E entregou o frame à ordenação por event time
+        InOrder inOrder = inOrder(trackEvictionService, eventTimeOrdering);
+        inOrder.verify(trackEvictionService).touch("d1");
+        inOrder.verify(eventTimeOrdering).offer(event, null, 0);
+    }
+
+    @Test
+    void shouldSettleDeliveryOfFrameThatNeverReachesOrdering() {
+        var event = new RawTrackingEvent("d1", 123L, "c1", "u1", false, null, 50, false, null, null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+        var deliveries = mock(DeliveryWindow.class);
+        doThrow(new RuntimeException("Simulated Error")).when(trackEvictionService).touch("d1");
+
+        assertThatThrownBy(() -> facade.processEvent(event, deliveries, 4L)).isInstanceOf(RuntimeException.class);
+        facade.processEvent(null, deliveries, 5L);
+
+        // A ordenação é quem libera a entrega dos frames que recebe; os demais são liberados aqui
+        verify(deliveries).processed(4L);
+        verify(deliveries).processed(5L);
+        verifyNoInteractions(eventTimeOrdering);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldAnalyzeFramesReleasedInEventTimeOrder() {
+        var event = new RawTrackingEvent("d1", 123L, "c1", "u1", false, null, 50, false, null, null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+
+        facade.start();
+
+        // A análise (que registra o histórico) é o destino dos frames já ordenados; depois, o journal
+        ArgumentCaptor<Consumer<RawTrackingEvent>> downstream = ArgumentCaptor.forClass(Consumer.class);
+        verify(eventTimeOrdering).start(downstream.capture());
+        downstream.getValue().accept(event);
+        InOrder inOrder = inOrder(threatAnalysisService, eventJournal);
+        inOrder.verify(threatAnalysisService).analyze(event);
+        inOrder.verify(eventJournal).append(event);
     }
 
     @Test
     void shouldIgnoreNullEvent() {
         facade.processEvent(null);
-        verifyNoInteractions(movementHistoryService, threatAnalysisService);
+        verifyNoInteractions(threatAnalysisService, trackEvictionService, eventTimeOrdering);
+    }
+
+    @Test
+    void shouldGroupBatchByTrackAndKeepOrder() {
+        var first = new RawTrackingEvent("d1", 1L, "c1", "u1", false, null, 10, false, null, null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+        var other = new RawTrackingEvent("d2", 2L, "c1", "u1", false, null, 20, false, null, null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+        var second = new RawTrackingEvent("d1", 3L, "c1", "u1", false, null, 30, false, null, null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+
+        facade.processBatch(List.of(first, other, second));
+
+        // Cada track é marcado como ativo uma única vez por lote
+        verify(trackEvictionService, times(1)).touch("d1");
+        verify(trackEvictionService, times(1)).touch("d2");
+
+        // Os frames do mesmo track são entregues em sequência, na ordem de chegada
+        InOrder inOrder = inOrder(eventTimeOrdering);
+        inOrder.verify(eventTimeOrdering).offer(first);
+        inOrder.verify(eventTimeOrdering).offer(second);
+        inOrder.verify(eventTimeOrdering).offer(other);
+    }
+
+    @Test
+    void shouldIsolateFailingTrackInBatch() {
+        var broken = new RawTrackingEvent("d1", 1L, "c1", "u1", false, null, 10, false, null, null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+        var healthy = new RawTrackingEvent("d2", 2L, "c1", "u1", false, null, 20, false, null, null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+        doThrow(new RuntimeException("Simulated Error")).when(eventTimeOrdering).offer(broken);
+
+        facade.processBatch(List.of(broken, healthy));
+
+        verify(eventTimeOrdering).offer(healthy);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,145 @@
+package com.safevision.recognitionservice.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.safevision.recognitionservice.codec.RawTrackingBinaryCodec;
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+
+class ColumnarSegmentTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Deve devolver os frames idênticos aos do segmento original após a compactação")
+    void compact_PreservesEveryField() throws IOException {
+        List<RawTrackingEvent> events = List.of(
+            new RawTrackingEvent("det-1", T0, "cam-1", "user-1", true, "LEFT", 80, true, "FIREARM", "RIGHT_HAND",
+                "https://minio/evidence/1.jpg", new BigDecimal("-23.5505199"), new BigDecimal("-46.6333094")),
+            new RawTrackingEvent("det-1", T0 + 33, "cam-1", "user-1", false, null, 75, false, null, null, null, null, null),
+            // Timestamp em segundos (agentes antigos) e sem timestamp: indexados pelo horário de recebimento
+            new RawTrackingEvent("det-2", T0 / 1000, "cam-1", "user-2", false, "RIGHT", -5, false, null, null, null, BigDecimal.ZERO, null),
+            new RawTrackingEvent("det-3", 0, "cam-1", "user-1", false, null, 0, false, null, null, null, null, null),
+            new RawTrackingEvent("det-4", T0 + 10, null, "user-1", false, null, 100, false, null, null, null, null, null));
+
+        JournalSegment raw = JournalSegment.create(tempDir, 100, 1 << 16, 2, T0);
+        for (int i = 0; i < events.size(); i++) {
+            raw.append(events.get(i), RawTrackingBinaryCodec.encode(events.get(i)), T0 + i);
+        }
+        raw.seal();
+
+        ColumnarSegment columnar = ColumnarSegment.compact(raw, 2);
+
+        List<JournalEntry> fromRaw = new ArrayList<>();
+        List<JournalEntry> fromColumnar = new ArrayList<>();
+        raw.read("cam-1", 0, Long.MAX_VALUE, fromRaw::add);
+        columnar.read("cam-1", 0, Long.MAX_VALUE, fromColumnar::add);
+        assertThat(fromColumnar).hasSize(4).isEqualTo(fromRaw);
+        assertThat(fromColumnar.get(0).sequence()).isEqualTo(100L);
+
+        List<JournalEntry> noCamera = new ArrayList<>();
+        columnar.read(null, 0, Long.MAX_VALUE, noCamera::add);
+        assertThat(noCamera).hasSize(1);
+        assertThat(noCamera.get(0).event()).isEqualTo(events.get(4));
+
+        assertThat(columnar.baseSequence()).isEqualTo(100L);
+        assertThat(columnar.nextSequence()).isEqualTo(105L);
+        assertThat(columnar.newestReceivedAtMillis()).isEqualTo(T0 + 4);
+    }
+
+    @Test
+    @DisplayName("Consulta deve decodificar só os blocos da câmera que cobrem o período")
+    void read_SkipsBlocksOutsideThePeriod() throws IOException {
+        JournalSegment raw = JournalSegment.create(tempDir, 0, 1 << 20, 16, T0);
+        for (int i = 0; i < 1_000; i++) {
+            var event = new RawTrackingEvent("det-" + (i / 100), T0 + i * 33L, i % 2 == 0 ? "cam-1" : "cam-2", "user-1",
+                false, null, 50 + i % 7, false, null, null, null, new BigDecimal("-23.5505199"), new BigDecimal("-46.6333094"));
+            raw.append(event, RawTrackingBinaryCodec.encode(event), T0 + i * 33L + 5);
+        }
+        raw.seal();
+
+        ColumnarSegment columnar = ColumnarSegment.compact(raw, 16);
+
+        // 500 frames da cam-1 em blocos de 16: só os que cruzam o intervalo são lidos
+        assertThat(columnar.blocks("cam-1", 0, Long.MAX_VALUE)).hasSize(32);
+        assertThat(columnar.blocks("cam-1", T0 + 330 * 33L, T0 + 360 * 33L)).hasSize(2);
+        assertThat(columnar.blocks("cam-3", 0, Long.MAX_VALUE)).isEmpty();
+
+        List<JournalEntry> frames = new ArrayList<>();
+        columnar.read("cam-1", T0 + 330 * 33L, T0 + 360 * 33L, frames::add);
+        assertThat(frames).hasSize(16);
+        assertThat(frames.get(0).sequence()).isEqualTo(330L);
+        assertThat(frames.get(15).sequence()).isEqualTo(360L);
+
+        // IDs repetidos, tempos regulares e profundidades próximas ocupam poucos bits por frame
+        assertThat(Files.size(columnar.file())).isLessThan(raw.sizeBytes() / 5);
+    }
+
+    @Test
+    @DisplayName("Deve parar a leitura quando o visitante pede")
+    void read_StopsWhenTheVisitorSays() throws IOException {
+        JournalSegment raw = JournalSegment.create(tempDir, 0, 1 << 16, 4, T0);
+        for (int i = 0; i < 20; i++) {
+            var event = new RawTrackingEvent("det-1", T0 + i, "cam-1", "user-1", false, null, 50, false, null, null, null, null, null);
+            raw.append(event, RawTrackingBinaryCodec.encode(event), T0 + i);
+        }
+        raw.seal();
+        ColumnarSegment columnar = ColumnarSegment.compact(raw, 4);
+
+        List<JournalEntry> frames = new ArrayList<>();
+        boolean completed = columnar.read("cam-1", 0, Long.MAX_VALUE, frame -> frames.add(frame) && frames.size() < 6);
+
+        assertThat(completed).isFalse();
+        assertThat(frames).hasSize(6);
+    }
+
+    @Test
+    @DisplayName("Colunas devem voltar idênticas, inclusive com valores extremos")
+    void columns_RoundTripExtremeValues() {
+        long[] values = {Long.MIN_VALUE, -1, 0, 1, Long.MAX_VALUE, 42, 42, -7};
+        long[] steady = {T0, T0 + 33, T0 + 66, T0 + 99, T0 + 130, T0 + 100, T0 + 500, T0 + 533};
+        var out = new ColumnWriter(16);
+        out.writeDeltas(values, values.length);
+        out.writeDeltaOfDeltas(steady, steady.length);
+        out.writePacked(values, values.length);
+        out.writePacked(new long[] {5, 5, 5}, 3);
+        out.writePacked(steady, steady.length);
+
+        var bytes = new java.io.ByteArrayOutputStream();
+        try {
+            out.writeTo(bytes);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        var in = new ColumnReader(ByteBuffer.wrap(bytes.toByteArray()), 0);
+        assertThat(in.readDeltas(values.length)).containsExactly(values);
+        assertThat(in.readDeltaOfDeltas(steady.length)).containsExactly(steady);
+        ColumnReader.Packed packed = in.readPacked(values.length);
+        int constantStart = in.position();
+        ColumnReader.Packed constant = in.readPacked(3);
+        int constantSize = in.position() - constantStart;
+        ColumnReader.Packed packedSteady = in.readPacked(steady.length);
+        for (int i = 0; i < values.length; i++) {
+            assertThat(packed.get(i)).isEqualTo(values[i]);
+            assertThat(packedSteady.get(i)).isEqualTo(steady[i]);
+        }
+        assertThat(constant.get(2)).isEqualTo(5L);
+        // Coluna constante: só o mínimo e a largura zero, nenhum bit por linha
+        assertThat(constantSize).isEqualTo(2);
+        assertThat(in.position()).isEqualTo(out.size());
+    }
+}
@@ -0,0 +1,191 @@
+package com.safevision.recognitionservice.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+
+class EventJournalTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Deve ler de volta só os frames da câmera dentro do intervalo pedido")
+    void read_FiltersByCameraAndTime() throws IOException {
+        try (var journal = new EventJournal(tempDir, 1 << 20, Duration.ofHours(1), 4)) {
+            for (int i = 0; i < 40; i++) {
+                journal.append(event("det-" + i, i % 2 == 0 ? "cam-1" : "cam-2", T0 + i * 100L), T0 + i * 100L);
+            }
+            journal.commit();
+
+            List<JournalEntry> entries = read(journal, "cam-1", T0 + 1_000, T0 + 2_000);
+
+            assertThat(ids(entries)).containsExactly("det-10", "det-12", "det-14", "det-16", "det-18", "det-20");
+            assertThat(entries.stream().map(JournalEntry::sequence).toList()).containsExactly(10L, 12L, 14L, 16L, 18L, 20L);
+            assertThat(read(journal, "cam-3", T0, T0 + 4_000)).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("Frames só ficam visíveis para leitura depois do commit")
+    void read_SeesOnlyCommittedFrames() throws IOException {
+        try (var journal = new EventJournal(tempDir, 1 << 20, Duration.ofHours(1), 4)) {
+            journal.append(event("det-1", "cam-1", T0), T0);
+            assertThat(read(journal, "cam-1", T0, T0)).isEmpty();
+
+            journal.commit();
+            assertThat(read(journal, "cam-1", T0, T0)).hasSize(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve trocar de segmento quando o atual enche e manter a leitura contínua")
+    void append_RollsOverFullSegments() throws IOException {
+        try (var journal = new EventJournal(tempDir, 2_048, Duration.ofHours(1), 4)) {
+            for (int i = 0; i < 50; i++) {
+                journal.append(event("det-" + i, "cam-1", T0 + i), T0 + i);
+            }
+            journal.commit();
+
+            assertThat(journal.segmentCount()).isGreaterThan(1);
+            List<JournalEntry> entries = read(journal, "cam-1", T0, T0 + 100);
+            assertThat(entries).hasSize(50);
+            for (int i = 0; i < entries.size(); i++) {
+                assertThat(entries.get(i).sequence()).isEqualTo(i);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Deve reabrir os segmentos de uma execução anterior e continuar a sequência")
+    void open_RecoversPreviousSegments() throws IOException {
+        try (var journal = new EventJournal(tempDir, 1 << 20, Duration.ofHours(1), 4)) {
+            for (int i = 0; i < 10; i++) {
+                journal.append(event("det-" + i, "cam-1", T0 + i), T0 + i);
+            }
+        }
+        // Sem o índice gravado no fechamento, ele é reconstruído a partir dos registros
+        try (Stream<Path> files = Files.list(tempDir)) {
+            for (Path index : files.filter(f -> f.toString().endsWith(JournalSegment.INDEX_SUFFIX)).toList()) {
+                Files.delete(index);
+            }
+        }
+
+        try (var journal = new EventJournal(tempDir, 1 << 20, Duration.ofHours(1), 4)) {
+            assertThat(journal.append(event("det-10", "cam-1", T0 + 10), T0 + 10)).isEqualTo(10L);
+            journal.commit();
+
+            assertThat(ids(read(journal, "cam-1", T0, T0 + 100))).containsExactly("det-0", "det-1", "det-2", "det-3", "det-4", "det-5", "det-6", "det-7", "det-8", "det-9", "det-10");
+        }
+    }
+
+    @Test
+    @DisplayName("Deve descartar o registro corrompido no fim do segmento e tudo depois dele")
+    void open_DropsTornRecord() throws IOException {
+        Path segment;
+        try (var journal = new EventJournal(tempDir, 1 << 20, Duration.ofHours(1), 4)) {
+            journal.append(event("det-0", "cam-1", T0), T0);
+            journal.append(event("det-1", "cam-1", T0 + 1), T0 + 1);
+            segment = tempDir.resolve(JournalSegment.fileName(0));
+        }
+        // Corrompe o último byte do segundo registro, como uma escrita interrompida
+        int first = JournalSegment.HEADER_SIZE;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            channel.read(length, first);
+            int second = first + JournalSegment.RECORD_HEADER_SIZE + length.flip().getInt();
+            channel.read(length.clear(), second);
+            int last = second + JournalSegment.RECORD_HEADER_SIZE + length.flip().getInt() - 1;
+            ByteBuffer lastByte = ByteBuffer.allocate(1);
+            channel.read(lastByte, last);
+            lastByte.put(0, (byte) ~lastByte.get(0)).clear();
+            channel.write(lastByte, last);
+        }
+        Files.delete(tempDir.resolve("00000000000000000000" + JournalSegment.INDEX_SUFFIX));
+
+        try (var journal = new EventJournal(tempDir, 1 << 20, Duration.ofHours(1), 4)) {
+            assertThat(ids(read(journal, "cam-1", T0, T0 + 100))).containsExactly("det-0");
+        }
+    }
+
+    @Test
+    @DisplayName("Deve apagar segmentos fora da retenção ou além do tamanho máximo, nunca o ativo")
+    void enforceRetention_DeletesOldSegments() throws IOException {
+        try (var journal = new EventJournal(tempDir, 1 << 20, Duration.ofMillis(100), 4)) {
+            for (int i = 0; i < 5; i++) {
+                // Cada frame chega 1 s depois do anterior, num segmento novo
+                journal.append(event("det-" + i, "cam-1", T0 + i * 1_000L), T0 + i * 1_000L);
+            }
+            journal.commit();
+            assertThat(journal.segmentCount()).isEqualTo(5);
+
+            assertThat(journal.enforceRetention(Duration.ofMillis(2_500), Long.MAX_VALUE, T0 + 4_000)).isEqualTo(2);
+            assertThat(ids(read(journal, "cam-1", T0, T0 + 10_000))).containsExactly("det-2", "det-3", "det-4");
+
+            assertThat(journal.enforceRetention(Duration.ofDays(1), 0, T0 + 4_000)).isEqualTo(2);
+            assertThat(journal.segmentCount()).isEqualTo(1);
+            assertThat(read(journal, "cam-1", T0, T0 + 10_000)).hasSize(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve compactar os segmentos selados sem mudar o que a leitura devolve")
+    void compact_ReplacesSealedSegmentsWithColumnarFiles() throws IOException {
+        try (var journal = new EventJournal(tempDir, 2_048, Duration.ofHours(1), 4)) {
+            for (int i = 0; i < 50; i++) {
+                journal.append(event("det-" + i, i % 2 == 0 ? "cam-1" : "cam-2", T0 + i), T0 + i);
+            }
+            journal.commit();
+            int segments = journal.segmentCount();
+            List<JournalEntry> before = read(journal, "cam-1", T0 + 10, T0 + 40);
+
+            assertThat(journal.compact()).isEqualTo(segments - 1);
+            assertThat(journal.compact()).isZero();
+            assertThat(journal.segmentCount()).isEqualTo(segments);
+            assertThat(read(journal, "cam-1", T0 + 10, T0 + 40)).isEqualTo(before);
+        }
+        // Só o segmento ativo continua no formato bruto
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files.filter(f -> f.toString().endsWith(JournalSegment.SUFFIX)).count()).isEqualTo(1L);
+        }
+
+        try (var journal = new EventJournal(tempDir, 2_048, Duration.ofHours(1), 4)) {
+            assertThat(journal.append(event("det-50", "cam-1", T0 + 50), T0 + 50)).isEqualTo(50L);
+            journal.commit();
+
+            assertThat(read(journal, "cam-1", T0, T0 + 100)).hasSize(26);
+        }
+    }
+
+    private static List<JournalEntry> read(EventJournal journal, String cameraId, long from, long to) {
+        List<JournalEntry> entries = new ArrayList<>();
+        journal.read(cameraId, from, to, entries::add);
+        return entries;
+    }
+
+    private static List<String> ids(List<JournalEntry> entries) {
+        return entries.stream().map(entry -> entry.event().detectionId()).toList();
+    }
+
+    private static RawTrackingEvent event(String id, String cameraId, long timestamp) {
+        return new RawTrackingEvent(id, timestamp, cameraId, "user-1", false, null, 50, false, null, null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+}
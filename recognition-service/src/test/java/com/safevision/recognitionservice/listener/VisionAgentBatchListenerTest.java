@@ -0,0 +1,108 @@
+package com.safevision.recognitionservice.listener;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.facade.TrackingWorkflowFacade;
+import com.safevision.recognitionservice.pipeline.TrackPartitionedExecutor;
+import com.safevision.recognitionservice.service.LoadSheddingService;
+import com.safevision.recognitionservice.service.LoadSheddingService.Admission;
+import com.safevision.recognitionservice.service.TrackRoutingService;
+import com.safevision.recognitionservice.service.TrackingCaptureService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VisionAgentBatchListenerTest {
+
+    @Mock private TrackingWorkflowFacade facade;
+    @Mock private LoadSheddingService loadShedding;
+    @Mock private TrackRoutingService trackRouting;
+    @Mock private TrackingCaptureService capture;
+
+    // Executor real com um único worker: todo o lote cai na mesma partição
+    private final TrackPartitionedExecutor trackExecutor = new TrackPartitionedExecutor(1, 16);
+
+    @AfterEach
+    void tearDown() {
+        trackExecutor.shutdown();
+    }
+
+    @Test
+    void shouldDispatchBatchToWorkflow() {
+        when(loadShedding.admit(any())).thenReturn(Admission.PROCESS);
+        var listener = new VisionAgentBatchListener(facade, trackExecutor, loadShedding, trackRouting, capture);
+        var batch = List.of(createEvent("det-1"), createEvent("det-2"), createEvent("det-1"));
+
+        listener.handleRawTrackingBatch(batch);
+
+        verify(facade, timeout(2000)).processBatch(batch);
+    }
+
+    @Test
+    void shouldIgnoreEmptyBatch() {
+        var listener = new VisionAgentBatchListener(facade, trackExecutor, loadShedding, trackRouting, capture);
+
+        listener.handleRawTrackingBatch(List.of());
+
+        verify(facade, after(200).never()).processBatch(anyList());
+    }
+
+    @Test
+    void shouldLeaveShedFramesOutAndFastTrackWeapons() {
+        var routine = createEvent("det-1");
+        var shed = createEvent("det-2");
+        var weapon = new RawTrackingEvent("det-3", 123L, "c1", "u1", false, null, 50, true, "FIREARM", null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+        when(loadShedding.admit(routine)).thenReturn(Admission.PROCESS);
+        when(loadShedding.admit(shed)).thenReturn(Admission.SHED);
+        when(loadShedding.admit(weapon)).thenReturn(Admission.FAST_TRACK);
+        var listener = new VisionAgentBatchListener(facade, trackExecutor, loadShedding, trackRouting, capture);
+
+        listener.handleRawTrackingBatch(List.of(routine, shed, weapon));
+
+        verify(facade, timeout(2000)).processBatch(List.of(weapon));
+        verify(facade, timeout(2000)).processBatch(List.of(routine));
+        verify(facade, after(200).times(2)).processBatch(anyList());
+    }
+
+    @Test
+    void shouldKeepWeaponBehindEarlierFramesOfItsTrackInTheBatch() {
+        var routine = createEvent("det-1");
+        var weapon = new RawTrackingEvent("det-1", 124L, "c1", "u1", false, null, 50, true, "FIREARM", null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+        when(loadShedding.admit(routine)).thenReturn(Admission.PROCESS);
+        when(loadShedding.admit(weapon)).thenReturn(Admission.FAST_TRACK);
+        var listener = new VisionAgentBatchListener(facade, trackExecutor, loadShedding, trackRouting, capture);
+
+        listener.handleRawTrackingBatch(List.of(routine, weapon));
+
+        verify(facade, timeout(2000)).processBatch(List.of(routine, weapon));
+        verify(facade, after(200).times(1)).processBatch(anyList());
+    }
+
+    @Test
+    void shouldLeaveFramesForwardedToAnotherInstanceOut() {
+        var local = createEvent("det-1");
+        var remote = createEvent("det-2");
+        when(trackRouting.forwardIfRemote(local)).thenReturn(false);
+        when(trackRouting.forwardIfRemote(remote)).thenReturn(true);
+        when(loadShedding.admit(local)).thenReturn(Admission.PROCESS);
+        var listener = new VisionAgentBatchListener(facade, trackExecutor, loadShedding, trackRouting, capture);
+
+        listener.handleRawTrackingBatch(List.of(local, remote));
+
+        verify(facade, timeout(2000)).processBatch(List.of(local));
+        verify(loadShedding, never()).admit(remote);
+    }
+
+    private RawTrackingEvent createEvent(String id) {
+        return new RawTrackingEvent(id, 123L, "c1", "u1", false, null, 50, false, null, null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+}
@@ -1,48 +1,170 @@
 package com.safevision.recognitionservice.listener;
 
+import com.rabbitmq.client.Channel;
 import com.safevision.recognitionservice.dto.RawTrackingEvent;
 import com.safevision.recognitionservice.facade.TrackingWorkflowFacade;
+import com.safevision.recognitionservice.pipeline.DeliveryWindow;
+import com.safevision.recognitionservice.pipeline.TrackPartitionedExecutor;
+import com.safevision.recognitionservice.service.DeliveryAckService;
+import com.safevision.recognitionservice.service.LoadSheddingService;
+import com.safevision.recognitionservice.service.LoadSheddingService.Admission;
+import com.safevision.recognitionservice.service.TrackRoutingService;
+import com.safevision.recognitionservice.service.TrackingCaptureService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
 
 import java.math.BigDecimal;
+import java.util.concurrent.RejectedExecutionException;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
 class VisionAgentListenerTest {
 
     @Mock private TrackingWorkflowFacade facade;
+    @Mock private TrackPartitionedExecutor trackExecutor;
+    @Mock private LoadSheddingService loadShedding;
+    @Mock private TrackRoutingService trackRouting;
+    @Mock private TrackingCaptureService capture;
+    @Mock private DeliveryAckService deliveryAcks;
+    @Mock private Channel channel;
     @InjectMocks private VisionAgentListener listener;
 
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        // Um ack por frame, para verificar exatamente quando cada entrega é confirmada
+        when(deliveryAcks.window(channel)).thenReturn(new DeliveryWindow(channel, 1));
+        when(channel.isOpen()).thenReturn(true);
+
+        // Executa a tarefa na própria thread do teste, simulando o worker da partição
+        doAnswer(inv -> {
+            inv.<TrackPartitionedExecutor.ItemHandler<Object, Object>>getArgument(4)
+                .handle(inv.getArgument(1), inv.getArgument(2), inv.getArgument(3));
+            return null;
+        }).when(trackExecutor).execute(any(), any(), any(), anyLong(), any());
+        doAnswer(inv -> {
+            inv.<Runnable>getArgument(1).run();
+            return null;
+        }).when(trackExecutor).executeUrgent(any(), any());
+        when(loadShedding.admit(any())).thenReturn(Admission.PROCESS);
+        // Como a ordenação por event time, libera a entrega assim que o frame é analisado
+        doAnswer(inv -> {
+            inv.<DeliveryWindow>getArgument(1).processed(inv.getArgument(2));
+            return null;
+        }).when(facade).processEvent(any(), any(), anyLong());
+    }
+
     @Test
-    void shouldHandleEventSuccessfully() {
+    void shouldHandleEventSuccessfully() throws Exception {
         var event = new RawTrackingEvent("det-1", 123L, "cam-1", "user-1", true, "CENTER", 50, false, null, null, null, BigDecimal.ZERO, BigDecimal.ZERO);
         
-        listener.handleRawTrackingEvent(event);
+        listener.handleRawTrackingEvent(event, channel, 7L);
 
-        verify(facade, times(1)).processEvent(event);
+        verify(trackExecutor).execute(eq("det-1"), eq(event), any(), anyLong(), any());
+        verify(facade, times(1)).processEvent(eq(event), any(), anyLong());
+        verify(channel).basicAck(7L, true);
     }
 
     @Test
-    void shouldHandleNullEventSilently() {
-        listener.handleRawTrackingEvent(null);
-        verifyNoInteractions(facade);
+    void shouldNotAcknowledgeWhileTheFrameWaitsForEventTimeOrder() throws Exception {
+        var event = new RawTrackingEvent("det-1", 123L, "c1", "u1", false, null, 50, false, null, null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+        // O frame ficou no buffer de reordenação: a entrega só é liberada quando ele sair de lá
+        doNothing().when(facade).processEvent(any(), any(), anyLong());
+
+        listener.handleRawTrackingEvent(event, channel, 7L);
+
+        verify(facade).processEvent(eq(event), any(), anyLong());
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    @Test
+    void shouldHandleNullEventSilently() throws Exception {
+        listener.handleRawTrackingEvent(null, channel, 7L);
+        verifyNoInteractions(facade, trackExecutor);
+        verify(channel).basicAck(7L, true);
+    }
+
+    @Test
+    void shouldFastTrackWhenAdmissionSaysSo() {
+        var event = new RawTrackingEvent("det-1", 123L, "c1", "u1", false, null, 50, true, "FIREARM", null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+        when(loadShedding.admit(event)).thenReturn(Admission.FAST_TRACK);
+
+        listener.handleRawTrackingEvent(event, channel, 7L);
+
+        verify(trackExecutor).executeUrgent(eq("det-1"), any());
+        verify(trackExecutor, never()).execute(any(), any(), any(), anyLong(), any());
+        verify(facade).processEvent(eq(event), any(), anyLong());
+    }
+
+    @Test
+    void shouldNotQueueShedEvent() throws Exception {
+        var event = new RawTrackingEvent("det-1", 123L, "c1", "u1", false, null, 50, false, null, null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+        when(loadShedding.admit(event)).thenReturn(Admission.SHED);
+
+        listener.handleRawTrackingEvent(event, channel, 7L);
+
+        verifyNoInteractions(facade, trackExecutor);
+        verify(channel).basicAck(7L, true);
     }
     
     @Test
-    void shouldHandleExceptionInListener() {
+    void shouldNotProcessEventForwardedToAnotherInstance() {
+        var event = new RawTrackingEvent("det-1", 123L, "c1", "u1", false, null, 50, false, null, null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+        when(trackRouting.forwardIfRemote(event)).thenReturn(true);
+
+        listener.handleRawTrackingEvent(event, channel, 7L);
+
+        verify(capture).record(event);
+        verifyNoInteractions(facade, trackExecutor, loadShedding);
+    }
+
+    @Test
+    void shouldHandleExceptionInListener() throws Exception {
         var event = new RawTrackingEvent("det-1", 123L, "c1", "u1", false, null, 50, false, null, null, null, BigDecimal.ZERO, BigDecimal.ZERO);
         
-        // Simula um erro na facade para cair no catch do listener
-        doThrow(new RuntimeException("Simulated Error")).when(facade).processEvent(event);
+        // Simula um erro na análise: a entrega já foi liberada pela ordenação, e o erro chega ao worker
+        doAnswer(inv -> {
+            inv.<DeliveryWindow>getArgument(1).processed(inv.getArgument(2));
+            throw new RuntimeException("Simulated Error");
+        }).when(facade).processEvent(eq(event), any(), anyLong());
         
         // Não deve lançar exceção para fora, pois o listener tem try-catch
-        listener.handleRawTrackingEvent(event);
+        listener.handleRawTrackingEvent(event, channel, 7L);
         
-        verify(facade).processEvent(event);
+        verify(facade).processEvent(eq(event), any(), anyLong());
+        verify(channel).basicAck(7L, true);
+    }
+
+    @Test
+    void shouldNotAcknowledgeBeforeTheWorkerProcessedTheFrame() throws Exception {
+        var event = new RawTrackingEvent("det-1", 123L, "c1", "u1", false, null, 50, false, null, null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+        // Worker ocupado: o frame fica no anel e a entrega segue pendente
+        doNothing().when(trackExecutor).execute(any(), any(), any(), anyLong(), any());
+
+        listener.handleRawTrackingEvent(event, channel, 7L);
+
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    @Test
+    void shouldSwallowRejectedDispatch() {
+        var event = new RawTrackingEvent("det-1", 123L, "c1", "u1", false, null, 50, false, null, null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+        doThrow(new RejectedExecutionException("shutdown")).when(trackExecutor).execute(any(), any(), any(), anyLong(), any());
+
+        listener.handleRawTrackingEvent(event, channel, 7L);
+
+        verifyNoInteractions(facade);
     }
-}
\ No newline at end of file
+}
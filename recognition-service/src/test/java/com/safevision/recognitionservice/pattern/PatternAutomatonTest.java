@@ -0,0 +1,71 @@
+package com.safevision.recognitionservice.pattern;
+
+import static com.safevision.recognitionservice.pattern.PatternSignal.APPROACHING;
+import static com.safevision.recognitionservice.pattern.PatternSignal.STARING;
+import static com.safevision.recognitionservice.pattern.PatternSignal.WEAPON_HIDDEN;
+import static com.safevision.recognitionservice.pattern.PatternSignal.WEAPON_VISIBLE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PatternAutomatonTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+
+    private final PatternAutomaton automaton = new PatternAutomaton(List.of(
+        new SequencePattern("stare-approach", "A", "a", List.of(STARING, APPROACHING), Duration.ofSeconds(5)),
+        new SequencePattern("weapon-hidden", "B", "b", List.of(WEAPON_VISIBLE, WEAPON_HIDDEN, WEAPON_HIDDEN),
+            Duration.ofSeconds(10))
+    ));
+
+    @Test
+    @DisplayName("Deve completar a sequência quando os sinais chegam em ordem, mesmo com frames no meio")
+    void advance_CompletesSequenceInOrder() {
+        var run = automaton.newRun();
+
+        assertThat(automaton.advance(run, APPROACHING.bit(), T0)).isZero();
+        assertThat(automaton.advance(run, STARING.bit(), T0 + 500)).isZero();
+        assertThat(automaton.advance(run, 0, T0 + 1_000)).isZero();
+        assertThat(automaton.advance(run, APPROACHING.bit(), T0 + 1_500)).isEqualTo(0b01);
+
+        assertThat(run.completed()).isEqualTo(0b01);
+        assertThat(automaton.advance(run, 0, T0 + 2_000)).isZero();
+        assertThat(run.isIdle()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve descartar a sequência parcial que passou da janela")
+    void advance_DropsPartialMatchOutsideWindow() {
+        var run = automaton.newRun();
+        automaton.advance(run, STARING.bit(), T0);
+
+        assertThat(automaton.advance(run, APPROACHING.bit(), T0 + 5_001)).isZero();
+        assertThat(run.isIdle()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve reiniciar a janela a partir do primeiro passo mais recente")
+    void advance_RestartsFromLatestFirstStep() {
+        var run = automaton.newRun();
+        automaton.advance(run, STARING.bit(), T0);
+        automaton.advance(run, STARING.bit(), T0 + 4_000);
+
+        assertThat(automaton.advance(run, APPROACHING.bit(), T0 + 8_000)).isEqualTo(0b01);
+    }
+
+    @Test
+    @DisplayName("Deve avançar um único passo por frame e acompanhar cada padrão separadamente")
+    void advance_OneStepPerFrameAndPattern() {
+        var run = automaton.newRun();
+        long weaponAndStare = WEAPON_VISIBLE.bit() | STARING.bit();
+
+        assertThat(automaton.advance(run, weaponAndStare, T0)).isZero();
+        assertThat(automaton.advance(run, WEAPON_HIDDEN.bit() | APPROACHING.bit(), T0 + 500)).isEqualTo(0b01);
+        assertThat(automaton.advance(run, WEAPON_HIDDEN.bit(), T0 + 1_000)).isEqualTo(0b10);
+        assertThat(automaton.startsOn(WEAPON_HIDDEN.bit())).isFalse();
+    }
+}
@@ -0,0 +1,132 @@
+package com.safevision.recognitionservice.pipeline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BackgroundFrameWriterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Counter written = meterRegistry.counter("written");
+    private final Counter dropped = meterRegistry.counter("dropped");
+
+    @Test
+    @DisplayName("Deve escrever os frames na ordem, drenar a fila no stop e fechar o destino")
+    void stop_DrainsQueueAndClosesSink() {
+        var sink = new RecordingSink();
+        var writer = new BackgroundFrameWriter("test-writer", 16, written, dropped);
+        writer.start(sink);
+
+        for (int i = 0; i < 5; i++) {
+            writer.offer(event("det-" + i));
+        }
+        writer.stop();
+
+        assertThat(sink.ids).containsExactly("det-0", "det-1", "det-2", "det-3", "det-4");
+        assertThat(sink.closed).isTrue();
+        assertThat(writer.isRunning()).isFalse();
+        assertThat(written.count()).isEqualTo(5.0);
+    }
+
+    @Test
+    @DisplayName("Fila cheia deve descartar e contar o frame, sem bloquear quem oferece")
+    void offer_DropsWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        var sink = new RecordingSink() {
+            @Override
+            public void write(long receivedAtMillis, RawTrackingEvent event) {
+                writing.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.write(receivedAtMillis, event);
+            }
+        };
+        var writer = new BackgroundFrameWriter("test-writer", 2, written, dropped);
+        writer.start(sink);
+
+        writer.offer(event("det-0"));
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        writer.offer(event("det-1"));
+        writer.offer(event("det-2"));
+        writer.offer(event("det-3"));
+        release.countDown();
+        writer.stop();
+
+        assertThat(sink.ids).containsExactly("det-0", "det-1", "det-2");
+        assertThat(dropped.count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Frame recusado pelo destino deve ser contado como descartado")
+    void offer_CountsFramesRejectedBySink() {
+        var sink = new RecordingSink() {
+            @Override
+            public void write(long receivedAtMillis, RawTrackingEvent event) {
+                if (event.detectionId().equals("bad")) throw new IllegalArgumentException("too long");
+                super.write(receivedAtMillis, event);
+            }
+        };
+        var writer = new BackgroundFrameWriter("test-writer", 16, written, dropped);
+        writer.start(sink);
+
+        writer.offer(event("det-0"));
+        writer.offer(event("bad"));
+        writer.offer(event("det-1"));
+        writer.stop();
+
+        assertThat(sink.ids).containsExactly("det-0", "det-1");
+        assertThat(written.count()).isEqualTo(2.0);
+        assertThat(dropped.count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Não deve aceitar frames antes de iniciar")
+    void offer_IgnoredBeforeStart() {
+        var writer = new BackgroundFrameWriter("test-writer", 16, written, dropped);
+
+        writer.offer(event("det-0"));
+        writer.stop();
+
+        assertThat(writer.isRunning()).isFalse();
+        assertThat(dropped.count()).isZero();
+    }
+
+    private static RawTrackingEvent event(String id) {
+        return new RawTrackingEvent(id, 1_700_000_000_000L, "cam-1", "user-1", false, null, 50, false, null, null, null, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+
+    private static class RecordingSink implements BackgroundFrameWriter.Sink {
+
+        final List<String> ids = new CopyOnWriteArrayList<>();
+        volatile boolean closed;
+
+        @Override
+        public void write(long receivedAtMillis, RawTrackingEvent event) {
+            ids.add(event.detectionId());
+        }
+
+        @Override
+        public void endOfBatch(boolean drained) {}
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
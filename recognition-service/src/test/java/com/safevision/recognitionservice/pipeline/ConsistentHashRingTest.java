@@ -0,0 +1,64 @@
+package com.safevision.recognitionservice.pipeline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 20_000;
+
+    @Test
+    @DisplayName("A posse das chaves não deve depender da ordem dos membros")
+    void ownerOf_IndependentOfMemberOrder() {
+        var ring = ConsistentHashRing.of(List.of("a", "b", "c"), 64);
+        var shuffled = ConsistentHashRing.of(List.of("c", "a", "b", "a"), 64);
+
+        assertThat(shuffled.members()).containsExactly("a", "b", "c");
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(shuffled.ownerOf("det-" + i)).isEqualTo(ring.ownerOf("det-" + i));
+        }
+    }
+
+    @Test
+    @DisplayName("As chaves devem se espalhar de forma equilibrada entre os membros")
+    void ownerOf_SpreadsKeysEvenly() {
+        var ring = ConsistentHashRing.of(List.of("a", "b", "c", "d"), 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.ownerOf("det-" + i), 1, Integer::sum);
+        }
+
+        assertThat(counts).hasSize(4);
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(KEYS / 4 * 7 / 10, KEYS / 4 * 13 / 10));
+    }
+
+    @Test
+    @DisplayName("Um novo membro só deve tomar chaves dos outros, sem embaralhar o resto")
+    void ownerOf_MovesOnlyKeysOfTheNewMember() {
+        var before = ConsistentHashRing.of(List.of("a", "b", "c"), 128);
+        var after = ConsistentHashRing.of(List.of("a", "b", "c", "d"), 128);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "det-" + i;
+            if (!before.ownerOf(key).equals(after.ownerOf(key))) {
+                assertThat(after.ownerOf(key)).isEqualTo("d");
+                moved++;
+            }
+        }
+        assertThat(moved).isBetween(KEYS / 4 * 7 / 10, KEYS / 4 * 13 / 10);
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar um anel sem membros")
+    void of_RejectsEmptyMembership() {
+        assertThatThrownBy(() -> ConsistentHashRing.of(List.of(), 16)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
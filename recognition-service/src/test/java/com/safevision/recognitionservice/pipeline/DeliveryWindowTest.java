@@ -0,0 +1,87 @@
+package com.safevision.recognitionservice.pipeline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import com.rabbitmq.client.Channel;
+
+class DeliveryWindowTest {
+
+    private final Channel channel = mock(Channel.class);
+
+    @Test
+    @DisplayName("Deve confirmar em um único ack o lote de entregas processadas")
+    void processed_AcknowledgesFullBatchOnce() throws Exception {
+        DeliveryWindow window = new DeliveryWindow(channel, 3);
+        long first = window.received(1);
+        long second = window.received(2);
+        long third = window.received(3);
+
+        window.processed(first);
+        window.processed(second);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+
+        window.processed(third);
+        verify(channel).basicAck(3, true);
+        assertThat(window.pending()).isZero();
+        assertThat(window.acks()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Não deve confirmar entregas além de uma ainda em processamento")
+    void processed_OnlyAcknowledgesCompletedPrefix() throws Exception {
+        DeliveryWindow window = new DeliveryWindow(channel, 1);
+        long slow = window.received(10);
+        long fast = window.received(11);
+
+        // Track mais rápido termina antes: a entrega 10 ainda segura a 11
+        window.processed(fast);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+        assertThat(window.pending()).isEqualTo(2);
+
+        window.processed(slow);
+        verify(channel).basicAck(11, true);
+    }
+
+    @Test
+    @DisplayName("O flush deve confirmar o que já foi processado, mesmo sem completar o lote")
+    void flush_AcknowledgesPartialBatch() throws Exception {
+        DeliveryWindow window = new DeliveryWindow(channel, 100);
+        window.processed(window.received(5));
+        window.processed(window.received(6));
+        window.received(7);
+
+        window.flush();
+        window.flush();
+
+        InOrder acks = inOrder(channel);
+        acks.verify(channel).basicAck(6, true);
+        acks.verify(channel, never()).basicAck(anyLong(), anyBoolean());
+        assertThat(window.pending()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve crescer quando houver mais entregas pendentes que a capacidade inicial")
+    void received_GrowsBeyondInitialCapacity() throws Exception {
+        DeliveryWindow window = new DeliveryWindow(channel, 1_000);
+        long[] positions = new long[600];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = window.received(i + 1);
+        }
+        for (int i = positions.length - 1; i >= 0; i--) {
+            window.processed(positions[i]);
+        }
+
+        window.flush();
+        verify(channel).basicAck(600, true);
+    }
+}
@@ -0,0 +1,242 @@
+package com.safevision.recognitionservice.pipeline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TrackPartitionedExecutorTest {
+
+    private final TrackPartitionedExecutor executor = new TrackPartitionedExecutor(4, 64);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Deve processar os eventos de um mesmo track na ordem de submissão")
+    void execute_PreservesOrderPerKey() throws InterruptedException {
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(3 * 500);
+
+        for (int i = 0; i < 500; i++) {
+            for (String key : List.of("det-a", "det-b", "det-c")) {
+                int seq = i;
+                executor.execute(key, () -> {
+                    seen.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(seq);
+                    done.countDown();
+                });
+            }
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        seen.values().forEach(sequence -> assertThat(sequence).isSorted().hasSize(500));
+    }
+
+    @Test
+    @DisplayName("Deve rotear sempre o mesmo detectionId para a mesma thread")
+    void execute_SameKeySameThread() throws InterruptedException {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(50);
+
+        for (int i = 0; i < 50; i++) {
+            executor.execute("det-sticky", () -> {
+                threads.add(Thread.currentThread().getName());
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(threads).containsOnly("track-worker-" + executor.workerIndex("det-sticky"));
+    }
+
+    @Test
+    @DisplayName("Uma tarefa com erro não deve derrubar o worker")
+    void execute_SurvivesFailingTask() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+
+        executor.execute("det-x", () -> { throw new IllegalStateException("boom"); });
+        executor.execute("det-x", done::countDown);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve dividir um lote por worker mantendo a ordem de cada track")
+    void executeBatch_PartitionsByWorker() throws InterruptedException {
+        List<String> batch = List.of("det-a:1", "det-b:1", "det-a:2", "det-c:1", "det-a:3", "det-b:2");
+        Map<String, List<String>> seen = new ConcurrentHashMap<>();
+        List<String> workerOfPartition = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(batch.size());
+
+        executor.executeBatch(batch, item -> item.split(":")[0], partition -> {
+            workerOfPartition.add(Thread.currentThread().getName());
+            for (String item : partition) {
+                seen.computeIfAbsent(item.split(":")[0], k -> new CopyOnWriteArrayList<>()).add(item);
+                done.countDown();
+            }
+        });
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(seen.get("det-a")).containsExactly("det-a:1", "det-a:2", "det-a:3");
+        assertThat(seen.get("det-b")).containsExactly("det-b:1", "det-b:2");
+        // No máximo uma tarefa por worker
+        assertThat(workerOfPartition).doesNotHaveDuplicates();
+    }
+
+    @Test
+    @DisplayName("Tarefas urgentes devem passar na frente do backlog do worker")
+    void executeUrgent_RunsBeforeQueuedTasks() throws InterruptedException {
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(4);
+
+        executor.execute("det-a", () -> {
+            awaitQuietly(blocker);
+            done.countDown();
+        });
+        executor.execute("det-a", () -> { order.add("routine-1"); done.countDown(); });
+        executor.execute("det-a", () -> { order.add("routine-2"); done.countDown(); });
+        executor.executeUrgent("det-a", () -> { order.add("weapon"); done.countDown(); });
+        blocker.countDown();
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(order).containsExactly("weapon", "routine-1", "routine-2");
+        assertThat(executor.capacity()).isEqualTo(4 * 64);
+    }
+
+    @Test
+    @DisplayName("tryExecute não deve bloquear quando a fila do worker está cheia")
+    void tryExecute_ReturnsFalseWhenRingIsFull() throws InterruptedException {
+        var small = new TrackPartitionedExecutor(1, 2);
+        try {
+            CountDownLatch blocker = new CountDownLatch(1);
+            CountDownLatch started = new CountDownLatch(1);
+            small.execute("det-a", () -> {
+                started.countDown();
+                awaitQuietly(blocker);
+            });
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            List<Integer> ran = new CopyOnWriteArrayList<>();
+            int accepted = 0;
+            boolean refused = false;
+            for (int i = 0; i < 10 && !refused; i++) {
+                int task = i;
+                if (small.tryExecute("det-a", () -> ran.add(task))) accepted++;
+                else refused = true;
+            }
+            assertThat(refused).isTrue();
+
+            blocker.countDown();
+            CountDownLatch drained = new CountDownLatch(1);
+            small.execute("det-a", drained::countDown);
+            assertThat(drained.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(ran).hasSize(accepted);
+            assertThat(small.hasQueued("det-a")).isFalse();
+        } finally {
+            small.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve saber se uma chave ainda tem tarefas na fila ou em execução")
+    void hasQueued_TracksPendingTasksPerKey() throws InterruptedException {
+        CountDownLatch blocker = new CountDownLatch(1);
+        executor.execute("det-a", () -> awaitQuietly(blocker));
+        executor.executeBatch(List.of("det-b", "det-c"), key -> key, keys -> awaitQuietly(blocker));
+
+        assertThat(executor.hasQueued("det-a")).isTrue();
+        assertThat(executor.hasQueued("det-b")).isTrue();
+        assertThat(executor.hasQueued("det-c")).isTrue();
+        assertThat(executor.hasQueued("det-z")).isFalse();
+
+        blocker.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((executor.hasQueued("det-a") || executor.hasQueued("det-b") || executor.hasQueued("det-c"))
+            && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(executor.hasQueued("det-a")).isFalse();
+        assertThat(executor.hasQueued("det-b")).isFalse();
+        assertThat(executor.hasQueued("det-c")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve entregar item, anexo e tag ao handler no worker dono da chave")
+    void executeItem_PassesSlotContentsToHandler() throws InterruptedException {
+        List<String> handled = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+        TrackPartitionedExecutor.ItemHandler<String, String> handler = (item, attachment, tag) -> {
+            handled.add(item + "/" + attachment + "/" + tag + "@" + Thread.currentThread().getName());
+            done.countDown();
+        };
+
+        executor.execute("det-a", "frame-1", "ack", 1, handler);
+        executor.execute("det-a", "frame-2", null, 2, handler);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        String worker = "track-worker-" + executor.workerIndex("det-a");
+        assertThat(handled).containsExactly("frame-1/ack/1@" + worker, "frame-2/null/2@" + worker);
+    }
+
+    @Test
+    @DisplayName("Deve bloquear o produtor enquanto o anel do worker estiver cheio")
+    void execute_BlocksWhileRingIsFull() throws InterruptedException {
+        TrackPartitionedExecutor small = new TrackPartitionedExecutor(1, 2);
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(4);
+        try {
+            small.execute("det-a", () -> {
+                started.countDown();
+                awaitQuietly(blocker);
+                done.countDown();
+            });
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            small.execute("det-a", done::countDown);
+            small.execute("det-a", done::countDown);
+
+            Thread producer = new Thread(() -> small.execute("det-a", done::countDown));
+            producer.start();
+            producer.join(200);
+            assertThat(producer.isAlive()).isTrue();
+
+            blocker.countDown();
+            producer.join(5_000);
+            assertThat(producer.isAlive()).isFalse();
+            assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            blocker.countDown();
+            small.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar novas tarefas após o shutdown")
+    void execute_RejectsAfterShutdown() {
+        executor.shutdown();
+
+        assertThatThrownBy(() -> executor.execute("det-1", () -> { }))
+            .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,32 +1,156 @@
 package com.safevision.recognitionservice.producer;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 
+import com.safevision.recognitionservice.config.AlertPublisherProperties;
 import com.safevision.recognitionservice.dto.AlertEventDTO;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 @ExtendWith(MockitoExtension.class)
 class AlertProducerTest {
 
     @Mock private RabbitTemplate rabbitTemplate;
-    
+
     // O construtor do seu AlertProducer pede a String alertsQueueName
     private final String queueName = "safevision.alerts";
-    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AlertEventDTO alert = new AlertEventDTO("u1", "TYPE", "DESC", "CRIT", "C1", null, null, null, null);
+
+    private AlertProducer producer;
+
+    @BeforeEach
+    void setUp() {
+        // Operações em escopo (invoke) rodam o callback direto no template mockado
+        lenient().when(rabbitTemplate.invoke(any())).thenAnswer(invocation ->
+            invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(rabbitTemplate));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (producer != null) producer.stop();
+    }
+
     @Test
+    @DisplayName("Deve publicar o alerta com CorrelationData e contar o confirm do broker")
     void shouldSendAlertToRabbit() {
-        AlertProducer producer = new AlertProducer(rabbitTemplate, queueName);
-        var alert = new AlertEventDTO("u1", "TYPE", "DESC", "CRIT", "C1", null, null, null, null);
+        producer = startedProducer(5, Duration.ofSeconds(5));
+
+        producer.sendAlert(alert);
+
+        CorrelationData correlation = awaitPublish(1).get(0);
+        correlation.getFuture().complete(new CorrelationData.Confirm(true, null));
+
+        assertThat(counter("recognition.alerts.published")).isEqualTo(1.0);
+        assertThat(counter("recognition.alerts.confirmed")).isEqualTo(1.0);
+        assertThat(meterRegistry.get("recognition.alerts.confirm.latency").timer().count()).isEqualTo(1);
+        assertThat(producer.inFlightAlerts()).isZero();
+    }
+
+    @Test
+    @DisplayName("Alertas dentro da mesma janela devem sair juntos em um único canal")
+    void shouldPublishAlertsOfTheSameWindowTogether() {
+        producer = new AlertProducer(rabbitTemplate, queueName,
+            new AlertPublisherProperties(100, 10, Duration.ofMillis(500), 100, Duration.ofSeconds(5), 5, Duration.ofMillis(10)),
+            meterRegistry);
+        for (int i = 0; i < 3; i++) {
+            producer.sendAlert(alert);
+        }
+        producer.start();
+
+        List<CorrelationData> published = awaitPublish(3);
+        verify(rabbitTemplate, times(1)).invoke(any());
+
+        published.forEach(correlation -> correlation.getFuture().complete(new CorrelationData.Confirm(true, null)));
+        assertThat(counter("recognition.alerts.confirmed")).isEqualTo(3.0);
+    }
+
+    @Test
+    @DisplayName("Alerta com nack deve ser republicado")
+    void shouldRepublishNackedAlert() {
+        producer = startedProducer(5, Duration.ofSeconds(5));
 
         producer.sendAlert(alert);
+        awaitPublish(1).get(0).getFuture().complete(new CorrelationData.Confirm(false, "queue full"));
+
+        List<CorrelationData> attempts = awaitPublish(2);
+        attempts.get(1).getFuture().complete(new CorrelationData.Confirm(true, null));
+
+        assertThat(counter("recognition.alerts.retried")).isEqualTo(1.0);
+        assertThat(counter("recognition.alerts.confirmed")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Alerta sem confirm dentro do timeout deve ser republicado até esgotar as tentativas")
+    void shouldGiveUpAfterMaxAttemptsWithoutConfirm() {
+        producer = startedProducer(2, Duration.ofMillis(50));
+
+        producer.sendAlert(alert);
+
+        awaitPublish(2);
+        verify(rabbitTemplate, after(500).times(2))
+            .convertAndSend(eq(""), eq(queueName), eq(alert), any(CorrelationData.class));
+        assertThat(counter("recognition.alerts.retried")).isEqualTo(1.0);
+        assertThat(counter("recognition.alerts.failed")).isEqualTo(1.0);
+        assertThat(producer.inFlightAlerts()).isZero();
+    }
+
+    @Test
+    @DisplayName("Fila de publicação cheia deve descartar o alerta sem bloquear quem envia")
+    void shouldDropAlertWhenQueueIsFull() {
+        producer = new AlertProducer(rabbitTemplate, queueName,
+            new AlertPublisherProperties(1, 10, Duration.ofMillis(10), 100, Duration.ofSeconds(5), 5, Duration.ofMillis(10)),
+            meterRegistry);
+
+        producer.sendAlert(alert);
+        producer.sendAlert(alert);
+
+        assertThat(producer.pendingAlerts()).isEqualTo(1);
+        assertThat(counter("recognition.alerts.dropped")).isEqualTo(1.0);
+        verify(rabbitTemplate, never()).convertAndSend(anyString(), anyString(), any(Object.class), any(CorrelationData.class));
+        producer = null;
+    }
+
+    private AlertProducer startedProducer(int maxAttempts, Duration confirmTimeout) {
+        AlertProducer started = new AlertProducer(rabbitTemplate, queueName,
+            new AlertPublisherProperties(100, 10, Duration.ofMillis(1), 100, confirmTimeout, maxAttempts, Duration.ofMillis(10)),
+            meterRegistry);
+        started.start();
+        return started;
+    }
+
+    private List<CorrelationData> awaitPublish(int attempts) {
+        ArgumentCaptor<CorrelationData> captor = ArgumentCaptor.forClass(CorrelationData.class);
+        verify(rabbitTemplate, timeout(2_000).times(attempts))
+            .convertAndSend(eq(""), eq(queueName), eq(alert), captor.capture());
+        return captor.getAllValues();
+    }
 
-        verify(rabbitTemplate, times(1)).convertAndSend(eq(queueName), eq(alert));
+    private double counter(String name) {
+        return meterRegistry.get(name).counter().count();
     }
-}
\ No newline at end of file
+}
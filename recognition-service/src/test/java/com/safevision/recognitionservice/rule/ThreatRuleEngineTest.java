@@ -0,0 +1,143 @@
+package com.safevision.recognitionservice.rule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+import com.safevision.recognitionservice.state.TrackState;
+import com.safevision.recognitionservice.state.TrackStateRecorder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ThreatRuleEngineTest {
+
+    private final TrackStateRecorder history = recorder(TrackState.DEPTH_HISTORY);
+    private final TrackStateRecorder stare = recorder(TrackState.STARE_COUNT);
+    private final TrackStateRecorder evidence = recorder(TrackState.EVIDENCE);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final int track = 7;
+
+    @Test
+    @DisplayName("Deve aplicar cada atualização de estado uma única vez, mesmo com várias regras dependentes")
+    void evaluate_UpdatesEachStateOnce() {
+        var engine = new ThreatRuleEngine(
+            List.of(rule("a", EnumSet.of(TrackState.DEPTH_HISTORY), null),
+                    rule("b", EnumSet.of(TrackState.DEPTH_HISTORY), null)),
+            List.of(history, stare, evidence), meterRegistry);
+
+        var event = createEvent();
+        engine.evaluate(track, event);
+
+        verify(history, times(1)).record(track, event);
+        verify(evidence, times(1)).record(track, event);
+        // Nenhuma regra lê o contador de encaradas: ele fica fora do plano
+        verify(stare, never()).record(anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Deve retornar os achados na ordem das regras")
+    void evaluate_ReturnsFindingsInRuleOrder() {
+        var first = new ThreatFinding("A", "a", Set.of());
+        var second = new ThreatFinding("B", "b", Set.of());
+        var engine = new ThreatRuleEngine(
+            List.of(rule("a", Set.of(), first), rule("silent", Set.of(), null), rule("b", Set.of(), second)),
+            List.of(evidence), meterRegistry);
+
+        assertThat(engine.evaluate(track, createEvent())).containsExactly(first, second);
+        assertThat(engine.ruleNames()).containsExactly("a", "silent", "b");
+    }
+
+    @Test
+    @DisplayName("Não deve avaliar regras que não se aplicam ao frame")
+    void evaluate_SkipsNotApplicableRules() {
+        ThreatRule guarded = mock(ThreatRule.class);
+        when(guarded.name()).thenReturn("guarded");
+        when(guarded.requiredState()).thenReturn(Set.of());
+        when(guarded.appliesTo(any())).thenReturn(false);
+        var engine = new ThreatRuleEngine(List.of(guarded), List.of(evidence), meterRegistry);
+
+        assertThat(engine.evaluate(track, createEvent())).isEmpty();
+        verify(guarded, never()).evaluate(anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Deve medir o tempo de cada atualização de estado e de cada regra avaliada")
+    void evaluate_TimesEachStep() {
+        ThreatRule guarded = mock(ThreatRule.class);
+        when(guarded.name()).thenReturn("guarded");
+        when(guarded.requiredState()).thenReturn(Set.of());
+        when(guarded.appliesTo(any())).thenReturn(false);
+        var engine = new ThreatRuleEngine(
+            List.of(rule("a", EnumSet.of(TrackState.DEPTH_HISTORY), null), guarded),
+            List.of(history, stare, evidence), meterRegistry);
+
+        engine.evaluate(track, createEvent());
+        engine.evaluate(track, createEvent());
+
+        assertThat(timer("recognition.stage.duration", "stage", "depth_history")).isEqualTo(2);
+        assertThat(timer("recognition.stage.duration", "stage", "evidence")).isEqualTo(2);
+        assertThat(timer("recognition.rule.duration", "rule", "a")).isEqualTo(2);
+        assertThat(timer("recognition.rule.duration", "rule", "guarded")).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve falhar na inicialização se um estado exigido não tiver recorder")
+    void constructor_FailsOnMissingRecorder() {
+        assertThatThrownBy(() -> new ThreatRuleEngine(
+                List.of(rule("a", EnumSet.of(TrackState.STARE_COUNT), null)),
+                List.of(evidence), meterRegistry))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("STARE_COUNT");
+    }
+
+    @Test
+    @DisplayName("Deve limpar apenas os estados pedidos pelo achado")
+    void reset_EvictsRequestedStates() {
+        var engine = new ThreatRuleEngine(List.of(), List.of(history, stare, evidence), meterRegistry);
+
+        engine.reset(track, "det-1", EnumSet.of(TrackState.DEPTH_HISTORY, TrackState.EVIDENCE));
+
+        verify(history).evict(track, "det-1");
+        verify(evidence).evict(track, "det-1");
+        verify(stare, never()).evict(anyInt(), any());
+    }
+
+    private long timer(String name, String tag, String value) {
+        return meterRegistry.get(name).tag(tag, value).timer().count();
+    }
+
+    private static TrackStateRecorder recorder(TrackState state) {
+        TrackStateRecorder recorder = mock(TrackStateRecorder.class);
+        when(recorder.state()).thenReturn(state);
+        return recorder;
+    }
+
+    private static ThreatRule rule(String name, Set<TrackState> required, ThreatFinding finding) {
+        return new ThreatRule() {
+            @Override public String name() { return name; }
+            @Override public Set<TrackState> requiredState() { return required; }
+            @Override public Optional<ThreatFinding> evaluate(int track, RawTrackingEvent event) { return Optional.ofNullable(finding); }
+        };
+    }
+
+    private static RawTrackingEvent createEvent() {
+        return new RawTrackingEvent("det-1", 1L, "C1", "U1", false, null, 50, false, null, null, null,
+                                    BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+}
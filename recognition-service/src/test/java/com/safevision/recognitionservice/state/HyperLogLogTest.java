@@ -0,0 +1,69 @@
+package com.safevision.recognitionservice.state;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class HyperLogLogTest {
+
+    @Test
+    @DisplayName("Deve estimar a cardinalidade dentro do erro esperado, ignorando repetições")
+    void estimate_WithinStandardError() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 100_000; i++) {
+                sketch.add(HyperLogLog.hash("det-" + i));
+            }
+        }
+
+        assertThat(sketch.estimate()).isCloseTo(100_000L, within(5_000L));
+    }
+
+    @Test
+    @DisplayName("Deve contar com exatidão prática poucos itens distintos")
+    void estimate_SmallCardinality() {
+        HyperLogLog sketch = new HyperLogLog(10);
+        assertThat(sketch.estimate()).isZero();
+        for (int i = 0; i < 30; i++) {
+            sketch.add(HyperLogLog.hash("det-" + i));
+        }
+
+        assertThat(sketch.estimate()).isCloseTo(30L, within(1L));
+    }
+
+    @Test
+    @DisplayName("Deve unir dois sketches contando uma vez os itens em comum")
+    void merge_EstimatesUnion() {
+        HyperLogLog a = new HyperLogLog(12);
+        HyperLogLog b = new HyperLogLog(12);
+        for (int i = 0; i < 20_000; i++) {
+            a.add(HyperLogLog.hash("det-" + i));
+            b.add(HyperLogLog.hash("det-" + (i + 10_000)));
+        }
+
+        a.merge(b);
+
+        assertThat(a.estimate()).isCloseTo(30_000L, within(1_500L));
+    }
+
+    @Test
+    @DisplayName("Deve esquecer os itens que saíram da janela deslizante")
+    void slidingCounter_ForgetsExpiredBuckets() {
+        SlidingDistinctCounter counter = new SlidingDistinctCounter(10, 6, Duration.ofSeconds(60));
+        long t0 = 1_700_000_000_000L;
+        for (int i = 0; i < 20; i++) {
+            counter.add(HyperLogLog.hash("old-" + i), t0);
+        }
+        for (int i = 0; i < 10; i++) {
+            counter.add(HyperLogLog.hash("new-" + i), t0 + 30_000);
+        }
+        assertThat(counter.estimate(t0 + 30_000)).isCloseTo(30L, within(1L));
+
+        assertThat(counter.estimate(t0 + 70_000)).isCloseTo(10L, within(1L));
+        assertThat(counter.isEmpty(t0 + 100_000)).isTrue();
+    }
+}
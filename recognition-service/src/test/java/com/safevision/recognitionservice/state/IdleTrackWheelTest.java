@@ -0,0 +1,65 @@
+package com.safevision.recognitionservice.state;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class IdleTrackWheelTest {
+
+    private final IdleTrackWheel wheel = new IdleTrackWheel(Duration.ofSeconds(10), Duration.ofSeconds(1), 0L);
+
+    @Test
+    @DisplayName("Deve reportar o track após o tempo ocioso")
+    void advance_ReportsIdleTrack() {
+        wheel.touch("det-1", 0L);
+
+        assertThat(advanceTo(9_000L)).isEmpty();
+        assertThat(advanceTo(10_000L)).containsExactly("det-1");
+    }
+
+    @Test
+    @DisplayName("Não deve reportar um track que continua recebendo frames")
+    void advance_ReschedulesTouchedTrack() {
+        wheel.touch("det-1", 0L);
+        wheel.touch("det-1", 8_000L);
+
+        assertThat(advanceTo(12_000L)).isEmpty();
+        assertThat(advanceTo(18_000L)).containsExactly("det-1");
+    }
+
+    @Test
+    @DisplayName("Deve confirmar a remoção apenas se o track continua ocioso")
+    void removeIfIdle_ChecksDeadline() {
+        wheel.touch("det-1", 0L);
+        assertThat(advanceTo(10_000L)).containsExactly("det-1");
+
+        // Um frame chegou entre a varredura e a confirmação
+        wheel.touch("det-1", 10_500L);
+        assertThat(wheel.removeIfIdle("det-1", 10_600L)).isFalse();
+        assertThat(wheel.size()).isEqualTo(1);
+
+        assertThat(advanceTo(20_500L)).containsExactly("det-1");
+        assertThat(wheel.removeIfIdle("det-1", 20_500L)).isTrue();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve alcançar o relógio mesmo após uma pausa longa do varredor")
+    void advance_CatchesUpAfterLongPause() {
+        wheel.touch("det-1", 0L);
+        wheel.touch("det-2", 3_000L);
+
+        assertThat(advanceTo(600_000L)).containsExactlyInAnyOrder("det-1", "det-2");
+    }
+
+    private List<String> advanceTo(long now) {
+        List<String> idle = new ArrayList<>();
+        wheel.advance(now, idle::add);
+        return idle;
+    }
+}
@@ -0,0 +1,177 @@
+package com.safevision.recognitionservice.state;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedTrackStateStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Deve recuperar histórico e olhar fixo ao reabrir o arquivo")
+    void open_RecoversStateAfterRestart() throws Exception {
+        Path file = tempDir.resolve("state/tracks.bin");
+        try (MappedTrackStateStore store = MappedTrackStateStore.open(file, 64, Duration.ZERO)) {
+            int slot = store.findOrCreate("det-1");
+            store.appendDepth(slot, 300, 1_000L);
+            store.appendDepth(slot, 250, 1_500L);
+            store.setStare(slot, 1_000L, 1_500L, 2);
+        }
+
+        try (MappedTrackStateStore store = MappedTrackStateStore.open(file, 64, Duration.ZERO)) {
+            int slot = store.find("det-1");
+            assertThat(slot).isNotNegative();
+            assertThat(store.size()).isEqualTo(1);
+
+            TrackHistoryView history = store.history(slot);
+            assertThat(history.size()).isEqualTo(2);
+            assertThat(history.depthAt(0)).isEqualTo(250);
+            assertThat(history.timestampAt(1)).isEqualTo(1_000L);
+            assertThat(store.stareFrames(slot)).isEqualTo(2);
+            assertThat(store.stareLastMillis(slot) - store.stareStartMillis(slot)).isEqualTo(500L);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve descartar tracks parados há mais que o limite ao reabrir")
+    void open_DropsStaleTracks() throws Exception {
+        Path file = tempDir.resolve("tracks.bin");
+        try (MappedTrackStateStore store = MappedTrackStateStore.open(file, 64, Duration.ZERO)) {
+            store.appendDepth(store.findOrCreate("det-1"), 300, 1_000L);
+        }
+        Thread.sleep(20);
+
+        try (MappedTrackStateStore store = MappedTrackStateStore.open(file, 64, Duration.ofMillis(10))) {
+            assertThat(store.find("det-1")).isNegative();
+            assertThat(store.size()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("Arquivo com outra capacidade deve ser recriado vazio")
+    void open_ResetsFileWithDifferentCapacity() throws Exception {
+        Path file = tempDir.resolve("tracks.bin");
+        try (MappedTrackStateStore store = MappedTrackStateStore.open(file, 64, Duration.ZERO)) {
+            store.findOrCreate("det-1");
+        }
+
+        try (MappedTrackStateStore store = MappedTrackStateStore.open(file, 128, Duration.ZERO)) {
+            assertThat(store.size()).isZero();
+            assertThat(store.findOrCreate("det-1")).isNotNegative();
+        }
+    }
+
+    @Test
+    @DisplayName("Tracks evictados devem liberar o slot sem quebrar a busca dos demais")
+    void evict_KeepsProbeChainsIntact() {
+        MappedTrackStateStore store = MappedTrackStateStore.inMemory(16);
+        for (int i = 0; i < 12; i++) {
+            store.appendDepth(store.findOrCreate("det-" + i), i, i);
+        }
+        assertThat(store.findOrCreate("det-overflow")).isEqualTo(-1);
+
+        for (int i = 0; i < 12; i += 2) {
+            store.evict(SymbolTable.NO_HANDLE, "det-" + i);
+        }
+
+        assertThat(store.size()).isEqualTo(6);
+        for (int i = 1; i < 12; i += 2) {
+            assertThat(store.history(store.find("det-" + i)).depthAt(0)).isEqualTo(i);
+        }
+        assertThat(store.find("det-0")).isNegative();
+        int reused = store.findOrCreate("det-0");
+        assertThat(reused).isNotNegative();
+        assertThat(store.history(reused).size()).isZero();
+    }
+
+    @Test
+    @DisplayName("O slot lembrado pelo handle deve ser esquecido na eviction e servir ao próximo dono do handle")
+    void findByHandle_ForgetsSlotOnEviction() {
+        MappedTrackStateStore store = MappedTrackStateStore.inMemory(16);
+        int slot = store.findOrCreate(3, "det-1");
+        store.appendDepth(slot, 300, 1_000L);
+
+        assertThat(store.find(3, "det-1")).isEqualTo(slot);
+        assertThat(store.find(SymbolTable.NO_HANDLE, "det-1")).isEqualTo(slot);
+
+        store.evict(3, "det-1");
+        assertThat(store.find(3, "det-1")).isNegative();
+
+        // O handle 3 agora pertence a outro track
+        int other = store.findOrCreate(3, "det-2");
+        assertThat(store.history(other).size()).isZero();
+        assertThat(store.find(3, "det-2")).isEqualTo(other);
+        assertThat(store.find("det-1")).isNegative();
+    }
+
+    @Test
+    @DisplayName("IDs maiores que o limite não devem ser armazenados")
+    void findOrCreate_RejectsLongIds() {
+        MappedTrackStateStore store = MappedTrackStateStore.inMemory(16);
+
+        assertThat(store.findOrCreate("x".repeat(MappedTrackStateStore.MAX_KEY_CHARS + 1))).isEqualTo(-1);
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve listar os IDs de todos os tracks armazenados")
+    void forEachTrack_ListsStoredIds() {
+        MappedTrackStateStore store = MappedTrackStateStore.inMemory(16);
+        store.findOrCreate("det-1");
+        store.findOrCreate("det-2");
+        store.evict(SymbolTable.NO_HANDLE, "det-1");
+
+        List<String> ids = new ArrayList<>();
+        store.forEachTrack(ids::add);
+
+        assertThat(ids).containsExactly("det-2");
+    }
+
+    @Test
+    @DisplayName("Estatísticas incrementais devem coincidir com o recálculo sobre a janela retida")
+    void appendDepth_KeepsWindowStatisticsInSync() {
+        MappedTrackStateStore store = MappedTrackStateStore.inMemory(16);
+        int slot = store.findOrCreate("det-1");
+        long timestamp = 1_700_000_000_000L;
+        for (int i = 0; i < 37; i++) {
+            timestamp += 400 + (i * 37) % 200;
+            store.appendDepth(slot, 100 + (i * 53) % 41, timestamp);
+
+            TrackHistoryView history = store.history(slot);
+            // Tempos relativos à amostra mais antiga: em epoch millis a referência perderia precisão
+            long origin = history.timestampAt(history.size() - 1);
+            double mean = 0;
+            for (int age = 0; age < history.size(); age++) mean += history.depthAt(age);
+            mean /= history.size();
+            double variance = 0;
+            double meanTime = 0;
+            for (int age = 0; age < history.size(); age++) {
+                variance += Math.pow(history.depthAt(age) - mean, 2);
+                meanTime += (history.timestampAt(age) - origin) / 1_000.0;
+            }
+            variance /= history.size();
+            meanTime /= history.size();
+            double covariance = 0;
+            double timeSpread = 0;
+            for (int age = 0; age < history.size(); age++) {
+                double t = (history.timestampAt(age) - origin) / 1_000.0 - meanTime;
+                covariance += t * (history.depthAt(age) - mean);
+                timeSpread += t * t;
+            }
+
+            assertThat(history.depthMean()).isCloseTo(mean, within(1e-9));
+            assertThat(history.depthVariance()).isCloseTo(variance, within(1e-6));
+            assertThat(history.depthSlope()).isCloseTo(history.size() < 2 ? 0 : covariance / timeSpread, within(1e-6));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.safevision.recognitionservice.state;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.safevision.recognitionservice.dto.RawTrackingEvent;
+
+class ReorderBufferTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+
+    private final List<Long> released = new ArrayList<>();
+
+    @Test
+    @DisplayName("Deve liberar os frames em ordem de event time até o watermark")
+    void releaseUpTo_ReleasesInEventTimeOrder() {
+        ReorderBuffer<Object> buffer = new ReorderBuffer<>(8);
+        buffer.offer(frame(T0 + 1_000), null, 0, 0);
+        buffer.offer(frame(T0), null, 0, 0);
+        buffer.offer(frame(T0 + 2_000), null, 0, 0);
+        buffer.offer(frame(T0 + 500), null, 0, 0);
+
+        assertThat(buffer.releaseUpTo(T0 + 1_000, (e, attachment, tag) -> released.add(e.eventTimeMillis()))).isEqualTo(3);
+
+        assertThat(released).containsExactly(T0, T0 + 500, T0 + 1_000);
+        assertThat(buffer.size()).isEqualTo(1);
+        assertThat(buffer.maxEventTime()).isEqualTo(T0 + 2_000);
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar frames mais antigos do que o último liberado")
+    void offer_RejectsLateFrame() {
+        ReorderBuffer<Object> buffer = new ReorderBuffer<>(8);
+        buffer.offer(frame(T0 + 1_000), null, 0, 0);
+        buffer.drain((e, attachment, tag) -> released.add(e.eventTimeMillis()));
+
+        assertThat(buffer.offer(frame(T0), null, 0, 0)).isFalse();
+        assertThat(buffer.offer(frame(T0 + 1_000), null, 0, 0)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve manter a ordem correta após dar a volta no anel")
+    void offer_WrapsAround() {
+        ReorderBuffer<Object> buffer = new ReorderBuffer<>(3);
+        for (int i = 0; i < 10; i += 2) {
+            buffer.offer(frame(T0 + (i + 1) * 100L), null, 0, 0);
+            buffer.offer(frame(T0 + i * 100L), null, 0, 0);
+            buffer.drain((e, attachment, tag) -> released.add(e.eventTimeMillis() - T0));
+        }
+
+        assertThat(released).containsExactly(0L, 100L, 200L, 300L, 400L, 500L, 600L, 700L, 800L, 900L);
+        assertThat(buffer.isEmpty()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Cada frame deve sair com o anexo e a tag com que entrou, mesmo reordenado")
+    void releaseUpTo_HandsBackAttachments() {
+        ReorderBuffer<String> buffer = new ReorderBuffer<>(4);
+        buffer.offer(frame(T0 + 1_000), "b", 2, 0);
+        buffer.offer(frame(T0), "a", 1, 0);
+        List<String> attachments = new ArrayList<>();
+
+        buffer.drain((e, attachment, tag) -> attachments.add(attachment + tag));
+
+        assertThat(attachments).containsExactly("a1", "b2");
+    }
+
+    private static RawTrackingEvent frame(long timestamp) {
+        return new RawTrackingEvent("det-1", timestamp, "C1", "U1", false, null, 50, false, null, null, null,
+                                    BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+}
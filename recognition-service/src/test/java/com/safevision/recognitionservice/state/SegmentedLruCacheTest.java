@@ -0,0 +1,73 @@
+package com.safevision.recognitionservice.state;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.safevision.recognitionservice.state.SegmentedLruCache.RemovalCause;
+
+class SegmentedLruCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Test
+    @DisplayName("Deve descartar a entrada menos usada ao exceder o número de entradas")
+    void put_EvictsLeastRecentlyUsedOverEntryBound() {
+        var cache = cache(3, 1_000);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+        cache.get("a");
+        cache.put("d", "4");
+
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isEqualTo("1");
+        assertThat(cache.get("d")).isEqualTo("4");
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.evictions(RemovalCause.SIZE)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve respeitar o peso máximo e manter a conta do peso ao substituir valores")
+    void put_EvictsOverWeightBound() {
+        var cache = cache(100, 10);
+        cache.put("a", "xxxx");
+        cache.put("a", "xx");
+        cache.put("b", "xxxx");
+        assertThat(cache.weight()).isEqualTo(6);
+
+        cache.put("c", "xxxxxx");
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.weight()).isEqualTo(10);
+        cache.put("huge", "x".repeat(11));
+        assertThat(cache.get("huge")).isNull();
+        assertThat(cache.get("c")).isEqualTo("xxxxxx");
+        assertThat(cache.evictions(RemovalCause.SIZE)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve expirar entradas após o tempo de escrita, mesmo que lidas")
+    void get_ExpiresAfterWrite() {
+        var cache = cache(100, 1_000);
+        cache.put("a", "1");
+        nanos.addAndGet(Duration.ofSeconds(59).toNanos());
+        assertThat(cache.get("a")).isEqualTo("1");
+
+        nanos.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.evictions(RemovalCause.EXPIRED)).isEqualTo(1);
+    }
+
+    private SegmentedLruCache<String, String> cache(long maxEntries, long maxWeight) {
+        // Um único segmento: ordem LRU global, fácil de verificar
+        return new SegmentedLruCache<>(1, maxEntries, maxWeight, Duration.ofMinutes(1),
+            (key, value) -> value.length(), nanos::get);
+    }
+}
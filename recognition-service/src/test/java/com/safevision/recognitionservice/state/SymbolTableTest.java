@@ -0,0 +1,110 @@
+package com.safevision.recognitionservice.state;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SymbolTableTest {
+
+    @Test
+    @DisplayName("Deve dar handles densos e estáveis para cada ID")
+    void handle_IsDenseAndStable() {
+        SymbolTable symbols = new SymbolTable();
+
+        assertThat(symbols.handle("det-1")).isZero();
+        assertThat(symbols.handle("det-2")).isEqualTo(1);
+        assertThat(symbols.handle(new String("det-1"))).isZero();
+
+        assertThat(symbols.find("det-2")).isEqualTo(1);
+        assertThat(symbols.find("det-3")).isEqualTo(SymbolTable.NO_HANDLE);
+        assertThat(symbols.name(1)).isEqualTo("det-2");
+        assertThat(symbols.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Handles liberados devem ser reaproveitados pelos próximos IDs")
+    void release_ReusesHandles() {
+        SymbolTable symbols = new SymbolTable();
+        symbols.handle("det-1");
+        int released = symbols.handle("det-2");
+        symbols.handle("det-3");
+
+        symbols.release(released);
+
+        assertThat(symbols.find("det-2")).isEqualTo(SymbolTable.NO_HANDLE);
+        assertThat(symbols.name(released)).isNull();
+        assertThat(symbols.handle("det-4")).isEqualTo(released);
+        assertThat(symbols.name(released)).isEqualTo("det-4");
+        assertThat(symbols.find("det-3")).isEqualTo(2);
+        assertThat(symbols.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Buscas devem continuar corretas após muitas reconstruções da tabela")
+    void handle_SurvivesRebuildsAndTombstones() {
+        SymbolTable symbols = new SymbolTable();
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 1_000; i++) {
+                symbols.handle("det-" + round + "-" + i);
+            }
+            // Metade de cada rodada sai, deixando tombstones pelo caminho
+            for (int i = 0; i < 1_000; i += 2) {
+                symbols.release(symbols.find("det-" + round + "-" + i));
+            }
+        }
+
+        assertThat(symbols.size()).isEqualTo(2_500);
+        Set<Integer> handles = new HashSet<>();
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 1_000; i++) {
+                int handle = symbols.find("det-" + round + "-" + i);
+                if (i % 2 == 0) {
+                    assertThat(handle).isEqualTo(SymbolTable.NO_HANDLE);
+                } else {
+                    assertThat(symbols.name(handle)).isEqualTo("det-" + round + "-" + i);
+                    handles.add(handle);
+                }
+            }
+        }
+        // Os handles não passam do pico de IDs vivos
+        assertThat(handles).hasSize(2_500);
+        assertThat(handles.stream().mapToInt(Integer::intValue).max().getAsInt()).isLessThan(3_000);
+    }
+
+    @Test
+    @DisplayName("Threads concorrentes devem receber o mesmo handle para o mesmo ID")
+    void handle_IsConsistentAcrossThreads() throws Exception {
+        SymbolTable symbols = new SymbolTable();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(() -> {
+                    int[] handles = new int[5_000];
+                    for (int i = 0; i < handles.length; i++) handles[i] = symbols.handle("det-" + i);
+                    return handles;
+                }));
+            }
+
+            int[] first = results.get(0).get();
+            Set<Integer> distinct = new HashSet<>();
+            for (int handle : first) distinct.add(handle);
+            for (Future<int[]> result : results) {
+                assertThat(result.get()).containsExactly(first);
+            }
+            assertThat(distinct).hasSize(5_000);
+            assertThat(symbols.size()).isEqualTo(5_000);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
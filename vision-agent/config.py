@@ -11,6 +11,9 @@ PASSWORD = os.environ.get('RABBITMQ_PASSWORD', 'passwordsafevision')
 # --- Queues ---
 QUEUE_NAME = os.environ.get('VISION_QUEUE_NAME', 'safevision.vision.raw.tracking')
 
+# Formato do payload de tracking: 'json' (padrão) ou 'binary' (schema compacto v1, ver wire_format.py)
+TRACKING_WIRE_FORMAT = os.environ.get('TRACKING_WIRE_FORMAT', 'json').lower()
+
 # --- MinIO ---
 MINIO_ENDPOINT = os.environ.get('MINIO_ENDPOINT', 'minio:9000')
 MINIO_ACCESS_KEY = os.environ.get('MINIO_ACCESS_KEY', 'minioadmin')
@@ -286,7 +286,7 @@ class SurveillanceThread(threading.Thread):
                 # ✅ CORREÇÃO: Usa o ID persistente da sessão
                 "detectionId": self.context.current_tracking_id,
                 
-                "timestamp": int(time.time()),
+                "timestamp": int(time.time() * 1000),  # epoch em milissegundos (event time no recognition-service)
                 "isFacingCamera": gaze['facing'],
                 "depthPosition": gaze.get('depth_score', 0),
                 "gazeDirection": gaze['direction'],
@@ -2,6 +2,7 @@ import pika
 import json
 import time
 import config
+from wire_format import CONTENT_TYPE as BINARY_CONTENT_TYPE, encode_raw_tracking
 from telemetry import tracer             # 🟢 NEW: Import the tracer
 from opentelemetry.propagate import inject # 🟢 NEW: Import context injector
 
@@ -57,6 +58,12 @@ class RabbitMQClient:
             inject(headers)
             span.set_attribute("messaging.system", "rabbitmq")
             span.set_attribute("messaging.destination", config.QUEUE_NAME)
+
+            # O recognition-service escolhe o decoder pelo content_type (aceita os dois formatos)
+            if config.TRACKING_WIRE_FORMAT == 'binary':
+                body, content_type = encode_raw_tracking(payload), BINARY_CONTENT_TYPE
+            else:
+                body, content_type = json.dumps(payload), 'application/json'
             
             for attempt in range(max_retries):
                 try:
@@ -68,8 +75,9 @@ class RabbitMQClient:
                     self.channel.basic_publish(
                         exchange='',
                         routing_key=config.QUEUE_NAME,
-                        body=json.dumps(payload),
+                        body=body,
                         properties=pika.BasicProperties(
+                            content_type=content_type,
                             delivery_mode=2,  # Mensagem persistente (salva em disco)
                             headers=headers   # 🟢 NEW: Pass B3 headers to RabbitMQ envelope
                         )
@@ -0,0 +1,57 @@
+"""
+Vetores de conformidade do formato binário v1 do RawTrackingEvent.
+Os mesmos bytes são verificados no lado Java por RawTrackingWireFormatConformanceTest.
+"""
+import struct
+
+import pytest
+
+from wire_format import CONTENT_TYPE, encode_raw_tracking
+
+FULL_EVENT = {
+    "detectionId": "det-1", "timestamp": 1700000000123, "cameraId": "CAM-01", "userId": "user-42",
+    "isFacingCamera": True, "gazeDirection": "LEFT", "depthPosition": 57,
+    "hasWeapon": True, "weaponType": "PISTOLA", "weaponLocation": "MAO",
+    "snapshotUrl": "http://minio/s.jpg", "latitude": -23.5505199, "longitude": -46.6333094,
+}
+FULL_HEX = ("5356010f0000018bcfe5687b00000039fffffffff1f679d1ffffffffe434525a"
+            "00056465742d31000643414d2d30310007757365722d343200044c454654"
+            "0007504953544f4c4100034d414f0012687474703a2f2f6d696e696f2f732e6a7067")
+
+MINIMAL_EVENT = {"detectionId": "d", "timestamp": 0, "userId": "u", "depthPosition": 0}
+MINIMAL_HEX = ("5356010000000000000000000000000000000000000000000000000000000000"
+               "000164ffff000175ffffffffffffffff")
+
+UNICODE_EVENT = {"detectionId": "câmera-ç-👁", "timestamp": 1700000000, "userId": "u",
+                 "depthPosition": -1, "latitude": 0, "longitude": 180}
+UNICODE_HEX = ("5356010c000000006553f100ffffffff0000000000000000000000006b49d200"
+               "000f63c3a26d6572612dc3a72df09f9181ffff000175ffffffffffffffff")
+
+
+@pytest.mark.parametrize("payload, expected_hex", [
+    (FULL_EVENT, FULL_HEX),
+    (MINIMAL_EVENT, MINIMAL_HEX),
+    (UNICODE_EVENT, UNICODE_HEX),
+])
+def test_encodes_conformance_vectors(payload, expected_hex):
+    assert encode_raw_tracking(payload).hex() == expected_hex
+
+
+def test_header_is_fixed_size():
+    encoded = encode_raw_tracking(MINIMAL_EVENT)
+    magic, version, flags = struct.unpack(">2sBB", encoded[:4])
+
+    assert magic == b"SV"
+    assert version == 1
+    assert flags == 0
+    # 32 bytes de cabeçalho + 7 strings (2 bytes de tamanho cada, 'd' e 'u' com 1 byte)
+    assert len(encoded) == 32 + 7 * 2 + 2
+
+
+def test_rejects_oversized_string():
+    with pytest.raises(ValueError):
+        encode_raw_tracking({**MINIMAL_EVENT, "snapshotUrl": "x" * 0xFFFF})
+
+
+def test_content_type_matches_recognition_service():
+    assert CONTENT_TYPE == "application/vnd.safevision.raw-tracking.v1"
@@ -0,0 +1,56 @@
+"""
+Codificação binária compacta do RawTrackingEvent (schema v1).
+
+Espelha com.safevision.recognitionservice.codec.RawTrackingBinaryCodec no recognition-service.
+Layout big-endian: cabeçalho fixo de 32 bytes + 7 strings com prefixo de tamanho (uint16, 0xFFFF = null).
+Qualquer mudança no layout exige novo número de versão e atualização dos vetores de conformidade
+nos dois lados (tests/test_wire_format.py e RawTrackingWireFormatConformanceTest).
+"""
+import struct
+from decimal import Decimal, ROUND_HALF_UP
+
+CONTENT_TYPE = "application/vnd.safevision.raw-tracking.v1"
+VERSION = 1
+
+_HEADER = struct.Struct(">2sBBqiqq")
+_NULL_LENGTH = 0xFFFF
+_MAX_STRING_BYTES = 0xFFFE
+_COORDINATE_SCALE = Decimal(10) ** 7
+
+_FLAG_FACING = 1
+_FLAG_WEAPON = 1 << 1
+_FLAG_LATITUDE = 1 << 2
+_FLAG_LONGITUDE = 1 << 3
+
+_STRING_FIELDS = ("detectionId", "cameraId", "userId", "gazeDirection", "weaponType", "weaponLocation", "snapshotUrl")
+
+
+def _fixed_point(value):
+    if value is None:
+        return 0
+    return int((Decimal(str(value)) * _COORDINATE_SCALE).to_integral_value(rounding=ROUND_HALF_UP))
+
+
+def _string(value):
+    if value is None:
+        return struct.pack(">H", _NULL_LENGTH)
+    data = str(value).encode("utf-8")
+    if len(data) > _MAX_STRING_BYTES:
+        raise ValueError(f"String field too long for the wire format: {len(data)} bytes")
+    return struct.pack(">H", len(data)) + data
+
+
+def encode_raw_tracking(payload):
+    """Codifica o mesmo dicionário enviado como JSON (chaves camelCase) no formato binário v1."""
+    lat = payload.get("latitude")
+    lon = payload.get("longitude")
+    flags = ((_FLAG_FACING if payload.get("isFacingCamera") else 0)
+             | (_FLAG_WEAPON if payload.get("hasWeapon") else 0)
+             | (_FLAG_LATITUDE if lat is not None else 0)
+             | (_FLAG_LONGITUDE if lon is not None else 0))
+
+    header = _HEADER.pack(b"SV", VERSION, flags,
+                          int(payload.get("timestamp") or 0),
+                          int(payload.get("depthPosition") or 0),
+                          _fixed_point(lat), _fixed_point(lon))
+    return header + b"".join(_string(payload.get(field)) for field in _STRING_FIELDS)